@@ -46,9 +46,10 @@ public class EncodedGraph {
 
     /**
      * The "table of contents" of the encoded graph, i.e., the mapping from orderId numbers to the
-     * offset in the encoded byte[] array. Used as a cache during decoding.
+     * offset in the encoded byte[] array. Used as a cache during decoding. The field is volatile
+     * because encoded graphs can be shared between compiler threads that decode them concurrently.
      */
-    protected int[] nodeStartOffsets;
+    protected volatile int[] nodeStartOffsets;
 
     public EncodedGraph(byte[] encoding, int startOffset, Object[] objects, NodeClass<?>[] types, Assumptions assumptions, List<ResolvedJavaMethod> inlinedMethods, boolean trackNodeSourcePosition) {
         this.encoding = encoding;
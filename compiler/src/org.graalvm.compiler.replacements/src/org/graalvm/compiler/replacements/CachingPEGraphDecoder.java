@@ -74,13 +74,26 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
         this.graphCache = EconomicMap.create();
     }
 
+    /**
+     * Gets the providers used to parse and canonicalize the graphs that are cached by this decoder.
+     * By default, these are the same providers that are used for decoding.
+     */
+    protected Providers getParsingProviders() {
+        return providers;
+    }
+
     protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(IntrinsicContext initialIntrinsicContext) {
-        return new GraphBuilderPhase.Instance(providers.getMetaAccess(), providers.getStampProvider(), providers.getConstantReflection(), providers.getConstantFieldProvider(), graphBuilderConfig,
-                        optimisticOpts, initialIntrinsicContext);
+        Providers parsingProviders = getParsingProviders();
+        return new GraphBuilderPhase.Instance(parsingProviders.getMetaAccess(), parsingProviders.getStampProvider(), parsingProviders.getConstantReflection(),
+                        parsingProviders.getConstantFieldProvider(), graphBuilderConfig, optimisticOpts, initialIntrinsicContext);
     }
 
+    /**
+     * Parses {@code method} and encodes the resulting graph. The graph is not yet added to the
+     * cache of this decoder.
+     */
     @SuppressWarnings("try")
-    private EncodedGraph createGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider) {
+    protected EncodedGraph createGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider) {
         StructuredGraph graphToEncode = new StructuredGraph.Builder(options, debug, allowAssumptions).useProfilingInfo(false).trackNodeSourcePosition(
                         graphBuilderConfig.trackNodeSourcePosition()).method(method).build();
         try (DebugContext.Scope scope = debug.scope("createGraph", graphToEncode)) {
@@ -88,7 +101,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
             GraphBuilderPhase.Instance graphBuilderPhaseInstance = createGraphBuilderPhaseInstance(initialIntrinsicContext);
             graphBuilderPhaseInstance.apply(graphToEncode);
 
-            PhaseContext context = new PhaseContext(providers);
+            PhaseContext context = new PhaseContext(getParsingProviders());
             new CanonicalizerPhase().apply(graphToEncode, context);
             /*
              * ConvertDeoptimizeToGuardPhase reduces the number of merges in the graph, so that
@@ -97,9 +110,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
              */
             new ConvertDeoptimizeToGuardPhase().apply(graphToEncode, context);
 
-            EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graphToEncode, architecture);
-            graphCache.put(method, encodedGraph);
-            return encodedGraph;
+            return GraphEncoder.encodeSingleGraph(graphToEncode, architecture);
 
         } catch (Throwable ex) {
             throw debug.handle(ex);
@@ -111,6 +122,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
         EncodedGraph result = graphCache.get(method);
         if (result == null && method.hasBytecodes()) {
             result = createGraph(method, originalMethod, intrinsicBytecodeProvider);
+            graphCache.put(method, result);
         }
         return result;
     }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.benchmark;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the latency of Truffle compilations of SimpleLanguage functions, end to end and per
+ * stage. The time spent in the Graal tier and in code installation is only available as part of a
+ * full compilation and is reported by {@link CompilationStageStatistics} at the end of each trial,
+ * together with the graph sizes and the allocation of every stage.
+ */
+public class CompilationLatencyBenchmark extends TruffleCompilationBenchmark {
+
+    /**
+     * A complete compilation as done by the background compiler threads: inlining decisions,
+     * partial evaluation, the Graal tier and code installation.
+     */
+    @Benchmark
+    public Object compile(SLCompilationState s) {
+        TruffleInliningPlan inlining = s.createInliningPlan();
+        s.statistics.start();
+        s.compiler.doCompile(null, s.createCompilationId(), s.options, s.target, inlining, null, s.statistics, false);
+        s.statistics.checkSuccess();
+        return s.target;
+    }
+
+    /**
+     * Exploration of the call tree and the inlining decisions made for it.
+     */
+    @Benchmark
+    public TruffleInliningPlan inliningDecisions(SLCompilationState s) {
+        return s.createInliningPlan();
+    }
+
+    /**
+     * Partial evaluation of the function with its inlining decisions, up to the end of the Truffle
+     * tier.
+     */
+    @Benchmark
+    @SuppressWarnings("try")
+    public StructuredGraph partialEvaluation(SLCompilationState s) {
+        TruffleInliningPlan inlining = s.createInliningPlan();
+        DebugContext debug = s.createDebugContext();
+        try (DebugContext.Scope scope = debug.scope("TruffleCompilation")) {
+            return s.compiler.getPartialEvaluator().createGraph(debug, s.target, inlining, AllowAssumptions.YES, s.createCompilationId(), s.target.getSpeculationLog(), null);
+        } catch (Throwable e) {
+            throw debug.handle(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.benchmark;
+
+import java.io.PrintStream;
+
+import org.graalvm.compiler.debug.Management;
+import org.graalvm.compiler.truffle.common.CompilableTruffleAST;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener;
+import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
+
+/**
+ * Records the time, allocation and graph sizes of each stage of the compilations it listens to.
+ * The stages are delimited by the compiler's listener callbacks: partial evaluation ends with
+ * {@link #onTruffleTierFinished}, the Graal tier with {@link #onGraalTierFinished} and code
+ * installation with {@link #onSuccess}. Must only be used by a single thread.
+ */
+public final class CompilationStageStatistics implements TruffleCompilerListener {
+
+    private long stageStartTime;
+    private long stageStartBytes;
+
+    private int compilations;
+    private long partialEvaluationTime;
+    private long partialEvaluationBytes;
+    private long graalTime;
+    private long graalBytes;
+    private long installationTime;
+    private long installationBytes;
+    private long partialEvaluationNodes;
+    private long graalNodes;
+    private long codeSize;
+
+    private String failure;
+
+    /**
+     * Marks the start of a compilation.
+     */
+    public void start() {
+        failure = null;
+        stageStartTime = System.nanoTime();
+        stageStartBytes = Management.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Throws an {@link IllegalStateException} if the last compilation failed.
+     */
+    public void checkSuccess() {
+        if (failure != null) {
+            throw new IllegalStateException("Compilation failed: " + failure);
+        }
+    }
+
+    private long stageTime() {
+        long now = System.nanoTime();
+        long time = now - stageStartTime;
+        stageStartTime = now;
+        return time;
+    }
+
+    private long stageBytes() {
+        long bytes = Management.getCurrentThreadAllocatedBytes();
+        long allocated = bytes - stageStartBytes;
+        stageStartBytes = bytes;
+        return allocated;
+    }
+
+    @Override
+    public void onTruffleTierFinished(CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, GraphInfo graph) {
+        partialEvaluationTime += stageTime();
+        partialEvaluationBytes += stageBytes();
+        partialEvaluationNodes += graph.getNodeCount();
+    }
+
+    @Override
+    public void onGraalTierFinished(CompilableTruffleAST compilable, GraphInfo graph) {
+        graalTime += stageTime();
+        graalBytes += stageBytes();
+        graalNodes += graph.getNodeCount();
+    }
+
+    @Override
+    public void onSuccess(CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, GraphInfo graphInfo, CompilationResultInfo compilationResultInfo) {
+        installationTime += stageTime();
+        installationBytes += stageBytes();
+        codeSize += compilationResultInfo.getTargetCodeSize();
+        compilations++;
+    }
+
+    @Override
+    public void onFailure(CompilableTruffleAST compilable, String reason, boolean bailout, boolean permanentBailout) {
+        failure = reason;
+    }
+
+    /**
+     * Prints the average per compilation of every recorded quantity.
+     */
+    public void print(PrintStream out, String name) {
+        if (compilations == 0) {
+            return;
+        }
+        out.println();
+        out.printf("Truffle compilation stages of %s (average of %d compilations including warmup):%n", name, compilations);
+        out.printf("  %-20s %10.3f ms %12d bytes %8d nodes%n", "Partial evaluation", partialEvaluationTime / 1e6 / compilations, partialEvaluationBytes / compilations,
+                        partialEvaluationNodes / compilations);
+        out.printf("  %-20s %10.3f ms %12d bytes %8d nodes%n", "Graal tier", graalTime / 1e6 / compilations, graalBytes / compilations, graalNodes / compilations);
+        out.printf("  %-20s %10.3f ms %12d bytes %8d code bytes%n", "Code installation", installationTime / 1e6 / compilations, installationBytes / compilations,
+                        codeSize / compilations);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugHandlersFactory;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
+import org.graalvm.compiler.truffle.common.TruffleCompilerRuntime;
+import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
+import org.graalvm.compiler.truffle.compiler.TruffleCompilerImpl;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oracle.truffle.sl.SLLanguage;
+
+/**
+ * Thread-local state providing a warmed up SimpleLanguage function and a Truffle compiler to
+ * compile it with. The function is profiled in the interpreter during setup; automatic
+ * compilation is disabled, so the benchmarks are the only source of compilations.
+ * <p>
+ * The programs cover the shapes of code the Truffle compiler typically sees: a counting loop, a
+ * deep tree of recursive calls for inlining, object property accesses and string concatenation.
+ */
+@State(Scope.Thread)
+public class SLCompilationState {
+
+    private static final int WARMUP_CALLS = 50;
+
+    private static final Map<String, String> PROGRAMS = new HashMap<>();
+
+    static {
+        PROGRAMS.put("loop", "" +
+                        "function loop(n) {\n" +
+                        "  i = 0;\n" +
+                        "  sum = 0;\n" +
+                        "  while (i < n) {\n" +
+                        "    sum = sum + i;\n" +
+                        "    i = i + 1;\n" +
+                        "  }\n" +
+                        "  return sum;\n" +
+                        "}\n" +
+                        "function main() {\n" +
+                        "  return loop(1000);\n" +
+                        "}\n");
+        PROGRAMS.put("fibonacci", "" +
+                        "function fib(n) {\n" +
+                        "  if (n < 2) {\n" +
+                        "    return 1;\n" +
+                        "  }\n" +
+                        "  return fib(n - 1) + fib(n - 2);\n" +
+                        "}\n" +
+                        "function fibonacci(n) {\n" +
+                        "  return fib(n);\n" +
+                        "}\n" +
+                        "function main() {\n" +
+                        "  return fibonacci(12);\n" +
+                        "}\n");
+        PROGRAMS.put("objects", "" +
+                        "function point(x, y) {\n" +
+                        "  p = new();\n" +
+                        "  p.x = x;\n" +
+                        "  p.y = y;\n" +
+                        "  return p;\n" +
+                        "}\n" +
+                        "function objects(n) {\n" +
+                        "  i = 0;\n" +
+                        "  sum = 0;\n" +
+                        "  while (i < n) {\n" +
+                        "    p = point(i, i * 2);\n" +
+                        "    sum = sum + p.x * p.y;\n" +
+                        "    i = i + 1;\n" +
+                        "  }\n" +
+                        "  return sum;\n" +
+                        "}\n" +
+                        "function main() {\n" +
+                        "  return objects(100);\n" +
+                        "}\n");
+        PROGRAMS.put("strings", "" +
+                        "function strings(n) {\n" +
+                        "  s = \"\";\n" +
+                        "  i = 0;\n" +
+                        "  while (i < n) {\n" +
+                        "    s = s + i + \",\";\n" +
+                        "    i = i + 1;\n" +
+                        "  }\n" +
+                        "  return s;\n" +
+                        "}\n" +
+                        "function main() {\n" +
+                        "  return strings(50);\n" +
+                        "}\n");
+    }
+
+    /**
+     * Name of the program and of the function in it that gets compiled.
+     */
+    @Param({"loop", "fibonacci", "objects", "strings"}) public String program;
+
+    public GraalTruffleRuntime runtime;
+    public TruffleCompilerImpl compiler;
+    public OptionValues options;
+    public OptimizedCallTarget target;
+    public CompilationStageStatistics statistics;
+
+    private Context context;
+    private TruffleOptionsOverrideScope overrideScope;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        overrideScope = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleCompilationThreshold, Integer.MAX_VALUE / 2,
+                        TruffleCompilerOptions.TruffleBackgroundCompilation, false);
+        runtime = GraalTruffleRuntime.getRuntime();
+        compiler = (TruffleCompilerImpl) TruffleCompilerRuntime.getRuntime().newTruffleCompiler();
+        options = TruffleCompilerOptions.getOptions();
+        statistics = new CompilationStageStatistics();
+
+        context = Context.create(SLLanguage.ID);
+        context.eval(SLLanguage.ID, PROGRAMS.get(program));
+        Value main = context.lookup(SLLanguage.ID, "main");
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            main.execute();
+        }
+        context.enter();
+        try {
+            target = (OptimizedCallTarget) SLLanguage.getCurrentContext().getFunctionRegistry().lookup(program, false).getCallTarget();
+        } finally {
+            context.leave();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        statistics.print(System.out, program);
+        context.close();
+        overrideScope.close();
+    }
+
+    public TruffleInliningPlan createInliningPlan() {
+        return runtime.createInliningPlan(target);
+    }
+
+    public CompilationIdentifier createCompilationId() {
+        return compiler.getCompilationIdentifier(target);
+    }
+
+    /**
+     * Creates a debug context for running a compiler stage outside of a full compilation. A debug
+     * context must only be used by a single thread.
+     */
+    public DebugContext createDebugContext() {
+        return DebugContext.create(options, DebugHandlersFactory.LOADER);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.common;
+
+/**
+ * A snapshot of the counters of the cache of parsed graphs that is shared by the compilations of
+ * a {@link TruffleCompiler}.
+ *
+ * @see TruffleCompiler#getGraphCacheStatistics()
+ */
+public final class GraphCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+
+    public GraphCacheStatistics(long hits, long misses, long evictions, long invalidations) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    /** The number of lookups that found a graph. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** The number of lookups that found no graph, so the method had to be parsed. */
+    public long getMisses() {
+        return misses;
+    }
+
+    /** The number of graphs removed because the cache was full. */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** The number of graphs removed because a method they were built from was redefined. */
+    public long getInvalidations() {
+        return invalidations;
+    }
+}
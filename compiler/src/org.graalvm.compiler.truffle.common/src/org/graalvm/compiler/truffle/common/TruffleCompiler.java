@@ -63,8 +63,33 @@ public interface TruffleCompiler {
      * @param task an object that must be periodically queried during compilation to see if the
      *            compilation has been cancelled by the requestor
      */
+    default void doCompile(DebugContext debug, CompilationIdentifier compilationId, OptionValues options, CompilableTruffleAST compilable, TruffleInliningPlan inlining, Cancellable task,
+                    TruffleCompilerListener listener) {
+        doCompile(debug, compilationId, options, compilable, inlining, task, listener, false);
+    }
+
+    /**
+     * Compiles {@code compilable} to machine code.
+     *
+     * @param firstTier if {@code true}, {@code compilable} is compiled quickly without inlining of
+     *            Truffle calls and with a reduced set of optimizations. Otherwise the fully
+     *            optimizing compilation pipeline is used.
+     * @see #doCompile(DebugContext, CompilationIdentifier, OptionValues, CompilableTruffleAST,
+     *      TruffleInliningPlan, Cancellable, TruffleCompilerListener)
+     */
     void doCompile(DebugContext debug, CompilationIdentifier compilationId, OptionValues options, CompilableTruffleAST compilable, TruffleInliningPlan inlining, Cancellable task,
-                    TruffleCompilerListener listener);
+                    TruffleCompilerListener listener, boolean firstTier);
+
+    /**
+     * Gets statistics of the cache of parsed graphs that is shared by the compilations of this
+     * compiler.
+     *
+     * @return the current counters of the cache, or {@code null} if this compiler does not share
+     *         parsed graphs between compilations
+     */
+    default GraphCacheStatistics getGraphCacheStatistics() {
+        return null;
+    }
 
     /**
      * Notifies this object that it will no longer being used and should thus perform all relevant
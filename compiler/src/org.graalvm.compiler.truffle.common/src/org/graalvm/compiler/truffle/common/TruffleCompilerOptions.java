@@ -147,9 +147,27 @@ public class TruffleCompilerOptions {
     @Option(help = "Minimum number of calls before a call target is compiled", type = OptionType.Expert)
     public static final OptionKey<Integer> TruffleMinInvokeThreshold = new OptionKey<>(3);
 
+    @Option(help = "Compile call targets in two tiers: a quick first tier compilation without call target inlining, followed by a fully optimized second tier compilation once the call target exceeds the regular compilation threshold", type = OptionType.Expert)
+    public static final OptionKey<Boolean> TruffleMultiTier = new OptionKey<>(false);
+
+    @Option(help = "Compile call target in the first tier when call count exceeds this threshold (only used with TruffleMultiTier)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleFirstTierCompilationThreshold = new OptionKey<>(100);
+
+    @Option(help = "Minimum number of calls before a call target is compiled in the first tier (only used with TruffleMultiTier)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleFirstTierMinInvokeThreshold = new OptionKey<>(1);
+
     @Option(help = "Delay compilation after an invalidation to allow for reprofiling", type = OptionType.Expert)
     public static final OptionKey<Integer> TruffleInvalidationReprofileCount = new OptionKey<>(3);
 
+    @Option(help = "Number of invalidations of a call target within TruffleDeoptStormWindow after which recompilation is exponentially backed off (0 disables storm detection)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleDeoptStormThreshold = new OptionKey<>(5);
+
+    @Option(help = "Time window in milliseconds within which consecutive invalidations of a call target count towards a deoptimization storm", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleDeoptStormWindow = new OptionKey<>(1000);
+
+    @Option(help = "Maximum exponent of the reprofiling backoff applied to call targets in a deoptimization storm", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleDeoptStormMaxBackoff = new OptionKey<>(10);
+
     @Option(help = "Delay compilation after a node replacement", type = OptionType.Expert)
     public static final OptionKey<Integer> TruffleReplaceReprofileCount = new OptionKey<>(3);
 
@@ -162,6 +180,12 @@ public class TruffleCompilerOptions {
     @Option(help = "Maximum level of recursive inlining", type = OptionType.Expert)
     public static final OptionKey<Integer> TruffleMaximumRecursiveInlining = new OptionKey<>(4);
 
+    @Option(help = "Decide inlining of call targets while partially evaluating, based on the size of the partially evaluated graph, instead of exploring the call tree up front", type = OptionType.Expert)
+    public static final OptionKey<Boolean> TruffleDemandDrivenInlining = new OptionKey<>(false);
+
+    @Option(help = "Graph size in nodes up to which demand-driven inlining inlines calls. Call sites executed less often than their caller get a proportional share of this budget.", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleDemandDrivenInliningBudget = new OptionKey<>(30000);
+
     @Option(help = "Enable call target splitting", type = OptionType.Expert)
     public static final OptionKey<Boolean> TruffleSplitting = new OptionKey<>(true);
 
@@ -186,6 +210,24 @@ public class TruffleCompilerOptions {
     @Option(help = "Manually set the number of compiler threads", type = OptionType.Expert)
     public static final OptionKey<Integer> TruffleCompilerThreads = new OptionKey<>(0);
 
+    @Option(help = "Grow the compiler thread pool with the depth of the compilation queue and release idle compiler threads", type = OptionType.Expert)
+    public static final OptionKey<Boolean> TruffleElasticCompilerThreads = new OptionKey<>(false);
+
+    @Option(help = "Maximum number of compiler threads of the elastic compiler thread pool (0 uses half of the available processors)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleMaxCompilerThreads = new OptionKey<>(0);
+
+    @Option(help = "Number of queued compilations per compiler thread after which the elastic compiler thread pool starts another thread", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleCompilerThreadQueueDepth = new OptionKey<>(8);
+
+    @Option(help = "Time in milliseconds after which an idle thread of the elastic compiler thread pool is released", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleCompilerThreadIdleTimeout = new OptionKey<>(10000);
+
+    @Option(help = "Compile the hottest queued call target first instead of compiling in submission order", type = OptionType.Expert)
+    public static final OptionKey<Boolean> TruffleCompilationQueuePriority = new OptionKey<>(true);
+
+    @Option(help = "Drop a queued compilation if its call target was not called for this many milliseconds while waiting in the queue (0 to disable)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleCompilationQueueColdTimeout = new OptionKey<>(10000);
+
     @Option(help = "Enable inlining across Truffle boundary", type = OptionType.Expert)
     public static final OptionKey<Boolean> TruffleInlineAcrossTruffleBoundary = new OptionKey<>(false);
 
@@ -256,12 +298,18 @@ public class TruffleCompilerOptions {
     @Option(help = "Print additional more verbose Truffle compilation statistics at the end of a run.", type = OptionType.Debug)
     public static final OptionKey<Boolean> TruffleCompilationStatisticDetails = new OptionKey<>(false);
 
+    @Option(help = "Collect Truffle compilation metrics per engine and publish them as platform MXBeans.", type = OptionType.Debug)
+    public static final OptionKey<Boolean> TruffleCompilationMetrics = new OptionKey<>(false);
+
     @Option(help = "Enable support for simple infopoints in truffle partial evaluations.", type = OptionType.Expert)
     public static final OptionKey<Boolean> TruffleEnableInfopoints = new OptionKey<>(false);
 
     @Option(help = "Run the partial escape analysis iteratively in Truffle compilation.", type = OptionType.Debug)
     public static final OptionKey<Boolean> TruffleIterativePartialEscape = new OptionKey<>(false);
 
+    @Option(help = "Maximum number of parsed method graphs that are cached across Truffle compilations for partial evaluation (0 to disable)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TrufflePEGraphCacheSize = new OptionKey<>(4096);
+
     @Option(help = "Enable/disable builtin profiles in com.oracle.truffle.api.profiles.", type = OptionType.Debug)
     public static final OptionKey<Boolean> TruffleProfilingEnabled = new OptionKey<>(true);
 
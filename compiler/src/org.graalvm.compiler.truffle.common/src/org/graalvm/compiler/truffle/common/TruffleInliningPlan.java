@@ -67,5 +67,18 @@ public interface TruffleInliningPlan {
          * to which this decision pertains.
          */
         JavaConstant getNodeRewritingAssumption();
+
+        /**
+         * Gets the number of calls through the call site relative to the number of calls of the
+         * caller.
+         */
+        double getFrequency();
+
+        /**
+         * Records whether the compiler inlined the Truffle AST to which this decision pertains.
+         * The compiler may decline to inline a call even if {@link #shouldInline()} returns
+         * {@code true}, for example if its inlining budget is exhausted.
+         */
+        void setInlined(boolean inlined);
     }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.EncodedGraph;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * A size-bounded cache of {@link EncodedGraph encoded graphs} for partial evaluation that is
+ * shared by all Truffle compilations of a {@link PartialEvaluator}. Graphs are evicted in least
+ * recently used order once the cache holds more than {@code capacity} graphs.
+ *
+ * The graphs in this cache must not depend on the state of a particular compilation, i.e., they
+ * must be parsed without speculative assumptions and without folding Truffle compilation final
+ * fields.
+ */
+public final class EncodedGraphCache {
+
+    private static final CounterKey CacheHits = DebugContext.counter("TrufflePEGraphCacheHits");
+    private static final CounterKey CacheMisses = DebugContext.counter("TrufflePEGraphCacheMisses");
+    private static final CounterKey CacheEvictions = DebugContext.counter("TrufflePEGraphCacheEvictions");
+
+    private final int capacity;
+
+    /**
+     * Access ordered map of the cached graphs. All accesses must synchronize on this cache.
+     */
+    private final LinkedHashMap<Key, EncodedGraph> graphs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public EncodedGraphCache(int capacity) {
+        assert capacity > 0;
+        this.capacity = capacity;
+        this.graphs = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the cached graph of {@code method} parsed with the given configuration.
+     *
+     * @return {@code null} if there is no such graph in the cache
+     */
+    public EncodedGraph get(DebugContext debug, ResolvedJavaMethod method, boolean trackNodeSourcePosition, boolean inlineDuringParsing) {
+        Key key = new Key(method, trackNodeSourcePosition, inlineDuringParsing);
+        EncodedGraph graph;
+        synchronized (this) {
+            graph = graphs.get(key);
+        }
+        if (graph != null) {
+            hits.incrementAndGet();
+            CacheHits.increment(debug);
+        } else {
+            misses.incrementAndGet();
+            CacheMisses.increment(debug);
+        }
+        return graph;
+    }
+
+    /**
+     * Adds the graph of {@code method} parsed with the given configuration to the cache, evicting
+     * the least recently used graphs if the capacity of the cache is exceeded.
+     */
+    public void put(DebugContext debug, ResolvedJavaMethod method, boolean trackNodeSourcePosition, boolean inlineDuringParsing, EncodedGraph graph) {
+        Key key = new Key(method, trackNodeSourcePosition, inlineDuringParsing);
+        int evicted = 0;
+        synchronized (this) {
+            graphs.put(key, graph);
+            Iterator<EncodedGraph> iterator = graphs.values().iterator();
+            while (graphs.size() > capacity) {
+                iterator.next();
+                iterator.remove();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+            CacheEvictions.add(debug, evicted);
+        }
+    }
+
+    /**
+     * Removes the graphs that were created from one of {@code methods}, including the graphs into
+     * which one of {@code methods} was inlined during parsing.
+     *
+     * @see #invalidateRedefined(Collection)
+     */
+    public void invalidate(Collection<ResolvedJavaMethod> methods) {
+        Set<ResolvedJavaMethod> methodSet = new HashSet<>(methods);
+        int invalidated = 0;
+        synchronized (this) {
+            Iterator<Map.Entry<Key, EncodedGraph>> iterator = graphs.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, EncodedGraph> entry = iterator.next();
+                if (dependsOn(entry.getKey().method, entry.getValue(), methodSet)) {
+                    iterator.remove();
+                    invalidated++;
+                }
+            }
+        }
+        if (invalidated > 0) {
+            invalidations.addAndGet(invalidated);
+        }
+    }
+
+    /**
+     * Removes the graphs that depend on one of {@code methods} whose bytecode was changed by a
+     * class redefinition since it was parsed. Graphs of methods that were not redefined stay in the
+     * cache, so a failed code installation that was caused by an invalidated assumption does not
+     * discard them.
+     */
+    public void invalidateRedefined(Collection<ResolvedJavaMethod> methods) {
+        List<ResolvedJavaMethod> redefined = new ArrayList<>();
+        for (ResolvedJavaMethod method : methods) {
+            if (isRedefined(method)) {
+                redefined.add(method);
+            }
+        }
+        if (!redefined.isEmpty()) {
+            invalidate(redefined);
+        }
+    }
+
+    /**
+     * Determines if the current definition of {@code method} in its declaring class has different
+     * bytecode than {@code method}, or no longer exists.
+     */
+    private static boolean isRedefined(ResolvedJavaMethod method) {
+        ResolvedJavaType holder = method.getDeclaringClass();
+        ResolvedJavaMethod[] current;
+        if (method.isClassInitializer()) {
+            ResolvedJavaMethod initializer = holder.getClassInitializer();
+            current = initializer == null ? new ResolvedJavaMethod[0] : new ResolvedJavaMethod[]{initializer};
+        } else {
+            current = method.isConstructor() ? holder.getDeclaredConstructors() : holder.getDeclaredMethods();
+        }
+        String descriptor = method.getSignature().toMethodDescriptor();
+        for (ResolvedJavaMethod candidate : current) {
+            if (candidate.getName().equals(method.getName()) && candidate.getSignature().toMethodDescriptor().equals(descriptor)) {
+                return !Arrays.equals(candidate.getCode(), method.getCode());
+            }
+        }
+        return true;
+    }
+
+    private static boolean dependsOn(ResolvedJavaMethod method, EncodedGraph graph, Set<ResolvedJavaMethod> methods) {
+        if (methods.contains(method)) {
+            return true;
+        }
+        if (graph.getInlinedMethods() != null) {
+            for (ResolvedJavaMethod inlined : graph.getInlinedMethods()) {
+                if (methods.contains(inlined)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all graphs from the cache.
+     */
+    public synchronized void clear() {
+        graphs.clear();
+    }
+
+    public synchronized int size() {
+        return graphs.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EncodedGraphCache(size=%d/%d, hits=%d, misses=%d, evictions=%d, invalidations=%d)", size(), capacity, getHits(), getMisses(), getEvictions(), getInvalidations());
+    }
+
+    private static final class Key {
+        final ResolvedJavaMethod method;
+        final boolean trackNodeSourcePosition;
+        final boolean inlineDuringParsing;
+
+        Key(ResolvedJavaMethod method, boolean trackNodeSourcePosition, boolean inlineDuringParsing) {
+            this.method = method;
+            this.trackNodeSourcePosition = trackNodeSourcePosition;
+            this.inlineDuringParsing = inlineDuringParsing;
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() * 31 + (trackNodeSourcePosition ? 2 : 0) + (inlineDuringParsing ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return method.equals(other.method) && trackNodeSourcePosition == other.trackNodeSourcePosition && inlineDuringParsing == other.inlineDuringParsing;
+            }
+            return false;
+        }
+    }
+}
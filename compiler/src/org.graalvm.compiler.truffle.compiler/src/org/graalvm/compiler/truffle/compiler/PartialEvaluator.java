@@ -26,11 +26,14 @@ import static org.graalvm.compiler.nodes.graphbuilderconf.InlineInvokePlugin.Inl
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.PrintTruffleExpansionHistogram;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TraceTrufflePerformanceWarnings;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TraceTruffleStackTraceLimit;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleDemandDrivenInlining;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleDemandDrivenInliningBudget;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleFunctionInlining;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleInlineAcrossTruffleBoundary;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleInstrumentBoundaries;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleInstrumentBranches;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleIterativePartialEscape;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TrufflePEGraphCacheSize;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TrufflePerformanceWarningsAreFatal;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerRuntime.getRuntime;
 
@@ -134,6 +137,7 @@ public abstract class PartialEvaluator {
     private final InvocationPlugins decodingInvocationPlugins;
     private final NodePlugin[] nodePlugins;
     private final KnownTruffleTypes knownTruffleTypes;
+    private final EncodedGraphCache graphCache;
 
     public PartialEvaluator(Providers providers, GraphBuilderConfiguration configForRoot, SnippetReflectionProvider snippetReflection, Architecture architecture,
                     InstrumentPhase.Instrumentation instrumentation, KnownTruffleTypes knownFields) {
@@ -159,6 +163,9 @@ public abstract class PartialEvaluator {
         this.configForParsing = createGraphBuilderConfig(configForRoot, true);
         this.decodingInvocationPlugins = createDecodingInvocationPlugins(configForRoot.getPlugins());
         this.nodePlugins = createNodePlugins(configForRoot.getPlugins());
+
+        int graphCacheSize = TruffleCompilerOptions.getValue(TrufflePEGraphCacheSize);
+        this.graphCache = graphCacheSize > 0 ? new EncodedGraphCache(graphCacheSize) : null;
     }
 
     static ResolvedJavaMethod findRequiredMethod(ResolvedJavaType declaringClass, ResolvedJavaMethod[] methods, String name, String descriptor) {
@@ -178,6 +185,15 @@ public abstract class PartialEvaluator {
         return configForParsing;
     }
 
+    /**
+     * Gets the cache of parsed graphs shared by all compilations of this partial evaluator.
+     *
+     * @return {@code null} if the cache is disabled
+     */
+    public EncodedGraphCache getGraphCache() {
+        return graphCache;
+    }
+
     public KnownTruffleTypes getKnownTruffleTypes() {
         return knownTruffleTypes;
     }
@@ -190,9 +206,20 @@ public abstract class PartialEvaluator {
         return new ResolvedJavaMethod[]{callSiteProxyMethod, callDirectMethod};
     }
 
-    @SuppressWarnings("try")
     public StructuredGraph createGraph(DebugContext debug, final CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan,
                     AllowAssumptions allowAssumptions, CompilationIdentifier compilationId, SpeculationLog log, Cancellable cancellable) {
+        return createGraph(debug, compilable, inliningPlan, allowAssumptions, compilationId, log, cancellable, false);
+    }
+
+    /**
+     * Creates the partially evaluated graph for {@code compilable}.
+     *
+     * @param firstTier if {@code true}, the graph is created for a first tier compilation in which
+     *            no Truffle calls are inlined
+     */
+    @SuppressWarnings("try")
+    public StructuredGraph createGraph(DebugContext debug, final CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan,
+                    AllowAssumptions allowAssumptions, CompilationIdentifier compilationId, SpeculationLog log, Cancellable cancellable, boolean firstTier) {
 
         String name = compilable.toString();
         OptionValues options = TruffleCompilerOptions.getOptions();
@@ -213,7 +240,7 @@ public abstract class PartialEvaluator {
             PhaseContext baseContext = new PhaseContext(providers);
             HighTierContext tierContext = new HighTierContext(providers, new PhaseSuite<HighTierContext>(), OptimisticOptimizations.NONE);
 
-            fastPartialEvaluation(compilable, inliningPlan, graph, baseContext, tierContext);
+            fastPartialEvaluation(compilable, inliningPlan, graph, baseContext, tierContext, firstTier);
 
             if (cancellable != null && cancellable.isCancelled()) {
                 return null;
@@ -260,10 +287,29 @@ public abstract class PartialEvaluator {
 
         private Deque<TruffleInliningPlan> inlining;
         private JavaConstant lastDirectCallNode;
+        private final boolean inlineCalls;
+        private final boolean demandDriven;
+        private final int inliningBudget;
 
-        PEInlineInvokePlugin(TruffleInliningPlan inlining) {
+        PEInlineInvokePlugin(TruffleInliningPlan inlining, boolean inlineCalls) {
             this.inlining = new ArrayDeque<>();
             this.inlining.push(inlining);
+            this.inlineCalls = inlineCalls;
+            this.demandDriven = TruffleCompilerOptions.getValue(TruffleDemandDrivenInlining);
+            this.inliningBudget = TruffleCompilerOptions.getValue(TruffleDemandDrivenInliningBudget);
+        }
+
+        /**
+         * Decides whether a call that the inlining plan allows to be inlined fits into the
+         * remaining budget of the graph being partially evaluated. Call sites that are executed
+         * less often than their caller may only use a proportional share of the budget, so that
+         * cold calls are only inlined while the graph is still small.
+         */
+        private boolean fitsInliningBudget(GraphBuilderContext builder, TruffleInliningPlan.Decision decision) {
+            double share = Math.min(1.0D, decision.getFrequency());
+            boolean inline = builder.getGraph().getNodeCount() < inliningBudget * share;
+            decision.setInlined(inline);
+            return inline;
         }
 
         @Override
@@ -275,7 +321,7 @@ public abstract class PartialEvaluator {
             }
             assert !builder.parsingIntrinsic();
 
-            if (TruffleCompilerOptions.getValue(TruffleFunctionInlining)) {
+            if (inlineCalls && TruffleCompilerOptions.getValue(TruffleFunctionInlining)) {
                 if (original.equals(callSiteProxyMethod)) {
                     ValueNode arg0 = arguments[0];
                     if (!arg0.isConstant()) {
@@ -286,7 +332,7 @@ public abstract class PartialEvaluator {
                 } else if (original.equals(callDirectMethod)) {
                     TruffleInliningPlan.Decision decision = getDecision(inlining.peek(), lastDirectCallNode);
                     lastDirectCallNode = null;
-                    if (decision != null && decision.shouldInline()) {
+                    if (decision != null && decision.shouldInline() && (!demandDriven || fitsInliningBudget(builder, decision))) {
                         inlining.push(decision);
                         JavaConstant assumption = decision.getNodeRewritingAssumption();
                         builder.getAssumptions().record(new TruffleAssumption(assumption));
@@ -386,22 +432,27 @@ public abstract class PartialEvaluator {
         plugins.clearInlineInvokePlugins();
         plugins.appendInlineInvokePlugin(replacements);
         plugins.appendInlineInvokePlugin(new ParsingInlineInvokePlugin(replacements, parsingInvocationPlugins, loopExplosionPlugin));
-        if (!TruffleCompilerOptions.getValue(PrintTruffleExpansionHistogram)) {
+        boolean inlineDuringParsing = !TruffleCompilerOptions.getValue(PrintTruffleExpansionHistogram);
+        if (inlineDuringParsing) {
             plugins.appendInlineInvokePlugin(new InlineDuringParsingPlugin());
         }
 
         Providers compilationUnitProviders = providers.copyWith(new TruffleConstantFieldProvider(providers.getConstantFieldProvider(), providers.getMetaAccess()));
+        if (graphCache != null) {
+            return new SharedCachingPEGraphDecoder(architecture, graph, compilationUnitProviders, providers, newConfig, TruffleCompilerImpl.Optimizations, loopExplosionPlugin,
+                            decodingInvocationPlugins, inlineInvokePlugins, parameterPlugin, nodePluginList, callInlined, graphCache, inlineDuringParsing);
+        }
         return new CachingPEGraphDecoder(architecture, graph, compilationUnitProviders, newConfig, TruffleCompilerImpl.Optimizations, AllowAssumptions.ifNonNull(graph.getAssumptions()),
                         loopExplosionPlugin, decodingInvocationPlugins, inlineInvokePlugins, parameterPlugin, nodePluginList, callInlined);
     }
 
-    protected void doGraphPE(CompilableTruffleAST compilable, StructuredGraph graph, HighTierContext tierContext, TruffleInliningPlan inliningDecision) {
+    protected void doGraphPE(CompilableTruffleAST compilable, StructuredGraph graph, HighTierContext tierContext, TruffleInliningPlan inliningDecision, boolean firstTier) {
         LoopExplosionPlugin loopExplosionPlugin = new PELoopExplosionPlugin();
         ParameterPlugin parameterPlugin = new InterceptReceiverPlugin(compilable);
 
         ReplacementsImpl replacements = (ReplacementsImpl) providers.getReplacements();
         InlineInvokePlugin[] inlineInvokePlugins;
-        InlineInvokePlugin inlineInvokePlugin = new PEInlineInvokePlugin(inliningDecision);
+        InlineInvokePlugin inlineInvokePlugin = new PEInlineInvokePlugin(inliningDecision, !firstTier);
 
         HistogramInlineInvokePlugin histogramPlugin = null;
         if (TruffleCompilerOptions.getValue(PrintTruffleExpansionHistogram)) {
@@ -449,9 +500,10 @@ public abstract class PartialEvaluator {
     }
 
     @SuppressWarnings({"try", "unused"})
-    private void fastPartialEvaluation(CompilableTruffleAST compilable, TruffleInliningPlan inliningDecision, StructuredGraph graph, PhaseContext baseContext, HighTierContext tierContext) {
+    private void fastPartialEvaluation(CompilableTruffleAST compilable, TruffleInliningPlan inliningDecision, StructuredGraph graph, PhaseContext baseContext, HighTierContext tierContext,
+                    boolean firstTier) {
         DebugContext debug = graph.getDebug();
-        doGraphPE(compilable, graph, tierContext, inliningDecision);
+        doGraphPE(compilable, graph, tierContext, inliningDecision, firstTier);
         debug.dump(DebugContext.BASIC_LEVEL, graph, "After Partial Evaluation");
 
         graph.maybeCompress();
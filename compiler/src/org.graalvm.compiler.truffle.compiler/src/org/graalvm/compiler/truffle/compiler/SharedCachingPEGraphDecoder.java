@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.compiler;
+
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.compiler.bytecode.BytecodeProvider;
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import org.graalvm.compiler.nodes.graphbuilderconf.InlineInvokePlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.LoopExplosionPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.NodePlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.ParameterPlugin;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.util.Providers;
+import org.graalvm.compiler.replacements.CachingPEGraphDecoder;
+
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A graph decoder that looks up the graphs of inlined methods in an {@link EncodedGraphCache}
+ * shared between compilations before parsing them.
+ *
+ * To make the parsed graphs independent of a particular compilation, methods are parsed without
+ * assumptions and with {@code parsingProviders} that do not fold Truffle compilation final fields.
+ * Such folding is instead performed when the graph is decoded. The methods used to build the
+ * cached graphs are recorded in the partial evaluation graph so that the installation of the
+ * compiled code fails if any of them was redefined in the meantime.
+ */
+final class SharedCachingPEGraphDecoder extends CachingPEGraphDecoder {
+
+    private final EncodedGraphCache sharedCache;
+    private final Providers parsingProviders;
+    private final boolean inlineDuringParsing;
+    private final EconomicSet<ResolvedJavaMethod> recordedMethods;
+
+    SharedCachingPEGraphDecoder(Architecture architecture, StructuredGraph graph, Providers providers, Providers parsingProviders, GraphBuilderConfiguration graphBuilderConfig,
+                    OptimisticOptimizations optimisticOpts, LoopExplosionPlugin loopExplosionPlugin, InvocationPlugins invocationPlugins, InlineInvokePlugin[] inlineInvokePlugins,
+                    ParameterPlugin parameterPlugin, NodePlugin[] nodePlugins, ResolvedJavaMethod callInlinedMethod, EncodedGraphCache sharedCache, boolean inlineDuringParsing) {
+        super(architecture, graph, providers, graphBuilderConfig, optimisticOpts, AllowAssumptions.NO, loopExplosionPlugin, invocationPlugins, inlineInvokePlugins, parameterPlugin, nodePlugins,
+                        callInlinedMethod);
+        this.sharedCache = sharedCache;
+        this.parsingProviders = parsingProviders;
+        this.inlineDuringParsing = inlineDuringParsing;
+        this.recordedMethods = EconomicSet.create();
+    }
+
+    @Override
+    protected Providers getParsingProviders() {
+        return parsingProviders;
+    }
+
+    @Override
+    protected EncodedGraph createGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider) {
+        if (intrinsicBytecodeProvider != null) {
+            // The graph of an intrinsic depends on the original method, so it is not shared.
+            return super.createGraph(method, originalMethod, intrinsicBytecodeProvider);
+        }
+        boolean trackNodeSourcePosition = graphBuilderConfig.trackNodeSourcePosition();
+        EncodedGraph encodedGraph = sharedCache.get(debug, method, trackNodeSourcePosition, inlineDuringParsing);
+        if (encodedGraph == null) {
+            encodedGraph = super.createGraph(method, originalMethod, intrinsicBytecodeProvider);
+            sharedCache.put(debug, method, trackNodeSourcePosition, inlineDuringParsing, encodedGraph);
+        }
+        recordMethod(method);
+        if (encodedGraph.getInlinedMethods() != null) {
+            for (ResolvedJavaMethod inlinedMethod : encodedGraph.getInlinedMethods()) {
+                recordMethod(inlinedMethod);
+            }
+        }
+        return encodedGraph;
+    }
+
+    private void recordMethod(ResolvedJavaMethod method) {
+        if (recordedMethods.add(method)) {
+            graph.recordMethod(method);
+        }
+    }
+}
@@ -39,6 +39,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -62,6 +63,12 @@ import org.graalvm.compiler.debug.TTY;
 import org.graalvm.compiler.debug.TimerKey;
 import org.graalvm.compiler.lir.asm.CompilationResultBuilderFactory;
 import org.graalvm.compiler.lir.phases.LIRSuites;
+import org.graalvm.compiler.loop.phases.LoopFullUnrollPhase;
+import org.graalvm.compiler.loop.phases.LoopPartialUnrollPhase;
+import org.graalvm.compiler.loop.phases.LoopPeelingPhase;
+import org.graalvm.compiler.loop.phases.LoopSafepointEliminationPhase;
+import org.graalvm.compiler.loop.phases.LoopUnswitchingPhase;
+import org.graalvm.compiler.loop.phases.ReassociateInvariantPhase;
 import org.graalvm.compiler.nodes.Cancellable;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
@@ -69,11 +76,20 @@ import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.BytecodeExceptionMode;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
 import org.graalvm.compiler.phases.OptimisticOptimizations;
 import org.graalvm.compiler.phases.PhaseSuite;
+import org.graalvm.compiler.phases.common.ConvertDeoptimizeToGuardPhase;
+import org.graalvm.compiler.phases.common.DeoptimizationGroupingPhase;
+import org.graalvm.compiler.phases.common.FloatingReadPhase;
+import org.graalvm.compiler.phases.common.IterativeConditionalEliminationPhase;
+import org.graalvm.compiler.phases.common.LockEliminationPhase;
+import org.graalvm.compiler.phases.common.inlining.InliningPhase;
 import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
 import org.graalvm.compiler.phases.tiers.Suites;
 import org.graalvm.compiler.phases.util.Providers;
+import org.graalvm.compiler.truffle.common.GraphCacheStatistics;
 import org.graalvm.compiler.truffle.common.CompilableTruffleAST;
 import org.graalvm.compiler.truffle.common.TruffleCompiler;
 import org.graalvm.compiler.truffle.common.TruffleCompilerListener;
@@ -83,6 +99,8 @@ import org.graalvm.compiler.truffle.common.TruffleDebugJavaMethod;
 import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
 import org.graalvm.compiler.truffle.compiler.nodes.TruffleAssumption;
 import org.graalvm.compiler.truffle.compiler.phases.InstrumentPhase;
+import org.graalvm.compiler.virtual.phases.ea.EarlyReadEliminationPhase;
+import org.graalvm.compiler.virtual.phases.ea.PartialEscapePhase;
 
 import jdk.vm.ci.code.BailoutException;
 import jdk.vm.ci.code.CompilationRequest;
@@ -107,6 +125,12 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
     protected final Suites suites;
     protected final GraphBuilderConfiguration config;
     protected final LIRSuites lirSuites;
+
+    /**
+     * The suites used for first tier compilations, derived from {@link #suites} by removing the
+     * expensive optimizations.
+     */
+    protected final Suites firstTierSuites;
     protected final PartialEvaluator partialEvaluator;
     protected final Backend backend;
     protected final SnippetReflectionProvider snippetReflection;
@@ -132,6 +156,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         this.providers = backend.getProviders();
         this.suites = suites;
         this.lirSuites = lirSuites;
+        this.firstTierSuites = createFirstTierSuites(suites);
         this.codeInstallationTaskFactory = new TrufflePostCodeInstallationTaskFactory();
         backend.addCodeInstallationTask(codeInstallationTaskFactory);
 
@@ -146,6 +171,52 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         this.partialEvaluator = createPartialEvaluator();
     }
 
+    /**
+     * Creates the suites for first tier compilations. The high and mid tier optimizations that do
+     * not pay off for code that is only executed until the second tier compilation is installed
+     * are removed. The low tier and all phases required for correctness (e.g., lowering or the
+     * platform specific phases added by the backend) are retained.
+     */
+    protected static Suites createFirstTierSuites(Suites suites) {
+        Suites firstTier = suites.copy();
+        PhaseSuite<HighTierContext> highTier = firstTier.getHighTier();
+        removePhases(highTier, InliningPhase.class);
+        removePhases(highTier, ConvertDeoptimizeToGuardPhase.class);
+        removePhases(highTier, IterativeConditionalEliminationPhase.class);
+        removePhases(highTier, LoopFullUnrollPhase.class);
+        removePhases(highTier, LoopPeelingPhase.class);
+        removePhases(highTier, LoopUnswitchingPhase.class);
+        removePhases(highTier, PartialEscapePhase.class);
+        removePhases(highTier, EarlyReadEliminationPhase.class);
+
+        PhaseSuite<MidTierContext> midTier = firstTier.getMidTier();
+        removePhases(midTier, LockEliminationPhase.class);
+        removePhases(midTier, FloatingReadPhase.class);
+        removePhases(midTier, IterativeConditionalEliminationPhase.class);
+        removePhases(midTier, LoopSafepointEliminationPhase.class);
+        removePhases(midTier, LoopPartialUnrollPhase.class);
+        removePhases(midTier, ReassociateInvariantPhase.class);
+        removePhases(midTier, DeoptimizationGroupingPhase.class);
+        if (suites.isImmutable()) {
+            firstTier.setImmutable();
+        }
+        return firstTier;
+    }
+
+    /**
+     * Removes all top level phases of {@code suite} that are or contain an instance of
+     * {@code phaseClass}. Nested suites are removed as a whole as they may be shared with the
+     * suite {@code suite} was copied from.
+     */
+    private static <C> void removePhases(PhaseSuite<C> suite, Class<? extends BasePhase<? super C>> phaseClass) {
+        ListIterator<BasePhase<? super C>> it = suite.findPhase(phaseClass, true);
+        while (it != null) {
+            it.previous();
+            it.remove();
+            it = suite.findPhase(phaseClass, true);
+        }
+    }
+
     private ResolvedJavaType[] getSkippedExceptionTypes(TruffleCompilerRuntime runtime) {
         final MetaAccessProvider metaAccess = providers.getMetaAccess();
         ResolvedJavaType[] head = metaAccess.lookupJavaTypes(new Class<?>[]{
@@ -209,12 +280,12 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
     @Override
     @SuppressWarnings("try")
     public void doCompile(DebugContext inDebug, CompilationIdentifier inCompilationId, OptionValues options, CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, Cancellable cancellable,
-                    TruffleCompilerListener listener) {
+                    TruffleCompilerListener listener, boolean firstTier) {
         CompilationIdentifier compilationId = inCompilationId == null ? getCompilationIdentifier(compilable) : inCompilationId;
         DebugContext debug = inDebug == null ? openDebugContext(options, compilationId, compilable) : inDebug;
         try (DebugContext debugToClose = debug == inDebug ? null : debug;
                         DebugContext.Scope s = maybeOpenTruffleScope(compilable, debug)) {
-            new TruffleCompilationWrapper(getDebugOutputDirectory(), getCompilationProblemsPerAction(), compilable, cancellable, inliningPlan, compilationId, listener).run(debug);
+            new TruffleCompilationWrapper(getDebugOutputDirectory(), getCompilationProblemsPerAction(), compilable, cancellable, inliningPlan, compilationId, listener, firstTier).run(debug);
         } catch (Throwable e) {
             notifyCompilableOfFailure(compilable, e);
         }
@@ -250,6 +321,15 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         compilable.onCompilationFailed(reasonAndStackTrace, bailout != null, permanentBailout);
     }
 
+    @Override
+    public GraphCacheStatistics getGraphCacheStatistics() {
+        EncodedGraphCache graphCache = partialEvaluator.getGraphCache();
+        if (graphCache == null) {
+            return null;
+        }
+        return new GraphCacheStatistics(graphCache.getHits(), graphCache.getMisses(), graphCache.getEvictions(), graphCache.getInvalidations());
+    }
+
     @Override
     public void shutdown() {
         InstrumentPhase.Instrumentation ins = this.instrumentation;
@@ -355,9 +435,22 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
      *            cancellable requests it
      * @param listener
      */
-    @SuppressWarnings("try")
     public void compileAST(DebugContext debug, final CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, Cancellable cancellable,
                     TruffleCompilerListener listener) {
+        compileAST(debug, compilable, inliningPlan, compilationId, cancellable, listener, false);
+    }
+
+    /**
+     * Compiles a Truffle AST in the first or second tier.
+     *
+     * @param firstTier specifies if the AST is compiled without Truffle call inlining and with
+     *            {@link #firstTierSuites}
+     * @see #compileAST(DebugContext, CompilableTruffleAST, TruffleInliningPlan,
+     *      CompilationIdentifier, Cancellable, TruffleCompilerListener)
+     */
+    @SuppressWarnings("try")
+    public void compileAST(DebugContext debug, final CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, Cancellable cancellable,
+                    TruffleCompilerListener listener, boolean firstTier) {
         final CompilationPrinter printer = CompilationPrinter.begin(TruffleCompilerOptions.getOptions(), compilationId, new TruffleDebugJavaMethod(compilable), INVOCATION_ENTRY_BCI);
         StructuredGraph graph = null;
 
@@ -372,7 +465,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
             }
 
             try (DebugCloseable a = PartialEvaluationTime.start(debug); DebugCloseable c = PartialEvaluationMemUse.start(debug)) {
-                graph = partialEvaluator.createGraph(debug, compilable, inliningPlan, AllowAssumptions.YES, compilationId, speculationLog, cancellable);
+                graph = partialEvaluator.createGraph(debug, compilable, inliningPlan, AllowAssumptions.YES, compilationId, speculationLog, cancellable, firstTier);
             }
 
             // Check if the task has been cancelled
@@ -383,7 +476,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
             if (listener != null) {
                 listener.onTruffleTierFinished(compilable, inliningPlan, new GraphInfoImpl(graph));
             }
-            CompilationResult compilationResult = compilePEGraph(graph, compilable.toString(), graphBuilderSuite, compilable, asCompilationRequest(compilationId), listener);
+            CompilationResult compilationResult = compilePEGraph(graph, compilable.toString(), graphBuilderSuite, compilable, asCompilationRequest(compilationId), listener, firstTier);
             if (listener != null) {
                 listener.onSuccess(compilable, inliningPlan, new GraphInfoImpl(graph), new CompilationResultInfoImpl(compilationResult));
             }
@@ -420,9 +513,18 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
      * @param compilationRequest
      * @param listener
      */
-    @SuppressWarnings("try")
     public CompilationResult compilePEGraph(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, CompilableTruffleAST compilable,
                     CompilationRequest compilationRequest, TruffleCompilerListener listener) {
+        return compilePEGraph(graph, name, graphBuilderSuite, compilable, compilationRequest, listener, false);
+    }
+
+    /**
+     * Compiles a graph produced by {@link PartialEvaluator#createGraph partial evaluation} with
+     * either the {@link #firstTierSuites first tier} or the default suites.
+     */
+    @SuppressWarnings("try")
+    public CompilationResult compilePEGraph(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, CompilableTruffleAST compilable,
+                    CompilationRequest compilationRequest, TruffleCompilerListener listener, boolean firstTier) {
         DebugContext debug = graph.getDebug();
         try (DebugContext.Scope s = debug.scope("TruffleFinal")) {
             debug.dump(DebugContext.BASIC_LEVEL, graph, "After TruffleTier");
@@ -437,8 +539,9 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
                         DebugCloseable c = CompilationMemUse.start(debug)) {
 
             CompilationResult compilationResult = createCompilationResult(name, graph.compilationId());
-            result = GraalCompiler.compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), suites, lirSuites, compilationResult,
-                            CompilationResultBuilderFactory.Default);
+            Suites compilationSuites = firstTier ? firstTierSuites : suites;
+            result = GraalCompiler.compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), compilationSuites, lirSuites,
+                            compilationResult, CompilationResultBuilderFactory.Default);
         } catch (Throwable e) {
             throw debug.handle(e);
         }
@@ -451,6 +554,18 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         try (DebugCloseable a = CodeInstallationTime.start(debug); DebugCloseable c = CodeInstallationMemUse.start(debug)) {
             backend.createInstalledCode(debug, graph.method(), compilationRequest, result, graph.getSpeculationLog(), predefinedInstalledCode, false);
         } catch (Throwable e) {
+            if (e instanceof BailoutException) {
+                /*
+                 * Installation fails if a method used to build the graph was redefined, but also
+                 * if an assumption of the compilation was invalidated, which is far more common
+                 * and leaves the shared graphs valid. Only the graphs of methods whose bytecode
+                 * really changed are removed.
+                 */
+                EncodedGraphCache graphCache = partialEvaluator.getGraphCache();
+                if (graphCache != null && graph.getMethods() != null) {
+                    graphCache.invalidateRedefined(graph.getMethods());
+                }
+            }
             throw debug.handle(e);
         }
 
@@ -480,15 +595,17 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         private final Cancellable cancellable;
         private final TruffleCompilerListener listener;
         private final CompilationIdentifier compilationId;
+        private final boolean firstTier;
 
         private TruffleCompilationWrapper(DiagnosticsOutputDirectory outputDirectory, Map<ExceptionAction, Integer> problemsHandledPerAction, CompilableTruffleAST optimizedCallTarget,
-                        Cancellable cancellable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, TruffleCompilerListener listener) {
+                        Cancellable cancellable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, TruffleCompilerListener listener, boolean firstTier) {
             super(outputDirectory, problemsHandledPerAction);
             this.compilable = optimizedCallTarget;
             this.inliningPlan = inliningPlan;
             this.cancellable = cancellable;
             this.listener = listener;
             this.compilationId = compilationId;
+            this.firstTier = firstTier;
         }
 
         @Override
@@ -509,7 +626,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
 
         @Override
         protected Void performCompilation(DebugContext debug) {
-            compileAST(debug, compilable, inliningPlan, compilationId, cancellable, listener);
+            compileAST(debug, compilable, inliningPlan, compilationId, cancellable, listener, firstTier);
             return null;
         }
     }
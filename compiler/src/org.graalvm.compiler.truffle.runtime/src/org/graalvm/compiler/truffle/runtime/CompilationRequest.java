@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A compilation of an {@link OptimizedCallTarget} waiting in the background compilation queue.
+ * The call target is only weakly referenced so that queued compilations do not keep otherwise
+ * unreachable ASTs alive.
+ */
+final class CompilationRequest extends FutureTask<Void> implements TraversingBlockingQueue.Prioritized {
+
+    private final GraalTruffleRuntime runtime;
+    private final WeakReference<OptimizedCallTarget> weakCallTarget;
+    private final CancellableCompileTask task;
+    private final long sequence;
+    private final long enqueueTime;
+    private final long enqueueHotness;
+
+    CompilationRequest(GraalTruffleRuntime runtime, OptimizedCallTarget callTarget, CancellableCompileTask task, long sequence, Runnable compilation) {
+        super(compilation, null);
+        this.runtime = runtime;
+        this.weakCallTarget = new WeakReference<>(callTarget);
+        this.task = task;
+        this.sequence = sequence;
+        this.enqueueTime = System.nanoTime();
+        this.enqueueHotness = hotness(callTarget);
+    }
+
+    @Override
+    public OptimizedCallTarget getCallTarget() {
+        return weakCallTarget.get();
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the current priority of this request. Higher values are compiled first. The
+     * priority is read from the live compilation profile every time, so targets that kept getting
+     * hotter while waiting in the queue overtake targets that stopped running.
+     */
+    @Override
+    public long getPriority() {
+        OptimizedCallTarget callTarget = weakCallTarget.get();
+        if (callTarget == null) {
+            return Long.MIN_VALUE;
+        }
+        if (isOSR(callTarget)) {
+            // OSR compilations are requested from a long running loop that is stuck in the
+            // interpreter until the compilation finishes.
+            return Long.MAX_VALUE;
+        }
+        return hotness(callTarget);
+    }
+
+    /**
+     * Determines whether this request no longer needs to be compiled, because its call target
+     * was garbage collected or its compilation was cancelled (e.g., after a node rewrite).
+     */
+    @Override
+    public boolean isObsolete() {
+        return isCancelled() || task.isCancelled() || weakCallTarget.get() == null;
+    }
+
+    /**
+     * Determines whether the call target was not called at all for at least
+     * {@code coldTimeoutNanos} while waiting in the queue.
+     */
+    @Override
+    public boolean isCold(long now, long coldTimeoutNanos) {
+        if (coldTimeoutNanos <= 0 || now - enqueueTime < coldTimeoutNanos) {
+            return false;
+        }
+        OptimizedCallTarget callTarget = weakCallTarget.get();
+        return callTarget != null && !isOSR(callTarget) && hotness(callTarget) <= enqueueHotness;
+    }
+
+    /**
+     * Removes this request without compiling it. The call target is reset so that it can be
+     * submitted again once it becomes hot.
+     */
+    @Override
+    public void drop(CharSequence reason) {
+        cancel(false);
+        OptimizedCallTarget callTarget = weakCallTarget.get();
+        if (callTarget != null) {
+            if (callTarget.getCompilationTask() == task) {
+                callTarget.resetCompilationTask();
+            }
+            if (callTarget.compilationProfile != null) {
+                callTarget.compilationProfile.reportCompilationNotInstalled();
+            }
+            runtime.getListener().onCompilationDequeued(callTarget, null, reason);
+        }
+    }
+
+    private static boolean isOSR(OptimizedCallTarget callTarget) {
+        return callTarget.getRootNode() instanceof OptimizedOSRLoopNode.OSRRootNode;
+    }
+
+    private static long hotness(OptimizedCallTarget callTarget) {
+        OptimizedCompilationProfile profile = callTarget.compilationProfile;
+        // calls from first tier code keep a queued second tier compilation warm
+        return profile == null ? 0 : (long) profile.getInterpreterCallAndLoopCount() + profile.getFirstTierCallCount();
+    }
+}
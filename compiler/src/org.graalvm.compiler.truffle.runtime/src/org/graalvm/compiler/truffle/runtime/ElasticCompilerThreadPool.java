@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiler thread pool whose size follows the depth of the compilation queue.
+ * <p>
+ * The pool starts out with {@code minimumThreads} threads and adds a thread whenever more than
+ * {@code queueDepthPerThread} compilations per thread are waiting, up to {@code maximumThreads}.
+ * Once the queue drains, the target size shrinks back step by step. Threads that stay idle for the
+ * idle timeout are released, including the minimum threads, since each compiler thread keeps large
+ * thread local caches. They are started again on demand.
+ */
+public final class ElasticCompilerThreadPool extends ThreadPoolExecutor {
+
+    private final int minimumThreads;
+    private final int maximumThreads;
+    private final int queueDepthPerThread;
+
+    public ElasticCompilerThreadPool(int minimumThreads, int maximumThreads, int queueDepthPerThread, long idleTimeoutMillis, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(minimumThreads, Math.max(minimumThreads, maximumThreads), Math.max(1L, idleTimeoutMillis), TimeUnit.MILLISECONDS, workQueue, threadFactory);
+        this.minimumThreads = minimumThreads;
+        this.maximumThreads = Math.max(minimumThreads, maximumThreads);
+        this.queueDepthPerThread = Math.max(1, queueDepthPerThread);
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(command);
+        if (getCorePoolSize() < maximumThreads && getQueue().size() > getCorePoolSize() * queueDepthPerThread) {
+            grow();
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        if (getCorePoolSize() > minimumThreads && getQueue().isEmpty()) {
+            shrink();
+        }
+    }
+
+    private synchronized void grow() {
+        int threads = getCorePoolSize();
+        if (threads < maximumThreads && getQueue().size() > threads * queueDepthPerThread) {
+            // starts a new thread right away as there is queued work
+            setCorePoolSize(threads + 1);
+        }
+    }
+
+    private synchronized void shrink() {
+        int threads = getCorePoolSize();
+        if (threads > minimumThreads && getQueue().isEmpty()) {
+            // surplus threads terminate once they were idle for the keep alive time
+            setCorePoolSize(threads - 1);
+        }
+    }
+}
@@ -24,6 +24,7 @@ package org.graalvm.compiler.truffle.runtime;
 
 import java.util.function.Supplier;
 
+import org.graalvm.compiler.truffle.runtime.debug.CompilationMetrics;
 import org.graalvm.options.OptionDescriptors;
 import org.graalvm.options.OptionValues;
 
@@ -132,6 +133,20 @@ final class GraalTVMCI extends TVMCI {
         return super.getOrCreateRuntimeData(rootNode, constructor);
     }
 
+    @Override
+    protected void onEngineClosed(Object runtimeData) {
+        if (runtimeData instanceof EngineData) {
+            EngineData engineData = (EngineData) runtimeData;
+            CompilationMetrics metrics;
+            synchronized (engineData) {
+                metrics = engineData.compilationMetrics;
+            }
+            if (metrics != null) {
+                metrics.unregister();
+            }
+        }
+    }
+
     /**
      * Class used to store data used by the compiler in the Engine. Enables "global" compiler state
      * per engine.
@@ -139,6 +154,7 @@ final class GraalTVMCI extends TVMCI {
     static class EngineData {
         int splitLimit;
         int splitCount;
+        CompilationMetrics compilationMetrics;
     }
 
     EngineData getEngineData(RootNode rootNode) {
@@ -27,8 +27,15 @@ import static org.graalvm.compiler.debug.DebugContext.DEFAULT_LOG_STREAM;
 import static org.graalvm.compiler.debug.DebugContext.NO_GLOBAL_METRIC_VALUES;
 import static org.graalvm.compiler.serviceprovider.JDK9Method.Java8OrEarlier;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationQueueColdTimeout;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationQueuePriority;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompileOnly;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilerThreadIdleTimeout;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilerThreadQueueDepth;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilerThreads;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleDemandDrivenInlining;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleElasticCompilerThreads;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleMaxCompilerThreads;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleProfilingEnabled;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleSplitting;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleSplittingLimitGrowth;
@@ -49,15 +56,20 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 import org.graalvm.collections.EconomicMap;
@@ -76,12 +88,15 @@ import org.graalvm.compiler.nodes.graphbuilderconf.LoopExplosionPlugin.LoopExplo
 import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.serviceprovider.GraalServices;
 import org.graalvm.compiler.truffle.common.CompilableTruffleAST;
+import org.graalvm.compiler.truffle.common.GraphCacheStatistics;
 import org.graalvm.compiler.truffle.common.TruffleCompiler;
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
 import org.graalvm.compiler.truffle.common.TruffleCompilerRuntime;
 import org.graalvm.compiler.truffle.common.TruffleDebugJavaMethod;
 import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
+import org.graalvm.compiler.truffle.runtime.debug.CompilationMetrics;
+import org.graalvm.compiler.truffle.runtime.debug.CompilationMetricsListener;
 import org.graalvm.compiler.truffle.runtime.debug.StatisticsListener;
 import org.graalvm.compiler.truffle.runtime.debug.TraceASTCompilationListener;
 import org.graalvm.compiler.truffle.runtime.debug.TraceCallTreeListener;
@@ -157,6 +172,12 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
 
     protected static class BackgroundCompileQueue {
         private final ExecutorService compileQueue;
+        /**
+         * The work queue of {@link #compileQueue} if compilations are ordered by hotness,
+         * {@code null} if they are compiled in submission order.
+         */
+        private final TraversingBlockingQueue hotnessQueue;
+        private final AtomicLong requestSequence = new AtomicLong();
 
         public BackgroundCompileQueue() {
             CompilerThreadFactory factory = new CompilerThreadFactory("TruffleCompilerThread");
@@ -170,7 +191,28 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
                 }
             }
             selectedProcessors = Math.max(1, selectedProcessors);
-            compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+            if (TruffleCompilerOptions.getValue(TruffleCompilationQueuePriority)) {
+                hotnessQueue = new TraversingBlockingQueue(TruffleCompilerOptions.getValue(TruffleCompilationQueueColdTimeout));
+            } else {
+                hotnessQueue = null;
+            }
+            if (TruffleCompilerOptions.getValue(TruffleElasticCompilerThreads)) {
+                int maximumThreads = TruffleCompilerOptions.getValue(TruffleMaxCompilerThreads);
+                if (maximumThreads == 0) {
+                    maximumThreads = Runtime.getRuntime().availableProcessors() / 2;
+                }
+                BlockingQueue<Runnable> workQueue = hotnessQueue != null ? hotnessQueue : new LinkedBlockingQueue<>();
+                compileQueue = new ElasticCompilerThreadPool(selectedProcessors, maximumThreads, TruffleCompilerOptions.getValue(TruffleCompilerThreadQueueDepth),
+                                TruffleCompilerOptions.getValue(TruffleCompilerThreadIdleTimeout), workQueue, factory);
+            } else if (hotnessQueue != null) {
+                compileQueue = new ThreadPoolExecutor(selectedProcessors, selectedProcessors, 0L, TimeUnit.MILLISECONDS, hotnessQueue, factory);
+            } else {
+                compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+            }
+        }
+
+        long nextRequestSequence() {
+            return requestSequence.getAndIncrement();
         }
     }
 
@@ -186,6 +228,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
 
     private final Supplier<GraalRuntime> graalRuntimeSupplier;
     private final GraalTVMCI tvmci = new GraalTVMCI();
+    private final AtomicInteger engineCount = new AtomicInteger();
 
     private volatile GraalTestTVMCI testTvmci;
 
@@ -222,7 +265,14 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
 
     @Override
     public TruffleInliningPlan createInliningPlan(CompilableTruffleAST compilable) {
-        return new TruffleInlining((OptimizedCallTarget) compilable, new DefaultInliningPolicy());
+        return createInlining((OptimizedCallTarget) compilable);
+    }
+
+    private static TruffleInlining createInlining(OptimizedCallTarget callTarget) {
+        if (TruffleCompilerOptions.getValue(TruffleDemandDrivenInlining)) {
+            return TruffleInlining.createDemandDriven(callTarget);
+        }
+        return new TruffleInlining(callTarget, new DefaultInliningPolicy());
     }
 
     @Override
@@ -383,6 +433,20 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         return metaAccess.lookupJavaType(c);
     }
 
+    /**
+     * Gets the compilation metrics of the engine that {@code target} was created for. The metrics
+     * are created using {@code factory} when they are first requested for an engine.
+     */
+    public final CompilationMetrics getCompilationMetrics(OptimizedCallTarget target, IntFunction<CompilationMetrics> factory) {
+        GraalTVMCI.EngineData engineData = tvmci.getEngineData(target.getRootNode());
+        synchronized (engineData) {
+            if (engineData.compilationMetrics == null) {
+                engineData.compilationMetrics = factory.apply(engineCount.incrementAndGet());
+            }
+            return engineData.compilationMetrics;
+        }
+    }
+
     protected void installDefaultListeners() {
         TraceCompilationFailureListener.install(this);
         TraceCompilationListener.install(this);
@@ -391,6 +455,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         TraceInliningListener.install(this);
         TraceSplittingListener.install(this);
         StatisticsListener.install(this);
+        CompilationMetricsListener.install(this);
         TraceASTCompilationListener.install(this);
         installShutdownHooks();
     }
@@ -673,12 +738,14 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
     protected void doCompile(OptionValues options, OptimizedCallTarget callTarget, Cancellable task) {
         listeners.onCompilationStarted(callTarget);
         TruffleCompiler compiler = getTruffleCompiler();
-        TruffleInlining inlining = new TruffleInlining(callTarget, new DefaultInliningPolicy());
+        boolean firstTier = callTarget.getCompilationProfile().isFirstTierCompilation();
+        // First tier compilations do not inline any Truffle calls.
+        TruffleInlining inlining = firstTier ? new TruffleInlining(Collections.emptyList()) : createInlining(callTarget);
         CompilationIdentifier compilationId = compiler.getCompilationIdentifier(callTarget);
         DebugContext debug = compilationId != null ? compiler.openDebugContext(options, compilationId, callTarget) : null;
         try (Scope s = debug != null ? debug.scope("Truffle", new TruffleDebugJavaMethod(callTarget)) : null) {
             maybeDumpTruffleTree(debug, options, callTarget, inlining);
-            compiler.doCompile(debug, compilationId, options, callTarget, inlining, task, listeners.isEmpty() ? null : listeners);
+            compiler.doCompile(debug, compilationId, options, callTarget, inlining, task, listeners.isEmpty() ? null : listeners, firstTier);
         } catch (RuntimeException | Error e) {
             throw e;
         } catch (Throwable e) {
@@ -736,7 +803,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         final WeakReference<OptimizedCallTarget> weakCallTarget = new WeakReference<>(optimizedCallTarget);
         final OptionValues optionOverrides = TruffleCompilerOptions.getCurrentOptionOverrides();
         CancellableCompileTask cancellable = new CancellableCompileTask();
-        cancellable.setFuture(l.compileQueue.submit(new Runnable() {
+        CompilationRequest request = new CompilationRequest(this, optimizedCallTarget, cancellable, l.nextRequestSequence(), new Runnable() {
             @Override
             public void run() {
                 OptimizedCallTarget callTarget = weakCallTarget.get();
@@ -749,7 +816,10 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
                     }
                 }
             }
-        }));
+        });
+        // the future must be set before the compilation can start running
+        cancellable.setFuture(request);
+        l.compileQueue.execute(request);
         // task and future must never diverge from each other
         assert cancellable.future != null;
         return cancellable;
@@ -811,6 +881,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
                 boolean result = !task.isRunning();
                 if (result) {
                     optimizedCallTarget.resetCompilationTask();
+                    optimizedCallTarget.compilationProfile.reportCompilationNotInstalled();
                     getListener().onCompilationDequeued(optimizedCallTarget, source, reason);
                 }
                 return result;
@@ -834,9 +905,18 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
 
     }
 
-    @Deprecated
+    /**
+     * Returns the call targets currently waiting in the background compilation queue. The result
+     * is only available if the queue orders compilations by hotness (see
+     * {@code TruffleCompilationQueuePriority}), otherwise an empty collection is returned.
+     */
     public Collection<OptimizedCallTarget> getQueuedCallTargets() {
-        return Collections.emptyList();
+        TraversingBlockingQueue hotnessQueue = getCompileQueue().hotnessQueue;
+        if (hotnessQueue != null) {
+            return hotnessQueue.getQueuedCallTargets();
+        } else {
+            return Collections.emptyList();
+        }
     }
 
     public int getCompilationQueueSize() {
@@ -848,6 +928,54 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         }
     }
 
+    /**
+     * Returns the number of live background compiler threads. The compiler threads are shared by
+     * all engines of this runtime.
+     */
+    public int getCompilerThreadCount() {
+        ExecutorService executor = getCompileQueue().compileQueue;
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getPoolSize();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the number of background compiler threads that are currently compiling.
+     */
+    public int getActiveCompilerThreadCount() {
+        ExecutorService executor = getCompileQueue().compileQueue;
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getActiveCount();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the counters of the parsed graph cache of the Truffle compiler, or {@code null} if
+     * the compiler does not cache parsed graphs.
+     *
+     * @see TruffleCompiler#getGraphCacheStatistics()
+     */
+    public GraphCacheStatistics getGraphCacheStatistics() {
+        TruffleCompiler tcp = truffleCompiler;
+        return tcp == null ? null : tcp.getGraphCacheStatistics();
+    }
+
+    /**
+     * Returns the largest number of background compiler threads that were live at the same time.
+     */
+    public int getPeakCompilerThreadCount() {
+        ExecutorService executor = getCompileQueue().compileQueue;
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getLargestPoolSize();
+        } else {
+            return 0;
+        }
+    }
+
     public boolean isCompiling(OptimizedCallTarget optimizedCallTarget) {
         CancellableCompileTask task = optimizedCallTarget.getCompilationTask();
         if (task != null) {
@@ -148,6 +148,22 @@ public interface GraalTruffleRuntimeListener {
     default void onCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
     }
 
+    /**
+     * Notifies this object when {@code target} was invalidated repeatedly within a short time and
+     * its recompilation is being backed off.
+     *
+     * @param target the call target whose compiled code was just invalidated
+     * @param source the source object that caused the latest invalidation. For example the
+     *            {@link Node} or assumption object. May be {@code null}.
+     * @param reason a textual description of the reason for the latest invalidation. May be
+     *            {@code null}.
+     * @param invalidations the number of invalidations of {@code target} in the current storm
+     * @param reprofileCount the number of calls {@code target} is profiled for before it is
+     *            compiled again
+     */
+    default void onCompilationDeoptimizationStorm(OptimizedCallTarget target, Object source, CharSequence reason, int invalidations, int reprofileCount) {
+    }
+
     /**
      * Notifies this object when {@code target} has just deoptimized and is now executing in the
      * Truffle interpreter instead of executing compiled code.
@@ -108,6 +108,13 @@ final class GraalTruffleRuntimeListenerDispatcher extends ArrayList<GraalTruffle
         }
     }
 
+    @Override
+    public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, Object source, CharSequence reason, int invalidations, int reprofileCount) {
+        for (GraalTruffleRuntimeListener l : this) {
+            l.onCompilationDeoptimizationStorm(target, source, reason, invalidations, reprofileCount);
+        }
+    }
+
     @Override
     public void onCompilationDeoptimized(OptimizedCallTarget target, Frame frame) {
         for (GraalTruffleRuntimeListener l : this) {
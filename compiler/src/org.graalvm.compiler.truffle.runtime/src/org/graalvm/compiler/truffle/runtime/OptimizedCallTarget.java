@@ -230,6 +230,7 @@ public class OptimizedCallTarget extends InstalledCode implements CompilableTruf
         OptimizedCompilationProfile profile = this.compilationProfile;
         if (CompilerDirectives.inCompiledCode() && profile != null) {
             args = profile.injectArgumentProfile(originalArguments);
+            profile.firstTierCall(this);
         }
         Object result = callProxy(createFrame(getRootNode().getFrameDescriptor(), args));
 
@@ -287,13 +288,25 @@ public class OptimizedCallTarget extends InstalledCode implements CompilableTruf
     }
 
     public final void compile() {
+        compile(false);
+    }
+
+    /**
+     * Submits this call target for compilation.
+     *
+     * @param firstTier if {@code true}, requests a quick first tier compilation without inlining of
+     *            other call targets, otherwise a fully optimized compilation
+     * @return {@code true} if a compilation was submitted, {@code false} if this call target is
+     *         already being compiled or is not accepted for compilation
+     */
+    final boolean compile(boolean firstTier) {
         if (!isCompiling()) {
             if (compilationProfile == null) {
                 initialize();
             }
 
             if (!runtime().acceptForCompilation(getRootNode())) {
-                return;
+                return false;
             }
 
             CancellableCompileTask task = null;
@@ -301,6 +314,7 @@ public class OptimizedCallTarget extends InstalledCode implements CompilableTruf
             // but do not block other threads if compilation is not asynchronous.
             synchronized (this) {
                 if (!isCompiling()) {
+                    compilationProfile.setFirstTierCompilation(firstTier);
                     compilationTask = task = runtime().submitForCompilation(this);
                 }
             }
@@ -312,8 +326,10 @@ public class OptimizedCallTarget extends InstalledCode implements CompilableTruf
                     boolean mayBeAsynchronous = TruffleCompilerOptions.getValue(TruffleBackgroundCompilation) && allowBackgroundCompilation;
                     runtime().finishCompilation(this, submitted, mayBeAsynchronous);
                 }
+                return true;
             }
         }
+        return false;
     }
 
     public final boolean isCompiling() {
@@ -384,6 +400,7 @@ public class OptimizedCallTarget extends InstalledCode implements CompilableTruf
 
     @Override
     public void onCompilationFailed(Supplier<String> reasonAndStackTrace, boolean bailout, boolean permanentBailout) {
+        compilationProfile.reportCompilationNotInstalled();
         if (bailout && !permanentBailout) {
             /*
              * Non-permanent bailouts are expected cases. A non-permanent bailout would be for
@@ -519,7 +536,7 @@ public class OptimizedCallTarget extends InstalledCode implements CompilableTruf
         if (profile != null) {
             profile.reportNodeReplaced();
             if (cancelInstalledTask(newNode, reason)) {
-                profile.reportInvalidated();
+                profile.reportInvalidated(this, newNode, reason);
             }
         }
         return false;
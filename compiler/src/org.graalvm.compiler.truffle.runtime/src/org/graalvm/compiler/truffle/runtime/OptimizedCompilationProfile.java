@@ -24,11 +24,18 @@ package org.graalvm.compiler.truffle.runtime;
 
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleArgumentTypeSpeculation;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompileImmediately;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleDeoptStormMaxBackoff;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleDeoptStormThreshold;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleDeoptStormWindow;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleFirstTierCompilationThreshold;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleFirstTierMinInvokeThreshold;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleInvalidationReprofileCount;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleMinInvokeThreshold;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleMultiTier;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleReplaceReprofileCount;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleReturnTypeSpeculation;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -45,17 +52,43 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 public class OptimizedCompilationProfile {
 
+    private static final Object ARGUMENT_TYPES_SPECULATION = "argument types";
+    private static final Object RETURN_TYPE_SPECULATION = "return type";
+
     /**
      * Number of times an installed code for this tree was seen invalidated.
      */
     private int invalidationCount;
     private int deferredCount;
 
+    /**
+     * Number of invalidations that followed each other within {@code TruffleDeoptStormWindow}.
+     */
+    private int recentInvalidationCount;
+    private long lastInvalidationTimestamp;
+    /**
+     * Number of recent invalidations per speculation, keyed by the profiled speculation, the
+     * assumption name or the class of the invalidating node.
+     */
+    private Map<Object, Integer> recentSpeculationFailures;
+    private int deoptStormCount;
+    private boolean argumentTypeSpeculationDisabled;
+
     private int interpreterCallCount;
     private int interpreterCallAndLoopCount;
     private int compilationCallThreshold;
     private int compilationCallAndLoopThreshold;
 
+    private final boolean multiTier;
+    private int firstTierCompilationCallThreshold;
+    private int firstTierCompilationCallAndLoopThreshold;
+    /**
+     * Number of calls executed by first tier compiled code.
+     */
+    private int firstTierCallCount;
+    private boolean secondTierRequested;
+    @CompilationFinal private boolean firstTierCompilation;
+
     private long timestamp;
 
     @CompilationFinal(dimensions = 1) private Class<?>[] profiledArgumentTypes;
@@ -73,6 +106,13 @@ public class OptimizedCompilationProfile {
         assert callAndLoopThreshold >= 0;
         this.compilationCallThreshold = Math.min(callThreshold, callAndLoopThreshold);
         this.compilationCallAndLoopThreshold = callAndLoopThreshold;
+        this.multiTier = TruffleCompilerOptions.getValue(TruffleMultiTier);
+        int firstTierCallThreshold = TruffleCompilerOptions.getValue(TruffleFirstTierMinInvokeThreshold);
+        int firstTierCallAndLoopThreshold = TruffleCompilerOptions.getValue(TruffleFirstTierCompilationThreshold);
+        assert firstTierCallThreshold >= 0;
+        assert firstTierCallAndLoopThreshold >= 0;
+        this.firstTierCompilationCallAndLoopThreshold = Math.min(firstTierCallAndLoopThreshold, callAndLoopThreshold);
+        this.firstTierCompilationCallThreshold = Math.min(firstTierCallThreshold, this.firstTierCompilationCallAndLoopThreshold);
         this.timestamp = System.nanoTime();
     }
 
@@ -249,10 +289,66 @@ public class OptimizedCompilationProfile {
         interpreterCallAndLoopCount += count;
     }
 
-    final void reportInvalidated() {
-        invalidationCount++;
+    /**
+     * Reports that the installed code of {@code target} was invalidated because of {@code source}.
+     * Once more than {@code TruffleDeoptStormThreshold} invalidations follow each other within
+     * {@code TruffleDeoptStormWindow} the target is considered to be in a deoptimization storm: the
+     * reprofiling delay doubles with every further invalidation and argument type speculation is
+     * disabled if it keeps failing.
+     */
+    final void reportInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
+        CompilerAsserts.neverPartOfCompilation();
         int reprofile = TruffleCompilerOptions.getValue(TruffleInvalidationReprofileCount);
-        ensureProfiling(reprofile, reprofile);
+        int stormThreshold = TruffleCompilerOptions.getValue(TruffleDeoptStormThreshold);
+        int stormInvalidations = 0;
+        synchronized (this) {
+            invalidationCount++;
+            if (stormThreshold > 0) {
+                long now = System.nanoTime();
+                long window = TruffleCompilerOptions.getValue(TruffleDeoptStormWindow) * 1_000_000L;
+                if (recentInvalidationCount == 0 || now - lastInvalidationTimestamp > window) {
+                    recentInvalidationCount = 0;
+                    recentSpeculationFailures = new HashMap<>();
+                }
+                lastInvalidationTimestamp = now;
+                recentInvalidationCount++;
+
+                Object speculation = speculationOf(source, reason);
+                int failures = recentSpeculationFailures.merge(speculation, 1, Integer::sum);
+                if (failures >= stormThreshold && speculation == ARGUMENT_TYPES_SPECULATION) {
+                    /*
+                     * Return type speculation is never re-enabled after it failed once, so only
+                     * argument type speculation needs to be switched off explicitly.
+                     */
+                    argumentTypeSpeculationDisabled = true;
+                }
+
+                if (recentInvalidationCount >= stormThreshold) {
+                    int backoff = Math.min(recentInvalidationCount - stormThreshold + 1, TruffleCompilerOptions.getValue(TruffleDeoptStormMaxBackoff));
+                    reprofile = (int) Math.min(Integer.MAX_VALUE, (long) reprofile << Math.min(backoff, 30));
+                    deoptStormCount++;
+                    stormInvalidations = recentInvalidationCount;
+                }
+            }
+            ensureProfiling(reprofile, reprofile);
+        }
+        if (stormInvalidations > 0) {
+            OptimizedCallTarget.runtime().getListener().onCompilationDeoptimizationStorm(target, source, reason, stormInvalidations, reprofile);
+        }
+    }
+
+    private Object speculationOf(Object source, CharSequence reason) {
+        if (source != null && source == profiledArgumentTypesAssumption) {
+            return ARGUMENT_TYPES_SPECULATION;
+        } else if (source != null && source == profiledReturnTypeAssumption) {
+            return RETURN_TYPE_SPECULATION;
+        } else if (source instanceof OptimizedAssumption) {
+            String name = ((OptimizedAssumption) source).getName();
+            return name != null ? name : source;
+        } else if (source != null) {
+            return source.getClass();
+        }
+        return reason != null ? reason.toString() : null;
     }
 
     final void reportNodeReplaced() {
@@ -265,14 +361,69 @@ public class OptimizedCompilationProfile {
         int intCallCount = ++interpreterCallCount;
         int intAndLoopCallCount = ++interpreterCallAndLoopCount;
         if (!callTarget.isCompiling() && !compilationFailed) {
+            // calls executed in first tier code count towards the second tier thresholds
+            int callCount = intCallCount + firstTierCallCount;
+            int callAndLoopCount = intAndLoopCallCount + firstTierCallCount;
             // check if call target is hot enough to get compiled, but took not too long to get hot
-            if ((intAndLoopCallCount >= compilationCallAndLoopThreshold && intCallCount >= compilationCallThreshold && !isDeferredCompile(callTarget)) ||
+            if ((callAndLoopCount >= compilationCallAndLoopThreshold && callCount >= compilationCallThreshold && !isDeferredCompile(callTarget)) ||
                             TruffleCompilerOptions.getValue(TruffleCompileImmediately)) {
                 callTarget.compile();
+            } else if (multiTier && intAndLoopCallCount >= firstTierCompilationCallAndLoopThreshold && intCallCount >= firstTierCompilationCallThreshold) {
+                callTarget.compile(true);
             }
         }
     }
 
+    /**
+     * Called on every call executed by compiled code of this call target. Counts the calls of first
+     * tier code and requests the second tier compilation once the regular compilation thresholds
+     * are reached. For second tier code the check folds away.
+     */
+    final void firstTierCall(OptimizedCallTarget callTarget) {
+        if (firstTierCompilation) {
+            int count = ++firstTierCallCount;
+            if (!secondTierRequested && !compilationFailed && interpreterCallAndLoopCount + count >= compilationCallAndLoopThreshold &&
+                            interpreterCallCount + count >= compilationCallThreshold) {
+                CompilerDirectives.transferToInterpreter();
+                /*
+                 * Stays set if the compilation is not submitted because another one is queued or
+                 * the call target is not accepted, so that the first tier code does not deoptimize
+                 * on every call. Only reportCompilationNotInstalled requests it again.
+                 */
+                secondTierRequested = true;
+                callTarget.compile(false);
+            }
+        }
+    }
+
+    /**
+     * Reports that a submitted compilation of this call target did not install code, because it
+     * was dropped from the compilation queue, cancelled, or failed. If it was the second tier
+     * compilation, calls in first tier code may request it again.
+     */
+    final void reportCompilationNotInstalled() {
+        secondTierRequested = false;
+    }
+
+    /**
+     * Records the tier of the compilation that is about to be submitted for this call target.
+     */
+    final void setFirstTierCompilation(boolean firstTier) {
+        CompilerAsserts.neverPartOfCompilation();
+        this.firstTierCompilation = firstTier;
+        if (firstTier) {
+            this.secondTierRequested = false;
+        }
+    }
+
+    /**
+     * Determines if the current or most recent compilation of this call target is a first tier
+     * compilation.
+     */
+    public final boolean isFirstTierCompilation() {
+        return firstTierCompilation;
+    }
+
     private boolean isDeferredCompile(OptimizedCallTarget target) {
         // Workaround for https://bugs.eclipse.org/bugs/show_bug.cgi?id=440019
         int threshold = target.getOptionValue(PolyglotCompilerOptions.QueueTimeThreshold);
@@ -320,6 +471,11 @@ public class OptimizedCompilationProfile {
     private void updateProfiledArgumentTypes(Object[] args, Class<?>[] types) {
         CompilerAsserts.neverPartOfCompilation();
         profiledArgumentTypesAssumption.invalidate();
+        if (argumentTypeSpeculationDisabled) {
+            // keep the invalid assumption, which disables argument profiling for good
+            profiledArgumentTypes = null;
+            return;
+        }
         for (int j = 0; j < types.length; j++) {
             types[j] = joinTypes(types[j], classOf(args[j]));
         }
@@ -360,6 +516,17 @@ public class OptimizedCompilationProfile {
         if (increaseCallsThreshold > 0) {
             this.compilationCallThreshold += increaseCallsThreshold;
         }
+
+        if (multiTier) {
+            int increaseFirstTierCallAndLoopThreshold = callsAndLoop - (this.firstTierCompilationCallAndLoopThreshold - this.interpreterCallAndLoopCount);
+            if (increaseFirstTierCallAndLoopThreshold > 0) {
+                this.firstTierCompilationCallAndLoopThreshold += increaseFirstTierCallAndLoopThreshold;
+            }
+            int increaseFirstTierCallsThreshold = calls - (this.firstTierCompilationCallThreshold - this.interpreterCallCount);
+            if (increaseFirstTierCallsThreshold > 0) {
+                this.firstTierCompilationCallThreshold += increaseFirstTierCallsThreshold;
+            }
+        }
     }
 
     public Map<String, Object> getDebugProperties() {
@@ -370,6 +537,13 @@ public class OptimizedCompilationProfile {
         properties.put("Calls/Thres", callsThreshold);
         properties.put("CallsAndLoop/Thres", loopsThreshold);
         properties.put("Inval#", invalidations);
+        if (deoptStormCount > 0) {
+            properties.put("Storm#", String.format("%5d", deoptStormCount));
+        }
+        if (multiTier) {
+            properties.put("Tier", firstTierCompilation ? 1 : 2);
+            properties.put("FirstTierCalls", String.format("%7d", firstTierCallCount));
+        }
         return properties;
     }
 
@@ -377,6 +551,17 @@ public class OptimizedCompilationProfile {
         return invalidationCount;
     }
 
+    /**
+     * Returns the number of invalidations of this tree that happened during a deoptimization storm.
+     */
+    public int getDeoptStormCount() {
+        return deoptStormCount;
+    }
+
+    public boolean isArgumentTypeSpeculationDisabled() {
+        return argumentTypeSpeculationDisabled;
+    }
+
     public int getInterpreterCallAndLoopCount() {
         return interpreterCallAndLoopCount;
     }
@@ -397,6 +582,14 @@ public class OptimizedCompilationProfile {
         return compilationCallThreshold;
     }
 
+    public int getFirstTierCallCount() {
+        return firstTierCallCount;
+    }
+
+    public boolean isSecondTierRequested() {
+        return secondTierRequested;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
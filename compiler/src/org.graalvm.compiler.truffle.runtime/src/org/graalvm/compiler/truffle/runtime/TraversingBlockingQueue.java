@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Work queue of the background compiler threads that hands out the hottest {@link Prioritized}
+ * request first. Entries that are not requests are handed out before all requests.
+ * <p>
+ * The hotness of a call target keeps changing while its compilation is queued, so the entries are
+ * kept in a heap ordered by the priority they had when the queue was last reordered. At most once
+ * per reorder interval, the queue traverses all entries, reads their priorities again and rebuilds
+ * the heap. The traversal also removes requests that became obsolete or went cold in the meantime.
+ * Between traversals, taking an entry costs a logarithmic heap operation. Ties are broken by
+ * submission order, so the queue degrades to FIFO if all targets are equally hot.
+ */
+public final class TraversingBlockingQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    /**
+     * A queued compilation request, see {@link CompilationRequest}.
+     */
+    public interface Prioritized extends Runnable {
+
+        /** The call target to compile, or {@code null} if it was garbage collected. */
+        OptimizedCallTarget getCallTarget();
+
+        /** The submission order of this request. */
+        long getSequence();
+
+        /** The current priority of this request. Higher values are handed out first. */
+        long getPriority();
+
+        /** Determines whether this request no longer needs to be compiled. */
+        boolean isObsolete();
+
+        /**
+         * Determines whether the call target was not called while this request waited in the
+         * queue for at least {@code coldTimeoutNanos}.
+         */
+        boolean isCold(long now, long coldTimeoutNanos);
+
+        /** Notifies this request that it was removed from the queue without being compiled. */
+        void drop(CharSequence reason);
+    }
+
+    public static final String COLD_REASON = "Call target went cold in the compilation queue";
+
+    /** The default time after which the priorities of the queued requests are read again. */
+    public static final long DEFAULT_REORDER_INTERVAL_MILLIS = 10;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final long coldTimeoutNanos;
+    private final long reorderIntervalNanos;
+    /** Accessed only while holding {@link #lock}. */
+    private PriorityQueue<Entry> heap = new PriorityQueue<>();
+    /** Accessed only while holding {@link #lock}. */
+    private long lastReorder;
+
+    /**
+     * @param coldTimeoutMillis time after which a request whose call target was not called
+     *            anymore is dropped from the queue, or {@code 0} to never drop requests
+     */
+    public TraversingBlockingQueue(long coldTimeoutMillis) {
+        this(coldTimeoutMillis, DEFAULT_REORDER_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param coldTimeoutMillis time after which a request whose call target was not called
+     *            anymore is dropped from the queue, or {@code 0} to never drop requests
+     * @param reorderIntervalMillis time after which the priorities of all queued requests are read
+     *            again, or {@code 0} to read them every time an entry is taken
+     */
+    public TraversingBlockingQueue(long coldTimeoutMillis, long reorderIntervalMillis) {
+        this.coldTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(coldTimeoutMillis);
+        this.reorderIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reorderIntervalMillis);
+        this.lastReorder = System.nanoTime();
+    }
+
+    /**
+     * Returns the call targets of all requests that are currently queued, in submission order.
+     */
+    public List<OptimizedCallTarget> getQueuedCallTargets() {
+        List<Prioritized> requests = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Entry entry : heap) {
+                if (entry.task instanceof Prioritized) {
+                    requests.add((Prioritized) entry.task);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        requests.sort(Comparator.comparingLong(Prioritized::getSequence));
+        List<OptimizedCallTarget> result = new ArrayList<>(requests.size());
+        for (Prioritized request : requests) {
+            OptimizedCallTarget callTarget = request.getCallTarget();
+            if (callTarget != null) {
+                result.add(callTarget);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean offer(Runnable e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        Entry entry = new Entry(e);
+        lock.lock();
+        try {
+            heap.add(entry);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void put(Runnable e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        List<Prioritized> dropped = new ArrayList<>();
+        Entry result;
+        lock.lockInterruptibly();
+        try {
+            while ((result = hottest(dropped)) == null) {
+                notEmpty.await();
+            }
+            heap.poll();
+        } finally {
+            lock.unlock();
+            notifyDropped(dropped);
+        }
+        return result.task;
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<Prioritized> dropped = new ArrayList<>();
+        long nanos = unit.toNanos(timeout);
+        Entry result;
+        lock.lockInterruptibly();
+        try {
+            while ((result = hottest(dropped)) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            heap.poll();
+        } finally {
+            lock.unlock();
+            notifyDropped(dropped);
+        }
+        return result.task;
+    }
+
+    @Override
+    public Runnable poll() {
+        List<Prioritized> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            Entry result = hottest(dropped);
+            if (result == null) {
+                return null;
+            }
+            heap.poll();
+            return result.task;
+        } finally {
+            lock.unlock();
+            notifyDropped(dropped);
+        }
+    }
+
+    /**
+     * Returns the entry that the next {@link #take()} would return if no entries are added or
+     * removed in between. Like {@link #take()}, this may remove obsolete and cold entries.
+     */
+    @Override
+    public Runnable peek() {
+        List<Prioritized> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            Entry result = hottest(dropped);
+            return result == null ? null : result.task;
+        } finally {
+            lock.unlock();
+            notifyDropped(dropped);
+        }
+    }
+
+    /**
+     * Returns the entry with the highest priority without removing it. The heap is reordered first
+     * if the reorder interval has elapsed. Obsolete entries are discarded and cold entries are
+     * added to {@code dropped} so that their call targets can be notified outside of the lock.
+     */
+    private Entry hottest(List<Prioritized> dropped) {
+        assert lock.isHeldByCurrentThread();
+        long now = System.nanoTime();
+        if (now - lastReorder >= reorderIntervalNanos) {
+            reorder(now, dropped);
+        }
+        Entry head;
+        while ((head = heap.peek()) != null && isDiscarded(head.task, now, dropped)) {
+            heap.poll();
+        }
+        return head;
+    }
+
+    /** Reads the priorities of all entries again and rebuilds the heap in linear time. */
+    private void reorder(long now, List<Prioritized> dropped) {
+        List<Entry> live = new ArrayList<>(heap.size());
+        for (Entry entry : heap) {
+            if (!isDiscarded(entry.task, now, dropped)) {
+                entry.updatePriority();
+                live.add(entry);
+            }
+        }
+        heap = new PriorityQueue<>(live);
+        lastReorder = now;
+    }
+
+    private boolean isDiscarded(Runnable task, long now, List<Prioritized> dropped) {
+        if (task instanceof Prioritized) {
+            Prioritized request = (Prioritized) task;
+            if (request.isObsolete()) {
+                return true;
+            }
+            if (request.isCold(now, coldTimeoutNanos)) {
+                dropped.add(request);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void notifyDropped(List<Prioritized> dropped) {
+        for (Prioritized request : dropped) {
+            request.drop(COLD_REASON);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (Iterator<Entry> iterator = heap.iterator(); iterator.hasNext();) {
+                if (iterator.next().task.equals(o)) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && !heap.isEmpty()) {
+                c.add(heap.poll().task);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the queue, in no particular order. Removal through the
+     * iterator is supported and removes the entry from this queue.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        Runnable[] snapshot;
+        lock.lock();
+        try {
+            snapshot = new Runnable[heap.size()];
+            int i = 0;
+            for (Entry entry : heap) {
+                snapshot[i++] = entry.task;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<Runnable>() {
+            private int next;
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Runnable next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot[next++];
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                TraversingBlockingQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * A queued task with the priority it had when it was added or the queue was last reordered.
+     * The priority must not change while the entry is in the heap.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        final Runnable task;
+        final long sequence;
+        long priority;
+
+        Entry(Runnable task) {
+            this.task = task;
+            if (task instanceof Prioritized) {
+                Prioritized request = (Prioritized) task;
+                this.sequence = request.getSequence();
+                this.priority = request.getPriority();
+            } else {
+                // Not a compilation; run it as soon as possible.
+                this.sequence = Long.MIN_VALUE;
+                this.priority = Long.MAX_VALUE;
+            }
+        }
+
+        void updatePriority() {
+            if (task instanceof Prioritized) {
+                priority = ((Prioritized) task).getPriority();
+            }
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
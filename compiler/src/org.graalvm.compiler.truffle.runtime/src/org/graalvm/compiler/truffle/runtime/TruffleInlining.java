@@ -53,8 +53,23 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision>, Truff
 
     private final List<TruffleInliningDecision> callSites;
 
+    /*
+     * Non-null if the call sites of this plan are explored on demand, i.e. only when the compiler
+     * asks for a decision while partially evaluating.
+     */
+    private final OptimizedCallTarget demandDrivenTarget;
+    private final TruffleInlining demandDrivenParent;
+
     protected TruffleInlining(List<TruffleInliningDecision> callSites) {
         this.callSites = callSites;
+        this.demandDrivenTarget = null;
+        this.demandDrivenParent = null;
+    }
+
+    TruffleInlining(OptimizedCallTarget demandDrivenTarget, TruffleInlining demandDrivenParent) {
+        this.callSites = new ArrayList<>();
+        this.demandDrivenTarget = demandDrivenTarget;
+        this.demandDrivenParent = demandDrivenParent;
     }
 
     public TruffleInlining(OptimizedCallTarget sourceTarget, TruffleInliningPolicy policy) {
@@ -62,6 +77,39 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision>, Truff
 
     }
 
+    /**
+     * Creates an inlining plan that does not explore the call tree of {@code sourceTarget} up
+     * front. Call sites are only explored when the compiler requests a decision for them, and the
+     * compiler decides whether to actually inline them based on the size of the partially
+     * evaluated graph.
+     */
+    public static TruffleInlining createDemandDriven(OptimizedCallTarget sourceTarget) {
+        if (!TruffleCompilerOptions.getValue(TruffleFunctionInlining)) {
+            return new TruffleInlining(Collections.emptyList());
+        }
+        return new TruffleInlining(sourceTarget, null);
+    }
+
+    private TruffleInliningDecision exploreOnDemand(OptimizedDirectCallNode callNode) {
+        OptimizedCallTarget currentTarget = callNode.getCurrentCallTarget();
+        int recursions = 0;
+        for (TruffleInlining parent = this; parent != null; parent = parent.demandDrivenParent) {
+            if (parent.demandDrivenTarget == currentTarget) {
+                recursions++;
+            }
+        }
+        int nodeCount = currentTarget.getNonTrivialNodeCount();
+        TruffleInliningProfile profile = new TruffleInliningProfile(callNode, nodeCount, nodeCount, calculateFrequency(demandDrivenTarget, callNode), recursions);
+        TruffleInliningDecision decision = new TruffleInliningDecision(currentTarget, profile, this);
+        if (recursions > TruffleCompilerOptions.getValue(TruffleMaximumRecursiveInlining)) {
+            profile.setFailedReason("number of recursions > " + TruffleCompilerOptions.getValue(TruffleMaximumRecursiveInlining));
+        } else {
+            decision.setInline(true);
+        }
+        callSites.add(decision);
+        return decision;
+    }
+
     private static List<TruffleInliningDecision> createDecisions(OptimizedCallTarget sourceTarget, TruffleInliningPolicy policy, CompilerOptions options) {
         if (!TruffleCompilerOptions.getValue(TruffleFunctionInlining)) {
             return Collections.emptyList();
@@ -236,7 +284,11 @@ public class TruffleInlining implements Iterable<TruffleInliningDecision>, Truff
     public Decision findDecision(JavaConstant callNodeConstant) {
         SnippetReflectionProvider snippetReflection = runtime().getGraalRuntime().getRequiredCapability(SnippetReflectionProvider.class);
         OptimizedDirectCallNode callNode = snippetReflection.asObject(OptimizedDirectCallNode.class, callNodeConstant);
-        return findByCall(callNode);
+        TruffleInliningDecision decision = findByCall(callNode);
+        if (decision == null && demandDrivenTarget != null) {
+            decision = exploreOnDemand(callNode);
+        }
+        return decision;
     }
 
     public TruffleInliningDecision findByCall(OptimizedDirectCallNode callNode) {
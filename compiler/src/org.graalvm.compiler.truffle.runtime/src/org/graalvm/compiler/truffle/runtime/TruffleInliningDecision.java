@@ -37,6 +37,7 @@ public final class TruffleInliningDecision extends TruffleInlining implements Co
     private final OptimizedCallTarget target;
     private final TruffleInliningProfile profile;
     private boolean inline;
+    private boolean inlinedByCompiler;
 
     public TruffleInliningDecision(OptimizedCallTarget target, TruffleInliningProfile profile, List<TruffleInliningDecision> children) {
         super(children);
@@ -44,6 +45,15 @@ public final class TruffleInliningDecision extends TruffleInlining implements Co
         this.profile = profile;
     }
 
+    /**
+     * Creates a decision whose call sites are explored on demand.
+     */
+    TruffleInliningDecision(OptimizedCallTarget target, TruffleInliningProfile profile, TruffleInlining parent) {
+        super(target, parent);
+        this.target = target;
+        this.profile = profile;
+    }
+
     @Override
     public String getTargetName() {
         return target.toString();
@@ -62,6 +72,26 @@ public final class TruffleInliningDecision extends TruffleInlining implements Co
         return inline;
     }
 
+    @Override
+    public void setInlined(boolean inlined) {
+        /*
+         * The same call may be partially evaluated more than once, e.g. if it is part of an
+         * exploded loop. The call counts as inlined if any of its copies was inlined.
+         */
+        if (inlined) {
+            inlinedByCompiler = true;
+            inline = true;
+        } else if (!inlinedByCompiler) {
+            inline = false;
+            profile.setFailedReason("rejected during partial evaluation");
+        }
+    }
+
+    @Override
+    public double getFrequency() {
+        return profile.getFrequency();
+    }
+
     public TruffleInliningProfile getProfile() {
         return profile;
     }
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime.debug;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.ObjectName;
+
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+
+/**
+ * Live Truffle compilation metrics of a single engine, updated by the
+ * {@link CompilationMetricsListener}.
+ */
+public final class CompilationMetrics implements CompilationMetricsMXBean {
+
+    private final int engineId;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong dequeued = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+    private final AtomicLong deoptimized = new AtomicLong();
+
+    private final Histogram queueWaitTime = new Histogram();
+    private final Histogram partialEvaluationTime = new Histogram();
+    private final Histogram graalTime = new Histogram();
+    private final Histogram codeInstallationTime = new Histogram();
+    private final Histogram codeSize = new Histogram();
+
+    /**
+     * Time at which call targets that are waiting for compilation were queued.
+     */
+    private final Map<OptimizedCallTarget, Long> queuedTimestamps = new WeakHashMap<>();
+
+    /**
+     * Name under which this bean is registered with the platform MBean server, or {@code null} if
+     * it is not registered.
+     */
+    private volatile ObjectName objectName;
+
+    CompilationMetrics(int engineId) {
+        this.engineId = engineId;
+    }
+
+    void setObjectName(ObjectName name) {
+        this.objectName = name;
+    }
+
+    /**
+     * Removes this bean from the platform MBean server. Called when the engine the metrics were
+     * collected for is closed, so that the server does not keep the metrics alive.
+     */
+    public synchronized void unregister() {
+        ObjectName name = objectName;
+        if (name != null) {
+            objectName = null;
+            unregister(name);
+        }
+    }
+
+    static void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            // already unregistered or failing to deregister, the name is dead either way
+        }
+    }
+
+    int getEngineId() {
+        return engineId;
+    }
+
+    void onQueued(OptimizedCallTarget target, long timestamp) {
+        queued.incrementAndGet();
+        synchronized (queuedTimestamps) {
+            queuedTimestamps.put(target, timestamp);
+        }
+    }
+
+    void onDequeued(OptimizedCallTarget target) {
+        dequeued.incrementAndGet();
+        synchronized (queuedTimestamps) {
+            queuedTimestamps.remove(target);
+        }
+    }
+
+    void onStarted(OptimizedCallTarget target, long timestamp) {
+        started.incrementAndGet();
+        Long queuedTimestamp;
+        synchronized (queuedTimestamps) {
+            queuedTimestamp = queuedTimestamps.remove(target);
+        }
+        if (queuedTimestamp != null) {
+            queueWaitTime.accept(toMicros(timestamp - queuedTimestamp));
+        }
+    }
+
+    void onSucceeded(long truffleTierTime, long graalTierTime, long installationTime, int targetCodeSize) {
+        succeeded.incrementAndGet();
+        partialEvaluationTime.accept(toMicros(truffleTierTime));
+        graalTime.accept(toMicros(graalTierTime));
+        codeInstallationTime.accept(toMicros(installationTime));
+        codeSize.accept(targetCodeSize);
+    }
+
+    void onFailed() {
+        failed.incrementAndGet();
+    }
+
+    void onInvalidated() {
+        invalidated.incrementAndGet();
+    }
+
+    void onDeoptimized() {
+        deoptimized.incrementAndGet();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public int getQueueLength() {
+        synchronized (queuedTimestamps) {
+            return queuedTimestamps.size();
+        }
+    }
+
+    @Override
+    public int getCompilerThreadCount() {
+        return GraalTruffleRuntime.getRuntime().getCompilerThreadCount();
+    }
+
+    @Override
+    public int getActiveCompilerThreadCount() {
+        return GraalTruffleRuntime.getRuntime().getActiveCompilerThreadCount();
+    }
+
+    @Override
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    @Override
+    public long getDequeuedCount() {
+        return dequeued.get();
+    }
+
+    @Override
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    @Override
+    public long getSucceededCount() {
+        return succeeded.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public long getInvalidatedCount() {
+        return invalidated.get();
+    }
+
+    @Override
+    public long getDeoptimizedCount() {
+        return deoptimized.get();
+    }
+
+    @Override
+    public Map<String, Long> getQueueWaitTime() {
+        return queueWaitTime.snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getPartialEvaluationTime() {
+        return partialEvaluationTime.snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getGraalTime() {
+        return graalTime.snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getCodeInstallationTime() {
+        return codeInstallationTime.snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getCodeSize() {
+        return codeSize.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        queued.set(0);
+        dequeued.set(0);
+        started.set(0);
+        succeeded.set(0);
+        failed.set(0);
+        invalidated.set(0);
+        deoptimized.set(0);
+        queueWaitTime.reset();
+        partialEvaluationTime.reset();
+        graalTime.reset();
+        codeInstallationTime.reset();
+        codeSize.reset();
+    }
+
+    /**
+     * Distribution of non-negative values recorded in power of two buckets.
+     */
+    static final class Histogram {
+
+        private final long[] buckets = new long[Long.SIZE];
+        private long count;
+        private long sum;
+        private long min;
+        private long max;
+
+        synchronized void accept(long value) {
+            long v = Math.max(0, value);
+            buckets[Long.SIZE - 1 - Long.numberOfLeadingZeros(v | 1)]++;
+            if (count == 0) {
+                min = v;
+                max = v;
+            } else {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            count++;
+            sum += v;
+        }
+
+        synchronized void reset() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = 0;
+            }
+            count = 0;
+            sum = 0;
+            min = 0;
+            max = 0;
+        }
+
+        /**
+         * Estimates the value below which {@code percent} percent of the recorded values fall. The
+         * estimate is the upper bound of the bucket containing that value.
+         */
+        private long percentile(int percent) {
+            long rank = (count * percent + 99) / 100;
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    // the upper bound of the top buckets does not fit in a long
+                    long upperBound = i >= Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                    return Math.max(min, Math.min(max, upperBound));
+                }
+            }
+            return max;
+        }
+
+        synchronized Map<String, Long> snapshot() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("sum", sum);
+            map.put("min", min);
+            map.put("max", max);
+            map.put("mean", count == 0 ? 0 : sum / count);
+            map.put("p50", percentile(50));
+            map.put("p90", percentile(90));
+            map.put("p99", percentile(99));
+            return Collections.unmodifiableMap(map);
+        }
+    }
+}
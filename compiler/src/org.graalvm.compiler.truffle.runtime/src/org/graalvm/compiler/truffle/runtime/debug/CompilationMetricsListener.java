@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime.debug;
+
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationMetrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.runtime.AbstractGraalTruffleRuntimeListener;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.compiler.truffle.runtime.TruffleInlining;
+
+import com.oracle.truffle.api.frame.Frame;
+
+/**
+ * Collects {@link CompilationMetrics} for each engine and registers them with the platform MBean
+ * server under the name {@code org.graalvm.compiler.truffle:type=CompilationMetrics,engine=<id>}.
+ * A bean is unregistered when its engine is closed or, at the latest, when the runtime shuts down.
+ */
+public final class CompilationMetricsListener extends AbstractGraalTruffleRuntimeListener {
+
+    static final String OBJECT_NAME_PREFIX = "org.graalvm.compiler.truffle:type=CompilationMetrics,engine=";
+
+    /**
+     * Records interesting points in time for the current compilation.
+     */
+    private final ThreadLocal<StatisticsListener.Times> compilationTimes = new ThreadLocal<>();
+
+    private CompilationMetricsListener(GraalTruffleRuntime runtime) {
+        super(runtime);
+    }
+
+    /**
+     * Adds a new listener to {@code runtime} if
+     * {@link TruffleCompilerOptions#TruffleCompilationMetrics} is enabled.
+     *
+     * @return the listener that was added, or {@code null} if none was
+     */
+    public static CompilationMetricsListener install(GraalTruffleRuntime runtime) {
+        if (TruffleCompilerOptions.getValue(TruffleCompilationMetrics)) {
+            CompilationMetricsListener listener = new CompilationMetricsListener(runtime);
+            runtime.addListener(listener);
+            return listener;
+        }
+        return null;
+    }
+
+    private CompilationMetrics metrics(OptimizedCallTarget target) {
+        return runtime.getCompilationMetrics(target, this::createMetrics);
+    }
+
+    private CompilationMetrics createMetrics(int engineId) {
+        CompilationMetrics metrics = new CompilationMetrics(engineId);
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + engineId);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metrics.setObjectName(name);
+        } catch (Exception | LinkageError e) {
+            // metrics are still collected, they are just not reachable through JMX
+            runtime.log(String.format("Failed to register Truffle compilation metrics MXBean for engine %d: %s", engineId, e));
+        }
+        return metrics;
+    }
+
+    @Override
+    public void onCompilationQueued(OptimizedCallTarget target) {
+        metrics(target).onQueued(target, System.nanoTime());
+    }
+
+    @Override
+    public void onCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason) {
+        metrics(target).onDequeued(target);
+    }
+
+    @Override
+    public void onCompilationStarted(OptimizedCallTarget target) {
+        StatisticsListener.Times times = new StatisticsListener.Times();
+        compilationTimes.set(times);
+        metrics(target).onStarted(target, times.compilationStarted);
+    }
+
+    @Override
+    public void onCompilationTruffleTierFinished(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph) {
+        compilationTimes.get().truffleTierFinished = System.nanoTime();
+    }
+
+    @Override
+    public void onCompilationGraalTierFinished(OptimizedCallTarget target, GraphInfo graph) {
+        compilationTimes.get().graalTierFinished = System.nanoTime();
+    }
+
+    @Override
+    public void onCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph, CompilationResultInfo result) {
+        long compilationDone = System.nanoTime();
+        StatisticsListener.Times times = compilationTimes.get();
+        compilationTimes.remove();
+        metrics(target).onSucceeded(times.truffleTierFinished - times.compilationStarted, times.graalTierFinished - times.truffleTierFinished,
+                        compilationDone - times.graalTierFinished, result.getTargetCodeSize());
+    }
+
+    @Override
+    public void onCompilationFailed(OptimizedCallTarget target, String reason, boolean bailout, boolean permanentBailout) {
+        compilationTimes.remove();
+        metrics(target).onFailed();
+    }
+
+    @Override
+    public void onCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
+        metrics(target).onInvalidated();
+    }
+
+    @Override
+    public void onCompilationDeoptimized(OptimizedCallTarget target, Frame frame) {
+        metrics(target).onDeoptimized();
+    }
+
+    @Override
+    public void onShutdown() {
+        // beans of engines that are still open at shutdown
+        try {
+            for (ObjectName name : ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName(OBJECT_NAME_PREFIX + "*"), null)) {
+                CompilationMetrics.unregister(name);
+            }
+        } catch (MalformedObjectNameException | LinkageError e) {
+            runtime.log(String.format("Failed to unregister Truffle compilation metrics MXBeans: %s", e));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime.debug;
+
+import java.util.Map;
+
+/**
+ * Management interface for the Truffle compilation metrics of an engine. Durations are reported
+ * in microseconds and code sizes in bytes. Distributions are reported as maps with the keys
+ * {@code count}, {@code sum}, {@code min}, {@code max}, {@code mean}, {@code p50}, {@code p90} and
+ * {@code p99}. Percentiles are estimated with power of two precision.
+ */
+public interface CompilationMetricsMXBean {
+
+    /**
+     * Number of call targets of this engine that are currently queued for compilation.
+     */
+    int getQueueLength();
+
+    /**
+     * Number of live background compiler threads. The compiler threads are shared by all engines.
+     */
+    int getCompilerThreadCount();
+
+    /**
+     * Number of background compiler threads that are currently compiling, for any engine.
+     */
+    int getActiveCompilerThreadCount();
+
+    long getQueuedCount();
+
+    long getDequeuedCount();
+
+    long getStartedCount();
+
+    long getSucceededCount();
+
+    long getFailedCount();
+
+    long getInvalidatedCount();
+
+    long getDeoptimizedCount();
+
+    /**
+     * Time between queueing a call target and the start of its compilation.
+     */
+    Map<String, Long> getQueueWaitTime();
+
+    /**
+     * Time spent in partial evaluation and the Truffle tier.
+     */
+    Map<String, Long> getPartialEvaluationTime();
+
+    /**
+     * Time spent in the Graal tier, from the end of the Truffle tier to the end of code emission.
+     */
+    Map<String, Long> getGraalTime();
+
+    Map<String, Long> getCodeInstallationTime();
+
+    Map<String, Long> getCodeSize();
+
+    /**
+     * Resets all counters and distributions of this engine.
+     */
+    void reset();
+}
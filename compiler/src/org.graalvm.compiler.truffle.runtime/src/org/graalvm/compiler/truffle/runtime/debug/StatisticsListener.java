@@ -38,6 +38,7 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.Function;
 
+import org.graalvm.compiler.truffle.common.GraphCacheStatistics;
 import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
 import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
@@ -259,7 +260,16 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
         printStatistic(rt, "Queue Accuracy", 1.0 - dequeues / (double) queues);
         printStatistic(rt, "Compilation Utilization", compilationTime.getSum() / (double) (endTime - firstCompilation));
         printStatistic(rt, "Remaining Compilation Queue", rt.getCompilationQueueSize());
+        printStatistic(rt, "Peak Compiler Threads", rt.getPeakCompilerThreadCount());
         printStatistic(rt, "Times defered until compilation", deferCompilations);
+        GraphCacheStatistics graphCache = rt.getGraphCacheStatistics();
+        if (graphCache != null) {
+            printStatistic(rt, "PE graph cache");
+            printStatistic(rt, "  Hits", graphCache.getHits());
+            printStatistic(rt, "  Misses", graphCache.getMisses());
+            printStatistic(rt, "  Evictions", graphCache.getEvictions());
+            printStatistic(rt, "  Invalidations", graphCache.getInvalidations());
+        }
 
         printStatisticTime(rt, "Time to queue", timeToQueue);
         printStatisticTime(rt, "Time to compilation", timeToCompilation);
@@ -315,6 +325,10 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
         rt.log(String.format("  %-50s: %d", label, value));
     }
 
+    private static void printStatistic(GraalTruffleRuntime rt, String label, long value) {
+        rt.log(String.format("  %-50s: %d", label, value));
+    }
+
     private static void printStatistic(GraalTruffleRuntime rt, String label, double value) {
         rt.log(String.format("  %-50s: %f", label, value));
     }
@@ -161,6 +161,16 @@ public final class TraceCompilationListener extends AbstractGraalTruffleRuntimeL
         runtime.logEvent(0, "opt invalidated", target.toString(), properties);
     }
 
+    @Override
+    public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, Object source, CharSequence reason, int invalidations, int reprofileCount) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        addSourceInfo(properties, source);
+        properties.put("Reason", reason);
+        properties.put("Invalidations", invalidations);
+        properties.put("Reprofile", reprofileCount);
+        runtime.logEvent(0, "opt deopt storm", target.toString(), properties);
+    }
+
     private static void addSourceInfo(Map<String, Object> properties, Object source) {
         if (source != null) {
             properties.put("SourceClass", source.getClass().getSimpleName());
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.debug.CompilationMetricsListener;
+import org.graalvm.compiler.truffle.runtime.debug.CompilationMetricsMXBean;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompilationMetricsTest extends TestWithSynchronousCompiling {
+
+    private static final int CALLS = 100;
+
+    private CompilationMetricsListener listener;
+
+    @Before
+    public void installListener() {
+        try (TruffleOptionsOverrideScope scope = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleCompilationMetrics, true)) {
+            listener = CompilationMetricsListener.install(GraalTruffleRuntime.getRuntime());
+        }
+        Assert.assertNotNull(listener);
+    }
+
+    @After
+    public void removeListener() {
+        GraalTruffleRuntime.getRuntime().removeListener(listener);
+    }
+
+    private static ObjectName namePattern() throws MalformedObjectNameException {
+        return new ObjectName("org.graalvm.compiler.truffle:type=CompilationMetrics,engine=*");
+    }
+
+    /**
+     * Compiles a function in a new context and returns the name of the metrics bean that was
+     * registered for the engine of the context.
+     */
+    private static ObjectName compileInNewBean(Context context) throws MalformedObjectNameException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> before = server.queryNames(namePattern(), null);
+        context.eval("sl", "function test() { return 42; }");
+        Value test = context.lookup("sl", "test");
+        for (int i = 0; i < CALLS; i++) {
+            Assert.assertEquals(42, test.execute().asInt());
+        }
+        Set<ObjectName> names = server.queryNames(namePattern(), null);
+        names.removeAll(before);
+        Assert.assertEquals(1, names.size());
+        return names.iterator().next();
+    }
+
+    @Test
+    public void collectMetricsOfCompilations() throws MalformedObjectNameException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Context context = Context.create("sl");
+        try {
+            ObjectName name = compileInNewBean(context);
+            CompilationMetricsMXBean metrics = JMX.newMXBeanProxy(server, name, CompilationMetricsMXBean.class);
+            Assert.assertTrue(metrics.getStartedCount() >= 1);
+            Assert.assertTrue(metrics.getSucceededCount() >= 1);
+            Assert.assertEquals(0, metrics.getFailedCount());
+            assertHistogram(metrics.getCodeSize(), metrics.getSucceededCount());
+            assertHistogram(metrics.getPartialEvaluationTime(), metrics.getSucceededCount());
+            assertHistogram(metrics.getGraalTime(), metrics.getSucceededCount());
+
+            metrics.reset();
+            Assert.assertEquals(0, metrics.getSucceededCount());
+            Assert.assertEquals(0L, (long) metrics.getCodeSize().get("count"));
+        } finally {
+            context.close();
+        }
+    }
+
+    @Test
+    public void unregisterWhenEngineIsClosed() throws MalformedObjectNameException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Context first = Context.create("sl");
+        Context second = Context.create("sl");
+        try {
+            ObjectName firstName = compileInNewBean(first);
+            ObjectName secondName = compileInNewBean(second);
+            Assert.assertNotEquals(firstName, secondName);
+
+            first.close();
+            Assert.assertFalse(server.isRegistered(firstName));
+            Assert.assertTrue(server.isRegistered(secondName));
+
+            second.close();
+            Assert.assertFalse(server.isRegistered(secondName));
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    private static void assertHistogram(Map<String, Long> histogram, long count) {
+        Assert.assertEquals(count, (long) histogram.get("count"));
+        long min = histogram.get("min");
+        long p50 = histogram.get("p50");
+        long p90 = histogram.get("p90");
+        long p99 = histogram.get("p99");
+        long max = histogram.get("max");
+        Assert.assertTrue(0 <= min && min <= p50 && p50 <= p90 && p90 <= p99 && p99 <= max);
+        Assert.assertTrue(histogram.get("mean") >= min && histogram.get("mean") <= max);
+        Assert.assertTrue(histogram.get("sum") >= max);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import static org.graalvm.compiler.core.common.CompilationIdentifier.INVALID_COMPILATION_ID;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugHandlersFactory;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
+import org.graalvm.compiler.truffle.common.TruffleDebugJavaMethod;
+import org.graalvm.compiler.truffle.compiler.TruffleCompilerImpl;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.compiler.truffle.runtime.TruffleInlining;
+import org.graalvm.compiler.truffle.runtime.TruffleInliningDecision;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.RootNode;
+
+public class DemandDrivenInliningTest {
+
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private static final TruffleCompilerImpl truffleCompiler = (TruffleCompilerImpl) runtime.newTruffleCompiler();
+
+    private static OptimizedCallTarget createCaller() {
+        OptimizedCallTarget callee = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(42));
+        return (OptimizedCallTarget) runtime.createCallTarget(new RootNode(null) {
+
+            @Child private DirectCallNode first = runtime.createDirectCallNode(callee);
+            @Child private DirectCallNode second = runtime.createDirectCallNode(callee);
+
+            @Override
+            public Object execute(VirtualFrame frame) {
+                first.call(new Object[0]);
+                return second.call(new Object[0]);
+            }
+        });
+    }
+
+    @SuppressWarnings("try")
+    private static TruffleInlining partialEval(OptimizedCallTarget compilable) {
+        compilable.call();
+        compilable.call();
+        compilable.call();
+        OptionValues options = TruffleCompilerOptions.getOptions();
+        DebugContext debug = DebugContext.create(options, DebugHandlersFactory.LOADER);
+        try (DebugContext.Scope s = debug.scope("TruffleCompilation", new TruffleDebugJavaMethod(compilable))) {
+            TruffleInlining inlining = TruffleInlining.createDemandDriven(compilable);
+            Assert.assertTrue("call sites must not be explored before partial evaluation", inlining.getCallSites().isEmpty());
+            truffleCompiler.getPartialEvaluator().createGraph(debug, compilable, inlining, AllowAssumptions.YES, INVALID_COMPILATION_ID, compilable.getSpeculationLog(), null);
+            return inlining;
+        } catch (Throwable e) {
+            throw debug.handle(e);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testInlineWithinBudget() {
+        try (TruffleOptionsOverrideScope o = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleDemandDrivenInlining, true)) {
+            TruffleInlining inlining = partialEval(createCaller());
+            Assert.assertEquals(2, inlining.getCallSites().size());
+            for (TruffleInliningDecision decision : inlining) {
+                Assert.assertTrue(decision.shouldInline());
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testBudgetExhausted() {
+        try (TruffleOptionsOverrideScope o = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleDemandDrivenInlining, true,
+                        TruffleCompilerOptions.TruffleDemandDrivenInliningBudget, 0)) {
+            TruffleInlining inlining = partialEval(createCaller());
+            Assert.assertEquals(2, inlining.getCallSites().size());
+            for (TruffleInliningDecision decision : inlining) {
+                Assert.assertFalse(decision.shouldInline());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntimeListener;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+
+public class DeoptStormTest extends TestWithSynchronousCompiling {
+
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private static final int STORM_THRESHOLD = 2;
+
+    private static final class AssumptionRootNode extends RootNode {
+
+        @CompilationFinal Assumption assumption = runtime.createAssumption("storm");
+
+        AssumptionRootNode() {
+            super(null);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return assumption.isValid() ? 42 : 0;
+        }
+    }
+
+    private static final class StormListener implements GraalTruffleRuntimeListener {
+
+        final List<Integer> reprofileCounts = new ArrayList<>();
+
+        @Override
+        public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, Object source, CharSequence reason, int invalidations, int reprofileCount) {
+            reprofileCounts.add(reprofileCount);
+        }
+    }
+
+    private static int callUntilCompiled(OptimizedCallTarget target) {
+        int calls = 0;
+        while (!target.isValid()) {
+            target.call();
+            calls++;
+            Assert.assertTrue("target did not get compiled", calls < 100_000);
+        }
+        return calls;
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testBackoff() {
+        StormListener listener = new StormListener();
+        runtime.addListener(listener);
+        try (TruffleOptionsOverrideScope s = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleDeoptStormThreshold, STORM_THRESHOLD,
+                        TruffleCompilerOptions.TruffleDeoptStormWindow, 60_000)) {
+            AssumptionRootNode root = new AssumptionRootNode();
+            OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(root);
+            int previousCalls = 0;
+            for (int i = 0; i < STORM_THRESHOLD + 3; i++) {
+                int calls = callUntilCompiled(target);
+                if (i > STORM_THRESHOLD) {
+                    Assert.assertTrue("recompilation is not backed off", calls > previousCalls);
+                }
+                previousCalls = calls;
+                root.assumption.invalidate();
+                assertNotCompiled(target);
+                root.assumption = runtime.createAssumption("storm");
+            }
+            Assert.assertEquals(STORM_THRESHOLD + 3, target.getCompilationProfile().getInvalidationCount());
+            Assert.assertEquals(4, target.getCompilationProfile().getDeoptStormCount());
+            Assert.assertEquals(4, listener.reprofileCounts.size());
+            for (int i = 1; i < listener.reprofileCounts.size(); i++) {
+                Assert.assertEquals(2 * listener.reprofileCounts.get(i - 1), (int) listener.reprofileCounts.get(i));
+            }
+        } finally {
+            runtime.removeListener(listener);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testDisabledStormDetection() {
+        try (TruffleOptionsOverrideScope s = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleDeoptStormThreshold, 0)) {
+            AssumptionRootNode root = new AssumptionRootNode();
+            OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(root);
+            for (int i = 0; i < STORM_THRESHOLD + 3; i++) {
+                callUntilCompiled(target);
+                root.assumption.invalidate();
+                root.assumption = runtime.createAssumption("storm");
+            }
+            Assert.assertEquals(0, target.getCompilationProfile().getDeoptStormCount());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.graalvm.compiler.truffle.runtime.ElasticCompilerThreadPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ElasticCompilerThreadPoolTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final long IDLE_TIMEOUT_MILLIS = 100;
+
+    private ElasticCompilerThreadPool pool;
+
+    private ElasticCompilerThreadPool createPool(int minimumThreads, int maximumThreads, int queueDepthPerThread) {
+        pool = new ElasticCompilerThreadPool(minimumThreads, maximumThreads, queueDepthPerThread, IDLE_TIMEOUT_MILLIS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "ElasticCompilerThreadPoolTest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return pool;
+    }
+
+    @After
+    public void shutdown() throws InterruptedException {
+        if (pool != null) {
+            pool.shutdownNow();
+            Assert.assertTrue(pool.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static void awaitCondition(String message, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(message, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Submits {@code count} tasks that block until {@code release} is counted down.
+     */
+    private static CountDownLatch submitBlocked(ElasticCompilerThreadPool threads, int count, CountDownLatch release) {
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            threads.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        return done;
+    }
+
+    @Test
+    public void growUnderLoad() throws InterruptedException {
+        ElasticCompilerThreadPool threads = createPool(1, 4, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = submitBlocked(threads, 20, release);
+        Assert.assertEquals(4, threads.getCorePoolSize());
+        awaitCondition("pool did not start the added threads", () -> threads.getPoolSize() == 4);
+        Assert.assertEquals(4, threads.getActiveCount());
+
+        release.countDown();
+        Assert.assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(4, threads.getLargestPoolSize());
+    }
+
+    @Test
+    public void shrinkAfterIdleTimeout() throws InterruptedException {
+        ElasticCompilerThreadPool threads = createPool(1, 4, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = submitBlocked(threads, 20, release);
+        awaitCondition("pool did not grow", () -> threads.getPoolSize() == 4);
+
+        release.countDown();
+        Assert.assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        awaitCondition("pool did not shrink back to the minimum", () -> threads.getCorePoolSize() == 1);
+        // even the minimum threads are released once they were idle for the idle timeout
+        awaitCondition("idle threads were not released", () -> threads.getPoolSize() == 0);
+
+        // and started again on demand
+        CountDownLatch again = submitBlocked(threads, 1, new CountDownLatch(0));
+        Assert.assertTrue(again.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void stayAtMinimumUnderLightLoad() throws InterruptedException {
+        ElasticCompilerThreadPool threads = createPool(2, 4, 2);
+        for (int i = 0; i < 10; i++) {
+            CountDownLatch done = submitBlocked(threads, 1, new CountDownLatch(0));
+            Assert.assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertEquals(2, threads.getCorePoolSize());
+        Assert.assertTrue(threads.getLargestPoolSize() <= 2);
+    }
+
+    @Test
+    public void neverExceedMaximum() throws InterruptedException {
+        ElasticCompilerThreadPool threads = createPool(1, 3, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = submitBlocked(threads, 100, release);
+        Assert.assertEquals(3, threads.getCorePoolSize());
+        release.countDown();
+        Assert.assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(3, threads.getLargestPoolSize());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.Collections;
+
+import org.graalvm.compiler.truffle.compiler.EncodedGraphCache;
+import org.graalvm.compiler.truffle.test.nodes.AbstractTestNode;
+import org.graalvm.compiler.truffle.test.nodes.AddTestNode;
+import org.graalvm.compiler.truffle.test.nodes.ConstantTestNode;
+import org.graalvm.compiler.truffle.test.nodes.RootTestNode;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class EncodedGraphCacheTest extends PartialEvaluationTest {
+
+    @CompilationFinal static int compilationFinalValue;
+
+    public static Object constant42() {
+        return 42;
+    }
+
+    public static Object constant43() {
+        return 43;
+    }
+
+    private EncodedGraphCache getGraphCache() {
+        EncodedGraphCache graphCache = truffleCompiler.getPartialEvaluator().getGraphCache();
+        Assume.assumeNotNull(graphCache);
+        return graphCache;
+    }
+
+    @Test
+    public void sharedBetweenCompilations() {
+        EncodedGraphCache graphCache = getGraphCache();
+        FrameDescriptor fd = new FrameDescriptor();
+        AbstractTestNode first = new AddTestNode(new ConstantTestNode(40), new ConstantTestNode(2));
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "sharedBetweenCompilations1", first));
+        long hits = graphCache.getHits();
+
+        AbstractTestNode second = new AddTestNode(new ConstantTestNode(40), new ConstantTestNode(2));
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "sharedBetweenCompilations2", second));
+        Assert.assertTrue(graphCache.getHits() > hits);
+    }
+
+    @Test
+    public void invalidateDependentGraphs() throws NoSuchMethodException {
+        EncodedGraphCache graphCache = getGraphCache();
+        FrameDescriptor fd = new FrameDescriptor();
+        AbstractTestNode first = new AddTestNode(new ConstantTestNode(40), new ConstantTestNode(2));
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "invalidateDependentGraphs1", first));
+
+        long invalidations = graphCache.getInvalidations();
+        ResolvedJavaMethod execute = getMetaAccess().lookupJavaMethod(AddTestNode.class.getDeclaredMethod("execute", VirtualFrame.class));
+        graphCache.invalidate(Collections.singletonList(execute));
+        Assert.assertTrue(graphCache.getInvalidations() > invalidations);
+
+        long misses = graphCache.getMisses();
+        AbstractTestNode second = new AddTestNode(new ConstantTestNode(40), new ConstantTestNode(2));
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "invalidateDependentGraphs2", second));
+        Assert.assertTrue(graphCache.getMisses() > misses);
+    }
+
+    @Test
+    public void keepGraphsOfMethodsThatWereNotRedefined() throws NoSuchMethodException {
+        EncodedGraphCache graphCache = getGraphCache();
+        FrameDescriptor fd = new FrameDescriptor();
+        AbstractTestNode first = new AddTestNode(new ConstantTestNode(40), new ConstantTestNode(2));
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "keepGraphsOfMethodsThatWereNotRedefined1", first));
+
+        long invalidations = graphCache.getInvalidations();
+        ResolvedJavaMethod execute = getMetaAccess().lookupJavaMethod(AddTestNode.class.getDeclaredMethod("execute", VirtualFrame.class));
+        graphCache.invalidateRedefined(Collections.singletonList(execute));
+        Assert.assertEquals(invalidations, graphCache.getInvalidations());
+
+        long hits = graphCache.getHits();
+        AbstractTestNode second = new AddTestNode(new ConstantTestNode(40), new ConstantTestNode(2));
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "keepGraphsOfMethodsThatWereNotRedefined2", second));
+        Assert.assertTrue(graphCache.getHits() > hits);
+    }
+
+    @Test
+    public void compilationFinalStaticFieldNotCached() {
+        getGraphCache();
+        FrameDescriptor fd = new FrameDescriptor();
+        compilationFinalValue = 42;
+        assertPartialEvalEquals("constant42", new RootTestNode(fd, "compilationFinalStaticField1", new CompilationFinalStaticFieldTestNode()));
+
+        compilationFinalValue = 43;
+        assertPartialEvalEquals("constant43", new RootTestNode(fd, "compilationFinalStaticField2", new CompilationFinalStaticFieldTestNode()));
+    }
+
+    static final class CompilationFinalStaticFieldTestNode extends AbstractTestNode {
+
+        @Override
+        public int execute(VirtualFrame frame) {
+            return compilationFinalValue;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationThreshold;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+
+public class MultiTierCompilationTest extends TestWithSynchronousCompiling {
+
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+    private static final int FIRST_TIER_THRESHOLD = 3;
+
+    private static TruffleOptionsOverrideScope multiTierScope;
+
+    @BeforeClass
+    public static void enableMultiTier() {
+        multiTierScope = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleMultiTier, true, TruffleCompilerOptions.TruffleFirstTierCompilationThreshold, FIRST_TIER_THRESHOLD);
+    }
+
+    @AfterClass
+    public static void disableMultiTier() {
+        multiTierScope.close();
+    }
+
+    @Test
+    public void testFirstTierFollowedBySecondTier() {
+        OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(42));
+        for (int i = 0; i < FIRST_TIER_THRESHOLD; i++) {
+            Assert.assertEquals(42, target.call());
+        }
+        assertCompiled(target);
+        Assert.assertTrue(target.getCompilationProfile().isFirstTierCompilation());
+
+        final int compilationThreshold = TruffleCompilerOptions.getValue(TruffleCompilationThreshold);
+        for (int i = 0; i < compilationThreshold; i++) {
+            Assert.assertEquals(42, target.call());
+        }
+        assertCompiled(target);
+        Assert.assertFalse(target.getCompilationProfile().isFirstTierCompilation());
+        Assert.assertTrue(target.getCompilationProfile().getFirstTierCallCount() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testCompileImmediatelySkipsFirstTier() {
+        try (TruffleOptionsOverrideScope s = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleCompileImmediately, true)) {
+            OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(42));
+            target.call();
+            assertCompiled(target);
+            Assert.assertFalse(target.getCompilationProfile().isFirstTierCompilation());
+        }
+    }
+
+    private static final class NamedRootNode extends RootNode {
+
+        private final String name;
+
+        NamedRootNode(String name) {
+            super(null);
+            this.name = name;
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return 42;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testRejectedSecondTierIsNotRequestedAgain() {
+        OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new NamedRootNode("rejectedSecondTier"));
+        for (int i = 0; i < FIRST_TIER_THRESHOLD; i++) {
+            Assert.assertEquals(42, target.call());
+        }
+        assertCompiled(target);
+        Assert.assertTrue(target.getCompilationProfile().isFirstTierCompilation());
+
+        try (TruffleOptionsOverrideScope s = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleCompileOnly, "~rejectedSecondTier")) {
+            final int compilationThreshold = TruffleCompilerOptions.getValue(TruffleCompilationThreshold);
+            for (int i = 0; i < 2 * compilationThreshold; i++) {
+                Assert.assertEquals(42, target.call());
+            }
+            // the first tier code stays installed and does not request the second tier again
+            assertCompiled(target);
+            Assert.assertTrue(target.getCompilationProfile().isFirstTierCompilation());
+            Assert.assertTrue(target.getCompilationProfile().isSecondTierRequested());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.compiler.truffle.runtime.TraversingBlockingQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.nodes.RootNode;
+
+public class TraversingBlockingQueueTest {
+
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+
+    private long nextSequence;
+
+    private final class TestRequest implements TraversingBlockingQueue.Prioritized {
+
+        final long sequence = nextSequence++;
+        final OptimizedCallTarget callTarget;
+        long priority;
+        boolean cold;
+        boolean obsolete;
+        CharSequence dropReason;
+
+        TestRequest(long priority) {
+            this(priority, null);
+        }
+
+        TestRequest(long priority, OptimizedCallTarget callTarget) {
+            this.priority = priority;
+            this.callTarget = callTarget;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public OptimizedCallTarget getCallTarget() {
+            return callTarget;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+
+        @Override
+        public long getPriority() {
+            return priority;
+        }
+
+        @Override
+        public boolean isObsolete() {
+            return obsolete;
+        }
+
+        @Override
+        public boolean isCold(long now, long coldTimeoutNanos) {
+            return coldTimeoutNanos > 0 && cold;
+        }
+
+        @Override
+        public void drop(CharSequence reason) {
+            dropReason = reason;
+        }
+    }
+
+    @Test
+    public void takeHottestFirst() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, 0);
+        TestRequest lukewarm = new TestRequest(3);
+        TestRequest cold = new TestRequest(1);
+        TestRequest hot = new TestRequest(5);
+        queue.add(lukewarm);
+        queue.add(cold);
+        queue.add(hot);
+        Assert.assertSame(hot, queue.take());
+        Assert.assertSame(lukewarm, queue.take());
+        Assert.assertSame(cold, queue.take());
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void breakTiesInSubmissionOrder() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, 0);
+        TestRequest first = new TestRequest(2);
+        TestRequest second = new TestRequest(2);
+        TestRequest third = new TestRequest(2);
+        queue.add(second);
+        queue.add(third);
+        queue.add(first);
+        Assert.assertSame(first, queue.take());
+        Assert.assertSame(second, queue.take());
+        Assert.assertSame(third, queue.take());
+    }
+
+    @Test
+    public void takeOtherTasksBeforeRequests() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, 0);
+        TestRequest hot = new TestRequest(Long.MAX_VALUE);
+        Runnable task = () -> {
+        };
+        queue.add(hot);
+        queue.add(task);
+        Assert.assertSame(task, queue.take());
+        Assert.assertSame(hot, queue.take());
+    }
+
+    @Test
+    public void reorderWhenHotnessChanges() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, 0);
+        TestRequest first = new TestRequest(2);
+        TestRequest second = new TestRequest(1);
+        queue.add(first);
+        queue.add(second);
+        second.priority = 3;
+        Assert.assertSame(second, queue.take());
+        Assert.assertSame(first, queue.take());
+    }
+
+    @Test
+    public void keepOrderWithinReorderInterval() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, TimeUnit.HOURS.toMillis(1));
+        TestRequest first = new TestRequest(2);
+        TestRequest second = new TestRequest(1);
+        queue.add(first);
+        queue.add(second);
+        second.priority = 3;
+        Assert.assertSame(first, queue.take());
+        Assert.assertSame(second, queue.take());
+    }
+
+    @Test
+    public void peekMatchesTake() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(1, 0);
+        TestRequest[] requests = {new TestRequest(4), new TestRequest(7), new TestRequest(1), new TestRequest(7), new TestRequest(5)};
+        for (TestRequest request : requests) {
+            queue.add(request);
+        }
+        requests[3].cold = true;
+        requests[4].obsolete = true;
+        while (!queue.isEmpty()) {
+            Runnable peeked = queue.peek();
+            Assert.assertSame(peeked, queue.take());
+        }
+        Assert.assertNull(queue.peek());
+    }
+
+    @Test
+    public void dropColdRequests() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(1, 0);
+        TestRequest cold = new TestRequest(5);
+        TestRequest warm = new TestRequest(1);
+        queue.add(cold);
+        queue.add(warm);
+        cold.cold = true;
+        Assert.assertSame(warm, queue.take());
+        Assert.assertEquals(TraversingBlockingQueue.COLD_REASON, cold.dropReason);
+        Assert.assertNull(warm.dropReason);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void keepColdRequestsWithoutTimeout() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, 0);
+        TestRequest cold = new TestRequest(5);
+        queue.add(cold);
+        cold.cold = true;
+        Assert.assertSame(cold, queue.take());
+        Assert.assertNull(cold.dropReason);
+    }
+
+    @Test
+    public void discardObsoleteRequestsWithoutDropping() throws InterruptedException {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(1, 0);
+        TestRequest obsolete = new TestRequest(5);
+        TestRequest live = new TestRequest(1);
+        queue.add(obsolete);
+        queue.add(live);
+        obsolete.obsolete = true;
+        Assert.assertSame(live, queue.take());
+        Assert.assertNull(obsolete.dropReason);
+    }
+
+    @Test
+    public void getQueuedCallTargetsInSubmissionOrder() {
+        TraversingBlockingQueue queue = new TraversingBlockingQueue(0, 0);
+        OptimizedCallTarget first = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(1));
+        OptimizedCallTarget second = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(2));
+        OptimizedCallTarget third = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(3));
+        queue.add(new TestRequest(1, first));
+        queue.add(new TestRequest(9, second));
+        queue.add(new TestRequest(5, null));
+        queue.add(new TestRequest(3, third));
+        queue.add(() -> {
+        });
+        Assert.assertEquals(Arrays.asList(first, second, third), queue.getQueuedCallTargets());
+    }
+}
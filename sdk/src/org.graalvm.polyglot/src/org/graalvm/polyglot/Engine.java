@@ -182,6 +182,16 @@ public final class Engine implements AutoCloseable {
         return impl.getOptions();
     }
 
+    /**
+     * Returns a snapshot of the counters of the caches that hold the code parsed for evaluated
+     * sources. The counters are accumulated over all contexts of this engine.
+     *
+     * @since 1.0
+     */
+    public SourceCacheStatistics getSourceCacheStatistics() {
+        return impl.getSourceCacheStatistics();
+    }
+
     /**
      * Gets the version string of the engine in an unspecified format.
      *
@@ -434,6 +444,11 @@ public final class Engine implements AutoCloseable {
             return new SourceSection(source, impl);
         }
 
+        @Override
+        public SourceCacheStatistics newSourceCacheStatistics(long hits, long misses, long evictions) {
+            return new SourceCacheStatistics(hits, misses, evictions);
+        }
+
         @Override
         public AbstractValueImpl getImpl(Value value) {
             return value.impl;
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+package org.graalvm.polyglot;
+
+/**
+ * A snapshot of the counters of the caches that hold the code parsed for evaluated sources. The
+ * counters are accumulated over all contexts of an engine.
+ *
+ * @see Engine#getSourceCacheStatistics()
+ * @since 1.0
+ */
+public final class SourceCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    SourceCacheStatistics(long hits, long misses, long evictions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns the number of evaluations that reused previously parsed code.
+     *
+     * @since 1.0
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of evaluations that required a source to be parsed.
+     *
+     * @since 1.0
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of parsed sources that were removed from the cache because a size limit
+     * was exceeded or because they were reclaimed by the garbage collector.
+     *
+     * @since 1.0
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0
+     */
+    @Override
+    public String toString() {
+        return "SourceCacheStatistics[hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+}
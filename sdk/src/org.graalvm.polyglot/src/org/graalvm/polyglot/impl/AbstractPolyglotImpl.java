@@ -48,6 +48,7 @@ import org.graalvm.polyglot.Language;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.PolyglotException.StackFrame;
 import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.SourceCacheStatistics;
 import org.graalvm.polyglot.SourceSection;
 import org.graalvm.polyglot.TypeLiteral;
 import org.graalvm.polyglot.Value;
@@ -85,6 +86,8 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract SourceSection newSourceSection(Source source, Object impl);
 
+        public abstract SourceCacheStatistics newSourceCacheStatistics(long hits, long misses, long evictions);
+
         public abstract Object getReceiver(Value value);
 
         public abstract AbstractValueImpl getImpl(Value value);
@@ -260,6 +263,8 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract OptionDescriptors getOptions();
 
+        public abstract SourceCacheStatistics getSourceCacheStatistics();
+
         public abstract Context createContext(OutputStream out, OutputStream err, InputStream in, boolean allowHostAccess,
                         boolean allowCreateThread, Predicate<String> classFilter, Map<String, String> options, Map<String, String[]> arguments, String[] onlyLanguages);
 
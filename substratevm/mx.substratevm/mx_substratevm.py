@@ -431,6 +431,7 @@ class Tags(set):
 
 GraalTags = Tags([
     'helloworld',
+    'test',
     'js',
     'ruby',
     'sulong',
@@ -448,8 +449,8 @@ def native_image_context(common_args=None, hosted_assertions=True):
     if hosted_assertions:
         base_args += native_image_context.hosted_assertions
     native_image_cmd = native_image_path(suite_native_image_root())
-    def native_image_func(args):
-        mx.run([native_image_cmd] + base_args + common_args + args)
+    def native_image_func(args, **kwargs):
+        mx.run([native_image_cmd] + base_args + common_args + args, **kwargs)
     try:
         mx.run([native_image_cmd, '-server-wipe'])
         yield native_image_func
@@ -465,6 +466,17 @@ def svm_gate_body(args, tasks):
                 helloworld(native_image)
                 cinterfacetutorial(native_image)
 
+        with Task('native unittests', tasks, tags=[GraalTags.test]) as t:
+            if t:
+                mx_unittest.unittest(['--suite', 'substratevm', 'com.oracle.graal.pointsto.test', 'com.oracle.svm.hosted.test'])
+                native_junit(native_image, ['com.oracle.svm.test'], build_args=[], run_args=[])
+                # ByPauseTimeGoal is not the default policy, so run the collector tests with it as well
+                native_junit(native_image, ['com.oracle.svm.test.GCEventLogTest', 'com.oracle.svm.test.GarbageCollectorNotificationTest'],
+                             build_args=['-H:InitialCollectionPolicy=com.oracle.svm.core.genscavenge.CollectionPolicy$ByPauseTimeGoal'], run_args=[])
+                pgo_round_trip(native_image)
+                aot_inlining_decisions(native_image)
+                type_flow_saturation(native_image)
+
         with Task('JavaScript', tasks, tags=[GraalTags.js]) as t:
             if t:
                 build_js(native_image)
@@ -502,6 +514,93 @@ def native_junit(native_image, unittest_args, build_args=None, run_args=None):
     finally:
         remove_tree(junit_tmp_dir)
 
+def pgo_round_trip(native_image):
+    """Build an instrumented image, run it to write a profile, and build an optimized image from the profile."""
+    pgo_dir = join(svmbuild_dir(), platform_subdir(), 'pgo')
+    mkpath(pgo_dir)
+    try:
+        main_class = 'com.oracle.svm.test.PGORoundTripProgram'
+        cp = mx.classpath(['com.oracle.svm.test'], jdk=mx_compiler.jdk)
+        expected_stdout = '10000 6081 3\n'
+        profile = join(pgo_dir, 'default.iprof')
+
+        native_image(['-cp', cp, '-H:Path=' + pgo_dir, '-H:Class=' + main_class, '-H:Name=pgo-instrumented', '-H:+PGOInstrument'])
+        test_run([join(pgo_dir, 'pgo-instrumented'), '-XX:PGOProfileFile=' + profile], expected_stdout)
+
+        with open(profile) as fp:
+            records = [line.rstrip('\n').split('\t') for line in fp if not line.startswith('#')]
+        def expect_record(kind, method, last_field=None):
+            for record in records:
+                if record[0] == kind and record[1] == main_class + '.' + method and (last_field is None or record[-1] == last_field):
+                    return
+            mx.abort('No ' + kind + ' record for ' + method + (' with ' + last_field if last_field else '') + ' in ' + profile)
+        expect_record('branch', 'countMultiplesOfTen(int)')
+        expect_record('receiver', 'totalArea(' + main_class + '$Shape[])', main_class + '$Square')
+        expect_record('receiver', 'totalArea(' + main_class + '$Shape[])', main_class + '$Rectangle')
+        # Array receivers must be named as the image builder names them when it reads the profile.
+        expect_record('receiver', 'countSelfEqual(java.lang.Object[])', 'int[]')
+        expect_record('receiver', 'countSelfEqual(java.lang.Object[])', 'java.lang.String[]')
+
+        native_image(['-cp', cp, '-H:Path=' + pgo_dir, '-H:Class=' + main_class, '-H:Name=pgo-optimized', '-H:PGO=' + profile])
+        test_run([join(pgo_dir, 'pgo-optimized')], expected_stdout)
+    finally:
+        remove_tree(pgo_dir)
+
+def aot_inlining_decisions(native_image):
+    """Build an image with -H:+PrintAOTInlining and check the decisions for a hot loop call, a cold call and an exhausted budget."""
+    inlining_dir = join(svmbuild_dir(), platform_subdir(), 'aotinlining')
+    mkpath(inlining_dir)
+    try:
+        main_class = 'com.oracle.svm.test.AOTInliningProgram'
+        cp = mx.classpath(['com.oracle.svm.test'], jdk=mx_compiler.jdk)
+
+        def decisions(extra_args):
+            output = []
+            native_image(['-cp', cp, '-H:Path=' + inlining_dir, '-H:Class=' + main_class, '-H:Name=aotinlining', '-H:+PrintAOTInlining'] + extra_args, out=output.append)
+            test_run([join(inlining_dir, 'aotinlining')], '139\n')
+            # Round; Caller; BCI; Callee; Frequency; Callee size; Decision
+            result = {}
+            for line in ''.join(output).splitlines():
+                fields = line.split('; ')
+                if len(fields) == 7 and fields[0] == '0' and fields[3] == main_class + '.mix(int)':
+                    result[fields[1][len(main_class) + 1:]] = fields[6]
+            return result
+
+        def expect(result, caller, decision):
+            if result.get(caller) != decision:
+                mx.abort('Expected call of mix(int) in ' + caller + ' to be "' + decision + '", but was "' + str(result.get(caller)) + '"')
+
+        result = decisions([])
+        expect(result, 'hotLoop(int)', 'inlined: frequent')
+        expect(result, 'coldCall(String)', 'not inlined: cold')
+        result = decisions(['-H:AOTInlineBudgetPercent=0'])
+        expect(result, 'hotLoop(int)', 'not inlined: budget exhausted')
+    finally:
+        remove_tree(inlining_dir)
+
+def type_flow_saturation(native_image):
+    """Build an image with and without -H:TypeFlowSaturationCutoff and check that a saturated receiver links all instantiated subtypes."""
+    saturation_dir = join(svmbuild_dir(), platform_subdir(), 'saturation')
+    mkpath(saturation_dir)
+    try:
+        main_class = 'com.oracle.svm.test.TypeFlowSaturationProgram'
+        cp = mx.classpath(['com.oracle.svm.test'], jdk=mx_compiler.jdk)
+        rare_apply = main_class + '$Rare.apply(int)'
+
+        def reachable(extra_args):
+            output = []
+            native_image(['-cp', cp, '-H:Path=' + saturation_dir, '-H:Class=' + main_class, '-H:Name=saturation', '-H:+PrintAnalysisCallTree'] + extra_args, out=output.append)
+            test_run([join(saturation_dir, 'saturation')], '38 rare\n')
+            # depth ; method ; source ; full method name
+            return set(line.split(' ; ')[-1].strip() for line in ''.join(output).splitlines() if line.count(' ; ') == 3)
+
+        if rare_apply in reachable([]):
+            mx.abort(rare_apply + ' must not be reachable without type flow saturation')
+        if rare_apply not in reachable(['-H:TypeFlowSaturationCutoff=2']):
+            mx.abort(rare_apply + ' must be reachable through the saturated receiver of run(Operation, int)')
+    finally:
+        remove_tree(saturation_dir)
+
 def gate_sulong(native_image, tasks):
 
     with Task('Run SulongSuite tests with SVM image', tasks, tags=[GraalTags.sulong]) as t:
@@ -225,6 +225,45 @@ suite = {
             "findbugs": "false",
         },
 
+        "com.oracle.svm.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.svm.core.genscavenge",
+                "mx:JUNIT",
+            ],
+            "checkstyle": "com.oracle.svm.core",
+            "workingSets": "SVM",
+            "javaCompliance": "1.8",
+            "findbugs": "false",
+        },
+
+        "com.oracle.graal.pointsto.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.graal.pointsto",
+                "mx:JUNIT",
+            ],
+            "checkstyle": "com.oracle.graal.pointsto",
+            "workingSets": "SVM",
+            "javaCompliance": "1.8",
+            "findbugs": "false",
+        },
+
+        "com.oracle.svm.hosted.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.svm.hosted",
+                "mx:JUNIT",
+            ],
+            "checkstyle": "com.oracle.svm.core",
+            "workingSets": "SVM",
+            "javaCompliance": "1.8",
+            "findbugs": "false",
+        },
+
         "com.oracle.svm.reflect": {
             "subDir": "src",
             "sourceDirs": ["src"],
@@ -504,6 +543,28 @@ suite = {
       ],
     },
 
+    "SVM_TESTS": {
+      "subDir": "src",
+      "dependencies": [
+        "com.oracle.svm.test",
+      ],
+      "distDependencies": [
+        "SVM_CORE",
+        "mx:JUNIT_TOOL",
+      ],
+    },
+
+    "SVM_HOSTED_TESTS": {
+      "subDir": "src",
+      "dependencies": [
+        "com.oracle.svm.hosted.test",
+      ],
+      "distDependencies": [
+        "SVM",
+        "mx:JUNIT_TOOL",
+      ],
+    },
+
    "POINTSTO": {
       "subDir": "src",
       "dependencies": [
@@ -516,6 +577,17 @@ suite = {
       ]
     },
 
+    "POINTSTO_TESTS": {
+      "subDir": "src",
+      "dependencies": [
+        "com.oracle.graal.pointsto.test",
+      ],
+      "distDependencies": [
+        "POINTSTO",
+        "mx:JUNIT_TOOL",
+      ],
+    },
+
     "NATIVE_IMAGE": {
       "native": True,
       "dependencies": [
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.Reference;
+
+import org.junit.Test;
+
+import com.oracle.graal.pointsto.util.WeakInterner;
+
+public class WeakInternerTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /** A value that is equal to other values with the same contents but never identical. */
+    static final class Value {
+        final int contents;
+
+        Value(int contents) {
+            this.contents = contents;
+        }
+
+        @Override
+        public int hashCode() {
+            return contents;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Value && ((Value) obj).contents == contents;
+        }
+    }
+
+    @Test
+    public void internEqualValues() {
+        WeakInterner<Value> interner = new WeakInterner<>(100);
+        Value first = new Value(1);
+        Value second = new Value(1);
+        Value other = new Value(2);
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertSame(first, interner.intern(first));
+        assertSame(other, interner.intern(other));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void shareReferenceOfCanonicalValue() {
+        WeakInterner<Value> interner = new WeakInterner<>(100);
+        Value first = new Value(1);
+        interner.intern(first);
+        Reference<Value> reference = interner.canonicalReference(first);
+        assertNotNull(reference);
+        assertSame(first, reference.get());
+
+        // a hit neither replaces nor adds a reference
+        interner.intern(new Value(1));
+        assertSame(reference, interner.canonicalReference(first));
+        assertEquals(1, interner.size());
+
+        // equal values that are not canonical have no reference
+        assertNull(interner.canonicalReference(new Value(1)));
+        assertNull(interner.canonicalReference(new Value(2)));
+    }
+
+    @Test
+    public void startOverWhenLimitIsExceeded() {
+        WeakInterner<Value> interner = new WeakInterner<>(10);
+        Value[] values = new Value[11];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new Value(i);
+            assertSame(values[i], interner.intern(values[i]));
+            assertTrue(interner.size() <= 10);
+        }
+        // the values are still in use, so they become canonical again
+        Value equal = new Value(0);
+        assertSame(equal, interner.intern(equal));
+        assertSame(equal, interner.intern(values[0]));
+    }
+
+    @Test
+    public void removeCollectedValues() throws InterruptedException {
+        WeakInterner<Value> interner = new WeakInterner<>(100);
+        interner.intern(new Value(1));
+        Value kept = new Value(2);
+        interner.intern(kept);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (interner.size() > 1) {
+            assertTrue("interned value was not collected", System.currentTimeMillis() < deadline);
+            System.gc();
+            Thread.sleep(10);
+            // collected values are removed by the next intern
+            interner.intern(kept);
+        }
+        Value equal = new Value(1);
+        assertSame(equal, interner.intern(equal));
+        assertSame(kept, interner.intern(new Value(2)));
+    }
+}
@@ -75,6 +75,7 @@ import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.graal.pointsto.meta.HostedProviders;
 import com.oracle.graal.pointsto.typestate.PointsToStats;
 import com.oracle.graal.pointsto.typestate.TypeState;
+import com.oracle.graal.pointsto.typestate.TypeStateCache;
 import com.oracle.graal.pointsto.util.CompletionExecutor;
 import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
 import com.oracle.graal.pointsto.util.Timer;
@@ -102,9 +103,11 @@ public abstract class BigBang {
     protected final AnalysisMetaAccess metaAccess;
     protected final HostVM hostVM;
     private final UnsupportedFeatures unsupportedFeatures;
+    private final TypeStateCache typeStateCache;
 
     protected final boolean trackTypeFlowInputs;
     protected final boolean reportAnalysisStatistics;
+    private final int typeFlowSaturationCutoff;
 
     /**
      * Processing queue.
@@ -133,6 +136,8 @@ public abstract class BigBang {
         this.unsupportedFeatures = unsupportedFeatures;
         this.providers = providers;
 
+        this.typeStateCache = new TypeStateCache(options);
+
         this.objectType = metaAccess.lookupJavaType(Object.class);
         /*
          * Make sure the all-instantiated type flow is created early. We do not have any
@@ -144,6 +149,8 @@ public abstract class BigBang {
 
         trackTypeFlowInputs = PointstoOptions.TrackInputFlows.getValue(options);
         reportAnalysisStatistics = PointstoOptions.ReportAnalysisStatistics.getValue(options);
+        /* Saturation merges objects of all allocation sites, so it requires an insensitive heap. */
+        typeFlowSaturationCutoff = PointstoOptions.AllocationSiteSensitiveHeap.getValue(options) ? 0 : PointstoOptions.TypeFlowSaturationCutoff.getValue(options);
         if (reportAnalysisStatistics) {
             PointsToStats.init(this);
         }
@@ -164,6 +171,15 @@ public abstract class BigBang {
         return reportAnalysisStatistics;
     }
 
+    /** The number of types above which type flows are saturated, or 0 if they never are. */
+    public int typeFlowSaturationCutoff() {
+        return typeFlowSaturationCutoff;
+    }
+
+    public TypeStateCache typeStateCache() {
+        return typeStateCache;
+    }
+
     public OptionValues getOptions() {
         return options;
     }
@@ -252,6 +268,7 @@ public abstract class BigBang {
         unknownTypeFlow = null;
 
         ConstantObjectsProfiler.constantTypes.clear();
+        typeStateCache.clear();
 
         universe.getTypes().forEach(AnalysisType::cleanupAfterAnalysis);
         universe.getFields().forEach(AnalysisField::cleanupAfterAnalysis);
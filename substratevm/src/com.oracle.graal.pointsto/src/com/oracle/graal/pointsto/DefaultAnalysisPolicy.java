@@ -162,6 +162,13 @@ public class DefaultAnalysisPolicy extends AnalysisPolicy {
                 bb.reportIllegalUnknownUse(graphRef.getMethod(), source, "Illegal: Invoke on UnknownTypeState objects. Invoke: " + this);
                 return;
             }
+            if (receiverState == seenReceiverTypes) {
+                /*
+                 * Type states are shared, so the receiver did not change since the last update. This
+                 * is common for saturated receivers, which are updated by many inputs.
+                 */
+                return;
+            }
 
             for (AnalysisType type : receiverState.types()) {
                 if (seenReceiverTypes.containsType(type)) {
@@ -75,6 +75,15 @@ public class PointstoOptions {
     @Option(help = "Analysis: Detect methods that return one of their parameters and hardwire the parameter straight to the return.")//
     public static final OptionKey<Boolean> DivertParameterReturningMethod = new OptionKey<>(true);
 
+    @Option(help = "The maximum number of distinct type states shared between type flows before the table of shared states is started over. 0 disables sharing of type states.")//
+    public static final OptionKey<Integer> InternedTypeStatesLimit = new OptionKey<>(1 << 18);
+
+    @Option(help = "The number of type state unions, intersections and subtractions whose results are cached. 0 disables the cache.")//
+    public static final OptionKey<Integer> TypeStateOperationCacheSize = new OptionKey<>(1 << 14);
+
+    @Option(help = "The number of types in the state of a type flow above which the flow is saturated, i.e., it conservatively contains all instantiated subtypes of its declared type. 0 disables saturation. Ignored if the heap is allocation site sensitive.")//
+    public static final OptionKey<Integer> TypeFlowSaturationCutoff = new OptionKey<>(0);
+
     @Option(help = "Enable extended asserts which slow down analysis.")//
     public static final OptionKey<Boolean> ExtendedAsserts = new OptionKey<>(false);
 
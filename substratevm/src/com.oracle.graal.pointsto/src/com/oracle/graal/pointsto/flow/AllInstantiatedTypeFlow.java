@@ -36,6 +36,11 @@ public final class AllInstantiatedTypeFlow extends TypeFlow<AnalysisType> {
         return this;
     }
 
+    @Override
+    protected boolean canSaturate() {
+        return false;
+    }
+
     @Override
     public void update(BigBang bb) {
         assert checkUsages();
@@ -45,7 +50,7 @@ public final class AllInstantiatedTypeFlow extends TypeFlow<AnalysisType> {
     private boolean checkUsages() {
         for (TypeFlow<?> use : getUses()) {
             assert !use.isClone() || use instanceof ProxyTypeFlow || use instanceof SourceTypeFlowBase || use instanceof DynamicNewInstanceTypeFlow ||
-                            use instanceof FilterTypeFlow || use instanceof ActualReturnTypeFlow : use.getClass();
+                            use instanceof FilterTypeFlow || use instanceof ActualReturnTypeFlow || use.isSaturated() : use.getClass();
         }
         return true;
     }
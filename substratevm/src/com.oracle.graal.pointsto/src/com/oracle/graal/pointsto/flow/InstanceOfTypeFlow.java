@@ -55,6 +55,12 @@ public class InstanceOfTypeFlow extends TypeFlow<ValueNode> {
         return location;
     }
 
+    @Override
+    protected boolean canSaturate() {
+        /* The state is not restricted to the declared type, see TypeFlow.addState(). */
+        return false;
+    }
+
     @Override
     public String toString() {
         return "InstanceOfTypeFlow<" + getState() + ">";
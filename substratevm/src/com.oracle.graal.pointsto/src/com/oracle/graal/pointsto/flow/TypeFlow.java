@@ -75,6 +75,12 @@ public abstract class TypeFlow<T> {
 
     public volatile boolean inQueue;
 
+    /**
+     * True if the type state of this flow grew beyond the saturation cutoff. A saturated flow also
+     * receives all instantiated subtypes of its declared type, see {@link #onSaturated}.
+     */
+    private volatile boolean saturated;
+
     @SuppressWarnings("rawtypes")//
     private static final AtomicReferenceFieldUpdater<TypeFlow, TypeState> STATE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(TypeFlow.class, TypeState.class, "state");
 
@@ -247,9 +253,40 @@ public abstract class TypeFlow<T> {
         if (postFlow) {
             bb.postFlow(this);
         }
+
+        int cutoff = bb.typeFlowSaturationCutoff();
+        if (cutoff > 0 && !saturated && !after.isUnknown() && after.typesCount() > cutoff && canSaturate()) {
+            onSaturated(bb);
+        }
         return true;
     }
 
+    // manage saturation
+
+    /**
+     * Can this flow be saturated? Only flows whose state is a subset of the instantiated subtypes
+     * of their declared type can be, since saturation adds all of them.
+     */
+    protected boolean canSaturate() {
+        return declaredType != null;
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    /**
+     * Called when the state of this flow grew beyond the saturation cutoff. The flow becomes a use
+     * of the all-instantiated flow of its declared type, i.e., from now on its state contains all
+     * instantiated subtypes of the declared type. Further updates from the inputs of this flow
+     * then usually no longer change its state and are not propagated to its uses and observers,
+     * which only see one more update each time a new subtype is instantiated.
+     */
+    protected void onSaturated(BigBang bb) {
+        saturated = true;
+        declaredType.getTypeFlow(bb, false).addUse(bb, this);
+    }
+
     // manage uses
 
     /** Adds a use, if not already present, without propagating state. */
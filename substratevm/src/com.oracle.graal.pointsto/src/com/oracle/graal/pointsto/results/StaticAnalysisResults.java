@@ -90,6 +90,11 @@ public class StaticAnalysisResults implements ProfilingInfo {
         this.graphSize = -1;
     }
 
+    /** Creates a copy of the given results, for subclasses that add to them. */
+    protected StaticAnalysisResults(StaticAnalysisResults original) {
+        this(original.codeSize, original.parameterTypeProfiles, original.resultTypeProfile, original.first);
+    }
+
     /**
      * Returns the type profile for the parameter with the given number, or {@code null} if no type
      * profile is available. For non-static methods, the receiver is the parameter with number 0.
@@ -51,6 +51,11 @@ public class MultiTypeState extends TypeState {
     protected final boolean canBeNull;
     /** Has this type state been merged with the all-instantiated type state? */
     protected boolean merged;
+    /**
+     * Cache the hash code, since computing it iterates over all objects and type states are hashed
+     * each time they are shared, see {@link TypeStateCache}. Zero means not computed yet.
+     */
+    private int hashCode;
 
     /** Creates a new type state using the provided types bit set and objects. */
     MultiTypeState(BigBang bb, boolean canBeNull, int properties, BitSet typesBitSet, AnalysisObject... objects) {
@@ -320,9 +325,13 @@ public class MultiTypeState extends TypeState {
 
     @Override
     public int hashCode() {
-        int result = 1;
-        result = 31 * result + Arrays.hashCode(objects);
-        result = 31 * result + (canBeNull ? 1 : 0);
+        int result = hashCode;
+        if (result == 0) {
+            result = 1;
+            result = 31 * result + Arrays.hashCode(objects);
+            result = 31 * result + (canBeNull ? 1 : 0);
+            hashCode = result;
+        }
         return result;
     }
 
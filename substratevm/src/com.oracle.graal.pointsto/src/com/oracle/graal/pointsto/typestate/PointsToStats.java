@@ -37,6 +37,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -112,6 +113,7 @@ public class PointsToStats {
 
             doReport(statsDirectory, reportNameRoot, "type state stats", timeStamp, PointsToStats::reportTypeStateStats);
             doReport(statsDirectory, reportNameRoot, "union operation stats", timeStamp, PointsToStats::reportUnionOpertationsStats);
+            doReport(statsDirectory, reportNameRoot, "type state sharing stats", timeStamp, PointsToStats::reportTypeStateSharingStats);
             doReport(statsDirectory, reportNameRoot, "type flow stats", timeStamp, PointsToStats::reportTypeFlowStats);
             doReport(statsDirectory, reportNameRoot, "pruned type flow stats", timeStamp, PointsToStats::reportPrunedTypeFlows);
 
@@ -411,6 +413,35 @@ public class PointsToStats {
                         });
     }
 
+    // type state sharing
+
+    private static final AtomicLong newCanonicalStates = new AtomicLong();
+    private static final AtomicLong sharedCanonicalStates = new AtomicLong();
+    private static final AtomicLong operationCacheHits = new AtomicLong();
+    private static final AtomicLong operationCacheMisses = new AtomicLong();
+
+    static void registerInternedTypeState(BigBang bb, boolean shared) {
+        if (!bb.reportAnalysisStatistics()) {
+            return;
+        }
+        (shared ? sharedCanonicalStates : newCanonicalStates).incrementAndGet();
+    }
+
+    static void registerTypeStateOperationLookup(BigBang bb, boolean hit) {
+        if (!bb.reportAnalysisStatistics()) {
+            return;
+        }
+        (hit ? operationCacheHits : operationCacheMisses).incrementAndGet();
+    }
+
+    private static void reportTypeStateSharingStats(BufferedWriter out) {
+        doWrite(out, String.format("%-30s\t%10s\n", "Counter", "Value"));
+        doWrite(out, String.format("%-30s\t%10d\n", "Canonical states created", newCanonicalStates.get()));
+        doWrite(out, String.format("%-30s\t%10d\n", "Canonical states shared", sharedCanonicalStates.get()));
+        doWrite(out, String.format("%-30s\t%10d\n", "Operation cache hits", operationCacheHits.get()));
+        doWrite(out, String.format("%-30s\t%10d\n", "Operation cache misses", operationCacheMisses.get()));
+    }
+
     static class UnionOperation {
         int state1Id;
         int state2Id;
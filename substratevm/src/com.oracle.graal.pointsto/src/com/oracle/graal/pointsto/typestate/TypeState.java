@@ -423,7 +423,19 @@ public abstract class TypeState {
             return s1;
         } else if (s2.isNull()) {
             return s1.forCanBeNull(bb, true);
-        } else if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
+        }
+
+        TypeStateCache cache = bb.typeStateCache();
+        TypeState result = cache.lookup(bb, TypeStateCache.UNION, s1, s2);
+        if (result == null) {
+            result = cache.intern(bb, dispatchUnion(bb, s1, s2));
+            cache.record(TypeStateCache.UNION, s1, s2, result);
+        }
+        return result;
+    }
+
+    private static TypeState dispatchUnion(BigBang bb, TypeState s1, TypeState s2) {
+        if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
             return doUnion(bb, (SingleTypeState) s1, (SingleTypeState) s2);
         } else if (s1 instanceof SingleTypeState && s2 instanceof MultiTypeState) {
             return doUnion(bb, (MultiTypeState) s2, (SingleTypeState) s1);
@@ -455,7 +467,19 @@ public abstract class TypeState {
             return s2;
         } else if (s2.isNull()) {
             return s2.forCanBeNull(bb, s1.canBeNull());
-        } else if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
+        }
+
+        TypeStateCache cache = bb.typeStateCache();
+        TypeState result = cache.lookup(bb, TypeStateCache.INTERSECTION, s1, s2);
+        if (result == null) {
+            result = cache.intern(bb, dispatchIntersection(bb, s1, s2));
+            cache.record(TypeStateCache.INTERSECTION, s1, s2, result);
+        }
+        return result;
+    }
+
+    private static TypeState dispatchIntersection(BigBang bb, TypeState s1, TypeState s2) {
+        if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
             return doIntersection(bb, (SingleTypeState) s1, (SingleTypeState) s2);
         } else if (s1 instanceof SingleTypeState && s2 instanceof MultiTypeState) {
             return doIntersection(bb, (SingleTypeState) s1, (MultiTypeState) s2);
@@ -483,7 +507,19 @@ public abstract class TypeState {
             return s1;
         } else if (s2.isNull()) {
             return s1.forCanBeNull(bb, false);
-        } else if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
+        }
+
+        TypeStateCache cache = bb.typeStateCache();
+        TypeState result = cache.lookup(bb, TypeStateCache.SUBTRACTION, s1, s2);
+        if (result == null) {
+            result = cache.intern(bb, dispatchSubtraction(bb, s1, s2));
+            cache.record(TypeStateCache.SUBTRACTION, s1, s2, result);
+        }
+        return result;
+    }
+
+    private static TypeState dispatchSubtraction(BigBang bb, TypeState s1, TypeState s2) {
+        if (s1 instanceof SingleTypeState && s2 instanceof SingleTypeState) {
             return doSubtraction(bb, (SingleTypeState) s1, (SingleTypeState) s2);
         } else if (s1 instanceof SingleTypeState && s2 instanceof MultiTypeState) {
             return doSubtraction(bb, (SingleTypeState) s1, (MultiTypeState) s2);
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.typestate;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.graalvm.compiler.options.OptionValues;
+
+import com.oracle.graal.pointsto.BigBang;
+import com.oracle.graal.pointsto.api.PointstoOptions;
+import com.oracle.graal.pointsto.util.WeakInterner;
+
+/**
+ * Shares type states between type flows. Most type flows of an analysis converge to a small number
+ * of distinct type states, but every union, intersection and subtraction allocates a new state
+ * with its own objects array and types bit set. The cache keeps one canonical instance for each
+ * distinct state, so that equal states share their arrays and are usually identical, which makes
+ * the identity checks of the set operations succeed, and it remembers the results of recent set
+ * operations on canonical states. Both hold the states only weakly, so that the intermediate states
+ * of type flows that have grown since can be collected. The cached results refer to canonical
+ * states through the weak references of the {@link WeakInterner}, so caching a result usually
+ * allocates no reference of its own.
+ *
+ * Type states are immutable apart from the merged flag, which only records that
+ * {@link TypeState#noteMerge} was already called for the objects of the state. Returning a
+ * canonical instance instead of an equal new one is therefore always correct, as is returning the
+ * result of an earlier operation on the same inputs.
+ */
+public final class TypeStateCache {
+
+    static final int UNION = 0;
+    static final int INTERSECTION = 1;
+    static final int SUBTRACTION = 2;
+
+    private static final class OperationEntry {
+        final int operation;
+        final Reference<TypeState> s1;
+        final Reference<TypeState> s2;
+        final Reference<TypeState> result;
+
+        OperationEntry(int operation, Reference<TypeState> s1, Reference<TypeState> s2, Reference<TypeState> result) {
+            this.operation = operation;
+            this.s1 = s1;
+            this.s2 = s2;
+            this.result = result;
+        }
+    }
+
+    /** Canonical instances of the states, or null if states are not interned. */
+    private final WeakInterner<TypeState> canonicalStates;
+
+    /**
+     * Direct-mapped cache of set operation results, indexed by the identities of the inputs.
+     * Colliding operations simply replace each other. Null if results are not cached.
+     */
+    private final AtomicReferenceArray<OperationEntry> operations;
+
+    public TypeStateCache(OptionValues options) {
+        int canonicalStatesLimit = PointstoOptions.InternedTypeStatesLimit.getValue(options);
+        canonicalStates = canonicalStatesLimit > 0 ? new WeakInterner<>(canonicalStatesLimit) : null;
+
+        /*
+         * With an allocation site sensitive heap, the result of a set operation also depends on
+         * the objects that have been merged in the meantime, so it cannot be reused.
+         */
+        int cacheSize = PointstoOptions.TypeStateOperationCacheSize.getValue(options);
+        if (canonicalStates != null && cacheSize > 0 && !PointstoOptions.AllocationSiteSensitiveHeap.getValue(options)) {
+            operations = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(cacheSize - 1, 1)) << 1);
+        } else {
+            operations = null;
+        }
+    }
+
+    /** Returns the canonical instance of a state that is equal to the given state. */
+    TypeState intern(BigBang bb, TypeState state) {
+        if (canonicalStates == null || !(state instanceof SingleTypeState || state instanceof MultiTypeState)) {
+            return state;
+        }
+        TypeState canonical = canonicalStates.intern(state);
+        PointsToStats.registerInternedTypeState(bb, canonical != state);
+        return canonical;
+    }
+
+    /** Returns the result of an earlier operation on the given states, or null. */
+    TypeState lookup(BigBang bb, int operation, TypeState s1, TypeState s2) {
+        if (operations == null) {
+            return null;
+        }
+        OperationEntry entry = operations.get(index(operation, s1, s2));
+        TypeState result = null;
+        if (entry != null && entry.operation == operation && entry.s1.get() == s1 && entry.s2.get() == s2) {
+            result = entry.result.get();
+        }
+        PointsToStats.registerTypeStateOperationLookup(bb, result != null);
+        return result;
+    }
+
+    /** Records the result of an operation. The result should be a canonical state. */
+    void record(int operation, TypeState s1, TypeState s2, TypeState result) {
+        if (operations != null) {
+            operations.set(index(operation, s1, s2), new OperationEntry(operation, weakReference(s1), weakReference(s2), weakReference(result)));
+        }
+    }
+
+    /** Shares the reference of a canonical state, and only creates one for other states. */
+    private Reference<TypeState> weakReference(TypeState state) {
+        Reference<TypeState> canonical = canonicalStates.canonicalReference(state);
+        return canonical != null ? canonical : new WeakReference<>(state);
+    }
+
+    private int index(int operation, TypeState s1, TypeState s2) {
+        int hash = (System.identityHashCode(s1) * 31 + System.identityHashCode(s2)) * 31 + operation;
+        return (hash ^ (hash >>> 16)) & (operations.length() - 1);
+    }
+
+    /** Drops all canonical states and cached results, e.g., once the analysis is finished. */
+    public void clear() {
+        if (canonicalStates != null) {
+            canonicalStates.clear();
+        }
+        if (operations != null) {
+            for (int i = 0; i < operations.length(); i++) {
+                operations.set(i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.pointsto.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one canonical instance for each distinct value, as defined by {@link Object#equals}, and
+ * holds the canonical instances only weakly, so that values that are no longer used elsewhere can
+ * be collected.
+ *
+ * Looking up a value that already has a canonical instance does not allocate a weak reference, only
+ * a value that becomes canonical gets one. The number of canonical instances is bounded: once the
+ * limit is exceeded, all of them are dropped and interning starts over.
+ *
+ * @param <T> the type of the interned values
+ */
+public final class WeakInterner<T> {
+
+    /**
+     * Weak reference to a canonical value that compares equal to the references of equal values.
+     * A cleared reference is only equal to itself, so that it can still be removed from the map.
+     */
+    private static final class CanonicalReference<T> extends WeakReference<T> {
+        private final int hash;
+
+        CanonicalReference(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CanonicalReference) || hash != ((CanonicalReference<?>) obj).hash) {
+                return false;
+            }
+            T value = get();
+            return value != null && value.equals(((CanonicalReference<?>) obj).get());
+        }
+    }
+
+    /**
+     * Key for looking up the canonical reference of a value without creating a reference. It is
+     * only passed to {@link ConcurrentHashMap#get}, which compares it to the keys of the map with
+     * its own {@link #equals}, and it is never stored.
+     */
+    private static final class Probe {
+        private final Object value;
+        private final int hash;
+
+        Probe(Object value) {
+            this.value = value;
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CanonicalReference) || hash != ((CanonicalReference<?>) obj).hash) {
+                return false;
+            }
+            Object canonical = ((CanonicalReference<?>) obj).get();
+            return canonical != null && value.equals(canonical);
+        }
+    }
+
+    private final ConcurrentHashMap<Object, CanonicalReference<T>> canonicalValues = new ConcurrentHashMap<>();
+    private final int limit;
+    /** Canonical values that were collected and whose entries must be removed. */
+    private final ReferenceQueue<T> collectedValues = new ReferenceQueue<>();
+
+    public WeakInterner(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the canonical instance that is equal to {@code value}. If there is none,
+     * {@code value} becomes the canonical instance.
+     */
+    public T intern(T value) {
+        removeCollectedValues();
+        CanonicalReference<T> existing = canonicalValues.get(new Probe(value));
+        if (existing != null) {
+            T canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+        }
+        CanonicalReference<T> key = new CanonicalReference<>(value, collectedValues);
+        while (true) {
+            existing = canonicalValues.putIfAbsent(key, key);
+            if (existing == null) {
+                if (canonicalValues.size() > limit) {
+                    /*
+                     * Collected values are removed from the map, so too many distinct values are
+                     * still in use. Starting over keeps the map bounded; values that are still in
+                     * use become canonical again when they are interned the next time.
+                     */
+                    canonicalValues.clear();
+                }
+                return value;
+            }
+            T canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            /* The canonical value was collected after it matched, so replace its entry. */
+            canonicalValues.remove(existing, existing);
+        }
+    }
+
+    /**
+     * Returns the weak reference that holds {@code value} if it is a canonical instance, or null.
+     * Callers that need to refer to canonical values weakly can share this reference instead of
+     * creating their own.
+     */
+    public Reference<T> canonicalReference(T value) {
+        CanonicalReference<T> reference = canonicalValues.get(new Probe(value));
+        return reference != null && reference.get() == value ? reference : null;
+    }
+
+    /** The number of canonical instances, including ones that were collected but not removed. */
+    public int size() {
+        return canonicalValues.size();
+    }
+
+    private void removeCollectedValues() {
+        Reference<? extends T> collected;
+        while ((collected = collectedValues.poll()) != null) {
+            canonicalValues.remove(collected);
+        }
+    }
+
+    public void clear() {
+        canonicalValues.clear();
+        removeCollectedValues();
+    }
+}
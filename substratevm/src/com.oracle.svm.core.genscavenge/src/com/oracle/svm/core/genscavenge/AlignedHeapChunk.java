@@ -456,10 +456,12 @@ public class AlignedHeapChunk extends HeapChunk {
         final UnsignedWord memorySize = objectsLimit.subtract(objectsStart);
         final UnsignedWord indexLimit = CardTable.indexLimitForMemorySize(memorySize);
         trace.string("  objectsStart: ").hex(objectsStart).string("  objectsLimit: ").hex(objectsLimit).string("  indexLimit: ").unsigned(indexLimit);
+        long dirtyCards = 0L;
         for (UnsignedWord index = WordFactory.zero(); index.belowThan(indexLimit); index = index.add(1)) {
             trace.newline().string("  ").string("  index: ").unsigned(index);
             /* If the card is dirty, visit the objects it covers. */
             if (CardTable.isDirtyEntryAtIndex(cardTableStart, index)) {
+                dirtyCards += 1;
                 final Pointer cardLimit = CardTable.indexToMemoryPointer(objectsStart, index.add(1));
                 final Pointer crossingOntoPointer = FirstObjectTable.getPreciseFirstObjectPointer(fotStart, objectsStart, objectsLimit, index);
                 final Object crossingOntoObject = crossingOntoPointer.toObject();
@@ -508,6 +510,7 @@ public class AlignedHeapChunk extends HeapChunk {
                 }
             }
         }
+        HeapImpl.getHeapImpl().getGCImpl().getAccounting().noteDirtyCardsScanned(dirtyCards);
         trace.string("]").newline();
         return true;
     }
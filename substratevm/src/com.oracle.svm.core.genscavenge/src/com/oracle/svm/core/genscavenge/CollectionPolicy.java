@@ -27,7 +27,9 @@ import org.graalvm.nativeimage.Feature.FeatureAccess;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
 import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
 
+import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.option.HostedOptionKey;
 import com.oracle.svm.core.option.RuntimeOptionKey;
@@ -50,6 +52,12 @@ public abstract class CollectionPolicy {
          */
         @Option(help = "Percentage of time that should be spent in young generation collections.")//
         public static final RuntimeOptionKey<Integer> PercentTimeInIncrementalCollection = new RuntimeOptionKey<>(50);
+
+        @Option(help = "Pause time goal, in milliseconds, of incremental collections with the ByPauseTimeGoal collection policy.")//
+        public static final RuntimeOptionKey<Integer> MaxGCPauseMillis = new RuntimeOptionKey<>(100);
+
+        @Option(help = "Percentage of time that should be spent outside collections with the ByPauseTimeGoal collection policy.")//
+        public static final RuntimeOptionKey<Integer> ThroughputGoalPercent = new RuntimeOptionKey<>(95);
     }
 
     @Platforms(Platform.HOSTED_ONLY.class)
@@ -70,6 +78,23 @@ public abstract class CollectionPolicy {
 
     public abstract void nameToLog(Log log);
 
+    /**
+     * Called after every collection with the time spent in the collection and the time the
+     * mutator ran since the previous collection, so a policy can adapt the heap to what it has
+     * observed. The default does nothing.
+     */
+    public void afterCollection(boolean completeCollection, long collectionNanos, long mutatorNanos) {
+        /* Nothing to do. */
+    }
+
+    /**
+     * The heap size, in chunk bytes in use and unused, below which unused aligned chunks are not
+     * released to the operating system after a collection. The default retains nothing.
+     */
+    public UnsignedWord getRetainedHeapBytes() {
+        return WordFactory.zero();
+    }
+
     protected static GCImpl.Accounting getAccounting() {
         return HeapImpl.getHeapImpl().getGCImpl().getAccounting();
     }
@@ -295,4 +320,145 @@ public abstract class CollectionPolicy {
             return veto;
         }
     }
+
+    /**
+     * A collection policy that chooses between incremental and complete collections like
+     * {@link ByTime}, and that in addition sizes the young generation and the free chunks the heap
+     * retains from the pauses, allocation and survival it observes.
+     *
+     * After each incremental collection, if the average pause is above
+     * {@link Options#MaxGCPauseMillis} the young generation shrinks, so fewer objects survive each
+     * collection. Otherwise, if more than (100 - {@link Options#ThroughputGoalPercent})% of the
+     * time is spent collecting, the young generation grows, so collections are less frequent and
+     * more objects die before they are collected, as long as the pause predicted for the larger
+     * young generation stays within the goal. The heap then retains enough free chunks for the
+     * young generation, the old generation in use, and the expected promotion, so that the young
+     * generation is refilled without going back to the operating system.
+     */
+    public static class ByPauseTimeGoal extends ByTime {
+
+        /** Each new sample contributes 1/AVERAGE_WEIGHT of the decaying averages. */
+        private static final int AVERAGE_WEIGHT = 4;
+        private static final int SHRINK_PERCENT = 10;
+        private static final int GROW_PERCENT = 20;
+        /** The young generation is never smaller than this many aligned chunks. */
+        private static final int MINIMUM_YOUNG_GENERATION_CHUNKS = 4;
+
+        /** The heap size that retainFreeChunks computed after the last incremental collection. */
+        private long retainedBytes;
+
+        /* Decaying averages of the observations. */
+        private long averagePauseNanos;
+        private long averageCollectionNanos;
+        private long averageMutatorNanos;
+        private long averageYoungBytes;
+        private long averageSurvivedBytes;
+
+        @Override
+        public void nameToLog(Log log) {
+            log.string("by pause time goal: ").signed(Options.MaxGCPauseMillis.getValue()).string(" msec pauses, ")
+                            .signed(Options.ThroughputGoalPercent.getValue()).string("% outside collections");
+        }
+
+        @Override
+        public void afterCollection(boolean completeCollection, long collectionNanos, long mutatorNanos) {
+            averageCollectionNanos = average(averageCollectionNanos, collectionNanos);
+            averageMutatorNanos = average(averageMutatorNanos, mutatorNanos);
+            final long youngSize = HeapPolicy.getMaximumYoungGenerationSize().rawValue();
+            long newYoungSize = youngSize;
+            /* The pause of a complete collection does not depend on the size of the young generation. */
+            if (!completeCollection) {
+                averagePauseNanos = average(averagePauseNanos, collectionNanos);
+                averageYoungBytes = average(averageYoungBytes, getAccounting().getYoungChunkBytesBefore().rawValue());
+                averageSurvivedBytes = average(averageSurvivedBytes, getAccounting().getLastPromotedUnpinnedChunkBytes().rawValue());
+
+                final long pauseGoalNanos = TimeUtils.millisToNanos(Options.MaxGCPauseMillis.getValue());
+                final long throughputGoal = Options.ThroughputGoalPercent.getValue();
+                newYoungSize = clampYoungGenerationSize(computeYoungGenerationSize(youngSize, averagePauseNanos, getCollectionPercent(), pauseGoalNanos, throughputGoal));
+                if (newYoungSize != youngSize) {
+                    HeapPolicy.setMaximumYoungGenerationSize(WordFactory.unsigned(newYoungSize));
+                }
+            }
+            final long retainedBytes = retainFreeChunks(newYoungSize);
+            if (SubstrateOptions.PrintGC.getValue() || SubstrateOptions.VerboseGC.getValue()) {
+                final Log log = Log.log();
+                log.string("[ByPauseTimeGoal:");
+                log.string("  pause: ").signed(TimeUtils.roundNanosToMillis(averagePauseNanos)).string(" msec");
+                log.string("  collecting: ").signed(getCollectionPercent()).string("%");
+                log.string("  survival: ").signed(getSurvivalPercent()).string("%");
+                log.string("  allocation: ").signed(getAllocationBytesPerMilli() / 1024).string("K/msec");
+                log.string("  young: ").signed(youngSize / 1024).string("K->").signed(newYoungSize / 1024).string("K");
+                log.string("  retained: ").signed(retainedBytes / 1024).string("K");
+                log.string("  decision: ").string(newYoungSize < youngSize ? "shrink" : (newYoungSize > youngSize ? "grow" : "keep"));
+                log.string("]").newline();
+            }
+        }
+
+        /**
+         * Compute the size of the young generation after an incremental collection, before it is
+         * rounded to whole chunks and clamped. The young generation shrinks if the average pause
+         * is above the goal, and grows if more than (100 - throughputGoalPercent)% of the time is
+         * spent collecting and the pause predicted for the larger young generation is within the
+         * goal. Otherwise it keeps its size.
+         */
+        public static long computeYoungGenerationSize(long youngSize, long averagePauseNanos, long collectionPercent, long pauseGoalNanos, long throughputGoalPercent) {
+            if (averagePauseNanos > pauseGoalNanos) {
+                return youngSize - youngSize / 100 * SHRINK_PERCENT;
+            }
+            /* Pauses grow with the survivors, which grow with the young generation. */
+            if (collectionPercent > 100 - throughputGoalPercent && averagePauseNanos / 100 * (100 + GROW_PERCENT) <= pauseGoalNanos) {
+                return youngSize + youngSize / 100 * GROW_PERCENT;
+            }
+            return youngSize;
+        }
+
+        /** Keep the young generation between a few chunks and half of the heap, in whole chunks. */
+        private static long clampYoungGenerationSize(long size) {
+            final long chunkSize = HeapPolicy.getAlignedHeapChunkSize().rawValue();
+            final long minimum = chunkSize * MINIMUM_YOUNG_GENERATION_CHUNKS;
+            final long maximum = Math.max(minimum, HeapPolicy.getMaximumHeapSize().rawValue() / 2);
+            final long rounded = (size + chunkSize - 1) / chunkSize * chunkSize;
+            return Math.min(Math.max(rounded, minimum), maximum);
+        }
+
+        /**
+         * Retain free chunks for the young generation, the old generation in use, and the
+         * promotion expected from a young generation of the given size. Returns the number of
+         * bytes the heap retains.
+         */
+        private long retainFreeChunks(long youngSize) {
+            final long oldInUse = getAccounting().getOldGenerationAfterChunkBytes().rawValue();
+            final long expectedPromotion = youngSize / 100 * getSurvivalPercent();
+            final long retained = Math.min(youngSize + oldInUse + expectedPromotion, HeapPolicy.getMaximumHeapSize().rawValue());
+            HeapPolicy.setMinimumHeapSize(WordFactory.unsigned(retained));
+            retainedBytes = retained;
+            return retained;
+        }
+
+        @Override
+        public UnsignedWord getRetainedHeapBytes() {
+            return WordFactory.unsigned(retainedBytes);
+        }
+
+        private long getCollectionPercent() {
+            final long totalNanos = averageCollectionNanos + averageMutatorNanos;
+            return (totalNanos > 0 ? TimeUtils.roundedDivide(100 * averageCollectionNanos, totalNanos) : 0);
+        }
+
+        private long getSurvivalPercent() {
+            return (averageYoungBytes > 0 ? Math.min(100, TimeUtils.roundedDivide(100 * averageSurvivedBytes, averageYoungBytes)) : 0);
+        }
+
+        private long getAllocationBytesPerMilli() {
+            final long mutatorMillis = TimeUtils.roundNanosToMillis(averageMutatorNanos);
+            return (mutatorMillis > 0 ? averageYoungBytes / mutatorMillis : 0);
+        }
+
+        private static long average(long average, long sample) {
+            if (average == 0) {
+                return sample;
+            }
+            return (average * (AVERAGE_WEIGHT - 1) + sample) / AVERAGE_WEIGHT;
+        }
+    }
 }
@@ -30,6 +30,7 @@ import com.oracle.svm.core.heap.DiscoverableReference;
 import com.oracle.svm.core.heap.FeebleReference;
 import com.oracle.svm.core.heap.FeebleReferenceList;
 import com.oracle.svm.core.heap.ObjectHeader;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 
@@ -38,20 +39,70 @@ public class DiscoverableReferenceProcessing {
     /*
      * Public methods for collectors.
      */
-    public static void discoverDiscoverableReference(Object object) {
+    public static void discoverDiscoverableReference(Object object, ObjectReferenceVisitor objRefVisitor) {
         final Log trace = Log.noopLog();
         /* TODO: What's the cost of this type test, since o will be a concrete subtype? */
         Object obj = KnownIntrinsics.convertUnknownValue(object, Object.class);
         if (obj instanceof DiscoverableReference) {
-            /* Add this DiscoverableReference to the discovered list. */
             final DiscoverableReference dr = (DiscoverableReference) obj;
             trace.string("[DiscoverableReference.discoverDiscoverableReference:");
-            trace.string("  dr: ").object(dr).string("  referent: ").hex(DiscoverableReference.TestingBackDoor.getReferentPointer(dr)).string("]").newline();
+            trace.string("  dr: ").object(dr).string("  referent: ").hex(DiscoverableReference.TestingBackDoor.getReferentPointer(dr));
+            if (isSoftlyKept(dr)) {
+                /* Treat the referent as strongly reachable: it is scavenged like any other. */
+                trace.string("  softly kept]").newline();
+                objRefVisitor.visitObjectReference(dr.getReferentFieldPointer(), false);
+                return;
+            }
+            trace.string("]").newline();
+            /* Add this DiscoverableReference to the discovered list. */
             addToDiscoveredReferences(dr);
         }
 
     }
 
+    /*
+     * Soft references.
+     *
+     * Like HotSpot's LRU policy, a soft reference is kept if its referent was accessed within the
+     * last SoftRefLRUPolicyMSPerMB milliseconds per megabyte of heap that was free after the
+     * previous collection. Everything else is treated as weakly reachable. With an interval of 0,
+     * no soft reference is kept, which is how a collection before an OutOfMemoryError clears them
+     * all.
+     */
+
+    /** How long, in soft reference clock milliseconds, a referent is kept after its last access. */
+    private static long softReferenceIntervalMillis = 0L;
+
+    /** Fix the soft reference interval for a collection, before any references are discovered. */
+    static void prepareSoftReferences(UnsignedWord freeBytes) {
+        softReferenceIntervalMillis = computeSoftReferenceInterval(freeBytes.rawValue(), HeapPolicyOptions.SoftRefLRUPolicyMSPerMB.getValue());
+    }
+
+    /** The soft reference interval for {@code freeBytes} of free heap. */
+    static long computeSoftReferenceInterval(long freeBytes, long millisPerMegabyte) {
+        return (freeBytes / (1024L * 1024L)) * millisPerMegabyte;
+    }
+
+    /** Advance the soft reference clock once a collection is finished. */
+    static void updateSoftReferenceClock() {
+        DiscoverableReference.setSoftReferenceClock(System.currentTimeMillis());
+    }
+
+    private static boolean isSoftlyKept(DiscoverableReference dr) {
+        if (dr.getReferentPointer().isNull()) {
+            return false;
+        }
+        return isSoftlyKept(dr.getSoftAccessTimestamp(), DiscoverableReference.getSoftReferenceClock(), softReferenceIntervalMillis);
+    }
+
+    /**
+     * Whether a reference with the access {@code timestamp}, which is negative without soft
+     * semantics, is kept at a collection with the soft reference {@code clock}.
+     */
+    static boolean isSoftlyKept(long timestamp, long clock, long intervalMillis) {
+        return timestamp >= 0 && (clock - timestamp) < intervalMillis;
+    }
+
     /** The first element of the discovered list, or null. */
     public static DiscoverableReference getDiscoveredList() {
         return HeapImpl.getHeapImpl().getGCImpl().getDiscoveredReferenceList();
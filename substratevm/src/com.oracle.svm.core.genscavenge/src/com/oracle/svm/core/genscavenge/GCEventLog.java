@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.log.Log;
+
+/**
+ * A ring buffer of the most recent collections, in a form that tools can parse.
+ * <p>
+ * The buffer is allocated when the image is built, with room for
+ * {@link HeapOptions#GCEventLogSize} collections. The collector fills in one record per
+ * collection without allocating. Records are taken out of the buffer by {@link #drain(Appendable)},
+ * which writes each one as a single line of JSON. If {@link HeapOptions#GCEventLogFile} is set, a
+ * writer thread drains the buffer to that file after each collection, and once more when the VM
+ * shuts down. Records that are overwritten before they are drained are lost.
+ * <p>
+ * Each line is an object with these members, in this order:
+ * <dl>
+ * <dt>{@code epoch}</dt>
+ * <dd>The collection epoch, counting from 1.</dd>
+ * <dt>{@code cause}</dt>
+ * <dd>The reason for the collection, e.g., {@code "java.lang.System.gc()"}.</dd>
+ * <dt>{@code type}</dt>
+ * <dd>{@code "incremental"} or {@code "complete"}.</dd>
+ * <dt>{@code startNanos}</dt>
+ * <dd>When the mutator was stopped, in nanoseconds since the first heap allocation.</dd>
+ * <dt>{@code pauseNanos}</dt>
+ * <dd>From stopping the mutator to the end of the collection, including the collection watchers.
+ * </dd>
+ * <dt>{@code collectionNanos}</dt>
+ * <dd>The time spent collecting, without verification and collection watchers.</dd>
+ * <dt>{@code <phase>Nanos}</dt>
+ * <dd>The time spent in each phase of the collection, with the same phase names as
+ * {@link HeapOptions#PrintGCTimes}: {@code verifyBefore}, {@code rootScan},
+ * {@code cheneyScanFromRoots}, {@code cheneyScanFromDirtyRoots}, {@code promotePinnedObjects},
+ * {@code blackenStackRoots}, {@code walkRegisteredMemory}, {@code blackenBootImageRoots},
+ * {@code blackenDirtyCardRoots}, {@code scanGreyObjects}, {@code discoverableReferences},
+ * {@code releaseSpaces}, {@code verifyAfter}, {@code watchersBefore} and {@code watchersAfter}.
+ * Phases overlap: {@code rootScan} contains the {@code blacken*} and {@code walkRegisteredMemory}
+ * phases, for example.</dd>
+ * <dt>{@code youngChunkBytesBefore}, {@code oldChunkBytesBefore}, {@code oldChunkBytesAfter}</dt>
+ * <dd>The bytes in chunks of each generation, including pinned chunks. The young generation is
+ * empty after a collection.</dd>
+ * <dt>{@code promotedChunkBytes}</dt>
+ * <dd>The bytes in chunks promoted from the young generation by an incremental collection, 0 for a
+ * complete collection.</dd>
+ * <dt>{@code copiedChunkBytes}</dt>
+ * <dd>The bytes in chunks that survived a complete collection, 0 for an incremental collection.
+ * </dd>
+ * <dt>{@code dirtyCards}</dt>
+ * <dd>The number of dirty cards of the old generation that were scanned for roots.</dd>
+ * <dt>{@code youngChunksBefore}, {@code oldChunksAfter}</dt>
+ * <dd>The number of aligned and unaligned chunks in each generation.</dd>
+ * </dl>
+ * All numbers are integers. New members may be added at the end.
+ */
+public final class GCEventLog {
+
+    /** The numeric members of a record, in the order in which they are written. */
+    enum Field {
+        START_NANOS("startNanos"),
+        PAUSE_NANOS("pauseNanos"),
+        COLLECTION_NANOS("collectionNanos"),
+        VERIFY_BEFORE_NANOS("verifyBeforeNanos"),
+        ROOT_SCAN_NANOS("rootScanNanos"),
+        CHENEY_SCAN_FROM_ROOTS_NANOS("cheneyScanFromRootsNanos"),
+        CHENEY_SCAN_FROM_DIRTY_ROOTS_NANOS("cheneyScanFromDirtyRootsNanos"),
+        PROMOTE_PINNED_OBJECTS_NANOS("promotePinnedObjectsNanos"),
+        BLACKEN_STACK_ROOTS_NANOS("blackenStackRootsNanos"),
+        WALK_REGISTERED_MEMORY_NANOS("walkRegisteredMemoryNanos"),
+        BLACKEN_BOOT_IMAGE_ROOTS_NANOS("blackenBootImageRootsNanos"),
+        BLACKEN_DIRTY_CARD_ROOTS_NANOS("blackenDirtyCardRootsNanos"),
+        SCAN_GREY_OBJECTS_NANOS("scanGreyObjectsNanos"),
+        DISCOVERABLE_REFERENCES_NANOS("discoverableReferencesNanos"),
+        RELEASE_SPACES_NANOS("releaseSpacesNanos"),
+        VERIFY_AFTER_NANOS("verifyAfterNanos"),
+        WATCHERS_BEFORE_NANOS("watchersBeforeNanos"),
+        WATCHERS_AFTER_NANOS("watchersAfterNanos"),
+        YOUNG_CHUNK_BYTES_BEFORE("youngChunkBytesBefore"),
+        OLD_CHUNK_BYTES_BEFORE("oldChunkBytesBefore"),
+        OLD_CHUNK_BYTES_AFTER("oldChunkBytesAfter"),
+        PROMOTED_CHUNK_BYTES("promotedChunkBytes"),
+        COPIED_CHUNK_BYTES("copiedChunkBytes"),
+        DIRTY_CARDS("dirtyCards"),
+        YOUNG_CHUNKS_BEFORE("youngChunksBefore"),
+        OLD_CHUNKS_AFTER("oldChunksAfter");
+
+        final String jsonName;
+
+        Field(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    /** {@link Field#values()} allocates, so keep a copy. */
+    private static final Field[] FIELDS = Field.values();
+
+    /* Immutable state. */
+    private final int capacity;
+    private final long[] epochs;
+    private final String[] causes;
+    private final boolean[] completes;
+    private final long[] values;
+
+    /* Mutable state. */
+
+    /** The number of records written since the start of the VM. */
+    private volatile long recorded;
+    /** The number of records taken out of the buffer, or skipped because they were overwritten. */
+    private long drained;
+    /** The slot of the record being written. */
+    private int current;
+    /** Lazily opened writer for {@link HeapOptions#GCEventLogFile}, and its file name. */
+    private Writer fileWriter;
+    private String fileWriterName;
+    private volatile boolean fileFailed;
+    /**
+     * Lazily started thread that drains to the file, so that the mutator does no file I/O. Only
+     * the thread that sets {@link #fileDrainPending} starts it, so it needs no lock.
+     */
+    private volatile ExecutorService fileDrainer;
+    /** Whether a drain to the file has been handed to {@link #fileDrainer} and not started yet. */
+    private final AtomicBoolean fileDrainPending;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    GCEventLog(int capacity) {
+        this.capacity = capacity;
+        this.epochs = new long[capacity];
+        this.causes = new String[capacity];
+        this.completes = new boolean[capacity];
+        this.values = new long[capacity * FIELDS.length];
+        this.recorded = 0L;
+        this.drained = 0L;
+        this.current = 0;
+        this.fileDrainPending = new AtomicBoolean(false);
+    }
+
+    /** The event log of the collector of this image. */
+    public static GCEventLog get() {
+        return HeapImpl.getHeapImpl().getGCImpl().getEventLog();
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /** The number of records the buffer holds before the oldest ones are overwritten. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /*
+     * Recording, by the collector. These methods must not allocate.
+     */
+
+    /** Start a record, overwriting the oldest one if the buffer is full. */
+    void begin(UnsignedWord epoch, String cause, boolean complete) {
+        assert isEnabled();
+        current = (int) (recorded % capacity);
+        epochs[current] = epoch.rawValue();
+        causes[current] = cause;
+        completes[current] = complete;
+        for (int i = 0; i < FIELDS.length; i += 1) {
+            values[current * FIELDS.length + i] = 0L;
+        }
+    }
+
+    void set(Field field, long value) {
+        values[current * FIELDS.length + field.ordinal()] = value;
+    }
+
+    void set(Field field, UnsignedWord value) {
+        set(field, value.rawValue());
+    }
+
+    /** Make the record started by {@link #begin} visible to {@link #drain}. */
+    void commit() {
+        recorded = recorded + 1;
+    }
+
+    /*
+     * Draining, by the mutator.
+     */
+
+    /**
+     * Write the records that have not been drained yet to {@code out}, oldest first, one JSON
+     * object per line, and remove them from the buffer.
+     *
+     * @return the number of records written.
+     */
+    public synchronized int drain(Appendable out) throws IOException {
+        if (!isEnabled()) {
+            return 0;
+        }
+        final long[] scratch = new long[FIELDS.length];
+        final StringBuilder line = new StringBuilder();
+        int result = 0;
+        final long end = recorded;
+        for (long seq = Math.max(drained, end - capacity); seq < end; seq += 1) {
+            /*
+             * A collection can happen while this thread is copying, so copy the record first and
+             * check afterwards whether it has been overwritten in the meantime.
+             */
+            final int slot = (int) (seq % capacity);
+            final long epoch = epochs[slot];
+            final String cause = causes[slot];
+            final boolean complete = completes[slot];
+            System.arraycopy(values, slot * FIELDS.length, scratch, 0, FIELDS.length);
+            if (recorded - seq > capacity) {
+                continue;
+            }
+            line.setLength(0);
+            line.append("{\"epoch\":").append(epoch);
+            line.append(",\"cause\":");
+            appendJsonString(line, cause);
+            line.append(",\"type\":\"").append(complete ? "complete" : "incremental").append('"');
+            for (int i = 0; i < FIELDS.length; i += 1) {
+                line.append(",\"").append(FIELDS[i].jsonName).append("\":").append(scratch[i]);
+            }
+            line.append("}\n");
+            out.append(line);
+            result += 1;
+        }
+        drained = end;
+        return result;
+    }
+
+    /**
+     * Have the writer thread drain to {@link HeapOptions#GCEventLogFile}, if it is set. Called
+     * after a collection. A drain that is already pending writes the new records too.
+     */
+    void drainToFile() {
+        if (!isEnabled() || HeapOptions.GCEventLogFile.getValue().isEmpty() || fileFailed) {
+            return;
+        }
+        if (fileDrainPending.compareAndSet(false, true)) {
+            getFileDrainer().execute(this::drainPendingToFile);
+        }
+    }
+
+    private ExecutorService getFileDrainer() {
+        ExecutorService result = fileDrainer;
+        if (result == null) {
+            result = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable, "GC Event Log Writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fileDrainer = result;
+            try {
+                /* The writer thread is a daemon, so write what it has not written yet at exit. */
+                Runtime.getRuntime().addShutdownHook(new Thread(this::drainFileNow, "GC Event Log Shutdown"));
+            } catch (IllegalStateException ex) {
+                /* Already shutting down. */
+            }
+        }
+        return result;
+    }
+
+    private void drainPendingToFile() {
+        /* Clear the flag first, so that a collection from now on asks for another drain. */
+        fileDrainPending.set(false);
+        drainFileNow();
+    }
+
+    private synchronized void drainFileNow() {
+        final String fileName = HeapOptions.GCEventLogFile.getValue();
+        if (fileName.isEmpty() || fileFailed) {
+            return;
+        }
+        try {
+            if (fileWriter == null || !fileName.equals(fileWriterName)) {
+                if (fileWriter != null) {
+                    fileWriter.close();
+                }
+                fileWriter = null;
+                fileWriter = new FileWriter(fileName, true);
+                fileWriterName = fileName;
+            }
+            if (drain(fileWriter) > 0) {
+                fileWriter.flush();
+            }
+        } catch (IOException ex) {
+            /* Give up on the file rather than fail every collection. */
+            fileFailed = true;
+            Log.log().string("[GCEventLog: can not write to ").string(fileName).string(": ").string(ex.getMessage()).string("]").newline();
+        }
+    }
+
+    private static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i += 1) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -26,11 +26,37 @@ import static com.oracle.svm.core.snippets.KnownIntrinsics.readCallerStackPointe
 import static com.oracle.svm.core.snippets.KnownIntrinsics.readReturnAddress;
 
 import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanNotificationInfo;
 import javax.management.MalformedObjectNameException;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
 
 import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.options.Option;
@@ -67,6 +93,7 @@ import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.thread.VMThreads;
 import com.oracle.svm.core.util.TimeUtils;
 import com.oracle.svm.core.util.VMError;
+import com.sun.management.GarbageCollectionNotificationInfo;
 
 public class GCImpl implements GC {
 
@@ -124,6 +151,7 @@ public class GCImpl implements GC {
     private final NoAllocationVerifier noAllocationVerifier;
 
     private final GarbageCollectorManagementFactory gcManagementFactory;
+    private final GCEventLog eventLog;
 
     /*
      * Mutable state.
@@ -131,6 +159,8 @@ public class GCImpl implements GC {
 
     private CollectionPolicy policy;
     private boolean completeCollection;
+    /** Whether the current collection clears all soft references. */
+    private boolean clearSoftReferences;
     private UnsignedWord sizeBefore;
 
     /** Constructor for subclasses. */
@@ -158,6 +188,7 @@ public class GCImpl implements GC {
         this.oldGenerationSizeExceeded = new OutOfMemoryError("Old generation size exceeded.");
         this.unpinnedObjectReferenceWalkerException = new UnpinnedObjectReferenceWalkerException();
         this.gcManagementFactory = new GarbageCollectorManagementFactory();
+        this.eventLog = new GCEventLog(HeapOptions.GCEventLogSize.getValue());
 
         this.blackenBootImageRootsTimer = new Timer("blackenBootImageRoots");
         this.blackenDirtyCardRootsTimer = new Timer("blackenDirtyCardRoots");
@@ -226,6 +257,8 @@ public class GCImpl implements GC {
         resetTimers();
         incrementCollectionEpoch();
 
+        /* Gather allocation statistics and size the TLABs before they are retired. */
+        ThreadLocalAllocation.accumulateStatisticsBeforeCollection();
         /* Flush chunks from thread-local lists to global lists. */
         ThreadLocalAllocation.disableThreadLocalAllocation();
         /* Report the heap before the collection. */
@@ -244,11 +277,21 @@ public class GCImpl implements GC {
         }
 
         /* Check if out of memory. */
-        final OutOfMemoryError result = checkIfOutOfMemory();
+        OutOfMemoryError result = checkIfOutOfMemory();
+        if (result != null) {
+            /* Softly reachable objects must be cleared before an OutOfMemoryError is thrown. */
+            result = collectClearingSoftReferences(cause);
+        }
         /* Run any collection watchers after the collection. */
         visitWatchersAfter();
+        /* Record the collection for the management beans. */
+        gcManagementFactory.noteCollection(getCollectionEpoch(), cause, completeCollection, collectionTimer, getAccounting());
+        /* Record the collection in the event log. */
+        recordEvent(cause);
+        /* Give unused chunks beyond what the allocation rate needs back to the OS. */
+        HeapChunkProvider.get().releaseUnusedAlignedChunks(HeapPolicy.getBytesAllocatedSinceLastCollection(), getPolicy().getRetainedHeapBytes());
         /* Reset for the next collection. */
-        HeapPolicy.bytesAllocatedSinceLastCollection.set(WordFactory.zero());
+        HeapPolicy.resetBytesAllocatedSinceLastCollection();
         /* Print the heap after the collection. */
         printGCAfter(cause);
         /* Note that the collection is finished. */
@@ -282,6 +325,12 @@ public class GCImpl implements GC {
                 HeapImpl.getHeapImpl().verifyBeforeGC(cause, getCollectionEpoch());
             }
 
+            /* Soft references are kept by how much of the heap was free after the last collection. */
+            final UnsignedWord maxHeapSize = HeapPolicy.getMaximumHeapSize();
+            final UnsignedWord oldAfterLastCollection = getAccounting().getOldGenerationAfterChunkBytes();
+            final boolean heapFree = !clearSoftReferences && maxHeapSize.aboveThan(oldAfterLastCollection);
+            DiscoverableReferenceProcessing.prepareSoftReferences(heapFree ? maxHeapSize.subtract(oldAfterLastCollection) : WordFactory.zero());
+
             getAccounting().beforeCollection();
 
             try (Timer ct = collectionTimer.open()) {
@@ -303,9 +352,12 @@ public class GCImpl implements GC {
 
             /* Distribute any discovered references to their queues. */
             DiscoverableReferenceProcessing.Scatterer.distributeReferences();
+            DiscoverableReferenceProcessing.updateSoftReferenceClock();
         }
 
         getAccounting().afterCollection(completeCollection, collectionTimer);
+        /* Let the policy adapt to what it has observed. */
+        getPolicy().afterCollection(completeCollection, collectionTimer.getCollectedNanos(), mutatorTimer.getLastIntervalNanos());
 
         trace.string("  Verify after: ");
         try (Timer vat = verifyAfterTimer.open()) {
@@ -358,6 +410,9 @@ public class GCImpl implements GC {
     private void printGCAfter(String cause) {
         final Log verboseGCLog = Log.log();
         final HeapImpl heap = HeapImpl.getHeapImpl();
+        if (HeapPolicyOptions.PrintTLAB.getValue()) {
+            ThreadLocalAllocation.printStatistics(Log.log());
+        }
         if (SubstrateOptions.PrintGC.getValue() || SubstrateOptions.VerboseGC.getValue()) {
             if (SubstrateOptions.PrintGC.getValue()) {
                 final Log printGCLog = Log.log();
@@ -477,6 +532,27 @@ public class GCImpl implements GC {
         }
     }
 
+    /**
+     * Collect completely again, without keeping any soft references, and check if out of memory
+     * after that. The soft reference interval is 0, so no soft reference is kept however recently
+     * its referent was accessed.
+     */
+    private OutOfMemoryError collectClearingSoftReferences(String cause) {
+        final CollectionPolicy oldPolicy = getPolicy();
+        try {
+            setPolicy(alwaysCompletelyInstance);
+            clearSoftReferences = true;
+            collectImpl(cause);
+        } catch (Throwable t) {
+            /* Exceptions during collections are fatal. */
+            throw VMError.shouldNotReachHere(t);
+        } finally {
+            clearSoftReferences = false;
+            setPolicy(oldPolicy);
+        }
+        return checkIfOutOfMemory();
+    }
+
     private OutOfMemoryError checkIfOutOfMemory() {
         OutOfMemoryError result = null;
         final UnsignedWord allowed = HeapPolicy.getMaximumHeapSize();
@@ -888,6 +964,8 @@ public class GCImpl implements GC {
     void possibleCollectionEpilogue(UnsignedWord requestingEpoch) {
         if (requestingEpoch.belowThan(getCollectionEpoch())) {
             visitWatchersReport();
+            gcManagementFactory.sendNotification();
+            eventLog.drainToFile();
         }
     }
 
@@ -1074,6 +1152,44 @@ public class GCImpl implements GC {
         trace.string("]").newline();
     }
 
+    private void recordEvent(String cause) {
+        if (!eventLog.isEnabled()) {
+            return;
+        }
+        final Accounting acc = getAccounting();
+        eventLog.begin(getCollectionEpoch(), cause, completeCollection);
+        eventLog.set(GCEventLog.Field.START_NANOS, Timer.getTimeSinceFirstAllocation(mutatorTimer.getFinish()));
+        eventLog.set(GCEventLog.Field.PAUSE_NANOS, System.nanoTime() - mutatorTimer.getFinish());
+        eventLog.set(GCEventLog.Field.COLLECTION_NANOS, collectionTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.VERIFY_BEFORE_NANOS, verifyBeforeTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.ROOT_SCAN_NANOS, rootScanTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.CHENEY_SCAN_FROM_ROOTS_NANOS, cheneyScanFromRootsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.CHENEY_SCAN_FROM_DIRTY_ROOTS_NANOS, cheneyScanFromDirtyRootsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.PROMOTE_PINNED_OBJECTS_NANOS, promotePinnedObjectsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.BLACKEN_STACK_ROOTS_NANOS, blackenStackRootsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.WALK_REGISTERED_MEMORY_NANOS, walkRegisteredMemoryTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.BLACKEN_BOOT_IMAGE_ROOTS_NANOS, blackenBootImageRootsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.BLACKEN_DIRTY_CARD_ROOTS_NANOS, blackenDirtyCardRootsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.SCAN_GREY_OBJECTS_NANOS, scanGreyObjectsTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.DISCOVERABLE_REFERENCES_NANOS, discoverableReferenceTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.RELEASE_SPACES_NANOS, releaseSpacesTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.VERIFY_AFTER_NANOS, verifyAfterTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.WATCHERS_BEFORE_NANOS, watchersBeforeTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.WATCHERS_AFTER_NANOS, watchersAfterTimer.getCollectedNanos());
+        eventLog.set(GCEventLog.Field.YOUNG_CHUNK_BYTES_BEFORE, acc.getYoungChunkBytesBefore());
+        eventLog.set(GCEventLog.Field.OLD_CHUNK_BYTES_BEFORE, acc.getOldGenerationBeforeChunkBytes());
+        eventLog.set(GCEventLog.Field.OLD_CHUNK_BYTES_AFTER, acc.getOldGenerationAfterChunkBytes());
+        if (completeCollection) {
+            eventLog.set(GCEventLog.Field.COPIED_CHUNK_BYTES, acc.getOldGenerationAfterChunkBytes());
+        } else {
+            eventLog.set(GCEventLog.Field.PROMOTED_CHUNK_BYTES, acc.getLastPromotedUnpinnedChunkBytes().add(acc.getLastPromotedPinnedChunkBytes()));
+        }
+        eventLog.set(GCEventLog.Field.DIRTY_CARDS, acc.getDirtyCardCount());
+        eventLog.set(GCEventLog.Field.YOUNG_CHUNKS_BEFORE, acc.getYoungChunkCountBefore());
+        eventLog.set(GCEventLog.Field.OLD_CHUNKS_AFTER, acc.getOldChunkCountAfter());
+        eventLog.commit();
+    }
+
     private void logGCTimers(final Log log) {
         if (log.isEnabled()) {
             log.newline();
@@ -1143,6 +1259,9 @@ public class GCImpl implements GC {
         private UnsignedWord oldChunkBytesAfter;
         private UnsignedWord pinnedChunkBytesBefore;
         private UnsignedWord pinnedChunkBytesAfter;
+        private long youngChunkCountBefore;
+        private long oldChunkCountAfter;
+        private long dirtyCardCount;
         /* History of promotions and copies. */
         private int history;
         private UnsignedWord[] promotedUnpinnedChunkBytes;
@@ -1179,6 +1298,9 @@ public class GCImpl implements GC {
             this.oldChunkBytesAfter = WordFactory.zero();
             this.pinnedChunkBytesBefore = WordFactory.zero();
             this.pinnedChunkBytesAfter = WordFactory.zero();
+            this.youngChunkCountBefore = 0L;
+            this.oldChunkCountAfter = 0L;
+            this.dirtyCardCount = 0L;
             /* Initialize histories. */
             this.promotedUnpinnedChunkBytes = historyFactory(WordFactory.zero());
             this.promotedPinnedChunkBytes = historyFactory(WordFactory.zero());
@@ -1265,6 +1387,45 @@ public class GCImpl implements GC {
             return oldChunkBytesAfter.add(pinnedChunkBytesAfter);
         }
 
+        /** Bytes held in the old generation before the most recent collection. */
+        UnsignedWord getOldGenerationBeforeChunkBytes() {
+            return oldChunkBytesBefore.add(pinnedChunkBytesBefore);
+        }
+
+        /** Bytes held in the young generation before the most recent collection. */
+        UnsignedWord getYoungChunkBytesBefore() {
+            return youngChunkBytesBefore;
+        }
+
+        /** Chunks in the young generation before the most recent collection. */
+        long getYoungChunkCountBefore() {
+            return youngChunkCountBefore;
+        }
+
+        /** Chunks in the old generation after the most recent collection. */
+        long getOldChunkCountAfter() {
+            return oldChunkCountAfter;
+        }
+
+        /** Dirty cards scanned for roots by the most recent collection. */
+        long getDirtyCardCount() {
+            return dirtyCardCount;
+        }
+
+        void noteDirtyCardsScanned(long count) {
+            dirtyCardCount += count;
+        }
+
+        /** Bytes promoted by the most recent collection, if it was an incremental collection. */
+        UnsignedWord getLastPromotedUnpinnedChunkBytes() {
+            return getHistoryOf(promotedUnpinnedChunkBytes);
+        }
+
+        /** Bytes of pinned chunks promoted by the most recent collection. */
+        UnsignedWord getLastPromotedPinnedChunkBytes() {
+            return getHistoryOf(promotedPinnedChunkBytes);
+        }
+
         /** Average promoted unpinned chunk bytes. */
         UnsignedWord averagePromotedUnpinnedChunkBytes() {
             return averageOfHistory(promotedUnpinnedChunkBytes);
@@ -1348,6 +1509,8 @@ public class GCImpl implements GC {
             final HeapImpl heap = HeapImpl.getHeapImpl();
             final Space youngSpace = heap.getYoungGeneration().getSpace();
             youngChunkBytesBefore = youngSpace.getChunkBytes();
+            youngChunkCountBefore = chunkCountOf(youngSpace);
+            dirtyCardCount = 0L;
             /* This is called before the collection, so OldSpace is FromSpace. */
             final Space oldSpace = heap.getOldGeneration().getFromSpace();
             oldChunkBytesBefore = oldSpace.getChunkBytes();
@@ -1431,6 +1594,7 @@ public class GCImpl implements GC {
             oldChunkBytesAfter = oldSpace.getChunkBytes();
             final Space pinnedSpace = heap.getOldGeneration().getPinnedFromSpace();
             pinnedChunkBytesAfter = pinnedSpace.getChunkBytes();
+            oldChunkCountAfter = chunkCountOf(oldSpace) + chunkCountOf(pinnedSpace);
             final UnsignedWord beforeChunkBytes = youngChunkBytesBefore.add(oldChunkBytesBefore).add(pinnedChunkBytesBefore);
             final UnsignedWord afterChunkBytes = oldChunkBytesAfter.add(pinnedChunkBytesAfter);
             final UnsignedWord collectedChunkBytes = beforeChunkBytes.subtract(afterChunkBytes);
@@ -1445,6 +1609,10 @@ public class GCImpl implements GC {
                 collectedTotalObjectBytes = collectedTotalObjectBytes.add(collectedObjectBytes);
             }
         }
+
+        private static long chunkCountOf(Space space) {
+            return space.getAccounting().getAlignedChunkCount() + space.getAccounting().getUnalignedChunkCount();
+        }
     }
 
     /** A class for the timers kept by the collector. */
@@ -1515,6 +1683,10 @@ public class GCImpl implements GC {
     /** A constructor of remembered sets. */
     private final RememberedSetConstructor rememberedSetConstructor;
 
+    GCEventLog getEventLog() {
+        return eventLog;
+    }
+
     RememberedSetConstructor getRememberedSetConstructor() {
         return rememberedSetConstructor;
     }
@@ -1679,6 +1851,11 @@ public class GCImpl implements GC {
         return gcManagementFactory.getGCBeanList();
     }
 
+    @Override
+    public List<MemoryPoolMXBean> getMemoryPoolMXBeanList() {
+        return gcManagementFactory.getMemoryPoolBeanList();
+    }
+
     public static class UnpinnedObjectReferenceWalkerException extends RuntimeException {
 
         UnpinnedObjectReferenceWalkerException() {
@@ -1692,46 +1869,284 @@ public class GCImpl implements GC {
 
 final class GarbageCollectorManagementFactory {
 
+    /** The open type name of the memory usage maps of a GcInfo. */
+    private static final String MEMORY_USAGE_MAP_TYPE = "java.util.Map<java.lang.String,java.lang.management.MemoryUsage>";
+
+    /** Constant for the {@link MemoryUsage} constructor. */
+    static final long UNDEFINED_MEMORY_USAGE = -1L;
+
+    private static final String YOUNG_GENERATION_SPACE = "young generation space";
+    private static final String OLD_GENERATION_SPACE = "old generation space";
+    private static final String YOUNG_GENERATION_SCAVENGER = "young generation scavenger";
+    private static final String COMPLETE_SCAVENGER = "complete scavenger";
+
     private List<GarbageCollectorMXBean> gcBeanList;
+    private List<MemoryPoolMXBean> memoryPoolBeanList;
+
+    private final NotifyingGarbageCollectorMXBean incrementalBean;
+    private final NotifyingGarbageCollectorMXBean completeBean;
+    private final GenerationMemoryPoolMXBean youngPoolBean;
+    private final GenerationMemoryPoolMXBean oldPoolBean;
+    /**
+     * The open types that {@link GarbageCollectionNotificationInfo#from} and GcInfo expect, or
+     * null if they could not be built.
+     */
+    private final CompositeType notificationDataType;
+    private final CompositeType gcInfoType;
+    private final TabularType memoryUsageMapType;
+    private final CompositeType memoryUsageType;
+
+    /*
+     * State of the most recent collection. It is recorded without allocating during the
+     * collection, and turned into a notification once allocation is allowed again.
+     */
+    private UnsignedWord collectedEpoch;
+    private UnsignedWord notifiedEpoch;
+    private boolean collectedCompletely;
+    private String collectedCause;
+    private long collectedStartMillis;
+    private long collectedDurationNanos;
+    private UnsignedWord youngBytesBefore;
+    private UnsignedWord oldBytesBefore;
+    private UnsignedWord oldBytesAfter;
 
+    @Platforms(Platform.HOSTED_ONLY.class)
     GarbageCollectorManagementFactory() {
+        final Executor notificationExecutor = new NotificationExecutor();
+        incrementalBean = new IncrementalGarbageCollectorMXBean(notificationExecutor);
+        completeBean = new CompleteGarbageCollectorMXBean(notificationExecutor);
         final List<GarbageCollectorMXBean> newList = new ArrayList<>();
-        newList.add(new IncrementalGarbageCollectorMXBean());
-        newList.add(new CompleteGarbageCollectorMXBean());
+        newList.add(incrementalBean);
+        newList.add(completeBean);
         gcBeanList = newList;
+
+        youngPoolBean = new YoungGenerationMemoryPoolMXBean();
+        oldPoolBean = new OldGenerationMemoryPoolMXBean();
+        final List<MemoryPoolMXBean> newPoolList = new ArrayList<>();
+        newPoolList.add(youngPoolBean);
+        newPoolList.add(oldPoolBean);
+        memoryPoolBeanList = newPoolList;
+
+        CompositeType usageType;
+        TabularType usageMapType;
+        CompositeType infoType;
+        CompositeType notificationType;
+        try {
+            final String[] usageItems = new String[]{"committed", "init", "max", "used"};
+            usageType = new CompositeType(MemoryUsage.class.getName(), "Memory usage", usageItems, usageItems,
+                            new OpenType<?>[]{SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG});
+            final CompositeType usageMapRowType = new CompositeType(MEMORY_USAGE_MAP_TYPE, "Memory usage of a pool", new String[]{"key", "value"}, new String[]{"Pool name", "Memory usage"},
+                            new OpenType<?>[]{SimpleType.STRING, usageType});
+            usageMapType = new TabularType(MEMORY_USAGE_MAP_TYPE, "Memory usage of the pools", usageMapRowType, new String[]{"key"});
+            final String[] infoItems = new String[]{"id", "startTime", "endTime", "duration", "memoryUsageBeforeGc", "memoryUsageAfterGc"};
+            infoType = new CompositeType("sun.management.BaseGcInfoCompositeType", "Collection information", infoItems, infoItems,
+                            new OpenType<?>[]{SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, usageMapType, usageMapType});
+            final String[] notificationItems = new String[]{"gcName", "gcAction", "gcCause", "gcInfo"};
+            notificationType = new CompositeType("sun.management.BaseGarbageCollectionNotifInfoCompositeType", "Garbage collection notification", notificationItems, notificationItems,
+                            new OpenType<?>[]{SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, infoType});
+        } catch (OpenDataException ode) {
+            usageType = null;
+            usageMapType = null;
+            infoType = null;
+            notificationType = null;
+        }
+        memoryUsageType = usageType;
+        memoryUsageMapType = usageMapType;
+        gcInfoType = infoType;
+        notificationDataType = notificationType;
+
+        collectedEpoch = WordFactory.zero();
+        notifiedEpoch = WordFactory.zero();
+        collectedCompletely = false;
+        collectedCause = null;
+        collectedStartMillis = 0L;
+        collectedDurationNanos = 0L;
+        youngBytesBefore = WordFactory.zero();
+        oldBytesBefore = WordFactory.zero();
+        oldBytesAfter = WordFactory.zero();
     }
 
     List<GarbageCollectorMXBean> getGCBeanList() {
         return gcBeanList;
     }
 
-    /** A GarbageCollectorMXBean for the incremental collector. */
-    private static final class IncrementalGarbageCollectorMXBean implements GarbageCollectorMXBean {
+    List<MemoryPoolMXBean> getMemoryPoolBeanList() {
+        return memoryPoolBeanList;
+    }
 
-        private IncrementalGarbageCollectorMXBean() {
-            /* Nothing to do. */
+    /**
+     * Record the most recent collection. Called from the collection VMOperation, so it must not
+     * allocate: it only copies primitive values out of the accounting.
+     */
+    void noteCollection(UnsignedWord epoch, String cause, boolean complete, GCImpl.Timer collectionTimer, GCImpl.Accounting accounting) {
+        collectedEpoch = epoch;
+        collectedCause = cause;
+        collectedCompletely = complete;
+        collectedStartMillis = TimeUtils.roundNanosToMillis(GCImpl.Timer.getTimeSinceFirstAllocation(collectionTimer.getStart()));
+        collectedDurationNanos = collectionTimer.getCollectedNanos();
+        youngBytesBefore = accounting.getYoungChunkBytesBefore();
+        oldBytesBefore = accounting.getOldGenerationBeforeChunkBytes();
+        oldBytesAfter = accounting.getOldGenerationAfterChunkBytes();
+        /* The young generation is empty after every collection. */
+        youngPoolBean.noteCollection(youngBytesBefore, WordFactory.zero());
+        oldPoolBean.noteCollection(oldBytesBefore, oldBytesAfter);
+    }
+
+    /**
+     * Send a notification for the most recent collection, if it has not been sent already. Called
+     * once allocation is allowed again, on the thread that caused or waited for the collection.
+     * If several collections happened in between, only the most recent one is reported.
+     *
+     * Only the snapshot of the collection is taken on the calling thread, and only if a listener
+     * was ever added to the bean. The listeners are called on the notification thread, see
+     * {@link NotificationExecutor}, like HotSpot calls them on its service thread.
+     */
+    void sendNotification() {
+        final NotifyingGarbageCollectorMXBean bean;
+        final Notification notification;
+        synchronized (this) {
+            final UnsignedWord epoch = collectedEpoch;
+            if (epoch.equal(notifiedEpoch)) {
+                return;
+            }
+            bean = (collectedCompletely ? completeBean : incrementalBean);
+            if (!bean.hasListeners()) {
+                notifiedEpoch = epoch;
+                return;
+            }
+            notification = new Notification(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION, bean.getObjectName(), epoch.rawValue(), System.currentTimeMillis(), bean.getName());
+            final CompositeData data = notificationData(bean.getName(), epoch);
+            if (data == null) {
+                /* Another collection overwrote the recorded state; report that one next time. */
+                return;
+            }
+            notification.setUserData(data);
+            notifiedEpoch = epoch;
         }
+        bean.sendNotification(notification);
+    }
+
+    /**
+     * Snapshot the recorded collection in the format of {@link GarbageCollectionNotificationInfo},
+     * or return null if it changed while being read.
+     */
+    private CompositeData notificationData(String gcName, UnsignedWord epoch) {
+        if (notificationDataType == null) {
+            return null;
+        }
+        final boolean complete = collectedCompletely;
+        final String cause = collectedCause;
+        final long startMillis = collectedStartMillis;
+        final long durationMillis = TimeUtils.roundNanosToMillis(collectedDurationNanos);
+        final long youngBefore = youngBytesBefore.rawValue();
+        final long oldBefore = oldBytesBefore.rawValue();
+        final long oldAfter = oldBytesAfter.rawValue();
+        if (collectedEpoch.notEqual(epoch)) {
+            return null;
+        }
+        try {
+            final Map<String, Object> info = new HashMap<>();
+            info.put("id", epoch.rawValue());
+            info.put("startTime", startMillis);
+            info.put("endTime", startMillis + durationMillis);
+            info.put("duration", durationMillis);
+            info.put("memoryUsageBeforeGc", memoryUsageMap(youngBefore, oldBefore));
+            info.put("memoryUsageAfterGc", memoryUsageMap(0L, oldAfter));
+            final Map<String, Object> items = new HashMap<>();
+            items.put("gcName", gcName);
+            items.put("gcAction", (complete ? "end of major GC" : "end of minor GC"));
+            items.put("gcCause", (cause != null ? cause : "unknown"));
+            items.put("gcInfo", new CompositeDataSupport(gcInfoType, info));
+            return new CompositeDataSupport(notificationDataType, items);
+        } catch (OpenDataException ode) {
+            return null;
+        }
+    }
+
+    /** The memory usage of the pools, keyed by pool name, as a GcInfo reports it. */
+    private TabularData memoryUsageMap(long youngBytes, long oldBytes) throws OpenDataException {
+        final TabularData result = new TabularDataSupport(memoryUsageMapType);
+        result.put(memoryUsageRow(youngPoolBean, youngBytes));
+        result.put(memoryUsageRow(oldPoolBean, oldBytes));
+        return result;
+    }
+
+    private CompositeData memoryUsageRow(GenerationMemoryPoolMXBean pool, long bytes) throws OpenDataException {
+        final MemoryUsage usage = memoryUsage(bytes, bytes, pool.getMaximumBytes());
+        final CompositeData value = new CompositeDataSupport(memoryUsageType, new String[]{"committed", "init", "max", "used"},
+                        new Object[]{usage.getCommitted(), usage.getInit(), usage.getMax(), usage.getUsed()});
+        return new CompositeDataSupport(memoryUsageMapType.getRowType(), new String[]{"key", "value"}, new Object[]{pool.getName(), value});
+    }
+
+    /** Make a MemoryUsage, dropping a maximum that the committed size has already exceeded. */
+    static MemoryUsage memoryUsage(long used, long committed, long max) {
+        final long checkedMax = ((max != UNDEFINED_MEMORY_USAGE && max < committed) ? UNDEFINED_MEMORY_USAGE : max);
+        return new MemoryUsage(UNDEFINED_MEMORY_USAGE, Math.min(used, committed), committed, checkedMax);
+    }
+
+    /**
+     * Runs the notification listeners on a single daemon thread. The thread cannot exist in the
+     * image, so it is started when the first notification is sent.
+     */
+    private static final class NotificationExecutor implements Executor {
+
+        private ExecutorService executor;
 
         @Override
-        public long getCollectionCount() {
-            return HeapImpl.getHeapImpl().getGCImpl().getAccounting().getIncrementalCollectionCount();
+        public synchronized void execute(Runnable command) {
+            if (executor == null) {
+                executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "GC Notification Thread");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor.execute(command);
+        }
+    }
+
+    /** A GarbageCollectorMXBean that can send notifications after a collection. */
+    private abstract static class NotifyingGarbageCollectorMXBean implements GarbageCollectorMXBean, NotificationEmitter {
+
+        private final NotificationBroadcasterSupport broadcaster;
+        /** Whether a listener was ever added. Notifications are only built if one was. */
+        private volatile boolean listened;
+
+        NotifyingGarbageCollectorMXBean(Executor executor) {
+            final MBeanNotificationInfo info = new MBeanNotificationInfo(new String[]{GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION}, Notification.class.getName(),
+                            "Sent after a garbage collection");
+            this.broadcaster = new NotificationBroadcasterSupport(executor, info);
+            this.listened = false;
+        }
+
+        boolean hasListeners() {
+            return listened;
+        }
+
+        /** Hands the notification to the executor, which calls the listeners. */
+        void sendNotification(Notification notification) {
+            broadcaster.sendNotification(notification);
         }
 
         @Override
-        public long getCollectionTime() {
-            final long nanos = HeapImpl.getHeapImpl().getGCImpl().getAccounting().getIncrementalCollectionTotalNanos();
-            return TimeUtils.roundNanosToMillis(nanos);
+        public void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) {
+            broadcaster.addNotificationListener(listener, filter, handback);
+            listened = true;
         }
 
         @Override
-        public String[] getMemoryPoolNames() {
-            /* Return a new array each time because arrays are not immutable. */
-            return new String[]{"young generation space"};
+        public void removeNotificationListener(NotificationListener listener) throws ListenerNotFoundException {
+            broadcaster.removeNotificationListener(listener);
         }
 
         @Override
-        public String getName() {
-            return "young generation scavenger";
+        public void removeNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) throws ListenerNotFoundException {
+            broadcaster.removeNotificationListener(listener, filter, handback);
+        }
+
+        @Override
+        public MBeanNotificationInfo[] getNotificationInfo() {
+            return broadcaster.getNotificationInfo();
         }
 
         @Override
@@ -1742,18 +2157,48 @@ final class GarbageCollectorManagementFactory {
         @Override
         public ObjectName getObjectName() {
             try {
-                return new ObjectName("java.lang:type=GarbageCollector,name=young generation scavenger");
+                return new ObjectName("java.lang:type=GarbageCollector,name=" + getName());
             } catch (MalformedObjectNameException mone) {
                 return null;
             }
         }
     }
 
+    /** A GarbageCollectorMXBean for the incremental collector. */
+    private static final class IncrementalGarbageCollectorMXBean extends NotifyingGarbageCollectorMXBean {
+
+        private IncrementalGarbageCollectorMXBean(Executor executor) {
+            super(executor);
+        }
+
+        @Override
+        public long getCollectionCount() {
+            return HeapImpl.getHeapImpl().getGCImpl().getAccounting().getIncrementalCollectionCount();
+        }
+
+        @Override
+        public long getCollectionTime() {
+            final long nanos = HeapImpl.getHeapImpl().getGCImpl().getAccounting().getIncrementalCollectionTotalNanos();
+            return TimeUtils.roundNanosToMillis(nanos);
+        }
+
+        @Override
+        public String[] getMemoryPoolNames() {
+            /* Return a new array each time because arrays are not immutable. */
+            return new String[]{YOUNG_GENERATION_SPACE};
+        }
+
+        @Override
+        public String getName() {
+            return YOUNG_GENERATION_SCAVENGER;
+        }
+    }
+
     /** A GarbageCollectorMXBean for the complete collector. */
-    private static final class CompleteGarbageCollectorMXBean implements GarbageCollectorMXBean {
+    private static final class CompleteGarbageCollectorMXBean extends NotifyingGarbageCollectorMXBean {
 
-        private CompleteGarbageCollectorMXBean() {
-            /* Nothing to do. */
+        private CompleteGarbageCollectorMXBean(Executor executor) {
+            super(executor);
         }
 
         @Override
@@ -1770,12 +2215,68 @@ final class GarbageCollectorManagementFactory {
         @Override
         public String[] getMemoryPoolNames() {
             /* Return a new array each time because arrays are not immutable. */
-            return new String[]{"young generation space", "old generation space"};
+            return new String[]{YOUNG_GENERATION_SPACE, OLD_GENERATION_SPACE};
         }
 
         @Override
         public String getName() {
-            return "complete scavenger";
+            return COMPLETE_SCAVENGER;
+        }
+    }
+
+    /**
+     * A MemoryPoolMXBean for a generation. Sizes are measured in heap chunks, which is what the
+     * collector accounts for without walking the heap, so the used size is the committed size.
+     * Usage thresholds are not supported.
+     */
+    private abstract static class GenerationMemoryPoolMXBean implements MemoryPoolMXBean {
+
+        private long peakBytes;
+        private long collectionUsedBytes;
+
+        GenerationMemoryPoolMXBean() {
+            this.peakBytes = 0L;
+            this.collectionUsedBytes = 0L;
+        }
+
+        /** The bytes currently in this generation. */
+        abstract UnsignedWord getChunkBytes();
+
+        /** The bytes this generation may grow to, or {@link #UNDEFINED_MEMORY_USAGE}. */
+        abstract long getMaximumBytes();
+
+        /** Called from the collection VMOperation, so it must not allocate. */
+        void noteCollection(UnsignedWord before, UnsignedWord after) {
+            peakBytes = Math.max(peakBytes, before.rawValue());
+            collectionUsedBytes = after.rawValue();
+        }
+
+        @Override
+        public MemoryType getType() {
+            return MemoryType.HEAP;
+        }
+
+        @Override
+        public MemoryUsage getUsage() {
+            final long bytes = getChunkBytes().rawValue();
+            peakBytes = Math.max(peakBytes, bytes);
+            return memoryUsage(bytes, bytes, getMaximumBytes());
+        }
+
+        @Override
+        public MemoryUsage getPeakUsage() {
+            getUsage();
+            return memoryUsage(peakBytes, peakBytes, getMaximumBytes());
+        }
+
+        @Override
+        public void resetPeakUsage() {
+            peakBytes = getChunkBytes().rawValue();
+        }
+
+        @Override
+        public MemoryUsage getCollectionUsage() {
+            return memoryUsage(collectionUsedBytes, collectionUsedBytes, getMaximumBytes());
         }
 
         @Override
@@ -1786,10 +2287,113 @@ final class GarbageCollectorManagementFactory {
         @Override
         public ObjectName getObjectName() {
             try {
-                return new ObjectName("java.lang:type=GarbageCollector,name=complete scavenger");
+                return new ObjectName("java.lang:type=MemoryPool,name=" + getName());
             } catch (MalformedObjectNameException mone) {
                 return null;
             }
         }
+
+        @Override
+        public boolean isUsageThresholdSupported() {
+            return false;
+        }
+
+        @Override
+        public long getUsageThreshold() {
+            throw new UnsupportedOperationException("Usage threshold is not supported.");
+        }
+
+        @Override
+        public void setUsageThreshold(long threshold) {
+            throw new UnsupportedOperationException("Usage threshold is not supported.");
+        }
+
+        @Override
+        public boolean isUsageThresholdExceeded() {
+            throw new UnsupportedOperationException("Usage threshold is not supported.");
+        }
+
+        @Override
+        public long getUsageThresholdCount() {
+            throw new UnsupportedOperationException("Usage threshold is not supported.");
+        }
+
+        @Override
+        public boolean isCollectionUsageThresholdSupported() {
+            return false;
+        }
+
+        @Override
+        public long getCollectionUsageThreshold() {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported.");
+        }
+
+        @Override
+        public void setCollectionUsageThreshold(long threshold) {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported.");
+        }
+
+        @Override
+        public boolean isCollectionUsageThresholdExceeded() {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported.");
+        }
+
+        @Override
+        public long getCollectionUsageThresholdCount() {
+            throw new UnsupportedOperationException("Collection usage threshold is not supported.");
+        }
+    }
+
+    /** A MemoryPoolMXBean for the young generation. */
+    private static final class YoungGenerationMemoryPoolMXBean extends GenerationMemoryPoolMXBean {
+
+        @Override
+        UnsignedWord getChunkBytes() {
+            /* Chunks in thread-local allocation buffers are not yet on the young space. */
+            return HeapPolicy.getBytesAllocatedSinceLastCollection();
+        }
+
+        @Override
+        long getMaximumBytes() {
+            return HeapPolicy.getMaximumYoungGenerationSize().rawValue();
+        }
+
+        @Override
+        public String getName() {
+            return YOUNG_GENERATION_SPACE;
+        }
+
+        @Override
+        public String[] getMemoryManagerNames() {
+            /* Return a new array each time because arrays are not immutable. */
+            return new String[]{YOUNG_GENERATION_SCAVENGER, COMPLETE_SCAVENGER};
+        }
+    }
+
+    /** A MemoryPoolMXBean for the old generation, including its pinned space. */
+    private static final class OldGenerationMemoryPoolMXBean extends GenerationMemoryPoolMXBean {
+
+        @Override
+        UnsignedWord getChunkBytes() {
+            return HeapImpl.getHeapImpl().getOldUsedChunkBytes();
+        }
+
+        @Override
+        long getMaximumBytes() {
+            final UnsignedWord maxHeap = HeapPolicy.getMaximumHeapSize();
+            final UnsignedWord maxYoung = HeapPolicy.getMaximumYoungGenerationSize();
+            return (maxHeap.aboveThan(maxYoung) ? maxHeap.subtract(maxYoung).rawValue() : UNDEFINED_MEMORY_USAGE);
+        }
+
+        @Override
+        public String getName() {
+            return OLD_GENERATION_SPACE;
+        }
+
+        @Override
+        public String[] getMemoryManagerNames() {
+            /* Return a new array each time because arrays are not immutable. */
+            return new String[]{COMPLETE_SCAVENGER};
+        }
     }
 }
@@ -39,8 +39,12 @@ import com.oracle.svm.core.genscavenge.HeapChunk.Header;
 import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
 import com.oracle.svm.core.jdk.UninterruptibleUtils;
 import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.XOptions;
+import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.thread.VMThreads;
 import com.oracle.svm.core.util.AtomicUnsigned;
+import com.oracle.svm.core.util.TimeUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
 
 /**
  * Allocates and frees the memory for aligned and unaligned heap chunks. The methods are
@@ -49,6 +53,11 @@ import com.oracle.svm.core.util.AtomicUnsigned;
  * Memory for aligned chunks is not immediately released to the OS. Up to
  * {@link HeapPolicy#getMinimumHeapSize()} chunks are saved in an unused chunk list. Memory for
  * unaligned chunks is released immediately.
+ *
+ * With {@link HeapPolicyOptions#UnusedChunkReserveHalfLifeMillis}, the unused chunks beyond a
+ * reserve are released to the OS after each collection, see {@link #releaseUnusedAlignedChunks}.
+ * The reserve follows the allocation rate, and decays with the half-life once allocation slows
+ * down, so a process does not keep the memory of an allocation spike forever.
  */
 class HeapChunkProvider {
 
@@ -75,6 +84,12 @@ class HeapChunkProvider {
      */
     private long firstAllocationTime;
 
+    /** The number of bytes of unused aligned chunks to keep, as of {@link #reserveNanos}. */
+    private long reserveBytes;
+
+    /** The time of the last update of {@link #reserveBytes}, or 0 if there was none. */
+    private long reserveNanos;
+
     protected HeapChunkProvider() {
         unusedAlignedChunks = new UninterruptibleUtils.AtomicPointer<>();
         bytesInUnusedAlignedChunks = new AtomicUnsigned();
@@ -145,7 +160,11 @@ class HeapChunkProvider {
             zap(result, HeapPolicy.getProducedHeapChunkZapValue());
         }
 
-        HeapPolicy.bytesAllocatedSinceLastCollection.addAndGet(chunkSize);
+        /*
+         * Not counted in HeapPolicy.bytesAllocatedSinceLastCollection: thread-local allocation
+         * charges aligned chunks one TLAB refill at a time. The rest of the chunk is not charged
+         * until a refill makes it available.
+         */
 
         log().string("  result chunk: ").hex(result).string("  ]").newline();
         return result;
@@ -185,6 +204,85 @@ class HeapChunkProvider {
         return result;
     }
 
+    /**
+     * Release the unused aligned chunks beyond the reserve to the OS. Called at the end of a
+     * collection with the number of bytes allocated since the previous one.
+     *
+     * The reserve is the larger of the bytes the recent allocation rate would allocate within a
+     * half-life, and the previous reserve decayed by the time since then. Chunks are not released
+     * while the heap is below {@code retainedHeapBytes}, which the collection policy asks for, or
+     * below the minimum heap size of an explicit `-Xms`.
+     *
+     * Only the committed chunk memory is logged, not the resident set size of the process: the
+     * heap has no OS-independent way to query the resident set size.
+     */
+    void releaseUnusedAlignedChunks(UnsignedWord allocatedBytes, UnsignedWord retainedHeapBytes) {
+        VMOperation.guaranteeInProgress("Should only be called from the collector.");
+        final long halfLifeNanos = TimeUtils.millisToNanos(HeapPolicyOptions.UnusedChunkReserveHalfLifeMillis.getValue());
+        if (halfLifeNanos <= 0L) {
+            return;
+        }
+        final long nowNanos = System.nanoTime();
+        final long sinceNanos = (reserveNanos != 0L ? reserveNanos : firstAllocationTime);
+        final long elapsedNanos = Math.max(1L, nowNanos - sinceNanos);
+        reserveBytes = computeReserve(reserveBytes, allocatedBytes.rawValue(), elapsedNanos, halfLifeNanos);
+        reserveNanos = nowNanos;
+
+        final UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
+        UnsignedWord keepBytes = UnsignedUtils.roundUp(WordFactory.unsigned(reserveBytes), chunkSize);
+        UnsignedWord retainedBytes = retainedHeapBytes;
+        if (XOptions.getXms().getEpoch() > 0) {
+            retainedBytes = UnsignedUtils.max(retainedBytes, HeapPolicy.getMinimumHeapSize());
+        }
+        final UnsignedWord usedBytes = HeapImpl.getHeapImpl().getUsedChunkBytes();
+        if (usedBytes.belowThan(retainedBytes)) {
+            keepBytes = UnsignedUtils.max(keepBytes, retainedBytes.subtract(usedBytes));
+        }
+        UnsignedWord releasedBytes = WordFactory.zero();
+        while (bytesInUnusedAlignedChunks.get().aboveThan(keepBytes)) {
+            final AlignedHeader chunk = popUnusedAlignedChunk();
+            if (chunk.isNull()) {
+                break;
+            }
+            ConfigurationValues.getOSInterface().freeVirtualMemoryAligned(chunk, chunkSize, HeapPolicy.getAlignedHeapChunkAlignment());
+            releasedBytes = releasedBytes.add(chunkSize);
+        }
+        if (SubstrateOptions.VerboseGC.getValue()) {
+            final UnsignedWord unusedBytes = bytesInUnusedAlignedChunks.get();
+            final UnsignedWord committedBytes = HeapImpl.getHeapImpl().getUsedChunkBytes().add(unusedBytes);
+            Log.log().string("[Heap chunks:")
+                            .string("  committed: ").unsigned(committedBytes.unsignedDivide(1024)).string("K")
+                            .string("  unused: ").unsigned(unusedBytes.unsignedDivide(1024)).string("K")
+                            .string("  reserve: ").unsigned(keepBytes.unsignedDivide(1024)).string("K")
+                            .string("  released: ").unsigned(releasedBytes.unsignedDivide(1024)).string("K")
+                            .string("]").newline();
+        }
+    }
+
+    /**
+     * Compute the new reserve from the previous one, the bytes allocated since then, and the time
+     * elapsed since then.
+     */
+    static long computeReserve(long previousReserveBytes, long allocatedBytes, long elapsedNanos, long halfLifeNanos) {
+        /* What the recent allocation rate needs within a half-life. */
+        long neededBytes = allocatedBytes;
+        if (elapsedNanos > halfLifeNanos) {
+            neededBytes = neededBytes / (elapsedNanos / halfLifeNanos);
+        }
+        return Math.max(neededBytes, decay(previousReserveBytes, elapsedNanos, halfLifeNanos));
+    }
+
+    /** Halve the value for every half-life elapsed, interpolating linearly within a half-life. */
+    private static long decay(long value, long elapsedNanos, long halfLifeNanos) {
+        final long halvings = elapsedNanos / halfLifeNanos;
+        if (halvings >= Long.SIZE - 1) {
+            return 0L;
+        }
+        final long halved = value >> halvings;
+        final long remainderNanos = elapsedNanos % halfLifeNanos;
+        return halved - (long) ((halved / 2) * ((double) remainderNanos / halfLifeNanos));
+    }
+
     /** Clean a chunk before putting it on a free list. */
     private static void cleanAlignedChunk(AlignedHeader alignedChunk) {
         resetAlignedHeapChunk(alignedChunk);
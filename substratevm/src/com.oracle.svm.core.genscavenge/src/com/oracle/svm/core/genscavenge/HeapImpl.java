@@ -396,7 +396,7 @@ public class HeapImpl extends Heap {
         final UnsignedWord toBytes = to.getAlignedChunkBytes().add(to.getUnalignedChunkBytes());
         final Space.Accounting pinnedFrom = getOldGeneration().getPinnedFromSpace().getAccounting();
         final UnsignedWord pinnedFromBytes = pinnedFrom.getAlignedChunkBytes().add(pinnedFrom.getUnalignedChunkBytes());
-        final Space.Accounting pinnedTo = getOldGeneration().getPinnedFromSpace().getAccounting();
+        final Space.Accounting pinnedTo = getOldGeneration().getPinnedToSpace().getAccounting();
         final UnsignedWord pinnedToBytes = pinnedTo.getAlignedChunkBytes().add(pinnedTo.getUnalignedChunkBytes());
         final UnsignedWord result = fromBytes.add(toBytes).add(pinnedFromBytes).add(pinnedToBytes);
         if (trace.isEnabled()) {
@@ -37,6 +37,12 @@ public class HeapOptions {
     @Option(help = "Print the time for each of the phases of each collection.")//
     public static final RuntimeOptionKey<Boolean> PrintGCTimes = new RuntimeOptionKey<>(false);
 
+    @Option(help = "The number of collections kept in the GC event log. 0 disables the log.")//
+    public static final HostedOptionKey<Integer> GCEventLogSize = new HostedOptionKey<>(64);
+
+    @Option(help = "Append the GC event log to this file, as JSON lines, after each collection.")//
+    public static final RuntimeOptionKey<String> GCEventLogFile = new RuntimeOptionKey<>("");
+
     /** This produces a lot of output: be prepared to stream the output to a post-processor. */
     @Option(help = "Trace each object promotion.")//
     public static final HostedOptionKey<Boolean> TraceObjectPromotion = new HostedOptionKey<>(false);
@@ -32,6 +32,7 @@ import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.SubstrateUtil;
 import com.oracle.svm.core.heap.PhysicalMemory;
+import com.oracle.svm.core.jdk.UninterruptibleUtils;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.option.XOptions;
 import com.oracle.svm.core.util.AtomicUnsigned;
@@ -319,12 +320,32 @@ public class HeapPolicy {
     /* - The value to use for zapping. */
     private static final Word consumedHeapChunkZapValue = WordFactory.unsigned(0xdeadbeefdeadbeefL);
 
+    /** The bytes charged to the young generation, by TLAB refills and unaligned chunks. */
     static final AtomicUnsigned bytesAllocatedSinceLastCollection = new AtomicUnsigned();
 
+    /**
+     * The bytes of the current allocation chunks of all threads beyond what their TLAB refills
+     * charged, for the TLAB statistics. Updated from uninterruptible code, so that a collection
+     * always sees a consistent value.
+     */
+    static final UninterruptibleUtils.AtomicLong bytesUnchargedInAllocationChunks = new UninterruptibleUtils.AtomicLong(0L);
+
+    /**
+     * The young generation memory in use since the last collection, i.e., what has been charged.
+     * The uncharged tails of the allocation chunks are not counted, so that threads which allocate
+     * little do not use up the young generation. The committed young generation memory can
+     * therefore exceed its maximum size by up to one aligned chunk per thread.
+     */
     static UnsignedWord getBytesAllocatedSinceLastCollection() {
         return bytesAllocatedSinceLastCollection.get();
     }
 
+    /** Reset the allocation accounting at the end of a collection. */
+    static void resetBytesAllocatedSinceLastCollection() {
+        bytesAllocatedSinceLastCollection.set(WordFactory.zero());
+        bytesUnchargedInAllocationChunks.set(0L);
+    }
+
     public HeapPolicy.HintGCPolicy getUserRequestedGCPolicy() {
         return userRequestedGCPolicy;
     }
@@ -341,6 +362,37 @@ public class HeapPolicy {
             /* TODO: An Unsigned might not fit in a long. */
             return HeapPolicy.getLargeArrayThreshold().rawValue();
         }
+
+        /** The reserve of unused aligned chunks, see {@link HeapChunkProvider#computeReserve}. */
+        public static long computeUnusedChunkReserve(long previousReserveBytes, long allocatedBytes, long elapsedNanos, long halfLifeNanos) {
+            return HeapChunkProvider.computeReserve(previousReserveBytes, allocatedBytes, elapsedNanos, halfLifeNanos);
+        }
+
+        /** The young generation bytes that the collect-on-allocation policies compare. */
+        public static long getBytesAllocatedSinceLastCollection() {
+            return HeapPolicy.getBytesAllocatedSinceLastCollection().rawValue();
+        }
+
+        /** The grown TLAB size, see {@link ThreadLocalAllocation#computeGrownTLABSize}. */
+        public static long computeGrownTLABSize(long desiredBytes, long threadAllocatedBytes, long chargedBytes, long youngGenerationBytes, int refillTarget) {
+            return ThreadLocalAllocation.computeGrownTLABSize(desiredBytes, threadAllocatedBytes, chargedBytes, youngGenerationBytes, refillTarget);
+        }
+
+        /**
+         * The soft reference interval, see
+         * {@link DiscoverableReferenceProcessing#computeSoftReferenceInterval}.
+         */
+        public static long computeSoftReferenceInterval(long freeBytes, long millisPerMegabyte) {
+            return DiscoverableReferenceProcessing.computeSoftReferenceInterval(freeBytes, millisPerMegabyte);
+        }
+
+        /**
+         * Whether a soft reference is kept, see
+         * {@link DiscoverableReferenceProcessing#isSoftlyKept(long, long, long)}.
+         */
+        public static boolean isSoftlyKept(long timestamp, long clock, long intervalMillis) {
+            return DiscoverableReferenceProcessing.isSoftlyKept(timestamp, clock, intervalMillis);
+        }
     }
 
     /**
@@ -403,7 +455,7 @@ public class HeapPolicy {
             public void maybeCauseCollection() {
                 final HeapImpl heap = HeapImpl.getHeapImpl();
                 /* Has there been enough allocation to provoke a collection? */
-                if (bytesAllocatedSinceLastCollection.get().aboveOrEqual(getMaximumYoungGenerationSize())) {
+                if (getBytesAllocatedSinceLastCollection().aboveOrEqual(getMaximumYoungGenerationSize())) {
                     heap.getGCImpl().collectWithoutAllocating("CollectOnAllocation.Sometimes");
                 }
             }
@@ -433,7 +485,7 @@ public class HeapPolicy {
     public static class ScepticallyCollect implements HeapPolicy.HintGCPolicy {
         @Override
         public void maybeCauseCollection(String message) {
-            if (bytesAllocatedSinceLastCollection.get().aboveOrEqual(collectScepticallyThreshold())) {
+            if (getBytesAllocatedSinceLastCollection().aboveOrEqual(collectScepticallyThreshold())) {
                 HeapImpl.getHeapImpl().getGCImpl().collect(message);
             }
         }
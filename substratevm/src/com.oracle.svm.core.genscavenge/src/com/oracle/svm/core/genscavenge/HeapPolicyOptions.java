@@ -67,6 +67,25 @@ public class HeapPolicyOptions {
     @Option(help = "Defines the upper bound for the number of remaining bytes in the young generation that cause a collection when `System.gc` is called.") //
     public static final RuntimeOptionKey<Long> UserRequestedGCThreshold = new RuntimeOptionKey<>(16L * 1024L * 1024L);
 
+    @Option(help = "Milliseconds over which the reserve of unused aligned chunks decays by half when allocation slows down. 0, the default, keeps unused chunks up to the minimum heap size.") //
+    public static final RuntimeOptionKey<Long> UnusedChunkReserveHalfLifeMillis = new RuntimeOptionKey<>(0L);
+
+    @Option(help = "Milliseconds a softly reachable object is kept after its last access, per megabyte of free heap.") //
+    public static final RuntimeOptionKey<Long> SoftRefLRUPolicyMSPerMB = new RuntimeOptionKey<>(1000L);
+
+    /* Thread-local allocation buffers. */
+    @Option(help = "Size thread-local allocation buffers by each thread's allocation rate, rather than handing out whole aligned chunks.") //
+    public static final RuntimeOptionKey<Boolean> ResizeTLAB = new RuntimeOptionKey<>(true);
+
+    @Option(help = "The minimum size, in bytes, of a thread-local allocation buffer.") //
+    public static final RuntimeOptionKey<Long> MinTLABSize = new RuntimeOptionKey<>(8L * 1024L);
+
+    @Option(help = "The number of thread-local allocation buffer refills per thread between collections that buffer sizing aims for.") //
+    public static final RuntimeOptionKey<Integer> TLABRefillTarget = new RuntimeOptionKey<>(50);
+
+    @Option(help = "Print thread-local allocation buffer statistics after each collection.") //
+    public static final RuntimeOptionKey<Boolean> PrintTLAB = new RuntimeOptionKey<>(false);
+
     /* Options that are no longer used. TODO: Remove uses in user scripts. */
 
     @Option(help = "Replaced by '-Xmn'.") //
@@ -41,6 +41,7 @@ import org.graalvm.word.WordFactory;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.MustNotAllocate;
 import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.deopt.DeoptTester;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
 import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
@@ -54,7 +55,9 @@ import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.thread.VMThreads;
 import com.oracle.svm.core.threadlocal.FastThreadLocalBytes;
 import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalInt;
 import com.oracle.svm.core.threadlocal.FastThreadLocalWord;
+import com.oracle.svm.core.util.UnsignedUtils;
 
 /**
  * Bump-pointer allocation from thread-local top and end Pointers.
@@ -92,6 +95,19 @@ public final class ThreadLocalAllocation {
 
         @RawField
         void setAllocationEnd(Pointer end, LocationIdentity endIdentity);
+
+        /**
+         * The end of the part of the allocation chunk that has been charged to the young
+         * generation. It survives retiring the allocation chunk, so that resuming it does not make
+         * uncharged memory available.
+         */
+        @RawField
+        @UniqueLocationIdentity
+        Pointer getAllocationLimit();
+
+        @RawField
+        @UniqueLocationIdentity
+        void setAllocationLimit(Pointer limit);
     }
 
     public static final LocationIdentity TOP_IDENTITY = NamedLocationIdentity.mutable("Allocator.top");
@@ -107,6 +123,27 @@ public final class ThreadLocalAllocation {
     /** A thread-local free list of aligned chunks. */
     private static final FastThreadLocalWord<AlignedHeader> freeList = FastThreadLocalFactory.createWord();
 
+    /*
+     * Per-thread sizing of the part of an aligned chunk a TLAB refill makes available, and the
+     * statistics it is based on. The statistics are gathered and reset by each collection.
+     */
+    private static final FastThreadLocalWord<UnsignedWord> desiredTLABSize = FastThreadLocalFactory.createWord();
+    private static final FastThreadLocalWord<UnsignedWord> averageAllocatedBytes = FastThreadLocalFactory.createWord();
+    private static final FastThreadLocalWord<UnsignedWord> allocatedBytes = FastThreadLocalFactory.createWord();
+    private static final FastThreadLocalWord<UnsignedWord> refillWasteBytes = FastThreadLocalFactory.createWord();
+    private static final FastThreadLocalInt refills = FastThreadLocalFactory.createInt();
+
+    /** The weight, in percent, of the most recent collection cycle in the allocation average. */
+    private static final int ALLOCATION_AVERAGE_WEIGHT_PERCENT = 35;
+
+    /* Totals over all threads for the most recent collection cycle. */
+    private static int statisticsThreads = 0;
+    private static long statisticsRefills = 0L;
+    private static UnsignedWord statisticsAllocatedBytes = WordFactory.zero();
+    private static UnsignedWord statisticsRefillWasteBytes = WordFactory.zero();
+    private static UnsignedWord statisticsUnusedBytes = WordFactory.zero();
+    private static long statisticsUnchargedBytes = 0L;
+
     private static final OutOfMemoryError arrayAllocationTooLarge = new OutOfMemoryError("Array allocation too large.");
 
     private ThreadLocalAllocation() {
@@ -156,14 +193,18 @@ public final class ThreadLocalAllocation {
         // Policy: Possibly collect before this allocation.
         HeapImpl.getHeapImpl().getHeapPolicy().getCollectOnAllocationPolicy().maybeCauseCollection();
 
-        /*
-         * On this path allocation failed in the 'allocation chunk', thus we refill it, i.e.., add a
-         * new allocation chunk at the front of the TLAB's aligned chunks.
-         */
-        AlignedHeader newChunk = prepareNewAllocationChunk(tlab);
-
         UnsignedWord size = LayoutEncoding.getInstanceSize(hub.getLayoutEncoding());
-        Object result = allocateNewInstanceUninterruptibly(hub, tlab, rememberedSet, size, newChunk);
+        UnsignedWord tlabSize = chargeRefill(size);
+        /* First try to make more of the current allocation chunk available. */
+        Object result = allocateNewInstanceInAllocationChunk(hub, tlab, rememberedSet, size, tlabSize);
+        if (result == null) {
+            /*
+             * The 'allocation chunk' is full, thus we refill it, i.e.., add a new allocation chunk
+             * at the front of the TLAB's aligned chunks.
+             */
+            AlignedHeader newChunk = prepareNewAllocationChunk(tlab);
+            result = allocateNewInstanceUninterruptibly(hub, tlab, rememberedSet, size, tlabSize, newChunk);
+        }
 
         log().string("  ThreadLocalAllocation.allocateNewInstance returns ").object(result).string(" .. ").hex(LayoutEncoding.getObjectEnd(result)).string("]").newline();
 
@@ -173,8 +214,19 @@ public final class ThreadLocalAllocation {
     }
 
     @Uninterruptible(reason = "Holds uninitialized memory, modifies TLAB")
-    private static Object allocateNewInstanceUninterruptibly(DynamicHub hub, ThreadLocalAllocation.Descriptor tlab, boolean rememberedSet, UnsignedWord size, AlignedHeader newChunk) {
-        registerNewAllocationChunk(tlab, newChunk);
+    private static Object allocateNewInstanceInAllocationChunk(DynamicHub hub, ThreadLocalAllocation.Descriptor tlab, boolean rememberedSet, UnsignedWord size, UnsignedWord tlabSize) {
+        Pointer memory = allocateMemoryBeyondLimit(tlab, size, tlabSize);
+        if (memory.isNull()) {
+            return null;
+        }
+        /* Install the DynamicHub and zero the fields. */
+        return KnownIntrinsics.formatObject(memory, hub.asClass(), rememberedSet);
+    }
+
+    @Uninterruptible(reason = "Holds uninitialized memory, modifies TLAB")
+    private static Object allocateNewInstanceUninterruptibly(DynamicHub hub, ThreadLocalAllocation.Descriptor tlab, boolean rememberedSet, UnsignedWord size, UnsignedWord tlabSize,
+                    AlignedHeader newChunk) {
+        registerNewAllocationChunk(tlab, newChunk, tlabSize);
 
         /*
          * Allocate the memory. We must have a chunk, because we just registered one and we are
@@ -238,8 +290,12 @@ public final class ThreadLocalAllocation {
             result = allocateLargeArray(hub, length, size, uChunk, tlab, rememberedSet);
         } else {
             /* Small arrays go into the regular aligned chunk. */
-            AlignedHeader newChunk = prepareNewAllocationChunk(tlab);
-            result = allocateSmallArray(hub, length, size, tlab, rememberedSet, newChunk);
+            UnsignedWord tlabSize = chargeRefill(size);
+            result = allocateSmallArrayInAllocationChunk(hub, length, size, tlab, rememberedSet, tlabSize);
+            if (result == null) {
+                AlignedHeader newChunk = prepareNewAllocationChunk(tlab);
+                result = allocateSmallArray(hub, length, size, tlab, rememberedSet, tlabSize, newChunk);
+            }
         }
         log().string("  ThreadLocalAllocation.allocateNewArray returns ").object(result).string(" .. ").hex(LayoutEncoding.getObjectEnd(result)).string("]").newline();
 
@@ -248,8 +304,19 @@ public final class ThreadLocalAllocation {
     }
 
     @Uninterruptible(reason = "Holds uninitialized memory, modifies TLAB")
-    private static Object allocateSmallArray(DynamicHub hub, int length, UnsignedWord size, ThreadLocalAllocation.Descriptor tlab, boolean rememberedSet, AlignedHeader newChunk) {
-        registerNewAllocationChunk(tlab, newChunk);
+    private static Object allocateSmallArrayInAllocationChunk(DynamicHub hub, int length, UnsignedWord size, ThreadLocalAllocation.Descriptor tlab, boolean rememberedSet, UnsignedWord tlabSize) {
+        Pointer memory = allocateMemoryBeyondLimit(tlab, size, tlabSize);
+        if (memory.isNull()) {
+            return null;
+        }
+        /* Install the DynamicHub and length, and zero the elements. */
+        return KnownIntrinsics.formatArray(memory, hub.asClass(), length, rememberedSet, false);
+    }
+
+    @Uninterruptible(reason = "Holds uninitialized memory, modifies TLAB")
+    private static Object allocateSmallArray(DynamicHub hub, int length, UnsignedWord size, ThreadLocalAllocation.Descriptor tlab, boolean rememberedSet, UnsignedWord tlabSize,
+                    AlignedHeader newChunk) {
+        registerNewAllocationChunk(tlab, newChunk, tlabSize);
 
         /*
          * Allocate the memory. We must have a chunk, because we just registered one and we are
@@ -304,6 +371,165 @@ public final class ThreadLocalAllocation {
         }
     }
 
+    /**
+     * Move the allocation limit of the current allocation chunk further by {@code tlabSize} bytes
+     * and allocate from it, or return null if there is no allocation chunk or it does not have
+     * room for {@code size} more bytes.
+     */
+    @Uninterruptible(reason = "returns uninitialized memory, modifies TLAB", callerMustBe = true)
+    private static Pointer allocateMemoryBeyondLimit(Descriptor tlab, UnsignedWord size, UnsignedWord tlabSize) {
+        Pointer top = tlab.getAllocationTop(TOP_IDENTITY);
+        if (top.isNull()) {
+            return WordFactory.nullPointer();
+        }
+        Pointer chunkEnd = tlab.getAlignedChunk().getEnd();
+        if (chunkEnd.subtract(top).belowThan(size)) {
+            return WordFactory.nullPointer();
+        }
+        Pointer oldLimit = tlab.getAllocationLimit();
+        Pointer limit = allocationLimit(top, chunkEnd, tlabSize);
+        if (oldLimit.aboveOrEqual(top) && oldLimit.belowThan(limit)) {
+            /* The newly charged part of the chunk is no longer uncharged. */
+            HeapPolicy.bytesUnchargedInAllocationChunks.addAndGet(-limit.subtract(oldLimit).rawValue());
+        }
+        tlab.setAllocationLimit(limit);
+        tlab.setAllocationEnd(limit, END_IDENTITY);
+        return allocateMemory(tlab, size);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static Pointer allocationLimit(Pointer top, Pointer chunkEnd, UnsignedWord tlabSize) {
+        return (chunkEnd.subtract(top).belowOrEqual(tlabSize) ? chunkEnd : top.add(tlabSize));
+    }
+
+    /*
+     * Sizing of TLAB refills.
+     *
+     * Handing every thread a whole aligned chunk charges the young generation for memory that
+     * mostly-idle threads never use. Instead, each refill makes only part of the allocation chunk
+     * available, and charges only that part. The size of that part is estimated per thread from
+     * what it allocated in previous collection cycles, aiming for TLABRefillTarget refills per
+     * cycle, as HotSpot does for its TLABs.
+     */
+
+    /** The largest TLAB refill: the object memory of a whole aligned chunk. */
+    private static UnsignedWord maximumTLABSize() {
+        return HeapPolicy.getAlignedHeapChunkSize().subtract(AlignedHeapChunk.getObjectsStartOffset());
+    }
+
+    private static UnsignedWord clampTLABSize(UnsignedWord size) {
+        if (!HeapPolicyOptions.ResizeTLAB.getValue()) {
+            return maximumTLABSize();
+        }
+        final UnsignedWord alignment = WordFactory.unsigned(ConfigurationValues.getObjectLayout().getAlignment());
+        final UnsignedWord minimum = UnsignedUtils.roundUp(WordFactory.unsigned(HeapPolicyOptions.MinTLABSize.getValue()), alignment);
+        final UnsignedWord aligned = UnsignedUtils.roundUp(size, alignment);
+        return UnsignedUtils.min(UnsignedUtils.max(aligned, minimum), maximumTLABSize());
+    }
+
+    /**
+     * Decide how many bytes the refill for an allocation of {@code size} bytes makes available,
+     * and charge them to the young generation.
+     */
+    private static UnsignedWord chargeRefill(UnsignedWord size) {
+        UnsignedWord desired = desiredTLABSize.get();
+        if (desired.equal(0)) {
+            /* The first refill of a thread. */
+            desired = clampTLABSize(WordFactory.zero());
+        } else if (refills.get() >= HeapPolicyOptions.TLABRefillTarget.getValue()) {
+            /* The thread allocates faster than estimated: re-estimate from its allocation rate. */
+            final long grown = computeGrownTLABSize(desired.rawValue(), allocatedBytes.get().rawValue(), HeapPolicy.bytesAllocatedSinceLastCollection.get().rawValue(),
+                            HeapPolicy.getMaximumYoungGenerationSize().rawValue(), HeapPolicyOptions.TLABRefillTarget.getValue());
+            desired = clampTLABSize(WordFactory.unsigned(grown));
+        }
+        desiredTLABSize.set(desired);
+        final UnsignedWord result = UnsignedUtils.max(desired, size);
+        refills.set(refills.get() + 1);
+        allocatedBytes.set(allocatedBytes.get().add(result));
+        HeapPolicy.bytesAllocatedSinceLastCollection.addAndGet(result);
+        return result;
+    }
+
+    /**
+     * The TLAB size for a thread that has used up its refill target before the next collection.
+     * The thread allocated {@code threadAllocatedBytes} of the {@code chargedBytes} charged to a
+     * young generation of {@code youngGenerationBytes} so far, so it is projected to allocate the
+     * same share of the whole young generation in this collection cycle, spread over
+     * {@code refillTarget} refills. The size never shrinks before the next collection.
+     */
+    static long computeGrownTLABSize(long desiredBytes, long threadAllocatedBytes, long chargedBytes, long youngGenerationBytes, int refillTarget) {
+        if (chargedBytes <= 0 || youngGenerationBytes <= 0) {
+            return desiredBytes;
+        }
+        /* Per mille of the young generation used so far: keeps the products from overflowing. */
+        final long usedPerMille = Math.max(1L, Math.min(1000L, chargedBytes * 1000L / youngGenerationBytes));
+        final long projectedBytes = threadAllocatedBytes * 1000L / usedPerMille;
+        return Math.max(desiredBytes, projectedBytes / Math.max(1, refillTarget));
+    }
+
+    /**
+     * Gather the TLAB statistics of all threads, and size their TLABs for the next collection
+     * cycle. Called by the collector before the TLABs are retired.
+     */
+    static void accumulateStatisticsBeforeCollection() {
+        VMOperation.guaranteeInProgress("ThreadLocalAllocation.accumulateStatisticsBeforeCollection");
+
+        statisticsThreads = 0;
+        statisticsRefills = 0L;
+        statisticsAllocatedBytes = WordFactory.zero();
+        statisticsRefillWasteBytes = WordFactory.zero();
+        statisticsUnusedBytes = WordFactory.zero();
+        statisticsUnchargedBytes = HeapPolicy.bytesUnchargedInAllocationChunks.get();
+        if (SubstrateOptions.MultiThreaded.getValue()) {
+            for (IsolateThread vmThread = VMThreads.firstThread(); VMThreads.isNonNullThread(vmThread); vmThread = VMThreads.nextThread(vmThread)) {
+                accumulateStatistics(vmThread);
+            }
+        } else {
+            accumulateStatistics(WordFactory.nullPointer());
+        }
+    }
+
+    private static void accumulateStatistics(IsolateThread vmThread) {
+        final UnsignedWord allocated = allocatedBytes.get(vmThread);
+        final int threadRefills = refills.get(vmThread);
+        if (threadRefills > 0) {
+            statisticsThreads += 1;
+        }
+        statisticsRefills += threadRefills;
+        statisticsAllocatedBytes = statisticsAllocatedBytes.add(allocated);
+        statisticsRefillWasteBytes = statisticsRefillWasteBytes.add(refillWasteBytes.get(vmThread));
+        /* Charged but unused memory of the allocation chunks that are about to be retired. */
+        statisticsUnusedBytes = statisticsUnusedBytes.add(unusedBytes(regularTLAB.getAddress(vmThread))).add(unusedBytes(pinnedTLAB.getAddress(vmThread)));
+
+        if (desiredTLABSize.get(vmThread).notEqual(0)) {
+            final UnsignedWord previous = averageAllocatedBytes.get(vmThread);
+            final UnsignedWord average = previous.multiply(100 - ALLOCATION_AVERAGE_WEIGHT_PERCENT).add(allocated.multiply(ALLOCATION_AVERAGE_WEIGHT_PERCENT)).unsignedDivide(100);
+            averageAllocatedBytes.set(vmThread, average);
+            desiredTLABSize.set(vmThread, clampTLABSize(average.unsignedDivide(Math.max(1, HeapPolicyOptions.TLABRefillTarget.getValue()))));
+        }
+        allocatedBytes.set(vmThread, WordFactory.zero());
+        refillWasteBytes.set(vmThread, WordFactory.zero());
+        refills.set(vmThread, 0);
+    }
+
+    private static UnsignedWord unusedBytes(Descriptor tlab) {
+        final Pointer top = tlab.getAllocationTop(TOP_IDENTITY);
+        return (top.isNull() ? WordFactory.zero() : tlab.getAllocationEnd(END_IDENTITY).subtract(top));
+    }
+
+    /** Print the TLAB statistics of the most recent collection cycle. */
+    static Log printStatistics(Log log) {
+        log.string("[TLAB:");
+        log.string("  threads: ").signed(statisticsThreads);
+        log.string("  refills: ").signed(statisticsRefills);
+        log.string("  allocated: ").unsigned(statisticsAllocatedBytes.unsignedDivide(1024)).string("K");
+        log.string("  refill waste: ").unsigned(statisticsRefillWasteBytes.unsignedDivide(1024)).string("K");
+        log.string("  unused at collection: ").unsigned(statisticsUnusedBytes.unsignedDivide(1024)).string("K");
+        log.string("  uncharged at collection: ").signed(statisticsUnchargedBytes / 1024).string("K");
+        log.string("]").newline();
+        return log;
+    }
+
     static boolean isThreadLocalAllocationSpace(Space space) {
         // Compare "space" to a compile-time constant, rather than accessing a field of the space.
         return (space == HeapImpl.getHeapImpl().getYoungGeneration().getSpace());
@@ -381,6 +607,7 @@ public final class ThreadLocalAllocation {
         UnalignedHeader unalignedChunk = tlab.getUnalignedChunk();
         tlab.setAlignedChunk(WordFactory.nullPointer());
         tlab.setUnalignedChunk(WordFactory.nullPointer());
+        tlab.setAllocationLimit(WordFactory.nullPointer());
 
         while (alignedChunk.isNonNull()) {
             AlignedHeader next = alignedChunk.getNext();
@@ -423,6 +650,7 @@ public final class ThreadLocalAllocation {
         UnalignedHeader unalignedChunk = tlab.getUnalignedChunk();
         tlab.setAlignedChunk(WordFactory.nullPointer());
         tlab.setUnalignedChunk(WordFactory.nullPointer());
+        tlab.setAllocationLimit(WordFactory.nullPointer());
 
         while (alignedChunk.isNonNull()) {
             AlignedHeader next = alignedChunk.getNext();
@@ -532,6 +760,7 @@ public final class ThreadLocalAllocation {
      * allocation failed) add a new allocation chunk at the front of the TLAB's aligned chunks.
      */
     private static AlignedHeader prepareNewAllocationChunk(Descriptor tlab) {
+        noteRefillWaste(tlab);
         retireAllocationChunk(tlab);
 
         /*
@@ -550,11 +779,28 @@ public final class ThreadLocalAllocation {
         return newChunk;
     }
 
+    /** Count the memory left over in an allocation chunk that is retired because it is full. */
+    @Uninterruptible(reason = "Reads TLAB")
+    private static void noteRefillWaste(Descriptor tlab) {
+        Pointer top = tlab.getAllocationTop(TOP_IDENTITY);
+        if (top.isNonNull()) {
+            UnsignedWord waste = tlab.getAlignedChunk().getEnd().subtract(top);
+            refillWasteBytes.set(refillWasteBytes.get().add(waste));
+        }
+    }
+
     @Uninterruptible(reason = "Modifies TLAB")
-    private static void registerNewAllocationChunk(Descriptor tlab, AlignedHeader newChunk) {
+    private static void registerNewAllocationChunk(Descriptor tlab, AlignedHeader newChunk, UnsignedWord tlabSize) {
         /* Register the new chunk in the TLAB linked list of aligned chunks. */
         newChunk.setNext(tlab.getAlignedChunk());
         tlab.setAlignedChunk(newChunk);
+        /*
+         * Only the charged part of the new chunk is available for allocation. The rest is not
+         * charged to the young generation, but is counted for the statistics.
+         */
+        Pointer limit = allocationLimit(newChunk.getTop(), newChunk.getEnd(), tlabSize);
+        tlab.setAllocationLimit(limit);
+        HeapPolicy.bytesUnchargedInAllocationChunks.addAndGet(newChunk.getEnd().subtract(limit).rawValue());
 
         resumeAllocationChunk(tlab);
     }
@@ -571,7 +817,7 @@ public final class ThreadLocalAllocation {
             log().string("  [ThreadLocalAllocator.retireAllocationChunk: tlab ").hex(tlab).string(" chunk ").hex(alignedChunk).string(" top ").hex(allocationTop).string(" ]").newline();
 
             assert alignedChunk.getTop().isNull();
-            assert alignedChunk.getEnd().equal(tlab.getAllocationEnd(END_IDENTITY));
+            assert tlab.getAllocationEnd(END_IDENTITY).belowOrEqual(alignedChunk.getEnd());
 
             /*
              * While the aligned chunk is the allocation chunk its top value is always 'null' and it
@@ -596,8 +842,15 @@ public final class ThreadLocalAllocation {
         if (alignedChunk.isNonNull()) {
             log().string("  [ThreadLocalAllocator.resumeAllocationChunk: tlab ").hex(tlab).string(" chunk ").hex(alignedChunk).string(" top ").hex(alignedChunk.getTop()).string(" ]").newline();
 
-            tlab.setAllocationTop(alignedChunk.getTop(), TOP_IDENTITY);
-            tlab.setAllocationEnd(alignedChunk.getEnd(), END_IDENTITY);
+            Pointer top = alignedChunk.getTop();
+            Pointer end = alignedChunk.getEnd();
+            /* Keep to the charged part of the chunk, unless the limit is from another chunk. */
+            Pointer limit = tlab.getAllocationLimit();
+            if (limit.aboveOrEqual(top) && limit.belowThan(end)) {
+                end = limit;
+            }
+            tlab.setAllocationTop(top, TOP_IDENTITY);
+            tlab.setAllocationEnd(end, END_IDENTITY);
             alignedChunk.setTop(WordFactory.nullPointer());
         }
     }
@@ -226,6 +226,7 @@ public class UnalignedHeapChunk extends HeapChunk {
         trace.string("  rememberedSetStart: ").hex(rememberedSetStart).string("  objectIndex: ").unsigned(objectIndex);
         // If the card for this chunk is dirty, visit the object.
         if (CardTable.isDirtyEntryAtIndex(rememberedSetStart, objectIndex)) {
+            HeapImpl.getHeapImpl().getGCImpl().getAccounting().noteDirtyCardsScanned(1);
             final Pointer objectsStart = getUnalignedStart(that);
             final Object obj = objectsStart.toObject();
             trace.string("  obj: ").object(obj);
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.graal.nodes;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.NodeCycles;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodeinfo.NodeSize;
+import org.graalvm.compiler.nodes.DeoptimizingFixedWithNextNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.spi.Lowerable;
+import org.graalvm.compiler.nodes.spi.LoweringTool;
+
+/**
+ * Counts an execution in a profile of an instrumented image. Like the profiling nodes of HotSpot,
+ * it takes the frame state before the profiled bytecode, and is lowered to the increment of a
+ * counter in the profile object.
+ */
+@NodeInfo(cycles = NodeCycles.CYCLES_IGNORED, cyclesRationale = "profiling should be ignored", size = NodeSize.SIZE_IGNORED, sizeRationale = "profiling should be ignored")
+public abstract class ProfileNode extends DeoptimizingFixedWithNextNode implements Lowerable {
+    public static final NodeClass<ProfileNode> TYPE = NodeClass.create(ProfileNode.class);
+
+    /** The constant profile object that holds the counters. */
+    @Input protected ValueNode profile;
+
+    protected ProfileNode(NodeClass<? extends ProfileNode> c, ValueNode profile) {
+        super(c, StampFactory.forVoid());
+        this.profile = profile;
+    }
+
+    public ValueNode getProfile() {
+        return profile;
+    }
+
+    @Override
+    public boolean canDeoptimize() {
+        return true;
+    }
+
+    @Override
+    public void lower(LoweringTool tool) {
+        tool.getLowerer().lower(this, tool);
+    }
+}
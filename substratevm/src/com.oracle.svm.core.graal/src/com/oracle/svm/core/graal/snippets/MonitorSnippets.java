@@ -68,6 +68,9 @@ public final class MonitorSnippets extends SubstrateTemplates implements Snippet
         if (!SubstrateOptions.MultiThreaded.getValue()) {
             return;
         }
+        if (MonitorSupport.tryEnterThin(obj)) {
+            return;
+        }
         ForeignCalls.callMonitorEnter(ForeignCalls.MONITOR_SNIPPETS_SLOW_PATH_MONITOR_ENTER, obj);
     }
 
@@ -79,6 +82,9 @@ public final class MonitorSnippets extends SubstrateTemplates implements Snippet
         if (!SubstrateOptions.MultiThreaded.getValue()) {
             return;
         }
+        if (MonitorSupport.tryExitThin(obj)) {
+            return;
+        }
         ForeignCalls.callMonitorExit(ForeignCalls.MONITOR_SNIPPETS_SLOW_PATH_MONITOR_EXIT, obj);
     }
 
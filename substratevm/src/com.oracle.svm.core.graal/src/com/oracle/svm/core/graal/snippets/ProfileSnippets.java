@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.graal.snippets;
+
+import java.util.Map;
+
+import org.graalvm.compiler.api.replacements.Snippet;
+import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.debug.DebugHandlersFactory;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.spi.LoweringTool;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.util.Providers;
+import org.graalvm.compiler.replacements.SnippetTemplate;
+import org.graalvm.compiler.replacements.SnippetTemplate.Arguments;
+import org.graalvm.compiler.replacements.SnippetTemplate.SnippetInfo;
+import org.graalvm.compiler.replacements.Snippets;
+
+import com.oracle.svm.core.graal.nodes.ProfileBranchNode;
+import com.oracle.svm.core.graal.nodes.ProfileReceiverNode;
+import com.oracle.svm.core.pgo.BranchProfile;
+import com.oracle.svm.core.pgo.ExecutionProfile;
+import com.oracle.svm.core.pgo.ReceiverProfile;
+
+/**
+ * Lowers the profiling nodes of an instrumented image to the increment of a counter. Snippets
+ * inline all their callees, so no call remains in the instrumented code.
+ */
+public final class ProfileSnippets extends SubstrateTemplates implements Snippets {
+
+    @Snippet
+    protected static void profileBranchSnippet(BranchProfile profile, boolean taken) {
+        ExecutionProfile.countBranch(profile, taken);
+    }
+
+    @Snippet
+    protected static void profileReceiverSnippet(ReceiverProfile profile, Object receiver) {
+        ExecutionProfile.countReceiver(profile, receiver);
+    }
+
+    @SuppressWarnings("unused")
+    public static void registerLowerings(OptionValues options, Iterable<DebugHandlersFactory> factories, Providers providers, SnippetReflectionProvider snippetReflection,
+                    Map<Class<? extends Node>, NodeLoweringProvider<?>> lowerings) {
+        new ProfileSnippets(options, factories, providers, snippetReflection, lowerings);
+    }
+
+    private ProfileSnippets(OptionValues options, Iterable<DebugHandlersFactory> factories, Providers providers, SnippetReflectionProvider snippetReflection,
+                    Map<Class<? extends Node>, NodeLoweringProvider<?>> lowerings) {
+        super(options, factories, providers, snippetReflection);
+
+        lowerings.put(ProfileBranchNode.class, new ProfileBranchLowering());
+        lowerings.put(ProfileReceiverNode.class, new ProfileReceiverLowering());
+    }
+
+    protected class ProfileBranchLowering implements NodeLoweringProvider<ProfileBranchNode> {
+
+        private final SnippetInfo profileBranch = snippet(ProfileSnippets.class, "profileBranchSnippet");
+
+        @Override
+        public void lower(ProfileBranchNode node, LoweringTool tool) {
+            if (tool.getLoweringStage() != LoweringTool.StandardLoweringStage.LOW_TIER) {
+                return;
+            }
+
+            Arguments args = new Arguments(profileBranch, node.graph().getGuardsStage(), tool.getLoweringStage());
+            args.add("profile", node.getProfile());
+            args.add("taken", node.getTaken());
+            template(node, args).instantiate(providers.getMetaAccess(), node, SnippetTemplate.DEFAULT_REPLACER, args);
+        }
+    }
+
+    protected class ProfileReceiverLowering implements NodeLoweringProvider<ProfileReceiverNode> {
+
+        private final SnippetInfo profileReceiver = snippet(ProfileSnippets.class, "profileReceiverSnippet");
+
+        @Override
+        public void lower(ProfileReceiverNode node, LoweringTool tool) {
+            if (tool.getLoweringStage() != LoweringTool.StandardLoweringStage.LOW_TIER) {
+                return;
+            }
+
+            Arguments args = new Arguments(profileReceiver, node.graph().getGuardsStage(), tool.getLoweringStage());
+            args.add("profile", node.getProfile());
+            args.add("receiver", node.getReceiver());
+            template(node, args).instantiate(providers.getMetaAccess(), node, SnippetTemplate.DEFAULT_REPLACER, args);
+        }
+    }
+}
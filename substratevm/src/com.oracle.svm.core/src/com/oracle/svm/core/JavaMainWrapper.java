@@ -59,6 +59,7 @@ import com.oracle.svm.core.jdk.RuntimeSupport;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.option.RuntimeOptionParser;
 import com.oracle.svm.core.option.XOptions;
+import com.oracle.svm.core.pgo.ExecutionProfile;
 import com.oracle.svm.core.properties.RuntimePropertyParser;
 import com.oracle.svm.core.snippets.SnippetRuntime;
 import com.oracle.svm.core.thread.JavaThreads;
@@ -165,6 +166,9 @@ public class JavaMainWrapper {
             if (SubstrateOptions.PrintGCSummary.getValue()) {
                 rs.addShutdownHook(new PrintGCSummaryShutdownHook());
             }
+            if (ExecutionProfile.Options.PGOInstrument.getValue()) {
+                rs.addShutdownHook(new ExecutionProfile.DumpShutdownHook());
+            }
             try {
                 JavaMainSupport.executeStartupHooks();
                 ImageSingletons.lookup(JavaMainSupport.class).getJavaMainHandle().invokeExact(args);
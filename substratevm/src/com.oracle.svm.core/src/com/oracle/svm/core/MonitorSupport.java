@@ -22,8 +22,6 @@
  */
 package com.oracle.svm.core;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.AbstractOwnableSynchronizer;
 import java.util.concurrent.locks.Condition;
@@ -35,6 +33,7 @@ import org.graalvm.nativeimage.Feature;
 import org.graalvm.nativeimage.ImageSingletons;
 
 import com.oracle.svm.core.annotate.Alias;
+import com.oracle.svm.core.annotate.AlwaysInline;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.heap.ObjectHeader;
@@ -43,6 +42,9 @@ import com.oracle.svm.core.hub.ClassSynchronizationSupport.ClassSynchronizationT
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
+import com.oracle.svm.core.thread.JavaThreads;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalObject;
 import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.util.VMError;
 
@@ -65,14 +67,33 @@ import com.oracle.svm.core.util.VMError;
  * someone synchronizes manually on a {@link Class}, an error is raised in {@link #filterClass}.
  *
  * Synchronization on {@link String}, arrays, and other types not detected by the static analysis
- * (like synchronization via JNI) fall back to a monitor stored in a {@link MonitorSupport
- * concurrent map}. This is a memory leak: The key of the map is a strong reference, so the GC will
- * see it as alive forever. But it is better than disallowing synchronization until GR-6980 is done.
+ * (like synchronization via JNI) fall back to a lock and condition stored in a {@link MonitorTable},
+ * which holds the objects weakly so that they can still be collected.
+ *
+ * The memory reserved for the monitor is used as a thin lock until the monitor is needed: while a
+ * single thread holds the lock once and no other thread wants it, the memory contains the owning
+ * {@link Thread}, installed and removed with a compare-and-swap by {@link #tryEnterThin} and
+ * {@link #tryExitThin} which are inlined into compiled code by the monitor snippets. If the owner
+ * locks the object again, the slow path replaces the thread by a {@link ThinLockRecursion} that
+ * records the owner and the recursion count, up to {@link #MAX_THIN_RECURSION}. Each thread
+ * allocates these records once and reuses them for all objects. Deeper recursion, contention, wait
+ * and notify inflate the thin lock to a {@link ReentrantLock} that is held by the owner of the thin
+ * lock as often as the thin lock was. An inflated lock is never deflated again.
  */
 public class MonitorSupport {
 
-    final ConcurrentMap<Object, ReentrantLock> additionalMonitors = new ConcurrentHashMap<>();
-    final ConcurrentMap<Object, Condition> additionalConditions = new ConcurrentHashMap<>();
+    /** The highest recursion count of a thin lock. Locking it once more inflates it. */
+    public static final int MAX_THIN_RECURSION = 8;
+
+    /** The record for recursion count 2 of the current thread, linked to the higher counts. */
+    private static final FastThreadLocalObject<ThinLockRecursion> thinLockRecursion = FastThreadLocalFactory.createObject(ThinLockRecursion.class);
+
+    final MonitorTable additionalMonitors = new MonitorTable();
+
+    /** The number of objects whose lock or condition is kept in the secondary storage. */
+    public int getAdditionalMonitorCount() {
+        return additionalMonitors.size();
+    }
 
     /**
      * Implements the monitorenter bytecode. The null check for the parameter must have already been
@@ -89,6 +110,9 @@ public class MonitorSupport {
         }
 
         try {
+            if (tryEnterThin(obj) || tryEnterThinRecursive(obj)) {
+                return;
+            }
             ImageSingletons.lookup(MonitorSupport.class).getOrCreateMonitor(obj, true).lock();
 
         } catch (Throwable ex) {
@@ -122,6 +146,9 @@ public class MonitorSupport {
         }
 
         try {
+            if (tryExitThin(obj) || tryExitThinRecursive(obj)) {
+                return;
+            }
             ImageSingletons.lookup(MonitorSupport.class).getOrCreateMonitor(obj, true).unlock();
 
         } catch (Throwable ex) {
@@ -137,6 +164,97 @@ public class MonitorSupport {
         }
     }
 
+    /**
+     * The fast path of monitorenter: if the object has memory reserved for the monitor and nobody
+     * holds the lock, install the current thread as the owner of a thin lock. Returns false if the
+     * slow path has to lock the object.
+     */
+    @AlwaysInline("Fast path of monitorenter")
+    public static boolean tryEnterThin(Object obj) {
+        int monitorOffset = ObjectHeader.readDynamicHubFromObject(obj).getMonitorOffset();
+        if (monitorOffset == 0) {
+            return false;
+        }
+        Thread current = JavaThreads.singleton().fromVMThread(KnownIntrinsics.currentVMThread());
+        return current != null && UnsafeAccess.UNSAFE.compareAndSwapObject(obj, monitorOffset, null, current);
+    }
+
+    /**
+     * The fast path of monitorexit: if the current thread holds the thin lock of the object,
+     * release it. Returns false if the slow path has to unlock the object.
+     */
+    @AlwaysInline("Fast path of monitorexit")
+    public static boolean tryExitThin(Object obj) {
+        int monitorOffset = ObjectHeader.readDynamicHubFromObject(obj).getMonitorOffset();
+        if (monitorOffset == 0) {
+            return false;
+        }
+        Thread current = JavaThreads.singleton().fromVMThread(KnownIntrinsics.currentVMThread());
+        return current != null && UnsafeAccess.UNSAFE.compareAndSwapObject(obj, monitorOffset, current, null);
+    }
+
+    /**
+     * The slow path of a recursive monitorenter on a thin lock: if the current thread holds the
+     * thin lock of the object less than {@link #MAX_THIN_RECURSION} times, count up. Returns false
+     * if the lock has to be inflated, or was inflated concurrently.
+     */
+    private static boolean tryEnterThinRecursive(Object obj) {
+        int monitorOffset = ObjectHeader.readDynamicHubFromObject(obj).getMonitorOffset();
+        if (monitorOffset == 0) {
+            return false;
+        }
+        Thread current = Thread.currentThread();
+        Object existing = BarrieredAccess.readObject(obj, monitorOffset);
+        int count = thinLockCount(existing, current);
+        if (count == 0 || count >= MAX_THIN_RECURSION) {
+            return false;
+        }
+        ThinLockRecursion next = count == 1 ? firstThinLockRecursion(current) : ((ThinLockRecursion) existing).next();
+        return UnsafeAccess.UNSAFE.compareAndSwapObject(obj, monitorOffset, existing, next);
+    }
+
+    /**
+     * The slow path of a recursive monitorexit on a thin lock: if the current thread holds the thin
+     * lock of the object more than once, count down. Returns false if the lock is inflated.
+     */
+    private static boolean tryExitThinRecursive(Object obj) {
+        int monitorOffset = ObjectHeader.readDynamicHubFromObject(obj).getMonitorOffset();
+        if (monitorOffset == 0) {
+            return false;
+        }
+        Object existing = BarrieredAccess.readObject(obj, monitorOffset);
+        if (!(existing instanceof ThinLockRecursion)) {
+            return false;
+        }
+        ThinLockRecursion recursion = (ThinLockRecursion) existing;
+        assert recursion.owner == Thread.currentThread() : "structured locking";
+        Object previous = recursion.previous != null ? recursion.previous : recursion.owner;
+        return UnsafeAccess.UNSAFE.compareAndSwapObject(obj, monitorOffset, existing, previous);
+    }
+
+    /**
+     * Returns how often {@code thread} holds the thin lock whose slot contains {@code existing}, or
+     * 0 if the slot does not contain a thin lock of that thread.
+     */
+    private static int thinLockCount(Object existing, Thread thread) {
+        if (existing == thread) {
+            return 1;
+        }
+        if (existing instanceof ThinLockRecursion && ((ThinLockRecursion) existing).owner == thread) {
+            return ((ThinLockRecursion) existing).count;
+        }
+        return 0;
+    }
+
+    private static ThinLockRecursion firstThinLockRecursion(Thread current) {
+        ThinLockRecursion first = thinLockRecursion.get();
+        if (first == null) {
+            first = new ThinLockRecursion(current, null);
+            thinLockRecursion.set(first);
+        }
+        return first;
+    }
+
     /**
      * This is a highly unsafe method that patches the existing lock of an object so that the object
      * appears as if it has been locked from a different thread. It is only safe to call when the
@@ -173,6 +291,14 @@ public class MonitorSupport {
             return true;
         }
 
+        DynamicHub hub = ObjectHeader.readDynamicHubFromObject(obj);
+        if (hub.getMonitorOffset() != 0) {
+            /* Answer for a thin lock without inflating it. */
+            Object existing = BarrieredAccess.readObject(obj, hub.getMonitorOffset());
+            if (existing == null || existing instanceof Thread || existing instanceof ThinLockRecursion) {
+                return thinLockCount(existing, Thread.currentThread()) > 0;
+            }
+        }
         ReentrantLock lockObject = getOrCreateMonitor(obj, false);
         return lockObject != null && lockObject.isHeldByCurrentThread();
 
@@ -252,6 +378,15 @@ public class MonitorSupport {
         return lockObject;
     }
 
+    /**
+     * Returns true if the object has memory reserved for its monitor and its lock was inflated to a
+     * {@link ReentrantLock}. Method is public so that white-box test cases can use it.
+     */
+    public boolean isInflated(Object obj) {
+        int monitorOffset = ObjectHeader.readDynamicHubFromObject(obj).getMonitorOffset();
+        return monitorOffset != 0 && BarrieredAccess.readObject(obj, monitorOffset) instanceof ReentrantLock;
+    }
+
     /* Method is public so that white-box test cases can use it. */
     public ReentrantLock getOrCreateMonitor(Object obj, boolean createIfNotExisting) {
         DynamicHub hub = ObjectHeader.readDynamicHubFromObject(obj);
@@ -259,37 +394,52 @@ public class MonitorSupport {
 
         if (monitorOffset != 0) {
             /* The common case: memory for the monitor reserved in the object. */
-            ReentrantLock existingMonitor = KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), ReentrantLock.class);
-            if (existingMonitor != null || !createIfNotExisting) {
-                return existingMonitor;
-            }
-
-            /* Atomically put a new lock in place instead of the null at the monitorOffset. */
-            ReentrantLock newMonitor = new ReentrantLock();
-            if (UnsafeAccess.UNSAFE.compareAndSwapObject(obj, monitorOffset, null, newMonitor)) {
-                return newMonitor;
+            while (true) {
+                Object existing = KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), Object.class);
+                if (existing instanceof ReentrantLock) {
+                    return (ReentrantLock) existing;
+                }
+                if (existing == null && !createIfNotExisting) {
+                    return null;
+                }
+
+                /*
+                 * Atomically put a new lock in place instead of the null or the thin lock at the
+                 * monitorOffset. A thin lock is inflated to a lock held by its owner as often as
+                 * the thin lock was.
+                 */
+                ReentrantLock newMonitor = new ReentrantLock();
+                if (existing instanceof ThinLockRecursion) {
+                    ThinLockRecursion recursion = (ThinLockRecursion) existing;
+                    lockOnBehalfOf(newMonitor, recursion.owner, recursion.count);
+                } else if (existing != null) {
+                    lockOnBehalfOf(newMonitor, (Thread) existing, 1);
+                }
+                if (UnsafeAccess.UNSAFE.compareAndSwapObject(obj, monitorOffset, existing, newMonitor)) {
+                    return newMonitor;
+                }
+                /* We lost a race with another thread locking, unlocking, or inflating: retry. */
             }
-            /* We lost the race, use the lock some other thread installed. */
-            return KnownIntrinsics.convertUnknownValue(BarrieredAccess.readObject(obj, monitorOffset), ReentrantLock.class);
 
         } else {
             filterClass(obj);
 
             /* No memory reserved for the lock in the object, fall back to our secondary storage. */
-            ReentrantLock existingMonitor = additionalMonitors.get(obj);
-            if (existingMonitor != null || !createIfNotExisting) {
-                return existingMonitor;
-            }
+            return additionalMonitors.getOrCreateLock(obj, createIfNotExisting);
+        }
+    }
 
-            /* Atomically put a new lock into the secondary storage. */
-            ReentrantLock newMonitor = new ReentrantLock();
-            existingMonitor = additionalMonitors.putIfAbsent(obj, newMonitor);
-            if (existingMonitor == null) {
-                return newMonitor;
-            }
-            /* We lost the race, use the lock some other thread installed. */
-            return existingMonitor;
+    /**
+     * Lock a lock that is not yet visible to other threads so that it appears as if it had been
+     * locked {@code count} times by the given thread.
+     */
+    private static void lockOnBehalfOf(ReentrantLock lock, Thread owner, int count) {
+        for (int i = 0; i < count; i++) {
+            lock.lock();
         }
+        Target_java_util_concurrent_locks_ReentrantLock target = KnownIntrinsics.unsafeCast(lock, Target_java_util_concurrent_locks_ReentrantLock.class);
+        Target_java_util_concurrent_locks_AbstractOwnableSynchronizer sync = KnownIntrinsics.unsafeCast(target.sync, Target_java_util_concurrent_locks_AbstractOwnableSynchronizer.class);
+        sync.setExclusiveOwnerThread(owner);
     }
 
     private Condition getOrCreateCondition(Object obj, ReentrantLock lock, boolean createIfNotExisting) {
@@ -321,19 +471,7 @@ public class MonitorSupport {
              * No memory reserved for the condition in the object, fall back to our secondary
              * storage.
              */
-            Condition existingCondition = additionalConditions.get(obj);
-            if (existingCondition != null || !createIfNotExisting) {
-                return existingCondition;
-            }
-
-            /* Atomically put a new condition into the secondary storage. */
-            Condition newCondition = lock.newCondition();
-            existingCondition = additionalConditions.putIfAbsent(obj, newCondition);
-            if (existingCondition == null) {
-                return newCondition;
-            }
-            /* We lost the race, use the condition some other thread installed. */
-            return existingCondition;
+            return additionalMonitors.getOrCreateCondition(obj, lock, createIfNotExisting);
         }
     }
 
@@ -345,6 +483,36 @@ public class MonitorSupport {
     }
 }
 
+/**
+ * The content of the monitor slot of an object whose thin lock is held {@link #count} times, more
+ * than once, by {@link #owner}. The records of a thread form a chain from count 2 up to
+ * {@link MonitorSupport#MAX_THIN_RECURSION}, created on demand and only by the owner, so a
+ * recursive enter or exit replaces the record by its neighbor without allocating.
+ */
+final class ThinLockRecursion {
+
+    final Thread owner;
+    final int count;
+    /** The record for one count less, or {@code null} if the lock is then held once. */
+    final ThinLockRecursion previous;
+    /** Accessed only by the owner. */
+    private ThinLockRecursion next;
+
+    ThinLockRecursion(Thread owner, ThinLockRecursion previous) {
+        this.owner = owner;
+        this.count = previous == null ? 2 : previous.count + 1;
+        this.previous = previous;
+    }
+
+    /** The record for one count more. Must only be called by the owner. */
+    ThinLockRecursion next() {
+        if (next == null) {
+            next = new ThinLockRecursion(owner, this);
+        }
+        return next;
+    }
+}
+
 @AutomaticFeature
 class MonitorFeature implements Feature {
     @Override
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.oracle.svm.core.heap.FeebleReference;
+import com.oracle.svm.core.heap.FeebleReferenceList;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.jdk.IdentityHashCodeSupport;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
+
+/**
+ * The secondary storage for the locks and conditions of objects that do not have memory reserved
+ * for them, see {@link MonitorSupport}.
+ *
+ * Objects are compared by identity and held weakly: each entry is a {@link FeebleReference} to its
+ * object, so the collector clears the entry once the object is unreachable and puts it on the
+ * list of cleared entries of its stripe, from where it is unlinked the next time the stripe is
+ * accessed. An unreachable object cannot be locked or waited on again, so dropping its lock and
+ * condition is not observable.
+ *
+ * The table is split into stripes by hash, each with its own lock and hash table, so that threads
+ * synchronizing on unrelated objects do not contend.
+ *
+ * The hash of an object is not taken from {@link System#identityHashCode}: the static analysis
+ * gives every type that is passed to it a hash code field, and every object can reach this table.
+ * Objects that already have that field (all arrays, and the types whose identity hash code is
+ * used elsewhere) are hashed by their identity hash code. Strings, which never get a monitor field
+ * and are the most common objects here, are hashed by their contents: a string is immutable, so
+ * its hash never changes, and equal strings share a bucket but are told apart by identity. Classes
+ * are hashed by their own type id. The few remaining objects, whose types the analysis did not see
+ * being synchronized on, are hashed by their type.
+ */
+final class MonitorTable {
+
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPE_COUNT = 1 << STRIPE_BITS;
+    private static final int INITIAL_BUCKET_COUNT = 16;
+
+    private final Stripe[] stripes;
+
+    MonitorTable() {
+        stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /** Return the lock of the object, creating it if requested, or null. */
+    ReentrantLock getOrCreateLock(Object obj, boolean createIfNotExisting) {
+        int hash = hashOf(obj);
+        Stripe stripe = stripeFor(hash);
+        stripe.mutex.lock();
+        try {
+            Entry entry = stripe.lookup(obj, hash, createIfNotExisting);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.lock == null && createIfNotExisting) {
+                entry.lock = new ReentrantLock();
+            }
+            return entry.lock;
+        } finally {
+            stripe.mutex.unlock();
+        }
+    }
+
+    /** Return the condition of the object, creating it from the lock if requested, or null. */
+    Condition getOrCreateCondition(Object obj, ReentrantLock lock, boolean createIfNotExisting) {
+        int hash = hashOf(obj);
+        Stripe stripe = stripeFor(hash);
+        stripe.mutex.lock();
+        try {
+            Entry entry = stripe.lookup(obj, hash, createIfNotExisting);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.condition == null && createIfNotExisting) {
+                entry.condition = lock.newCondition();
+            }
+            return entry.condition;
+        } finally {
+            stripe.mutex.unlock();
+        }
+    }
+
+    /** The number of objects that currently have an entry. */
+    int size() {
+        int result = 0;
+        for (Stripe stripe : stripes) {
+            stripe.mutex.lock();
+            try {
+                stripe.expungeCleared();
+                result += stripe.size;
+            } finally {
+                stripe.mutex.unlock();
+            }
+        }
+        return result;
+    }
+
+    private static int hashOf(Object obj) {
+        DynamicHub hub = KnownIntrinsics.readHub(obj);
+        int hashCodeOffset = hub.getHashCodeOffset();
+        if (hashCodeOffset != 0) {
+            return IdentityHashCodeSupport.getOrInstallHashCode(obj, hashCodeOffset);
+        }
+        if (obj instanceof String) {
+            /* The image builder computes the hash of every string in the image heap. */
+            return spread(obj.hashCode());
+        }
+        if (obj instanceof DynamicHub) {
+            return spread(((DynamicHub) obj).getTypeID());
+        }
+        return spread(hub.getTypeID());
+    }
+
+    /** Mix the low and high bits, since the low bits select the stripe and the next the bucket. */
+    private static int spread(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[hash & (STRIPE_COUNT - 1)];
+    }
+
+    /** An entry of a stripe, weakly referencing its object. */
+    private static final class Entry extends FeebleReference<Object> {
+
+        final int hash;
+        ReentrantLock lock;
+        Condition condition;
+        Entry next;
+
+        Entry(Object obj, int hash, FeebleReferenceList<Object> cleared) {
+            super(obj, cleared);
+            this.hash = hash;
+        }
+    }
+
+    private static final class Stripe {
+
+        final ReentrantLock mutex = new ReentrantLock();
+        /** The entries whose objects the collector found unreachable. */
+        final FeebleReferenceList<Object> cleared = FeebleReferenceList.factory();
+        Entry[] buckets = new Entry[INITIAL_BUCKET_COUNT];
+        /** Accessed only while holding the mutex. */
+        int size;
+
+        /** Find the entry of the object, adding one if requested. Must hold the mutex. */
+        Entry lookup(Object obj, int hash, boolean createIfNotExisting) {
+            expungeCleared();
+            int index = bucketIndex(hash, buckets.length);
+            for (Entry entry = buckets[index]; entry != null; entry = entry.next) {
+                if (entry.hash == hash && entry.get() == obj) {
+                    return entry;
+                }
+            }
+            if (!createIfNotExisting) {
+                return null;
+            }
+            if (size >= buckets.length - buckets.length / 4) {
+                resize();
+                index = bucketIndex(hash, buckets.length);
+            }
+            Entry entry = new Entry(obj, hash, cleared);
+            entry.next = buckets[index];
+            buckets[index] = entry;
+            size++;
+            return entry;
+        }
+
+        /** Unlink the entries that the collector has cleared. Must hold the mutex. */
+        void expungeCleared() {
+            for (FeebleReference<?> reference = cleared.pop(); reference != null; reference = cleared.pop()) {
+                Entry dead = (Entry) reference;
+                int index = bucketIndex(dead.hash, buckets.length);
+                Entry previous = null;
+                for (Entry entry = buckets[index]; entry != null; previous = entry, entry = entry.next) {
+                    if (entry == dead) {
+                        if (previous == null) {
+                            buckets[index] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                        size--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void resize() {
+            Entry[] oldBuckets = buckets;
+            Entry[] newBuckets = new Entry[oldBuckets.length * 2];
+            for (Entry head : oldBuckets) {
+                Entry entry = head;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    int index = bucketIndex(entry.hash, newBuckets.length);
+                    entry.next = newBuckets[index];
+                    newBuckets[index] = entry;
+                    entry = next;
+                }
+            }
+            buckets = newBuckets;
+        }
+
+        /** The low bits of the hash select the stripe, so the buckets use the bits above them. */
+        private static int bucketIndex(int hash, int length) {
+            return (hash >>> STRIPE_BITS) & (length - 1);
+        }
+    }
+}
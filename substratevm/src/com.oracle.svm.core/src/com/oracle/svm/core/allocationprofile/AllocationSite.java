@@ -24,6 +24,7 @@ package com.oracle.svm.core.allocationprofile;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -91,6 +92,37 @@ public final class AllocationSite {
         return counter;
     }
 
+    public String getSiteName() {
+        return siteName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /** Number of allocations at this site, summed over all counters. */
+    public long getTotalCount() {
+        long result = 0;
+        for (AllocationCounter counter = firstCounter.get(); counter != null; counter = counter.getNext()) {
+            result += counter.getCount();
+        }
+        return result;
+    }
+
+    /** Bytes allocated at this site, summed over all counters. */
+    public long getTotalSize() {
+        long result = 0;
+        for (AllocationCounter counter = firstCounter.get(); counter != null; counter = counter.getNext()) {
+            result += counter.getSize();
+        }
+        return result;
+    }
+
+    /** All allocation sites, regardless of {@link Options#AllocationProfilingThreshold}. */
+    public static Collection<AllocationSite> getAllSites() {
+        return sites.keySet();
+    }
+
     @Override
     public String toString() {
         return siteName + " : " + className;
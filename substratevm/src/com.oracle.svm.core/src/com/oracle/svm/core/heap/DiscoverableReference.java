@@ -23,6 +23,7 @@
 package com.oracle.svm.core.heap;
 
 import org.graalvm.compiler.word.ObjectAccess;
+import org.graalvm.compiler.word.Word;
 import org.graalvm.word.Pointer;
 import org.graalvm.word.WordFactory;
 
@@ -102,6 +103,42 @@ public class DiscoverableReference {
         ObjectAccess.writeWord(this, WordFactory.signed(RAW_REFERENT_OFFSET), value);
     }
 
+    /**
+     * The address of the referent field, for the garbage collector to visit the referent as if it
+     * were strongly reachable.
+     */
+    public Pointer getReferentFieldPointer() {
+        return Word.objectToUntrackedPointer(this).add(WordFactory.unsigned(RAW_REFERENT_OFFSET));
+    }
+
+    /*
+     * Soft reference support.
+     *
+     * As with HotSpot's SoftReference, a reference with soft semantics records the value of a
+     * clock, advanced by the garbage collector, whenever its referent is accessed. The collector
+     * keeps the referents of soft references that have been accessed recently enough.
+     */
+
+    /**
+     * The clock value when the referent was last accessed, or -1 if this reference does not have
+     * soft semantics.
+     */
+    public long getSoftAccessTimestamp() {
+        return -1L;
+    }
+
+    /** The clock that soft references record when their referent is accessed. */
+    public static long getSoftReferenceClock() {
+        return softReferenceClock;
+    }
+
+    /** Advance the soft reference clock. Called by the garbage collector. */
+    public static void setSoftReferenceClock(long value) {
+        softReferenceClock = value;
+    }
+
+    private static long softReferenceClock = 0L;
+
     /** Read access to the next field. */
     public DiscoverableReference getNextDiscoverableReference() {
         return next;
@@ -23,6 +23,7 @@
 package com.oracle.svm.core.heap;
 
 import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryPoolMXBean;
 import java.util.List;
 
 public interface GC {
@@ -53,5 +54,8 @@ public interface GC {
     /** Get the list of GarbageCollectorMXBeans for this collector. */
     List<GarbageCollectorMXBean> getGarbageCollectorMXBeanList();
 
+    /** Get the list of MemoryPoolMXBeans for the spaces managed by this collector. */
+    List<MemoryPoolMXBean> getMemoryPoolMXBeanList();
+
     void printGCSummary();
 }
@@ -24,8 +24,14 @@ package com.oracle.svm.core.jdk;
 
 import java.util.SplittableRandom;
 
+import org.graalvm.compiler.word.ObjectAccess;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.UnsafeAccess;
 import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
 import com.oracle.svm.core.threadlocal.FastThreadLocalObject;
+import com.oracle.svm.core.util.VMError;
 
 public final class IdentityHashCodeSupport {
 
@@ -48,4 +54,30 @@ public final class IdentityHashCodeSupport {
         } while (hashCode == 0);
         return hashCode;
     }
+
+    /**
+     * Return the identity hash code stored at the given offset of the object, installing a new one
+     * on the first invocation for the object. The offset must be the hash code offset of the hub
+     * of the object, and must not be 0.
+     *
+     * Calling this instead of {@link System#identityHashCode} does not make the static analysis
+     * give the type of the object a hash code field.
+     */
+    public static int getOrInstallHashCode(Object obj, int hashCodeOffset) {
+        UnsignedWord hashCodeOffsetWord = WordFactory.unsigned(hashCodeOffset);
+        int hashCode = ObjectAccess.readInt(obj, hashCodeOffsetWord);
+        if (hashCode != 0) {
+            return hashCode;
+        }
+
+        /* On the first invocation for an object create a new hash code. */
+        hashCode = generateHashCode();
+
+        if (!UnsafeAccess.UNSAFE.compareAndSwapInt(obj, hashCodeOffset, 0, hashCode)) {
+            /* We lost the race, so there now must be a hash code installed from another thread. */
+            hashCode = ObjectAccess.readInt(obj, hashCodeOffsetWord);
+        }
+        VMError.guarantee(hashCode != 0, "Missing identity hash code");
+        return hashCode;
+    }
 }
@@ -23,6 +23,7 @@
 package com.oracle.svm.core.jdk;
 
 import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
 
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
@@ -34,8 +35,10 @@ import com.oracle.svm.core.annotate.RecomputeFieldValue.CustomFieldValueComputer
 import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.annotate.TargetElement;
+import com.oracle.svm.core.heap.DiscoverableReference;
 import com.oracle.svm.core.heap.FeebleReference;
 import com.oracle.svm.core.heap.FeebleReferenceList;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.thread.VMOperation;
 import com.oracle.svm.core.util.VMError;
 
@@ -54,6 +57,32 @@ class ReferenceWrapper extends FeebleReference<Object> {
     }
 }
 
+/** The wrapper for a {@link SoftReference}, which records when its referent is accessed. */
+final class SoftReferenceWrapper extends ReferenceWrapper {
+
+    /** The soft reference clock when the referent was last accessed. */
+    private long timestamp;
+
+    SoftReferenceWrapper(Object referent, final FeebleReferenceList<Object> list, Object original) {
+        super(referent, list, original);
+        this.timestamp = DiscoverableReference.getSoftReferenceClock();
+    }
+
+    @Override
+    public Object get() {
+        final long clock = DiscoverableReference.getSoftReferenceClock();
+        if (timestamp != clock) {
+            timestamp = clock;
+        }
+        return super.get();
+    }
+
+    @Override
+    public long getSoftAccessTimestamp() {
+        return timestamp;
+    }
+}
+
 @Platforms(Platform.HOSTED_ONLY.class)
 class ComputeReferenceValue implements CustomFieldValueComputer {
     @Override
@@ -84,7 +113,12 @@ final class Target_java_lang_ref_Reference {
 
     @Substitute
     protected Target_java_lang_ref_Reference(Object referent, Target_java_lang_ref_ReferenceQueue queue) {
-        this.feeble = new ReferenceWrapper(referent, queue == null ? null : queue.feeble, this);
+        final FeebleReferenceList<Object> list = (queue == null ? null : queue.feeble);
+        if (KnownIntrinsics.unsafeCast(this, Object.class) instanceof SoftReference) {
+            this.feeble = new SoftReferenceWrapper(referent, list, this);
+        } else {
+            this.feeble = new ReferenceWrapper(referent, list, this);
+        }
         this.bootImageStrongValue = null;
     }
 
@@ -46,7 +46,6 @@ import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-import org.graalvm.compiler.word.ObjectAccess;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.Feature;
 import org.graalvm.nativeimage.ImageSingletons;
@@ -54,11 +53,8 @@ import org.graalvm.nativeimage.c.function.CFunction;
 import org.graalvm.nativeimage.c.function.CLibrary;
 import org.graalvm.nativeimage.c.function.CodePointer;
 import org.graalvm.word.Pointer;
-import org.graalvm.word.UnsignedWord;
-import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.MonitorSupport;
-import com.oracle.svm.core.UnsafeAccess;
 import com.oracle.svm.core.annotate.Alias;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.annotate.Delete;
@@ -397,21 +393,7 @@ final class Target_java_lang_System {
         if (hashCodeOffset == 0) {
             throw VMError.shouldNotReachHere("identityHashCode called on illegal object");
         }
-        UnsignedWord hashCodeOffsetWord = WordFactory.unsigned(hashCodeOffset);
-        int hashCode = ObjectAccess.readInt(obj, hashCodeOffsetWord);
-        if (hashCode != 0) {
-            return hashCode;
-        }
-
-        /* On the first invocation for an object create a new hash code. */
-        hashCode = IdentityHashCodeSupport.generateHashCode();
-
-        if (!UnsafeAccess.UNSAFE.compareAndSwapInt(obj, hashCodeOffset, 0, hashCode)) {
-            /* We lost the race, so there now must be a hash code installed from another thread. */
-            hashCode = ObjectAccess.readInt(obj, hashCodeOffsetWord);
-        }
-        VMError.guarantee(hashCode != 0, "Missing identity hash code");
-        return hashCode;
+        return IdentityHashCodeSupport.getOrInstallHashCode(obj, hashCodeOffset);
     }
 
     /* Ensure that we do not leak the full set of properties from the image generator. */
@@ -24,6 +24,7 @@ package com.oracle.svm.core.jdk;
 
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.RuntimeMXBean;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
@@ -58,6 +59,11 @@ final class Target_java_lang_management_ManagementFactory {
         return Heap.getHeap().getMemoryMXBean();
     }
 
+    @Substitute
+    private static List<MemoryPoolMXBean> getMemoryPoolMXBeans() {
+        return Heap.getHeap().getGC().getMemoryPoolMXBeanList();
+    }
+
     @Substitute
     private static RuntimeMXBean getRuntimeMXBean() {
         return ImageSingletons.lookup(SubstrateRuntimeMXBean.class);
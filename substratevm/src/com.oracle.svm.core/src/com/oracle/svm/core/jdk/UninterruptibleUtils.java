@@ -88,6 +88,46 @@ public class UninterruptibleUtils {
         }
     }
 
+    public static class AtomicLong {
+
+        /**
+         * A mutable long value holder. I am not using anything <em>atomic</em> about the holder,
+         * but I can not use a vanilla {@link Long} because that would be immutable.
+         */
+        private final java.util.concurrent.atomic.AtomicLong longHolder;
+
+        public AtomicLong(long value) {
+            this.longHolder = new java.util.concurrent.atomic.AtomicLong(value);
+        }
+
+        @Uninterruptible(reason = "Uninterruptible inline expansion")
+        public long get() {
+            final long valueOffset = Target_java_util_concurrent_atomic_AtomicLong.valueOffset;
+            return UnsafeAccess.UNSAFE.getLong(longHolder, valueOffset);
+        }
+
+        @Uninterruptible(reason = "Uninterruptible inline expansion")
+        public void set(long newValue) {
+            final long valueOffset = Target_java_util_concurrent_atomic_AtomicLong.valueOffset;
+            UnsafeAccess.UNSAFE.putLong(longHolder, valueOffset, newValue);
+        }
+
+        @Uninterruptible(reason = "Uninterruptible inline expansion")
+        public long addAndGet(long delta) {
+            final long valueOffset = Target_java_util_concurrent_atomic_AtomicLong.valueOffset;
+            final long previous = UnsafeAccess.UNSAFE.getAndAddLong(longHolder, valueOffset, delta);
+            // This sum may be out of date by the time the caller gets it, but that could have
+            // happened with addAndGet, too.
+            return (previous + delta);
+        }
+
+        @Uninterruptible(reason = "Uninterruptible inline expansion")
+        public boolean compareAndSet(long expected, long update) {
+            final long valueOffset = Target_java_util_concurrent_atomic_AtomicLong.valueOffset;
+            return UnsafeAccess.UNSAFE.compareAndSwapLong(longHolder, valueOffset, expected, update);
+        }
+    }
+
     public static class AtomicPointer<T extends PointerBase> {
 
         /**
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.pgo;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+/**
+ * Counts how often a conditional branch of an instrumented image jumps and falls through. The
+ * counts are updated without synchronization, so they are approximate when several threads execute
+ * the same branch.
+ */
+public final class BranchProfile {
+    /** The method that contains the branch, as formatted by the image builder. */
+    private final String method;
+    /** The bytecode index of the branch. */
+    private final int bci;
+    private long taken;
+    private long notTaken;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    BranchProfile(String method, int bci) {
+        this.method = method;
+        this.bci = bci;
+    }
+
+    void count(boolean wasTaken) {
+        if (wasTaken) {
+            taken++;
+        } else {
+            notTaken++;
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getBci() {
+        return bci;
+    }
+
+    public long getTaken() {
+        return taken;
+    }
+
+    public long getNotTaken() {
+        return notTaken;
+    }
+}
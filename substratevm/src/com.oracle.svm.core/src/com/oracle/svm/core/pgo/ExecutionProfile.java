@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.pgo;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.allocationprofile.AllocationSite;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+
+/**
+ * Execution profiles for profile-guided optimization of images.
+ * <p>
+ * An image built with {@link Options#PGOInstrument} counts, for the methods it compiles ahead of
+ * time, how often each conditional branch jumps and which receiver classes each virtual or
+ * interface call sees. The image builder creates a {@link BranchProfile} or
+ * {@link ReceiverProfile} for each instrumented bytecode, and the compiled code increments its
+ * counters as {@link #countBranch} or {@link #countReceiver} do. At exit the profiles are written to
+ * {@link Options#PGOProfileFile}. A later image build reads that file with {@link Options#PGO}.
+ * <p>
+ * The file is text, with one tab-separated record per line:
+ *
+ * <pre>
+ * branch     method  bci  taken  notTaken
+ * receiver   method  bci  count  className
+ * allocation site    className  count  bytes
+ * </pre>
+ *
+ * Methods are formatted as {@code %H.%n(%P)}, see {@code ResolvedJavaMethod.format}. A call site
+ * has one {@code receiver} line per receiver class, class names are those of
+ * {@link #typeName(Class)}, and {@code *} stands for receiver classes that were not recorded
+ * individually. {@code allocation} lines are only written if the image was also built with
+ * {@link AllocationSite.Options#AllocationProfiling}. Lines starting with {@code #} are comments.
+ */
+public final class ExecutionProfile {
+
+    public static class Options {
+        @Option(help = "Build an image that records branch counts and call-site receiver types, and writes them to PGOProfileFile at exit.")//
+        public static final HostedOptionKey<Boolean> PGOInstrument = new HostedOptionKey<>(false);
+
+        @Option(help = "The file to which an image built with PGOInstrument writes its profile at exit.")//
+        public static final RuntimeOptionKey<String> PGOProfileFile = new RuntimeOptionKey<>("default.iprof");
+
+        @Option(help = "Compile with the branch probabilities and receiver types of a profile written by an image built with PGOInstrument.")//
+        public static final HostedOptionKey<String> PGO = new HostedOptionKey<>("");
+    }
+
+    /** Wildcard class name for receivers that were not recorded individually. */
+    public static final String OTHER_TYPES = "*";
+
+    /** The profiles of the image, created during compilation. Accessed concurrently. */
+    private static final ConcurrentMap<String, BranchProfile> branches = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ReceiverProfile> receivers = new ConcurrentHashMap<>();
+
+    private ExecutionProfile() {
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static BranchProfile branchProfile(String method, int bci) {
+        return branches.computeIfAbsent(method + "@" + bci, key -> new BranchProfile(method, bci));
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static ReceiverProfile receiverProfile(String method, int bci) {
+        return receivers.computeIfAbsent(method + "@" + bci, key -> new ReceiverProfile(method, bci));
+    }
+
+    /** Inlined into instrumented code for each execution of a conditional branch. */
+    public static void countBranch(BranchProfile profile, boolean taken) {
+        profile.count(taken);
+    }
+
+    /** Inlined into instrumented code for each execution of a virtual or interface call. */
+    public static void countReceiver(ReceiverProfile profile, Object receiver) {
+        profile.count(receiver);
+    }
+
+    /**
+     * The name of a receiver class in a profile: the Java name, with {@code []} for arrays, that
+     * the image builder gets from {@code ResolvedJavaType.toJavaName()}. {@link Class#getName()}
+     * uses the descriptor format for arrays instead.
+     */
+    public static String typeName(Class<?> type) {
+        return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+    }
+
+    /** Write the profiles in the format described in the class comment. */
+    public static void dump(Writer out) throws IOException {
+        out.write("# Execution profile\n");
+        for (BranchProfile profile : branches.values()) {
+            if (profile.getTaken() + profile.getNotTaken() > 0) {
+                out.write("branch\t" + profile.getMethod() + "\t" + profile.getBci() + "\t" + profile.getTaken() + "\t" + profile.getNotTaken() + "\n");
+            }
+        }
+        for (ReceiverProfile profile : receivers.values()) {
+            final String prefix = "receiver\t" + profile.getMethod() + "\t" + profile.getBci() + "\t";
+            for (int i = 0; i < ReceiverProfile.TYPE_WIDTH && profile.getType(i) != null; i++) {
+                out.write(prefix + profile.getCount(i) + "\t" + typeName(profile.getType(i)) + "\n");
+            }
+            if (profile.getOtherCount() > 0) {
+                out.write(prefix + profile.getOtherCount() + "\t" + OTHER_TYPES + "\n");
+            }
+        }
+        if (AllocationSite.Options.AllocationProfiling.getValue()) {
+            for (AllocationSite site : AllocationSite.getAllSites()) {
+                final long count = site.getTotalCount();
+                if (count > 0) {
+                    out.write("allocation\t" + site.getSiteName() + "\t" + site.getClassName() + "\t" + count + "\t" + site.getTotalSize() + "\n");
+                }
+            }
+        }
+    }
+
+    /** A shutdown hook to write the profile of an instrumented image. */
+    public static class DumpShutdownHook implements Runnable {
+
+        @Override
+        public void run() {
+            final String fileName = Options.PGOProfileFile.getValue();
+            try (Writer out = new FileWriter(fileName)) {
+                dump(out);
+            } catch (IOException ex) {
+                Log.log().string("Can not write the execution profile to ").string(fileName).string(": ").string(ex.getMessage()).newline();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.pgo;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+/**
+ * Counts the receiver classes of a virtual or interface call site of an instrumented image. The
+ * first {@link #TYPE_WIDTH} classes that are seen get their own count, all later classes are
+ * counted together. Like {@link BranchProfile}, the counts are updated without synchronization.
+ */
+public final class ReceiverProfile {
+    static final int TYPE_WIDTH = 8;
+
+    /** The method that contains the call site, as formatted by the image builder. */
+    private final String method;
+    /** The bytecode index of the call site. */
+    private final int bci;
+    private final Class<?>[] types;
+    private final long[] counts;
+    private long otherCount;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ReceiverProfile(String method, int bci) {
+        this.method = method;
+        this.bci = bci;
+        this.types = new Class<?>[TYPE_WIDTH];
+        this.counts = new long[TYPE_WIDTH];
+    }
+
+    void count(Object receiver) {
+        if (receiver == null) {
+            return;
+        }
+        final Class<?> type = receiver.getClass();
+        for (int i = 0; i < TYPE_WIDTH; i++) {
+            if (types[i] == type) {
+                counts[i]++;
+                return;
+            } else if (types[i] == null) {
+                types[i] = type;
+                counts[i] = 1;
+                return;
+            }
+        }
+        otherCount++;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getBci() {
+        return bci;
+    }
+
+    /** The class in slot {@code index}, or {@code null} if the slot is not used. */
+    public Class<?> getType(int index) {
+        return types[index];
+    }
+
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    /** Calls with a receiver class that did not get a slot of its own. */
+    public long getOtherCount() {
+        return otherCount;
+    }
+}
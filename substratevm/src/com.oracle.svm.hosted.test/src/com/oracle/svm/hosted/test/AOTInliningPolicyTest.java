@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.oracle.svm.hosted.code.AOTInliner.Decision;
+import com.oracle.svm.hosted.code.AOTInliner.Policy;
+
+/**
+ * Tests the decisions of ahead-of-time inlining that PrintAOTInlining reports, with the default
+ * values of the options.
+ */
+public class AOTInliningPolicyTest {
+
+    private static final Policy POLICY = new Policy(3000, 0.1, 40, 150);
+    private static final long BUDGET = 100000;
+
+    private static Decision decide(double frequency, int calleeSize, int callerSize, long budgetLeft) {
+        return POLICY.decide(false, false, frequency, calleeSize, callerSize, budgetLeft);
+    }
+
+    @Test
+    public void inlineCallInHotLoop() {
+        Decision decision = decide(10.0, 100, 500, BUDGET);
+        assertEquals(Decision.FREQUENT, decision);
+        assertEquals("frequent", decision.getDescription());
+    }
+
+    @Test
+    public void keepColdCall() {
+        Decision decision = decide(0.01, 20, 500, BUDGET);
+        assertEquals(Decision.COLD, decision);
+        assertEquals("cold", decision.getDescription());
+    }
+
+    @Test
+    public void keepCallWhenBudgetIsExhausted() {
+        assertEquals(Decision.FREQUENT, decide(10.0, 100, 500, 100));
+        Decision decision = decide(10.0, 100, 500, 99);
+        assertEquals(Decision.OUT_OF_BUDGET, decision);
+        assertEquals("budget exhausted", decision.getDescription());
+    }
+
+    @Test
+    public void scaleCalleeSizeWithFrequency() {
+        assertEquals(Decision.FREQUENT, decide(1.0, 40, 500, BUDGET));
+        assertEquals(Decision.TOO_LARGE, decide(1.0, 41, 500, BUDGET));
+        /* However frequent the call site, the callee size is limited. */
+        assertEquals(Decision.TOO_LARGE, decide(1000.0, 151, 500, BUDGET));
+    }
+
+    @Test
+    public void inlineTrivialAndAlwaysInlineMethodsEverywhere() {
+        assertEquals(Decision.TRIVIAL, POLICY.decide(false, true, 0.001, 5, 500, 0));
+        assertEquals(Decision.ALWAYS_INLINE, POLICY.decide(true, false, 0.001, 500, 2900, 0));
+    }
+
+    @Test
+    public void stopAtMaximumCallerSize() {
+        assertEquals(Decision.METHOD_SIZE, decide(10.0, 100, 2901, BUDGET));
+        assertEquals(Decision.METHOD_SIZE, POLICY.decide(false, true, 10.0, 5, 2999, BUDGET));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.pointsto.api.HostVM;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.hosted.ImageBuildCache;
+import com.oracle.svm.hosted.NativeImageOptions;
+
+/**
+ * Tests that the image build cache reuses the output of a build with the same inputs, misses when
+ * an input changed, and never leaves an incomplete entry behind.
+ */
+public class ImageBuildCacheTest {
+
+    private static final String[] ARGUMENTS = {"-H:Name=cached", "-H:Class=Main"};
+
+    private Path root;
+    private Path classpath;
+    private final List<String> warnings = new ArrayList<>();
+
+    @Before
+    public void createDirectories() throws IOException {
+        root = Files.createTempDirectory("ImageBuildCacheTest");
+        classpath = Files.createDirectories(root.resolve("classpath"));
+        Files.write(classpath.resolve("Main.class"), "version 1".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void deleteDirectories() throws IOException {
+        try (Stream<Path> stream = Files.walk(root)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private OptionValues options(Path cacheDirectory, Path outputDirectory) {
+        EconomicMap<OptionKey<?>, Object> values = OptionValues.newOptionMap();
+        values.put(NativeImageOptions.ImageBuildCache, cacheDirectory.toString());
+        values.put(SubstrateOptions.Path, outputDirectory.toString());
+        values.put(SubstrateOptions.CLibraryPath, "");
+        return new OptionValues(values);
+    }
+
+    private ImageBuildCache cache(Path outputDirectory) {
+        return ImageBuildCache.create(options(root.resolve("cache"), outputDirectory), ARGUMENTS, new String[]{classpath.toString()});
+    }
+
+    /** Collects the warnings of the build cache, which only calls {@link HostVM#warn}. */
+    private HostVM hostVM() {
+        return (HostVM) Proxy.newProxyInstance(HostVM.class.getClassLoader(), new Class<?>[]{HostVM.class}, (proxy, method, args) -> {
+            assertEquals("warn", method.getName());
+            warnings.add((String) args[0]);
+            return null;
+        });
+    }
+
+    private static void build(Path outputDirectory, String image) throws IOException {
+        Files.createDirectories(outputDirectory);
+        Files.write(outputDirectory.resolve("cached"), image.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private List<String> cacheEntries() throws IOException {
+        try (Stream<Path> stream = Files.list(root.resolve("cache"))) {
+            return stream.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void disabledWithoutDirectory() {
+        EconomicMap<OptionKey<?>, Object> values = OptionValues.newOptionMap();
+        assertNull(ImageBuildCache.create(new OptionValues(values), ARGUMENTS, new String[0]));
+    }
+
+    @Test
+    public void hitAfterStore() throws IOException {
+        Path first = root.resolve("first");
+        ImageBuildCache cache = cache(first);
+        assertFalse(cache.restore());
+        build(first, "image 1");
+        cache.store(hostVM());
+
+        Path second = root.resolve("second");
+        ImageBuildCache reused = cache(second);
+        assertNotNull(reused);
+        assertTrue(reused.restore());
+        assertEquals("image 1", read(second.resolve("cached")));
+        assertTrue(warnings.isEmpty());
+    }
+
+    @Test
+    public void missAfterClassChanged() throws IOException {
+        Path first = root.resolve("first");
+        ImageBuildCache cache = cache(first);
+        build(first, "image 1");
+        cache.store(hostVM());
+
+        Files.write(classpath.resolve("Main.class"), "version 2".getBytes(StandardCharsets.UTF_8));
+        assertFalse(cache(root.resolve("second")).restore());
+    }
+
+    @Test
+    public void storeLeavesOnlyCompleteEntries() throws IOException {
+        Path first = root.resolve("first");
+        ImageBuildCache cache = cache(first);
+        build(first, "image 1");
+        cache.store(hostVM());
+        List<String> entries = cacheEntries();
+        assertEquals(1, entries.size());
+        assertFalse(entries.get(0).contains("incomplete"));
+
+        /* A second build with the same inputs keeps the entry that is already there. */
+        Path second = root.resolve("second");
+        ImageBuildCache concurrent = cache(second);
+        build(second, "image 2");
+        concurrent.store(hostVM());
+        assertEquals(entries, cacheEntries());
+        assertTrue(cache(root.resolve("third")).restore());
+        assertEquals("image 1", read(root.resolve("third").resolve("cached")));
+    }
+
+    @Test
+    public void failedStoreWarns() throws IOException {
+        /* The cache directory cannot be created because a file is in the way. */
+        Files.write(root.resolve("cache"), new byte[0]);
+        Path first = root.resolve("first");
+        ImageBuildCache cache = cache(first);
+        build(first, "image 1");
+        cache.store(hostVM());
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).startsWith("could not store the image in the build cache"));
+        assertTrue(Files.isRegularFile(root.resolve("cache")));
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.graalvm.compiler.options.OptionValues;
+
+import com.oracle.graal.pointsto.api.HostVM;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * A cache of built images, enabled with {@link NativeImageOptions#ImageBuildCache}. An image is
+ * reused if none of the inputs of the image builder changed: the command line arguments, the
+ * contents of the image class path, of the class path of the image builder itself, and of the
+ * directories in {@link SubstrateOptions#CLibraryPath}.
+ * <p>
+ * The cache works on whole images only: if any input changed, the image is built from scratch and
+ * no compiled methods of an earlier build are reused. Reusing the code of single methods would need
+ * a key per method that also covers the analysis results the code depends on, and the image heap
+ * and code layout are only fixed when the whole image is linked.
+ * <p>
+ * A cache entry holds the files that a build created or modified in the output directory
+ * ({@link SubstrateOptions#Path}), but not in its subdirectories. Changes of the C compiler, the
+ * linker and system header files are not detected.
+ */
+public final class ImageBuildCache {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Files modified this shortly before the build started can have been written by the build. */
+    private static final long TIMESTAMP_GRANULARITY_MILLIS = 2000;
+
+    private final Path entry;
+    private final Path outputDirectory;
+    private final Map<Path, BasicFileAttributes> outputsBeforeBuild;
+    private final long buildStartMillis;
+
+    private ImageBuildCache(Path entry, Path outputDirectory) {
+        this.entry = entry;
+        this.outputDirectory = outputDirectory;
+        this.outputsBeforeBuild = snapshot(outputDirectory);
+        this.buildStartMillis = System.currentTimeMillis();
+    }
+
+    /** Returns the cache for a build with these inputs, or null if the cache is not enabled. */
+    public static ImageBuildCache create(OptionValues options, String[] arguments, String[] classpath) {
+        String cacheDirectory = NativeImageOptions.ImageBuildCache.getValue(options);
+        if (cacheDirectory.isEmpty()) {
+            return null;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+        try {
+            update(digest, System.getProperty("java.home"));
+            update(digest, System.getProperty("java.vm.version"));
+            for (String argument : arguments) {
+                update(digest, argument);
+            }
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                hashPath(digest, entry);
+            }
+            for (String entry : classpath) {
+                hashPath(digest, entry);
+            }
+            for (String entry : SubstrateOptions.CLibraryPath.getValue(options).split(",")) {
+                hashPath(digest, entry);
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            throw UserError.abort("Can not compute the key of the image build cache: " + ex.getMessage());
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b & 0xff));
+        }
+        Path outputDirectory = Paths.get(SubstrateOptions.Path.getValue(options));
+        return new ImageBuildCache(Paths.get(cacheDirectory).resolve(key.toString()), outputDirectory);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void hashPath(MessageDigest digest, String pathName) throws IOException {
+        if (pathName.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(pathName).toAbsolutePath().normalize();
+        update(digest, path.toString());
+        if (!Files.exists(path)) {
+            update(digest, "<missing>");
+        } else if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(path)) {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                update(digest, path.relativize(file).toString());
+                hashContents(digest, file);
+            }
+        } else {
+            hashContents(digest, path);
+        }
+    }
+
+    private static void hashContents(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        digest.update((byte) 0);
+    }
+
+    /** The regular files of a directory, with their attributes. */
+    private static Map<Path, BasicFileAttributes> snapshot(Path directory) {
+        Map<Path, BasicFileAttributes> result = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) stream::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    result.put(file.getFileName(), attributes);
+                }
+            }
+        } catch (IOException ex) {
+            throw UserError.abort("Can not list the output directory " + directory + ": " + ex.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Copies the files of a previous build with the same inputs to the output directory. Returns
+     * false if there was no such build.
+     */
+    public boolean restore() {
+        if (!Files.isDirectory(entry)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(outputDirectory);
+            try (Stream<Path> stream = Files.list(entry)) {
+                for (Path file : (Iterable<Path>) stream::iterator) {
+                    Files.copy(file, outputDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        } catch (IOException ex) {
+            throw UserError.abort("Can not copy the image from the build cache " + entry + ": " + ex.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Stores the files that the build created or modified in the output directory. A build that
+     * does not complete its entry, for example because another build stores the same entry at the
+     * same time, leaves no entry behind. Failing to store the entry does not fail the build and is
+     * reported as a warning of the host VM.
+     */
+    public void store(HostVM hostVM) {
+        Map<Path, BasicFileAttributes> outputsAfterBuild = snapshot(outputDirectory);
+        List<Path> outputs = new ArrayList<>();
+        outputsAfterBuild.forEach((file, after) -> {
+            BasicFileAttributes before = outputsBeforeBuild.get(file);
+            if (before == null || before.size() != after.size() || !before.lastModifiedTime().equals(after.lastModifiedTime()) ||
+                            after.lastModifiedTime().toMillis() >= buildStartMillis - TIMESTAMP_GRANULARITY_MILLIS) {
+                outputs.add(file);
+            }
+        });
+        if (outputs.isEmpty() || Files.exists(entry)) {
+            return;
+        }
+
+        Path incomplete = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            incomplete = Files.createTempDirectory(entry.getParent(), entry.getFileName() + ".incomplete");
+            for (Path file : outputs) {
+                Files.copy(outputDirectory.resolve(file), incomplete.resolve(file), StandardCopyOption.COPY_ATTRIBUTES);
+            }
+            Files.move(incomplete, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            hostVM.warn("could not store the image in the build cache " + entry + ": " + ex.getMessage());
+            if (incomplete != null && Files.exists(incomplete)) {
+                NativeImageGenerator.deleteAll(incomplete);
+            }
+        }
+    }
+}
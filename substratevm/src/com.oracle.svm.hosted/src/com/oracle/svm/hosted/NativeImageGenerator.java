@@ -166,6 +166,7 @@ import com.oracle.svm.core.graal.snippets.ExceptionSnippets;
 import com.oracle.svm.core.graal.snippets.MonitorSnippets;
 import com.oracle.svm.core.graal.snippets.NodeLoweringProvider;
 import com.oracle.svm.core.graal.snippets.NonSnippetLowerings;
+import com.oracle.svm.core.graal.snippets.ProfileSnippets;
 import com.oracle.svm.core.graal.snippets.TypeSnippets;
 import com.oracle.svm.core.graal.stackvalue.StackValueNode;
 import com.oracle.svm.core.graal.stackvalue.StackValuePhase;
@@ -176,6 +177,9 @@ import com.oracle.svm.core.jdk.LocalizationFeature;
 import com.oracle.svm.core.option.HostedOptionValues;
 import com.oracle.svm.core.option.RuntimeOptionValues;
 import com.oracle.svm.core.os.OSInterface;
+import com.oracle.svm.core.pgo.BranchProfile;
+import com.oracle.svm.core.pgo.ExecutionProfile;
+import com.oracle.svm.core.pgo.ReceiverProfile;
 import com.oracle.svm.core.snippets.SnippetRuntime;
 import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
 import com.oracle.svm.core.util.InterruptImageBuilding;
@@ -579,6 +583,16 @@ public class NativeImageGenerator {
                             if (NativeImageOptions.DeoptimizeAll.getValue()) {
                                 bigbang.addRootMethod(DeoptTester.class.getMethod("deoptTest"));
                             }
+
+                            if (ExecutionProfile.Options.PGOInstrument.getValue()) {
+                                /*
+                                 * The profiles are only created when the instrumented methods are
+                                 * compiled. The counting code is registered with the snippets.
+                                 */
+                                bigbang.addSystemClass(BranchProfile.class, false, false).registerAsInHeap();
+                                bigbang.addSystemClass(ReceiverProfile.class, false, false).registerAsInHeap();
+                                bigbang.addSystemClass(Class[].class, false, false).registerAsInHeap();
+                            }
                         } catch (NoSuchMethodException ex) {
                             throw VMError.shouldNotReachHere(ex);
                         }
@@ -1011,6 +1025,10 @@ public class NativeImageGenerator {
                 DeoptTestSnippets.registerLowerings(options, factories, providers, snippetReflection, lowerings);
             }
 
+            if (hosted && ExecutionProfile.Options.PGOInstrument.getValue()) {
+                ProfileSnippets.registerLowerings(options, factories, providers, snippetReflection, lowerings);
+            }
+
             featureHandler.forEachGraalFeature(feature -> feature.registerLowerings(runtimeConfig, options, factories, providers, snippetReflection, lowerings, hosted));
         } catch (Throwable e) {
             throw debug.handle(e);
@@ -1421,7 +1439,7 @@ public class NativeImageGenerator {
         return tempDirectory.toAbsolutePath();
     }
 
-    private static void deleteAll(Path path) {
+    static void deleteAll(Path path) {
         try {
             Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
                 @Override
@@ -168,6 +168,11 @@ public class NativeImageGeneratorRunner implements ImageBuildTask {
             // print the time here to avoid interactions with flags processing
             classlistTimer.print();
 
+            ImageBuildCache buildCache = ImageBuildCache.create(parsedHostedOptions, arguments, classpath);
+            if (buildCache != null && buildCache.restore()) {
+                throw new InterruptImageBuilding("reused image " + imageName + " from the image build cache");
+            }
+
             Map<Method, CEntryPointData> entryPoints = new HashMap<>();
             Method mainEntryPoint = null;
             JavaMainSupport javaMainSupport = null;
@@ -235,6 +240,9 @@ public class NativeImageGeneratorRunner implements ImageBuildTask {
             NativeImageGenerator generator = new NativeImageGenerator(imageClassLoader);
             generator.run(optionParser, entryPoints, mainEntryPoint, javaMainSupport, imageName, k, SubstitutionProcessor.IDENTITY,
                             analysisExecutor, compilationExecutor, optionParser.getRuntimeOptionNames());
+            if (buildCache != null) {
+                buildCache.store(generator.getBigbang().getHostVM());
+            }
         } catch (InterruptImageBuilding e) {
             e.getReason().ifPresent(NativeImageGeneratorRunner::info);
             return 0;
@@ -93,6 +93,9 @@ public class NativeImageOptions {
     @Option(help = "Directory for temporary files generated during native image generation. If this option is specified, the temporary files are not deleted so that you can inspect them after native image generation")//
     public static final HostedOptionKey<String> TempDirectory = new HostedOptionKey<>("");
 
+    @Option(help = "Directory of a cache of built images. An image is copied from the cache instead of being built again if the arguments of the image builder and the contents of the class path did not change. Only whole images are reused, never single compiled methods.")//
+    public static final HostedOptionKey<String> ImageBuildCache = new HostedOptionKey<>("");
+
     @Option(help = "Test Mach-O debuginfo generation")//
     public static final HostedOptionKey<Boolean> MachODebugInfoTesting = new HostedOptionKey<>(false);
 
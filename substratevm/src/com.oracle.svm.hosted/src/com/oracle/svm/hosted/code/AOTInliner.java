@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.code;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.core.target.Backend;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugContext.Description;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.AbstractEndNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.InvokeWithExceptionNode;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.ReturnNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.UnwindNode;
+import org.graalvm.compiler.nodes.VirtualState;
+import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
+import org.graalvm.compiler.nodes.type.StampTool;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.inlining.InliningUtil;
+import org.graalvm.compiler.phases.graph.FixedNodeProbabilityCache;
+import org.graalvm.compiler.phases.tiers.PhaseContext;
+import org.graalvm.compiler.phases.util.GraphOrder;
+
+import com.oracle.graal.pointsto.util.CompletionExecutor;
+import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
+import com.oracle.svm.core.annotate.DeoptTest;
+import com.oracle.svm.core.annotate.Specialize;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.graal.meta.RuntimeConfiguration;
+import com.oracle.svm.core.graal.stackvalue.StackValueNode;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.meta.HostedUniverse;
+
+/**
+ * Inlines methods into their callers after all methods have been parsed, before they are compiled
+ * ahead of time.
+ * <p>
+ * The frequency of a call site is estimated relative to an invocation of the caller, from the
+ * branch probabilities and loop frequencies of the parsed graph. These come from the static
+ * analysis, or from an execution profile if one is used. Trivial methods and methods annotated
+ * with {@link com.oracle.svm.core.annotate.AlwaysInline} are inlined at every call site. Other
+ * methods are inlined if they are small in relation to the frequency of the call site, as long as
+ * the caller stays below a maximum size and the total size of all methods does not grow by more
+ * than a budget. Call sites with the best ratio of frequency to size are inlined first.
+ * <p>
+ * Each round inlines into the graphs that {@link CompileQueue} parsed, using the graphs of the
+ * callees as they were at the start of the round. Later rounds only consider the calls that were
+ * inlined in the previous round.
+ */
+public class AOTInliner {
+
+    public static class Options {
+        @Option(help = "Inline methods during ahead-of-time compilation, guided by estimated call-site frequencies and code-size budgets.")//
+        public static final HostedOptionKey<Boolean> AOTInline = new HostedOptionKey<>(true);
+
+        @Option(help = "Methods without calls that have at most this many nodes are trivial and inlined at every call site.")//
+        public static final HostedOptionKey<Integer> AOTInlineTrivialSize = new HostedOptionKey<>(10);
+
+        @Option(help = "The number of nodes a method may have to be inlined at a call site that is executed once per invocation of the caller. Scales with the estimated frequency of the call site.")//
+        public static final HostedOptionKey<Integer> AOTInlineSizePerFrequency = new HostedOptionKey<>(40);
+
+        @Option(help = "The maximum number of nodes of a method that is inlined because of a frequent call site.")//
+        public static final HostedOptionKey<Integer> AOTInlineMaxCalleeSize = new HostedOptionKey<>(150);
+
+        @Option(help = "Call sites that are estimated to be executed less often than this per invocation of the caller only get trivial methods inlined.")//
+        public static final HostedOptionKey<Double> AOTInlineMinFrequency = new HostedOptionKey<>(0.1);
+
+        @Option(help = "The number of nodes beyond which no more methods are inlined into a caller.")//
+        public static final HostedOptionKey<Integer> AOTInlineMaxMethodSize = new HostedOptionKey<>(3000);
+
+        @Option(help = "The percentage by which inlining of methods that are neither trivial nor @AlwaysInline may increase the total size of all methods.")//
+        public static final HostedOptionKey<Integer> AOTInlineBudgetPercent = new HostedOptionKey<>(30);
+
+        @Option(help = "The number of inlining rounds. Each round can inline the callees of the methods that were inlined in the previous round.")//
+        public static final HostedOptionKey<Integer> AOTInlineRounds = new HostedOptionKey<>(2);
+
+        @Option(help = "Print the inlining decision for each call site that is considered for inlining.")//
+        public static final HostedOptionKey<Boolean> PrintAOTInlining = new HostedOptionKey<>(false);
+    }
+
+    /** The outcome of considering a call site for inlining, as printed by PrintAOTInlining. */
+    public enum Decision {
+        ALWAYS_INLINE(true, "@AlwaysInline"),
+        TRIVIAL(true, "trivial"),
+        FREQUENT(true, "frequent"),
+        METHOD_SIZE(false, "caller too large"),
+        COLD(false, "cold"),
+        TOO_LARGE(false, "callee too large"),
+        OUT_OF_BUDGET(false, "budget exhausted");
+
+        final boolean inline;
+        final String description;
+
+        Decision(boolean inline, String description) {
+            this.inline = inline;
+            this.description = description;
+        }
+
+        public boolean isInline() {
+            return inline;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /** The limits of {@link Options} that decide whether a call site is inlined. */
+    public static final class Policy {
+        private final int maxMethodSize;
+        private final double minFrequency;
+        private final int sizePerFrequency;
+        private final int maxCalleeSize;
+
+        public Policy(int maxMethodSize, double minFrequency, int sizePerFrequency, int maxCalleeSize) {
+            this.maxMethodSize = maxMethodSize;
+            this.minFrequency = minFrequency;
+            this.sizePerFrequency = sizePerFrequency;
+            this.maxCalleeSize = maxCalleeSize;
+        }
+
+        static Policy fromOptions() {
+            return new Policy(Options.AOTInlineMaxMethodSize.getValue(), Options.AOTInlineMinFrequency.getValue(), Options.AOTInlineSizePerFrequency.getValue(),
+                            Options.AOTInlineMaxCalleeSize.getValue());
+        }
+
+        /**
+         * Decide about a call site with the estimated {@code frequency} per invocation of a caller
+         * of {@code callerSize} nodes, to a callee of {@code calleeSize} nodes, when
+         * {@code budgetLeft} nodes of the budget for frequent call sites are left.
+         */
+        public Decision decide(boolean alwaysInline, boolean trivial, double frequency, int calleeSize, int callerSize, long budgetLeft) {
+            if (alwaysInline) {
+                return Decision.ALWAYS_INLINE;
+            } else if (callerSize + calleeSize > maxMethodSize) {
+                return Decision.METHOD_SIZE;
+            } else if (trivial) {
+                return Decision.TRIVIAL;
+            } else if (frequency < minFrequency) {
+                return Decision.COLD;
+            } else if (calleeSize > Math.min(maxCalleeSize, sizePerFrequency * frequency)) {
+                return Decision.TOO_LARGE;
+            } else if (calleeSize > budgetLeft) {
+                return Decision.OUT_OF_BUDGET;
+            }
+            return Decision.FREQUENT;
+        }
+    }
+
+    static final class CallSite {
+        final int round;
+        final HostedMethod caller;
+        final Invoke invoke;
+        final HostedMethod callee;
+        final double frequency;
+        final int calleeSize;
+        Decision decision;
+
+        CallSite(int round, HostedMethod caller, Invoke invoke, HostedMethod callee, double frequency, int calleeSize) {
+            this.round = round;
+            this.caller = caller;
+            this.invoke = invoke;
+            this.callee = callee;
+            this.frequency = frequency;
+            this.calleeSize = calleeSize;
+        }
+
+        /** Call sites that are inlined regardless of their frequency are decided first. */
+        int priority() {
+            if (callee.shouldBeInlined()) {
+                return 0;
+            } else if (callee.compilationInfo.isTrivialMethod()) {
+                return 1;
+            }
+            return 2;
+        }
+
+        double benefit() {
+            return frequency / Math.max(calleeSize, 1);
+        }
+    }
+
+    private static final Comparator<CallSite> DECISION_ORDER = Comparator.comparingInt(CallSite::priority)
+                    .thenComparing(Comparator.comparingDouble(CallSite::benefit).reversed())
+                    .thenComparing(site -> site.caller.format("%H.%n(%p)"))
+                    .thenComparingInt(site -> site.invoke.bci())
+                    .thenComparing(site -> site.callee.format("%H.%n(%p)"));
+
+    private final HostedUniverse universe;
+    private final RuntimeConfiguration runtimeConfig;
+    private final CompletionExecutor executor;
+    private final Policy policy;
+
+    private final Map<HostedMethod, Integer> sizes = new ConcurrentHashMap<>();
+    /** The calls that were inlined in the last round, by the method they were inlined into. */
+    private Map<HostedMethod, List<Invoke>> inlinedInvokes;
+    private final List<CallSite> report = new ArrayList<>();
+
+    private long totalSize;
+    private long budget;
+    private long budgetUsed;
+
+    public AOTInliner(HostedUniverse universe, RuntimeConfiguration runtimeConfig, CompletionExecutor executor) {
+        this.universe = universe;
+        this.runtimeConfig = runtimeConfig;
+        this.executor = executor;
+        this.policy = Policy.fromOptions();
+    }
+
+    /**
+     * The size of a graph: the number of nodes that are likely to result in machine code. Frame
+     * states, parameters, constants and the nodes that only delimit blocks are not counted.
+     */
+    static int size(StructuredGraph graph) {
+        int size = 0;
+        for (Node node : graph.getNodes()) {
+            if (!(node instanceof VirtualState || node instanceof ParameterNode || node instanceof ConstantNode ||
+                            node instanceof AbstractBeginNode || node instanceof AbstractEndNode || node instanceof ReturnNode)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /** Whether a method with this parsed graph is inlined at every call site. */
+    static boolean isTrivial(StructuredGraph graph) {
+        return !graph.getInvokes().iterator().hasNext() && size(graph) <= Options.AOTInlineTrivialSize.getValue();
+    }
+
+    private int sizeOf(HostedMethod method) {
+        return sizes.computeIfAbsent(method, m -> size(m.compilationInfo.graph));
+    }
+
+    public void inline() throws InterruptedException {
+        Collection<HostedMethod> methods = universe.getMethods();
+        totalSize = methods.parallelStream().filter(method -> method.compilationInfo.graph != null).mapToLong(this::sizeOf).sum();
+        budget = totalSize * Options.AOTInlineBudgetPercent.getValue() / 100;
+
+        for (int round = 0; round < Options.AOTInlineRounds.getValue(); round++) {
+            final int currentRound = round;
+            List<CallSite> callSites = methods.parallelStream()
+                            .filter(AOTInliner::canInlineInto)
+                            .flatMap(method -> collectCallSites(currentRound, method).stream())
+                            .sorted(DECISION_ORDER)
+                            .collect(Collectors.toList());
+            Map<HostedMethod, List<CallSite>> accepted = decide(callSites);
+            if (Options.PrintAOTInlining.getValue()) {
+                report.addAll(callSites);
+            }
+            if (accepted.isEmpty()) {
+                break;
+            }
+
+            Map<HostedMethod, StructuredGraph> inlinedGraphs = new ConcurrentHashMap<>();
+            inlinedInvokes = new ConcurrentHashMap<>();
+            executor.init();
+            accepted.forEach((caller, sites) -> executor.execute(new InlineTask(caller, sites, inlinedGraphs)));
+            executor.start();
+            executor.complete();
+            executor.shutdown();
+
+            /* Install the new graphs only now, because they were inlined from the old ones. */
+            inlinedGraphs.forEach((caller, graph) -> {
+                caller.compilationInfo.graph = graph;
+                sizes.remove(caller);
+            });
+        }
+
+        if (Options.PrintAOTInlining.getValue()) {
+            printReport();
+        }
+    }
+
+    /** Methods that are compiled from their parsed graph and that need no exact frame states. */
+    private static boolean canInlineInto(HostedMethod method) {
+        CompilationInfo info = method.compilationInfo;
+        return info.graph != null && info.isParsedFromBytecode && !info.isDeoptTarget() && info.getDeoptTargetMethod() == null &&
+                        info.getCustomCompileFunction() == null && info.specializedArguments == null && method.getAnnotation(Specialize.class) == null;
+    }
+
+    private static boolean canInline(HostedMethod caller, HostedMethod callee) {
+        CompilationInfo info = callee.compilationInfo;
+        if (callee.equals(caller) || !callee.canBeInlined() || callee.isEntryPoint() || callee.getAnnotation(DeoptTest.class) != null) {
+            return false;
+        }
+        if (info.graph == null || !info.isParsedFromBytecode || info.isDeoptTarget() || info.getDeoptTargetMethod() != null ||
+                        info.getCustomCompileFunction() != null || info.specializedArguments != null) {
+            return false;
+        }
+        /*
+         * Safepoints would be inserted into inlined uninterruptible code, and stack values must be
+         * allocated in the frame of the method that uses them.
+         */
+        return (caller.getAnnotation(Uninterruptible.class) != null) == (callee.getAnnotation(Uninterruptible.class) != null) &&
+                        info.graph.getNodes(StackValueNode.TYPE).isEmpty() &&
+                        info.graph.getGuardsStage().ordinal() >= caller.compilationInfo.graph.getGuardsStage().ordinal();
+    }
+
+    private List<CallSite> collectCallSites(int round, HostedMethod caller) {
+        Iterable<Invoke> invokes;
+        if (round == 0) {
+            invokes = caller.compilationInfo.graph.getInvokes();
+        } else {
+            invokes = inlinedInvokes.getOrDefault(caller, Collections.emptyList());
+        }
+
+        List<CallSite> result = new ArrayList<>();
+        FixedNodeProbabilityCache probabilities = new FixedNodeProbabilityCache();
+        for (Invoke invoke : invokes) {
+            if (InliningUtil.checkInvokeConditions(invoke) != null) {
+                continue;
+            }
+            MethodCallTargetNode callTarget = (MethodCallTargetNode) invoke.callTarget();
+            HostedMethod callee = (HostedMethod) callTarget.targetMethod();
+            if (!callTarget.invokeKind().isDirect() || !canInline(caller, callee)) {
+                continue;
+            }
+            /* Null checks and exception handlers that are missing would have to deoptimize. */
+            if (!callTarget.isStatic() && !StampTool.isPointerNonNull(callTarget.receiver())) {
+                continue;
+            }
+            if (!(invoke instanceof InvokeWithExceptionNode) && callee.compilationInfo.graph.getNodes(UnwindNode.TYPE).isNotEmpty()) {
+                continue;
+            }
+            result.add(new CallSite(round, caller, invoke, callee, probabilities.applyAsDouble(invoke.asNode()), sizeOf(callee)));
+        }
+        return result;
+    }
+
+    private Map<HostedMethod, List<CallSite>> decide(List<CallSite> callSites) {
+        Map<HostedMethod, Integer> callerSizes = new HashMap<>();
+        Map<HostedMethod, List<CallSite>> accepted = new LinkedHashMap<>();
+        for (CallSite site : callSites) {
+            int callerSize = callerSizes.computeIfAbsent(site.caller, this::sizeOf);
+            site.decision = decide(site, callerSize);
+            if (site.decision.inline) {
+                callerSizes.put(site.caller, callerSize + site.calleeSize);
+                if (site.decision == Decision.FREQUENT) {
+                    budgetUsed += site.calleeSize;
+                }
+                accepted.computeIfAbsent(site.caller, caller -> new ArrayList<>()).add(site);
+            }
+        }
+        return accepted;
+    }
+
+    private Decision decide(CallSite site, int callerSize) {
+        return policy.decide(site.callee.shouldBeInlined(), site.callee.compilationInfo.isTrivialMethod(), site.frequency, site.calleeSize, callerSize, budget - budgetUsed);
+    }
+
+    class InlineTask implements DebugContextRunnable {
+        private final HostedMethod caller;
+        private final List<CallSite> sites;
+        private final Map<HostedMethod, StructuredGraph> inlinedGraphs;
+
+        InlineTask(HostedMethod caller, List<CallSite> sites, Map<HostedMethod, StructuredGraph> inlinedGraphs) {
+            this.caller = caller;
+            this.sites = sites;
+            this.inlinedGraphs = inlinedGraphs;
+        }
+
+        @Override
+        @SuppressWarnings("try")
+        public void run(DebugContext debug) {
+            /* The graph of the caller can be inlined into other methods concurrently. */
+            List<UnmodifiableEconomicMap<Node, Node>> duplicates = new ArrayList<>(1);
+            StructuredGraph graph = (StructuredGraph) caller.compilationInfo.graph.copy(duplicates::add, debug);
+
+            try (DebugContext.Scope s = debug.scope("Inlining", graph, caller, this)) {
+                List<Invoke> newInvokes = new ArrayList<>();
+                for (CallSite site : sites) {
+                    Invoke invoke = (Invoke) duplicates.get(0).get(site.invoke.asNode());
+                    StructuredGraph calleeGraph = site.callee.compilationInfo.graph;
+                    UnmodifiableEconomicMap<Node, Node> inlined = InliningUtil.inline(invoke, calleeGraph, false, site.callee);
+                    for (Invoke calleeInvoke : calleeGraph.getInvokes()) {
+                        Node newInvoke = inlined.get(calleeInvoke.asNode());
+                        if (newInvoke != null) {
+                            newInvokes.add((Invoke) newInvoke);
+                        }
+                    }
+                }
+                Backend backend = runtimeConfig.lookupBackend(caller);
+                new CanonicalizerPhase().apply(graph, new PhaseContext(backend.getProviders()));
+
+                /* Check that graph is in good shape after inlining. */
+                assert GraphOrder.assertSchedulableGraph(graph);
+
+                inlinedGraphs.put(caller, graph);
+                inlinedInvokes.put(caller, newInvokes);
+            } catch (Throwable ex) {
+                throw debug.handle(ex);
+            }
+        }
+
+        @Override
+        public Description getDescription() {
+            return new Description(caller, toString());
+        }
+    }
+
+    private void printReport() {
+        int inlined = 0;
+        System.out.println("*** AOT inlining decisions");
+        System.out.println("Round; Caller; BCI; Callee; Frequency; Callee size; Decision");
+        for (CallSite site : report) {
+            System.out.format("%d; %s; %d; %s; %.3f; %d; %s %s%n", site.round, site.caller.format("%H.%n(%p)"), site.invoke.bci(), site.callee.format("%H.%n(%p)"),
+                            site.frequency, site.calleeSize, site.decision.inline ? "inlined:" : "not inlined:", site.decision.description);
+            if (site.decision.inline) {
+                inlined++;
+            }
+        }
+        System.out.format("Inlined %d of %d call sites. Size of all methods before inlining: %d nodes, added by inlining frequent call sites: %d nodes (budget %d nodes)%n",
+                        inlined, report.size(), totalSize, budgetUsed, budget);
+    }
+}
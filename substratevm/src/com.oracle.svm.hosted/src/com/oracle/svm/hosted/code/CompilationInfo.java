@@ -43,6 +43,13 @@ public class CompilationInfo {
 
     protected boolean isTrivialMethod;
 
+    /**
+     * Whether the graph was parsed from bytecode. Only such graphs are inlined by
+     * {@link AOTInliner}, because other graphs can contain nodes that are only valid in their own
+     * method.
+     */
+    protected boolean isParsedFromBytecode;
+
     protected boolean canDeoptForTesting;
 
     /**
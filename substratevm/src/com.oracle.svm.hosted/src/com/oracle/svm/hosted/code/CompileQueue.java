@@ -79,6 +79,7 @@ import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.extended.ForeignCallNode;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.BytecodeExceptionMode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
 import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
 import org.graalvm.compiler.options.OptionValues;
@@ -118,6 +119,7 @@ import com.oracle.svm.core.graal.nodes.DeoptTestNode;
 import com.oracle.svm.core.graal.phases.DeadStoreRemovalPhase;
 import com.oracle.svm.core.graal.stackvalue.StackValueNode;
 import com.oracle.svm.core.option.HostedOptionValues;
+import com.oracle.svm.core.pgo.ExecutionProfile;
 import com.oracle.svm.core.util.InterruptImageBuilding;
 import com.oracle.svm.core.util.VMError;
 import com.oracle.svm.hosted.FeatureHandler;
@@ -126,6 +128,7 @@ import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.meta.HostedMethod;
 import com.oracle.svm.hosted.meta.HostedUniverse;
 import com.oracle.svm.hosted.meta.UniverseBuilder;
+import com.oracle.svm.hosted.pgo.PGOInstrumentationPlugin;
 import com.oracle.svm.hosted.phases.DevirtualizeCallsPhase;
 import com.oracle.svm.hosted.phases.HostedGraphBuilderPhase;
 import com.oracle.svm.hosted.phases.StrengthenStampsPhase;
@@ -160,6 +163,8 @@ public class CompileQueue {
     private final LIRSuites regularLIRSuites;
     private final LIRSuites deoptTargetLIRSuites;
     private final ConcurrentMap<Constant, DataSection.Data> dataCache;
+    /** Copies of the graph builder plugins with {@link PGOInstrumentationPlugin} installed. */
+    private final ConcurrentMap<Plugins, Plugins> instrumentedPlugins;
 
     public abstract static class CompileReason {
         /**
@@ -280,6 +285,7 @@ public class CompileQueue {
         this.optimisticOpts = OptimisticOptimizations.ALL.remove(OptimisticOptimizations.Optimization.UseLoopLimitChecks);
         this.deoptimizeAll = deoptimizeAll;
         this.dataCache = new ConcurrentHashMap<>();
+        this.instrumentedPlugins = new ConcurrentHashMap<>();
         this.executor = new CompletionExecutor(universe.getBigBang(), executorService);
 
         regularSuites = NativeImageGenerator.createSuites(featureHandler, runtimeConfig, snippetReflection, true);
@@ -310,6 +316,11 @@ public class CompileQueue {
             // Checking @MustNotSynchronize annotations does not take long enough to justify a
             // timer.
             MustNotSynchronizeAnnotationChecker.check(debug, universe.getMethods());
+            if (AOTInliner.Options.AOTInline.getValue()) {
+                try (StopTimer t = new Timer("(inline)").start()) {
+                    new AOTInliner(universe, runtimeConfig, executor).inline();
+                }
+            }
             beforeCompileAll(debug);
             try (StopTimer t = new Timer("(compile)").start()) {
                 compileAll();
@@ -558,6 +569,10 @@ public class CompileQueue {
                 assert GraphOrder.assertSchedulableGraph(graph);
 
                 method.compilationInfo.graph = graph;
+                if (needParsing) {
+                    method.compilationInfo.isParsedFromBytecode = true;
+                    method.compilationInfo.setTrivialMethod(AOTInliner.isTrivial(graph));
+                }
 
                 for (Invoke invoke : graph.getInvokes()) {
                     if (!canBeUsedForInlining(invoke)) {
@@ -592,7 +607,11 @@ public class CompileQueue {
     }
 
     protected GraphBuilderConfiguration createHostedGraphBuilderConfiguration(HostedProviders providers, @SuppressWarnings("unused") HostedMethod method) {
-        GraphBuilderConfiguration gbConf = GraphBuilderConfiguration.getDefault(providers.getGraphBuilderPlugins()).withBytecodeExceptionMode(BytecodeExceptionMode.ExplicitOnly);
+        Plugins plugins = providers.getGraphBuilderPlugins();
+        if (ExecutionProfile.Options.PGOInstrument.getValue()) {
+            plugins = instrumentedPlugins.computeIfAbsent(plugins, PGOInstrumentationPlugin::instrument);
+        }
+        GraphBuilderConfiguration gbConf = GraphBuilderConfiguration.getDefault(plugins).withBytecodeExceptionMode(BytecodeExceptionMode.ExplicitOnly);
         return gbConf;
     }
 
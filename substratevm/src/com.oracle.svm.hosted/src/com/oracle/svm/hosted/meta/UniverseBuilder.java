@@ -53,6 +53,7 @@ import com.oracle.graal.pointsto.meta.AnalysisMetaAccess;
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
 import com.oracle.graal.pointsto.meta.AnalysisType;
 import com.oracle.graal.pointsto.meta.AnalysisUniverse;
+import com.oracle.graal.pointsto.results.StaticAnalysisResults;
 import com.oracle.graal.pointsto.results.StaticAnalysisResultsBuilder;
 import com.oracle.graal.pointsto.typestate.TypeState;
 import com.oracle.svm.core.StaticFieldsSupport;
@@ -71,6 +72,7 @@ import com.oracle.svm.hosted.HostedConfiguration;
 import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.base.NumUtil;
 import com.oracle.svm.hosted.config.HybridLayout;
+import com.oracle.svm.hosted.pgo.PGOProfile;
 import com.oracle.svm.hosted.substitute.AnnotationSubstitutionProcessor;
 import com.oracle.svm.hosted.substitute.ComputedValueField;
 import com.oracle.svm.hosted.substitute.DeletedMethod;
@@ -368,8 +370,12 @@ public class UniverseBuilder {
 
     private void buildProfilingInformation() {
         /* Convert profiling information after all types and methods have been created. */
-        hUniverse.methods.entrySet().parallelStream()
-                        .forEach(entry -> entry.getValue().staticAnalysisResults = staticAnalysisResultsBuilder.makeResults(entry.getKey()));
+        PGOProfile profile = PGOProfile.load();
+        hUniverse.methods.entrySet().parallelStream().forEach(entry -> {
+            StaticAnalysisResults results = staticAnalysisResultsBuilder.makeResults(entry.getKey());
+            /* Add the branch probabilities and receiver types of an execution profile. */
+            entry.getValue().staticAnalysisResults = profile == null ? results : profile.apply(entry.getKey(), results);
+        });
 
         staticAnalysisResultsBuilder = null;
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.ProfilingPlugin;
+
+import com.oracle.svm.core.annotate.MustNotAllocate;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.graal.nodes.ProfileBranchNode;
+import com.oracle.svm.core.graal.nodes.ProfileNode;
+import com.oracle.svm.core.graal.nodes.ProfileReceiverNode;
+import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.core.pgo.BranchProfile;
+import com.oracle.svm.core.pgo.ExecutionProfile;
+import com.oracle.svm.core.pgo.ReceiverProfile;
+import com.oracle.svm.hosted.meta.HostedMethod;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Instruments the methods that are compiled ahead of time for {@link ExecutionProfile}: each
+ * conditional branch and each virtual or interface call gets a {@link ProfileNode}, which is
+ * lowered to the increment of a counter, as {@code HotSpotProfilingPlugin} does for HotSpot.
+ * <p>
+ * Code that must not be interrupted or must not allocate, which is mostly code of the VM itself, is
+ * not instrumented, and neither is anything inlined into it. Neither are deoptimization targets,
+ * which must match their original methods.
+ */
+public final class PGOInstrumentationPlugin implements ProfilingPlugin {
+
+    /** Returns a copy of {@code plugins} with this plugin as the profiling plugin. */
+    public static Plugins instrument(Plugins plugins) {
+        Plugins result = new Plugins(plugins);
+        result.setProfilingPlugin(new PGOInstrumentationPlugin());
+        return result;
+    }
+
+    @Override
+    public boolean shouldProfile(GraphBuilderContext b, ResolvedJavaMethod method) {
+        if (b.parsingIntrinsic() || !(method instanceof HostedMethod)) {
+            return false;
+        }
+        /* The root of the compilation decides for everything that is inlined into it. */
+        ResolvedJavaMethod root = b.getGraph().method();
+        if (root instanceof HostedMethod && !isInstrumentable((HostedMethod) root)) {
+            return false;
+        }
+        return isInstrumentable((HostedMethod) method);
+    }
+
+    private static boolean isInstrumentable(HostedMethod method) {
+        return !method.compilationInfo.isDeoptTarget() &&
+                        method.getAnnotation(Uninterruptible.class) == null &&
+                        method.getAnnotation(MustNotAllocate.class) == null &&
+                        !method.getDeclaringClass().toJavaName(true).startsWith(ExecutionProfile.class.getPackage().getName() + ".");
+    }
+
+    @Override
+    public void profileInvoke(GraphBuilderContext b, ResolvedJavaMethod method, FrameState frameState) {
+        /* Method entries are not counted. */
+    }
+
+    @Override
+    public void profileGoto(GraphBuilderContext b, ResolvedJavaMethod method, int bci, int targetBci, FrameState frameState) {
+        /* Unconditional jumps carry no information. */
+    }
+
+    @Override
+    public void profileIf(GraphBuilderContext b, ResolvedJavaMethod method, int bci, LogicNode condition, int trueBranchBci, int falseBranchBci, FrameState frameState) {
+        assert shouldProfile(b, method);
+        /*
+         * The branch is taken, in the sense of ProfilingInfo.getBranchTakenProbability, if
+         * execution does not fall through to the next bytecode.
+         */
+        boolean takenIfTrue = trueBranchBci != PGOProfile.fallThroughBci(method, bci);
+        ValueNode trueValue = b.append(ConstantNode.forBoolean(takenIfTrue));
+        ValueNode falseValue = b.append(ConstantNode.forBoolean(!takenIfTrue));
+        ValueNode taken = b.append(new ConditionalNode(condition, trueValue, falseValue));
+
+        BranchProfile profile = ExecutionProfile.branchProfile(PGOProfile.methodKey(method), bci);
+        ProfileNode p = b.append(new ProfileBranchNode(profileConstant(b, profile), taken));
+        p.setStateBefore(frameState);
+    }
+
+    /** Count the receiver class of the virtual or interface call at {@code bci}. */
+    public void profileReceiver(GraphBuilderContext b, ResolvedJavaMethod method, int bci, ValueNode receiver, FrameState frameState) {
+        assert shouldProfile(b, method);
+        ReceiverProfile profile = ExecutionProfile.receiverProfile(PGOProfile.methodKey(method), bci);
+        ProfileNode p = b.append(new ProfileReceiverNode(profileConstant(b, profile), receiver));
+        p.setStateBefore(frameState);
+    }
+
+    private static ValueNode profileConstant(GraphBuilderContext b, Object profile) {
+        return ConstantNode.forConstant(SubstrateObjectConstant.forObject(profile), b.getMetaAccess(), b.getGraph());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.compiler.bytecode.Bytecodes;
+
+import com.oracle.graal.pointsto.results.StaticAnalysisResults;
+import com.oracle.svm.core.pgo.ExecutionProfile;
+import com.oracle.svm.core.util.UserError;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A profile written by an image built with {@link ExecutionProfile.Options#PGOInstrument}, read
+ * for a build with {@link ExecutionProfile.Options#PGO}. See {@link ExecutionProfile} for the file
+ * format.
+ */
+public final class PGOProfile {
+
+    /** Branch counts of a method: bci to {taken, notTaken}. */
+    private final Map<String, Map<Integer, long[]>> branches = new HashMap<>();
+    /** Receiver counts of a method: bci to class name to count. */
+    private final Map<String, Map<Integer, Map<String, Long>>> receivers = new HashMap<>();
+
+    private PGOProfile() {
+    }
+
+    /** The name of a method in a profile. */
+    public static String methodKey(ResolvedJavaMethod method) {
+        return method.format("%H.%n(%P)");
+    }
+
+    /** The bci that follows the branch at {@code bci} if the branch is not taken. */
+    static int fallThroughBci(ResolvedJavaMethod method, int bci) {
+        return bci + Bytecodes.lengthOf(method.getCode()[bci] & 0xff);
+    }
+
+    /** Load the profile named by {@link ExecutionProfile.Options#PGO}, or return null. */
+    public static PGOProfile load() {
+        String fileName = ExecutionProfile.Options.PGO.getValue();
+        if (fileName.isEmpty()) {
+            return null;
+        }
+        Path path = Paths.get(fileName);
+        PGOProfile result = new PGOProfile();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    result.parseLine(line.split("\t"));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                    throw UserError.abort("Malformed profile " + path + ", line " + lineNumber + ": " + line);
+                }
+            }
+        } catch (IOException ex) {
+            throw UserError.abort("Can not read profile " + path + ": " + ex.getMessage());
+        }
+        return result;
+    }
+
+    private void parseLine(String[] fields) {
+        switch (fields[0]) {
+            case "branch": {
+                long[] counts = branches.computeIfAbsent(fields[1], key -> new HashMap<>()).computeIfAbsent(Integer.parseInt(fields[2]), key -> new long[2]);
+                counts[0] += Long.parseLong(fields[3]);
+                counts[1] += Long.parseLong(fields[4]);
+                break;
+            }
+            case "receiver": {
+                Map<String, Long> counts = receivers.computeIfAbsent(fields[1], key -> new HashMap<>()).computeIfAbsent(Integer.parseInt(fields[2]), key -> new HashMap<>());
+                counts.merge(fields[4], Long.parseLong(fields[3]), Long::sum);
+                break;
+            }
+            default:
+                /* Allocation sites, and records of later versions, are not used for compilation. */
+                break;
+        }
+    }
+
+    /**
+     * Returns the results of the static analysis for {@code method}, with the branch probabilities
+     * and call-site type profiles of this profile if it has any for the method.
+     */
+    public StaticAnalysisResults apply(ResolvedJavaMethod method, StaticAnalysisResults results) {
+        String key = methodKey(method);
+        Map<Integer, long[]> branchCounts = branches.get(key);
+        Map<Integer, Map<String, Long>> receiverCounts = receivers.get(key);
+        if (branchCounts == null && receiverCounts == null) {
+            return results;
+        }
+        return new ProfiledAnalysisResults(results,
+                        branchCounts == null ? Collections.emptyMap() : branchCounts,
+                        receiverCounts == null ? Collections.emptyMap() : receiverCounts);
+    }
+}
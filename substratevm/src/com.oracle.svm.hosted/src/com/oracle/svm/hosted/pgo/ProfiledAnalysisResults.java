@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.pgo;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.oracle.graal.pointsto.results.StaticAnalysisResults;
+import com.oracle.svm.core.pgo.ExecutionProfile;
+
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.JavaTypeProfile.ProfiledType;
+
+/**
+ * Static analysis results of a method, with branch probabilities and receiver type probabilities
+ * from a {@link PGOProfile}.
+ */
+final class ProfiledAnalysisResults extends StaticAnalysisResults {
+
+    /**
+     * Branches are never given a probability of exactly 0 or 1, because the compiler would replace
+     * the unlikely successor with a deoptimization, which ahead-of-time compiled code can not do.
+     */
+    private static final double MIN_BRANCH_PROBABILITY = 1e-4;
+
+    private final Map<Integer, long[]> branchCounts;
+    private final Map<Integer, JavaTypeProfile> typeProfiles;
+
+    ProfiledAnalysisResults(StaticAnalysisResults original, Map<Integer, long[]> branchCounts, Map<Integer, Map<String, Long>> receiverCounts) {
+        super(original);
+        this.branchCounts = branchCounts;
+        this.typeProfiles = new HashMap<>();
+        for (Map.Entry<Integer, Map<String, Long>> entry : receiverCounts.entrySet()) {
+            JavaTypeProfile staticProfile = original.getTypeProfile(entry.getKey());
+            if (staticProfile != null) {
+                typeProfiles.put(entry.getKey(), weighTypes(staticProfile, entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Give the types that the static analysis found at a call site the probabilities that were
+     * observed. Every type keeps a non-zero probability, because static analysis results are
+     * complete but a profile is not.
+     */
+    private static JavaTypeProfile weighTypes(JavaTypeProfile staticProfile, Map<String, Long> counts) {
+        ProfiledType[] types = staticProfile.getTypes();
+        long recorded = 0;
+        int unrecordedTypes = 0;
+        for (ProfiledType type : types) {
+            Long count = counts.get(type.getType().toJavaName());
+            if (count != null) {
+                recorded += count;
+            } else {
+                unrecordedTypes++;
+            }
+        }
+        /* Receivers that were not recorded individually are spread over the other types. */
+        long other = unrecordedTypes == 0 ? 0 : counts.getOrDefault(ExecutionProfile.OTHER_TYPES, 0L);
+        double otherPerType = unrecordedTypes == 0 ? 0 : (double) other / unrecordedTypes;
+        double total = recorded + other + types.length;
+        double scale = 1 - staticProfile.getNotRecordedProbability();
+
+        ProfiledType[] result = new ProfiledType[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Long count = counts.get(types[i].getType().toJavaName());
+            double weight = (count != null ? count : otherPerType) + 1;
+            result[i] = new ProfiledType(types[i].getType(), scale * weight / total);
+        }
+        Arrays.sort(result, Comparator.comparingDouble(ProfiledType::getProbability).reversed());
+        return new JavaTypeProfile(staticProfile.getNullSeen(), staticProfile.getNotRecordedProbability(), result);
+    }
+
+    @Override
+    public double getBranchTakenProbability(int bci) {
+        long[] counts = branchCounts.get(bci);
+        if (counts == null || counts[0] + counts[1] == 0) {
+            return super.getBranchTakenProbability(bci);
+        }
+        double probability = (double) counts[0] / (counts[0] + counts[1]);
+        return Math.min(Math.max(probability, MIN_BRANCH_PROBABILITY), 1 - MIN_BRANCH_PROBABILITY);
+    }
+
+    @Override
+    public int getExecutionCount(int bci) {
+        long[] counts = branchCounts.get(bci);
+        if (counts == null) {
+            return super.getExecutionCount(bci);
+        }
+        return (int) Math.min(counts[0] + counts[1], Integer.MAX_VALUE);
+    }
+
+    @Override
+    public JavaTypeProfile getTypeProfile(int bci) {
+        JavaTypeProfile result = typeProfiles.get(bci);
+        return result != null ? result : super.getTypeProfile(bci);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+/**
+ * The program for the ahead-of-time inlining decisions of the gate: it is built with
+ * {@code -H:+PrintAOTInlining}, and the calls of {@link #mix} must be inlined into the hot loop but
+ * not into the exception handler, and not at all when there is no inlining budget.
+ */
+public class AOTInliningProgram {
+
+    /** Larger than a trivial method, but small enough to inline into a loop. */
+    static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        h ^= h >>> 16;
+        h = (h << 5) - h + x;
+        h ^= h >>> 7;
+        h = h * 31 + (x & 0xff);
+        return h < 0 ? -(h >> 1) : h + 1;
+    }
+
+    static int hotLoop(int n) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            count += mix(i) & 1;
+        }
+        return count;
+    }
+
+    static int coldCall(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return mix(value.length()) & 0xf;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println(hotLoop(256) + coldCall("7") + coldCall("seven"));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.oracle.svm.core.genscavenge.GCEventLog;
+import com.oracle.svm.core.genscavenge.HeapOptions;
+import com.oracle.svm.core.option.RuntimeOptionValues;
+
+/**
+ * Tests the records of the {@link GCEventLog}: their JSON schema, that the oldest ones are
+ * overwritten when the buffer is full, and that they are drained to the log file.
+ */
+public class GCEventLogTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /** The members of a record, in the documented order. */
+    private static final List<String> MEMBERS = Arrays.asList("epoch", "cause", "type", "startNanos", "pauseNanos", "collectionNanos", "verifyBeforeNanos", "rootScanNanos",
+                    "cheneyScanFromRootsNanos", "cheneyScanFromDirtyRootsNanos", "promotePinnedObjectsNanos", "blackenStackRootsNanos", "walkRegisteredMemoryNanos",
+                    "blackenBootImageRootsNanos", "blackenDirtyCardRootsNanos", "scanGreyObjectsNanos", "discoverableReferencesNanos", "releaseSpacesNanos", "verifyAfterNanos",
+                    "watchersBeforeNanos", "watchersAfterNanos", "youngChunkBytesBefore", "oldChunkBytesBefore", "oldChunkBytesAfter", "promotedChunkBytes", "copiedChunkBytes",
+                    "dirtyCards", "youngChunksBefore", "oldChunksAfter");
+
+    private static final Pattern MEMBER = Pattern.compile("\"(\\w+)\":(\"[^\"]*\"|-?\\d+)");
+
+    private static GCEventLog eventLog() {
+        GCEventLog log = GCEventLog.get();
+        assertTrue(log.isEnabled());
+        return log;
+    }
+
+    private static List<String> drainLines(GCEventLog log) throws IOException {
+        StringBuilder out = new StringBuilder();
+        int count = log.drain(out);
+        List<String> lines = new ArrayList<>();
+        for (String line : out.toString().split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        assertEquals(count, lines.size());
+        return lines;
+    }
+
+    @Test
+    public void drainAfterCollection() throws IOException {
+        GCEventLog log = eventLog();
+        drainLines(log);
+        System.gc();
+        List<String> lines = drainLines(log);
+        assertTrue(lines.size() >= 1);
+        for (String line : lines) {
+            assertSchema(line);
+        }
+        String last = lines.get(lines.size() - 1);
+        assertTrue(last, last.contains("\"cause\":\"java.lang.Runtime.gc()\""));
+        assertTrue(last, last.contains("\"type\":\"complete\""));
+        assertEquals(0, drainLines(log).size());
+    }
+
+    @Test
+    public void overwriteOldestRecords() throws IOException {
+        GCEventLog log = eventLog();
+        drainLines(log);
+        for (int i = 0; i < log.getCapacity() + 5; i += 1) {
+            System.gc();
+        }
+        List<String> lines = drainLines(log);
+        assertEquals(log.getCapacity(), lines.size());
+        long previousEpoch = -1;
+        for (String line : lines) {
+            long epoch = Long.parseLong(members(line).get(0)[1]);
+            assertTrue(previousEpoch == -1 || epoch == previousEpoch + 1);
+            previousEpoch = epoch;
+        }
+    }
+
+    @Test
+    public void drainToFile() throws IOException, InterruptedException {
+        GCEventLog log = eventLog();
+        drainLines(log);
+        File file = File.createTempFile("gc-events", ".jsonl");
+        try {
+            RuntimeOptionValues.singleton().update(HeapOptions.GCEventLogFile, file.getPath());
+            System.gc();
+            /* The file is written by the writer thread after the collection. */
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            while (lines.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            }
+            assertTrue("no records written within " + TIMEOUT_MILLIS + " ms", !lines.isEmpty());
+            assertSchema(lines.get(0));
+        } finally {
+            RuntimeOptionValues.singleton().update(HeapOptions.GCEventLogFile, "");
+            assertTrue(file.delete());
+        }
+    }
+
+    private static List<String[]> members(String line) {
+        List<String[]> result = new ArrayList<>();
+        Matcher matcher = MEMBER.matcher(line);
+        while (matcher.find()) {
+            result.add(new String[]{matcher.group(1), matcher.group(2)});
+        }
+        return result;
+    }
+
+    private static void assertSchema(String line) {
+        assertTrue(line, line.startsWith("{") && line.endsWith("}"));
+        List<String[]> members = members(line);
+        assertTrue(line, members.size() >= MEMBERS.size());
+        for (int i = 0; i < MEMBERS.size(); i += 1) {
+            assertEquals(line, MEMBERS.get(i), members.get(i)[0]);
+            boolean isString = (i == 1 || i == 2);
+            assertEquals(line, isString, members.get(i)[1].startsWith("\""));
+        }
+    }
+}
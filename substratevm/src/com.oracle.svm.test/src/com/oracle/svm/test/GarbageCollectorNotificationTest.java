@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Tests the memory pool and garbage collector beans, and the notifications the collectors send
+ * after a collection.
+ */
+public class GarbageCollectorNotificationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static final String YOUNG_GENERATION_SPACE = "young generation space";
+    private static final String OLD_GENERATION_SPACE = "old generation space";
+
+    @Test
+    public void memoryPoolBeans() {
+        List<String> names = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            names.add(pool.getName());
+            assertTrue(pool.isValid());
+            assertUsageConsistent(pool.getUsage());
+        }
+        assertTrue(names.contains(YOUNG_GENERATION_SPACE));
+        assertTrue(names.contains(OLD_GENERATION_SPACE));
+
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage collectionUsage = pool.getCollectionUsage();
+            assertNotNull(collectionUsage);
+            assertUsageConsistent(collectionUsage);
+        }
+    }
+
+    @Test
+    public void collectionCountsIncrease() {
+        long countBefore = totalCollectionCount();
+        System.gc();
+        assertTrue(totalCollectionCount() > countBefore);
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            assertTrue(bean.getCollectionTime() >= 0);
+            assertTrue(bean.getMemoryPoolNames().length > 0);
+        }
+    }
+
+    @Test
+    public void notificationsAreSentAsynchronously() throws InterruptedException {
+        BlockingQueue<Notification> received = new LinkedBlockingQueue<>();
+        BlockingQueue<Thread> receivingThreads = new LinkedBlockingQueue<>();
+        NotificationListener listener = (notification, handback) -> {
+            receivingThreads.add(Thread.currentThread());
+            received.add(notification);
+        };
+        List<NotificationEmitter> emitters = new ArrayList<>();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            assertTrue(bean instanceof NotificationEmitter);
+            NotificationEmitter emitter = (NotificationEmitter) bean;
+            emitter.addNotificationListener(listener, null, null);
+            emitters.add(emitter);
+        }
+        try {
+            System.gc();
+            /* Notifications are sent once allocation is allowed again after the collection. */
+            Object allocated = new Object[16];
+            assertNotNull(allocated);
+
+            Notification notification = received.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull("no notification within " + TIMEOUT_MILLIS + " ms", notification);
+            assertEquals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION, notification.getType());
+            assertNotSame(Thread.currentThread(), receivingThreads.take());
+
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            assertFalse(info.getGcName().isEmpty());
+            assertTrue(info.getGcAction().startsWith("end of"));
+            assertNotNull(info.getGcCause());
+            assertTrue(info.getGcInfo().getEndTime() >= info.getGcInfo().getStartTime());
+            assertPoolsReported(info.getGcInfo().getMemoryUsageBeforeGc());
+            assertPoolsReported(info.getGcInfo().getMemoryUsageAfterGc());
+        } finally {
+            for (NotificationEmitter emitter : emitters) {
+                try {
+                    emitter.removeNotificationListener(listener);
+                } catch (ListenerNotFoundException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }
+    }
+
+    private static long totalCollectionCount() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += bean.getCollectionCount();
+        }
+        return result;
+    }
+
+    private static void assertUsageConsistent(MemoryUsage usage) {
+        assertTrue(usage.getUsed() >= 0);
+        assertTrue(usage.getUsed() <= usage.getCommitted());
+        assertTrue(usage.getMax() == -1 || usage.getCommitted() <= usage.getMax());
+    }
+
+    private static void assertPoolsReported(Map<String, MemoryUsage> usages) {
+        assertTrue(usages.containsKey(YOUNG_GENERATION_SPACE));
+        assertTrue(usages.containsKey(OLD_GENERATION_SPACE));
+        for (MemoryUsage usage : usages.values()) {
+            assertUsageConsistent(usage);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.junit.Test;
+
+import com.oracle.svm.core.MonitorSupport;
+import com.oracle.svm.core.heap.Heap;
+
+/**
+ * Tests locking through the secondary monitor storage. Strings never get memory reserved for a
+ * monitor, so they are always locked through that storage.
+ */
+public class MonitorTableTest {
+
+    private static final int OBJECT_COUNT = 100;
+    private static final int STRING_COUNT = 1000;
+    private static final int THREAD_COUNT = 8;
+    private static final int ROUNDS = 20;
+
+    private static int additionalMonitorCount() {
+        return ImageSingletons.lookup(MonitorSupport.class).getAdditionalMonitorCount();
+    }
+
+    @Test
+    public void lockAndWait() throws InterruptedException {
+        Object obj = new String("lockAndWait");
+        int before = additionalMonitorCount();
+        synchronized (obj) {
+            assertTrue(Thread.holdsLock(obj));
+            assertEquals(before + 1, additionalMonitorCount());
+            obj.wait(1);
+            assertTrue(Thread.holdsLock(obj));
+        }
+        assertFalse(Thread.holdsLock(obj));
+    }
+
+    @Test
+    public void distinguishEqualObjects() {
+        Object first = new String("distinguishEqualObjects");
+        Object second = new String("distinguishEqualObjects");
+        synchronized (first) {
+            assertTrue(Thread.holdsLock(first));
+            assertFalse(Thread.holdsLock(second));
+        }
+    }
+
+    @Test
+    public void holdManyDistinctStrings() {
+        String[] strings = distinctStrings("holdManyDistinctStrings");
+        lockFrom(strings, 0);
+        for (String string : strings) {
+            assertFalse(Thread.holdsLock(string));
+        }
+    }
+
+    /** Locks the strings from the index on while holding all the ones before it. */
+    private static void lockFrom(String[] strings, int index) {
+        if (index == strings.length) {
+            for (String string : strings) {
+                assertTrue(Thread.holdsLock(string));
+            }
+            return;
+        }
+        synchronized (strings[index]) {
+            lockFrom(strings, index + 1);
+        }
+    }
+
+    @Test
+    public void excludeOnManyDistinctStrings() throws InterruptedException {
+        String[] strings = distinctStrings("excludeOnManyDistinctStrings");
+        int[] counters = new int[strings.length];
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            Thread thread = new Thread(() -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (int i = 0; i < strings.length; i++) {
+                        synchronized (strings[i]) {
+                            counters[i]++;
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < strings.length; i++) {
+            synchronized (strings[i]) {
+                assertEquals(THREAD_COUNT * ROUNDS, counters[i]);
+            }
+        }
+    }
+
+    private static String[] distinctStrings(String prefix) {
+        String[] strings = new String[STRING_COUNT];
+        for (int i = 0; i < STRING_COUNT; i++) {
+            strings[i] = prefix + i;
+        }
+        return strings;
+    }
+
+    @Test
+    public void clearAfterUnlock() {
+        int before = additionalMonitorCount();
+        lockAndDrop();
+        Heap.getHeap().getGC().collectCompletely("MonitorTableTest");
+        assertTrue(additionalMonitorCount() <= before);
+    }
+
+    private static void lockAndDrop() {
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            Object obj = new String("clearAfterUnlock");
+            synchronized (obj) {
+                assertTrue(Thread.holdsLock(obj));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+/**
+ * The program of the profile-guided optimization round trip of the gate: it is built with
+ * {@code -H:+PGOInstrument}, run to write a profile, and built again with {@code -H:PGO} from that
+ * profile. Both images must print the same result, and the profile must have the branch and
+ * receiver counts of this class, including array receivers.
+ */
+public class PGORoundTripProgram {
+
+    interface Shape {
+        int area();
+    }
+
+    static final class Square implements Shape {
+        private final int side;
+
+        Square(int side) {
+            this.side = side;
+        }
+
+        @Override
+        public int area() {
+            return side * side;
+        }
+    }
+
+    static final class Rectangle implements Shape {
+        private final int width;
+        private final int height;
+
+        Rectangle(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int area() {
+            return width * height;
+        }
+    }
+
+    /** A hot loop with a branch that is mostly not taken. */
+    static int countMultiplesOfTen(int n) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % 10 == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** An interface call that mostly sees one receiver class. */
+    static long totalArea(Shape[] shapes) {
+        long total = 0;
+        for (Shape shape : shapes) {
+            total += shape.area();
+        }
+        return total;
+    }
+
+    /** A virtual call with array receivers. */
+    static int countSelfEqual(Object[] objects) {
+        int count = 0;
+        for (Object object : objects) {
+            if (object.equals(object)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) {
+        Shape[] shapes = new Shape[1000];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = (i % 100 == 0) ? new Rectangle(i % 7, 3) : new Square(i % 5);
+        }
+        Object[] objects = new Object[]{new int[1], new String[1], new int[2]};
+        System.out.println(countMultiplesOfTen(100000) + " " + totalArea(shapes) + " " + countSelfEqual(objects));
+    }
+}
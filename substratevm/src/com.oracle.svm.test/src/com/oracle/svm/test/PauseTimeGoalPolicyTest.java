@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.oracle.svm.core.genscavenge.CollectionPolicy.ByPauseTimeGoal;
+
+/**
+ * Tests how {@link ByPauseTimeGoal} sizes the young generation.
+ */
+public class PauseTimeGoalPolicyTest {
+
+    private static final long YOUNG_SIZE = 100L * 1024L * 1024L;
+    private static final long PAUSE_GOAL_NANOS = 100L * 1000L * 1000L;
+    private static final long THROUGHPUT_GOAL_PERCENT = 95;
+
+    private static long youngSizeFor(long averagePauseNanos, long collectionPercent) {
+        return ByPauseTimeGoal.computeYoungGenerationSize(YOUNG_SIZE, averagePauseNanos, collectionPercent, PAUSE_GOAL_NANOS, THROUGHPUT_GOAL_PERCENT);
+    }
+
+    @Test
+    public void shrinkWhenPausesExceedGoal() {
+        long size = youngSizeFor(PAUSE_GOAL_NANOS * 2, 1);
+        assertEquals(YOUNG_SIZE - YOUNG_SIZE / 10, size);
+    }
+
+    @Test
+    public void shrinkForPausesBeforeThroughput() {
+        /* Missing the pause time goal wins over missing the throughput goal. */
+        long size = youngSizeFor(PAUSE_GOAL_NANOS + 1, 50);
+        assertEquals(YOUNG_SIZE - YOUNG_SIZE / 10, size);
+    }
+
+    @Test
+    public void growWhenCollectingTooMuch() {
+        long size = youngSizeFor(PAUSE_GOAL_NANOS / 2, 10);
+        assertEquals(YOUNG_SIZE + YOUNG_SIZE / 5, size);
+    }
+
+    @Test
+    public void keepWhenGrowingWouldExceedPauseGoal() {
+        /* A 20% larger young generation is predicted to pause 20% longer, above the goal. */
+        long size = youngSizeFor(PAUSE_GOAL_NANOS - PAUSE_GOAL_NANOS / 10, 10);
+        assertEquals(YOUNG_SIZE, size);
+    }
+
+    @Test
+    public void keepWhenGoalsAreMet() {
+        long size = youngSizeFor(PAUSE_GOAL_NANOS / 2, 5);
+        assertEquals(YOUNG_SIZE, size);
+    }
+}
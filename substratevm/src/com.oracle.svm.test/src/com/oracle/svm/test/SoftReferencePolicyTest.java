@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+import com.oracle.svm.core.genscavenge.HeapPolicy;
+import com.oracle.svm.core.heap.Heap;
+
+/**
+ * Tests that soft references are kept while their referents are used recently enough, unlike weak
+ * references.
+ */
+public class SoftReferencePolicyTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    public void intervalPerFreeMegabyte() {
+        assertEquals(64 * 1000L, HeapPolicy.TestingBackDoor.computeSoftReferenceInterval(64 * MB, 1000L));
+        assertEquals(64 * 1000L, HeapPolicy.TestingBackDoor.computeSoftReferenceInterval(64 * MB + MB / 2, 1000L));
+    }
+
+    @Test
+    public void noIntervalWhenHeapIsFull() {
+        assertEquals(0L, HeapPolicy.TestingBackDoor.computeSoftReferenceInterval(MB / 2, 1000L));
+    }
+
+    @Test
+    public void keepRecentlyAccessed() {
+        assertTrue(HeapPolicy.TestingBackDoor.isSoftlyKept(10_000L, 10_500L, 1000L));
+        assertTrue(HeapPolicy.TestingBackDoor.isSoftlyKept(10_000L, 10_999L, 1000L));
+    }
+
+    @Test
+    public void clearLeastRecentlyAccessed() {
+        assertFalse(HeapPolicy.TestingBackDoor.isSoftlyKept(10_000L, 11_000L, 1000L));
+        /* With a full heap even a reference accessed since the last collection is cleared. */
+        assertFalse(HeapPolicy.TestingBackDoor.isSoftlyKept(10_000L, 10_001L, 0L));
+    }
+
+    @Test
+    public void clearAllWithoutInterval() {
+        /* The clock only advances after a collection, so recent accesses have the clock time. */
+        assertFalse(HeapPolicy.TestingBackDoor.isSoftlyKept(10_000L, 10_000L, 0L));
+    }
+
+    @Test
+    public void neverKeepWithoutSoftSemantics() {
+        assertFalse(HeapPolicy.TestingBackDoor.isSoftlyKept(-1L, 0L, Long.MAX_VALUE));
+    }
+
+    private static SoftReference<Object> newSoftReference() {
+        return new SoftReference<>(new Object());
+    }
+
+    private static WeakReference<Object> newWeakReference() {
+        return new WeakReference<>(new Object());
+    }
+
+    @Test
+    public void softReferenceSurvivesCollection() {
+        SoftReference<Object> soft = newSoftReference();
+        WeakReference<Object> weak = newWeakReference();
+        assertNotNull(soft.get());
+        Heap.getHeap().getGC().collectCompletely("SoftReferencePolicyTest.softReferenceSurvivesCollection");
+        assertNull(weak.get());
+        assertNotNull(soft.get());
+    }
+}
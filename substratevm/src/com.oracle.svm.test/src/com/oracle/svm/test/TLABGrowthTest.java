@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.oracle.svm.core.genscavenge.HeapPolicy;
+
+/**
+ * Tests how a thread that has used up its refill target grows its TLAB before the next
+ * collection, and that idle threads do not use up the young generation.
+ */
+public class TLABGrowthTest {
+
+    private static final long KB = 1024L;
+    private static final long MB = 1024L * KB;
+    private static final long YOUNG = 256 * MB;
+    private static final int REFILL_TARGET = 50;
+
+    private static long grow(long desiredBytes, long threadAllocatedBytes, long chargedBytes) {
+        return HeapPolicy.TestingBackDoor.computeGrownTLABSize(desiredBytes, threadAllocatedBytes, chargedBytes, YOUNG, REFILL_TARGET);
+    }
+
+    @Test
+    public void growToAllocationRate() {
+        /* Half of the allocation after a quarter of the young generation: 128M for the cycle. */
+        assertEquals(128 * MB / REFILL_TARGET, grow(64 * KB, 32 * MB, 64 * MB));
+    }
+
+    @Test
+    public void growInOneStep() {
+        /* Growing again with the same share does not grow further, unlike doubling would. */
+        long grown = grow(64 * KB, 32 * MB, 64 * MB);
+        assertEquals(grown, grow(grown, 32 * MB, 64 * MB));
+    }
+
+    @Test
+    public void neverShrink() {
+        /* A thread with a small share keeps the size it was given at the last collection. */
+        assertEquals(1 * MB, grow(1 * MB, 1 * MB, 128 * MB));
+    }
+
+    @Test
+    public void keepSizeWithoutCharges() {
+        assertEquals(64 * KB, grow(64 * KB, 0, 0));
+    }
+
+    @Test
+    public void limitProjectionEarlyInCycle() {
+        /* Less than a per mille of the young generation used: project from one per mille. */
+        assertEquals(16 * KB * 1000 / REFILL_TARGET, grow(4 * KB, 16 * KB, 64 * KB));
+    }
+
+    private static final int IDLE_THREADS = 64;
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += bean.getCollectionCount();
+        }
+        return count;
+    }
+
+    /** The young generation bytes charged while threads allocate a little and then wait. */
+    private static long chargedByIdleThreads() throws InterruptedException {
+        CountDownLatch allocated = new CountDownLatch(IDLE_THREADS);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] threads = new Thread[IDLE_THREADS];
+        for (int i = 0; i < IDLE_THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                Object[] small = new Object[4];
+                allocated.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                small[0] = small;
+            });
+        }
+        long before = HeapPolicy.TestingBackDoor.getBytesAllocatedSinceLastCollection();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        allocated.await();
+        long after = HeapPolicy.TestingBackDoor.getBytesAllocatedSinceLastCollection();
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return after - before;
+    }
+
+    @Test
+    public void idleThreadsDoNotTriggerCollections() throws InterruptedException {
+        long alignedChunkSize = HeapPolicy.getAlignedHeapChunkSize().rawValue();
+        for (int attempt = 0; attempt < 10; attempt++) {
+            System.gc();
+            long collections = collectionCount();
+            long charged = chargedByIdleThreads();
+            if (collectionCount() != collections) {
+                /* A collection reset the charged bytes in the meantime, so try again. */
+                continue;
+            }
+            /* Each idle thread is charged for its first refill, not for its whole chunk. */
+            assertTrue("charged " + charged + " bytes for " + IDLE_THREADS + " idle threads", charged < IDLE_THREADS * alignedChunkSize / 4);
+            return;
+        }
+        fail("every attempt was interrupted by a collection");
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.junit.Test;
+
+import com.oracle.svm.core.MonitorSupport;
+
+/**
+ * Tests the thin locks in the memory reserved for the monitor of an object. Instances of
+ * {@link Lockable} are synchronized on and waited on, so they get that memory.
+ */
+public class ThinLockTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    static final class Lockable {
+        int counter;
+        boolean signaled;
+    }
+
+    private static MonitorSupport monitorSupport() {
+        return ImageSingletons.lookup(MonitorSupport.class);
+    }
+
+    @Test
+    public void enterAndExitThin() {
+        Lockable obj = new Lockable();
+        synchronized (obj) {
+            assertTrue(Thread.holdsLock(obj));
+            assertFalse(monitorSupport().isInflated(obj));
+        }
+        assertFalse(Thread.holdsLock(obj));
+        assertFalse(monitorSupport().isInflated(obj));
+    }
+
+    @Test
+    public void recursionStaysThin() {
+        Lockable obj = new Lockable();
+        lockRecursively(obj, MonitorSupport.MAX_THIN_RECURSION, false);
+        assertFalse(Thread.holdsLock(obj));
+        assertFalse(monitorSupport().isInflated(obj));
+    }
+
+    @Test
+    public void deepRecursionInflates() throws InterruptedException {
+        Lockable obj = new Lockable();
+        lockRecursively(obj, MonitorSupport.MAX_THIN_RECURSION + 1, true);
+        assertFalse(Thread.holdsLock(obj));
+        assertTrue(monitorSupport().isInflated(obj));
+        assertLockableFromOtherThread(obj);
+    }
+
+    private static void lockRecursively(Lockable obj, int depth, boolean inflatedAtBottom) {
+        synchronized (obj) {
+            assertTrue(Thread.holdsLock(obj));
+            if (depth > 1) {
+                lockRecursively(obj, depth - 1, inflatedAtBottom);
+            } else {
+                assertEquals(inflatedAtBottom, monitorSupport().isInflated(obj));
+            }
+            assertTrue(Thread.holdsLock(obj));
+        }
+    }
+
+    @Test
+    public void inflateUnderContention() throws InterruptedException {
+        Lockable obj = new Lockable();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread contender = new Thread(() -> {
+            started.countDown();
+            synchronized (obj) {
+                obj.counter++;
+            }
+        });
+        synchronized (obj) {
+            synchronized (obj) {
+                contender.start();
+                started.await();
+                long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                while (!monitorSupport().isInflated(obj) && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertTrue(monitorSupport().isInflated(obj));
+                assertTrue(Thread.holdsLock(obj));
+                assertEquals(0, obj.counter);
+            }
+            /* The inflated lock must still be held once by this thread. */
+            assertTrue(Thread.holdsLock(obj));
+            assertEquals(0, obj.counter);
+        }
+        contender.join(TIMEOUT_MILLIS);
+        assertFalse(contender.isAlive());
+        synchronized (obj) {
+            assertEquals(1, obj.counter);
+        }
+    }
+
+    @Test
+    public void waitAndNotifyAfterInflation() throws InterruptedException {
+        Lockable obj = new Lockable();
+        Thread waiter = new Thread(() -> {
+            synchronized (obj) {
+                while (!obj.signaled) {
+                    try {
+                        obj.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                obj.counter++;
+            }
+        });
+        waiter.start();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!monitorSupport().isInflated(obj) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(monitorSupport().isInflated(obj));
+        synchronized (obj) {
+            assertTrue(Thread.holdsLock(obj));
+            obj.signaled = true;
+            obj.notifyAll();
+        }
+        waiter.join(TIMEOUT_MILLIS);
+        assertFalse(waiter.isAlive());
+        synchronized (obj) {
+            assertEquals(1, obj.counter);
+        }
+    }
+
+    private static void assertLockableFromOtherThread(Lockable obj) throws InterruptedException {
+        Thread other = new Thread(() -> {
+            synchronized (obj) {
+                obj.counter++;
+            }
+        });
+        other.start();
+        other.join(TIMEOUT_MILLIS);
+        assertFalse(other.isAlive());
+        synchronized (obj) {
+            assertEquals(1, obj.counter);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+/**
+ * The program for the type flow saturation of the gate: it is built with
+ * {@code -H:TypeFlowSaturationCutoff=2}, so that the receiver of the call in {@link #run} is
+ * saturated by three operations and also links {@link Rare#apply}, which is only instantiated for
+ * another call. The output must not depend on the cutoff.
+ */
+public class TypeFlowSaturationProgram {
+
+    abstract static class Operation {
+        abstract int apply(int x);
+    }
+
+    static class Increment extends Operation {
+        @Override
+        int apply(int x) {
+            return x + 1;
+        }
+    }
+
+    static class Twice extends Operation {
+        @Override
+        int apply(int x) {
+            return x * 2;
+        }
+    }
+
+    static class Decrement extends Operation {
+        @Override
+        int apply(int x) {
+            return x - 3;
+        }
+    }
+
+    static class Rare extends Operation {
+        @Override
+        int apply(int x) {
+            return -x;
+        }
+
+        String describe() {
+            return "rare";
+        }
+    }
+
+    static int run(Operation operation, int x) {
+        return operation.apply(x);
+    }
+
+    public static void main(String[] args) {
+        int sum = run(new Increment(), 10) + run(new Twice(), 10) + run(new Decrement(), 10);
+        System.out.println(sum + " " + new Rare().describe());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.oracle.svm.core.genscavenge.HeapPolicy;
+
+/**
+ * Tests how many bytes of unused aligned chunks the heap keeps after a collection instead of
+ * releasing them to the operating system.
+ */
+public class UnusedChunkReserveTest {
+
+    private static final long HALF_LIFE_NANOS = 10L * 1000L * 1000L * 1000L;
+    private static final long MB = 1024L * 1024L;
+
+    private static long reserve(long previousReserveBytes, long allocatedBytes, long elapsedNanos) {
+        return HeapPolicy.TestingBackDoor.computeUnusedChunkReserve(previousReserveBytes, allocatedBytes, elapsedNanos, HALF_LIFE_NANOS);
+    }
+
+    @Test
+    public void followAllocationWithinHalfLife() {
+        assertEquals(64 * MB, reserve(0, 64 * MB, HALF_LIFE_NANOS / 2));
+    }
+
+    @Test
+    public void averageAllocationOverHalfLives() {
+        assertEquals(16 * MB, reserve(0, 64 * MB, 4 * HALF_LIFE_NANOS));
+    }
+
+    @Test
+    public void keepReserveWhileAllocating() {
+        /* The allocation rate still needs more than the decayed reserve. */
+        assertEquals(48 * MB, reserve(64 * MB, 48 * MB, HALF_LIFE_NANOS));
+    }
+
+    @Test
+    public void decayWhenIdle() {
+        assertEquals(32 * MB, reserve(64 * MB, 0, HALF_LIFE_NANOS));
+        assertEquals(24 * MB, reserve(64 * MB, 0, HALF_LIFE_NANOS + HALF_LIFE_NANOS / 2));
+        assertEquals(16 * MB, reserve(64 * MB, 0, 2 * HALF_LIFE_NANOS));
+    }
+
+    @Test
+    public void releaseEverythingAfterLongIdlePeriod() {
+        assertEquals(0, reserve(64 * MB, 0, 100 * HALF_LIFE_NANOS));
+    }
+}
@@ -65,8 +65,8 @@ public class SubstratePartialEvaluator extends PartialEvaluator {
     }
 
     @Override
-    protected void doGraphPE(CompilableTruffleAST callTarget, StructuredGraph graph, HighTierContext tierContext, TruffleInliningPlan inliningDecision) {
-        super.doGraphPE(callTarget, graph, tierContext, inliningDecision);
+    protected void doGraphPE(CompilableTruffleAST callTarget, StructuredGraph graph, HighTierContext tierContext, TruffleInliningPlan inliningDecision, boolean firstTier) {
+        super.doGraphPE(callTarget, graph, tierContext, inliningDecision, firstTier);
 
         new DeadStoreRemovalPhase().apply(graph);
         new TruffleBoundaryPhase().apply(graph);
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedCodeTest {
+
+    @Before
+    public void setUp() {
+        SharedCodeTestLanguage.parseCount.set(0);
+    }
+
+    @Test
+    public void testCodeSharedBetweenContexts() {
+        Engine engine = Engine.newBuilder().option("engine.SharedCode", "true").build();
+        Source source = Source.create(SharedCodeTestLanguage.ID, "shared");
+        for (int i = 0; i < 3; i++) {
+            try (Context context = Context.newBuilder().engine(engine).build()) {
+                assertEquals("shared", context.eval(source).asString());
+            }
+        }
+        assertEquals(1, SharedCodeTestLanguage.parseCount.get());
+
+        Source otherSource = Source.create(SharedCodeTestLanguage.ID, "other");
+        try (Context context = Context.newBuilder().engine(engine).build()) {
+            assertEquals("other", context.eval(otherSource).asString());
+            assertEquals("shared", context.eval(source).asString());
+        }
+        assertEquals(2, SharedCodeTestLanguage.parseCount.get());
+        engine.close();
+    }
+
+    @Test
+    public void testCodeNotSharedByDefault() {
+        Engine engine = Engine.create();
+        Source source = Source.create(SharedCodeTestLanguage.ID, "notShared");
+        for (int i = 0; i < 3; i++) {
+            try (Context context = Context.newBuilder().engine(engine).build()) {
+                assertEquals("notShared", context.eval(source).asString());
+                // parsed only once per context
+                assertEquals("notShared", context.eval(source).asString());
+            }
+        }
+        assertEquals(3, SharedCodeTestLanguage.parseCount.get());
+        engine.close();
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.test.polyglot.SharedCodeTestLanguage.LanguageContext;
+
+@TruffleLanguage.Registration(id = SharedCodeTestLanguage.ID, name = SharedCodeTestLanguage.ID, version = "1.0", mimeType = SharedCodeTestLanguage.ID, contextIndependentCode = true)
+public class SharedCodeTestLanguage extends TruffleLanguage<LanguageContext> {
+
+    static final String ID = "SharedCodeTestLanguage";
+
+    static final AtomicInteger parseCount = new AtomicInteger();
+
+    static class LanguageContext {
+
+        final Env env;
+
+        LanguageContext(Env env) {
+            this.env = env;
+        }
+
+    }
+
+    @Override
+    protected CallTarget parse(ParsingRequest request) throws Exception {
+        parseCount.incrementAndGet();
+        return Truffle.getRuntime().createCallTarget(RootNode.createConstantNode(request.getSource().getCharacters().toString()));
+    }
+
+    @Override
+    protected LanguageContext createContext(Env env) {
+        return new LanguageContext(env);
+    }
+
+    @Override
+    protected Object getLanguageGlobal(LanguageContext context) {
+        return null;
+    }
+
+    @Override
+    protected boolean isObjectOfLanguage(Object object) {
+        return false;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.SourceCacheStatistics;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SourceCacheTest {
+
+    private static final int THREAD_COUNT = 4;
+    private static final int SOURCE_COUNT = 16;
+    private static final int ROUNDS = 10;
+
+    @Before
+    public void setUp() {
+        SharedCodeTestLanguage.parseCount.set(0);
+    }
+
+    @Test
+    public void testStatistics() {
+        Engine engine = Engine.create();
+        Source source = Source.create(SharedCodeTestLanguage.ID, "stats");
+        try (Context context = Context.newBuilder().engine(engine).build()) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("stats", context.eval(source).asString());
+            }
+        }
+        SourceCacheStatistics statistics = engine.getSourceCacheStatistics();
+        assertEquals(1L, statistics.getMisses());
+        assertEquals(2L, statistics.getHits());
+        assertEquals(0L, statistics.getEvictions());
+        assertEquals(1, SharedCodeTestLanguage.parseCount.get());
+        engine.close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        Engine engine = Engine.newBuilder().option("engine.SourceCacheSize", "2").build();
+        Source a = Source.create(SharedCodeTestLanguage.ID, "a");
+        Source b = Source.create(SharedCodeTestLanguage.ID, "b");
+        Source c = Source.create(SharedCodeTestLanguage.ID, "c");
+        try (Context context = Context.newBuilder().engine(engine).build()) {
+            context.eval(a);
+            context.eval(b);
+            // a becomes the most recently used source
+            context.eval(a);
+            // evicts b
+            context.eval(c);
+            assertEquals(3, SharedCodeTestLanguage.parseCount.get());
+            context.eval(a);
+            context.eval(c);
+            assertEquals(3, SharedCodeTestLanguage.parseCount.get());
+            assertEquals("b", context.eval(b).asString());
+            assertEquals(4, SharedCodeTestLanguage.parseCount.get());
+        }
+        assertEquals(2L, engine.getSourceCacheStatistics().getEvictions());
+        engine.close();
+    }
+
+    @Test
+    public void testSoftReferences() {
+        Engine engine = Engine.newBuilder().option("engine.SourceCacheSoftReferences", "true").build();
+        Source source = Source.create(SharedCodeTestLanguage.ID, "soft");
+        try (Context context = Context.newBuilder().engine(engine).build()) {
+            assertEquals("soft", context.eval(source).asString());
+            assertEquals("soft", context.eval(source).asString());
+        }
+        // soft entries may be reclaimed at any time, but every miss must parse the source again
+        SourceCacheStatistics statistics = engine.getSourceCacheStatistics();
+        assertEquals(2L, statistics.getHits() + statistics.getMisses());
+        assertEquals(SharedCodeTestLanguage.parseCount.get(), statistics.getMisses());
+        engine.close();
+    }
+
+    @Test
+    public void testNodeLimit() {
+        // every parsed source of the test language retains a single node
+        Engine engine = Engine.newBuilder().option("engine.SourceCacheNodeLimit", "1").build();
+        Source a = Source.create(SharedCodeTestLanguage.ID, "a");
+        Source b = Source.create(SharedCodeTestLanguage.ID, "b");
+        try (Context context = Context.newBuilder().engine(engine).build()) {
+            context.eval(a);
+            context.eval(b);
+            context.eval(a);
+            assertEquals(3, SharedCodeTestLanguage.parseCount.get());
+        }
+        assertEquals(2L, engine.getSourceCacheStatistics().getEvictions());
+        engine.close();
+    }
+
+    @Test
+    public void testUnboundedConcurrentEval() throws InterruptedException {
+        Engine engine = Engine.create();
+        Source[] sources = new Source[SOURCE_COUNT];
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            sources[i] = Source.create(SharedCodeTestLanguage.ID, "concurrent" + i);
+        }
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            Thread thread = new Thread(() -> {
+                try (Context context = Context.newBuilder().engine(engine).build()) {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < SOURCE_COUNT; i++) {
+                            assertEquals("concurrent" + i, context.eval(sources[i]).asString());
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Collections.emptyList(), errors);
+        SourceCacheStatistics statistics = engine.getSourceCacheStatistics();
+        assertEquals((long) THREAD_COUNT * ROUNDS * SOURCE_COUNT, statistics.getHits() + statistics.getMisses());
+        assertEquals(SharedCodeTestLanguage.parseCount.get(), statistics.getMisses());
+        assertEquals(0L, statistics.getEvictions());
+        engine.close();
+    }
+
+}
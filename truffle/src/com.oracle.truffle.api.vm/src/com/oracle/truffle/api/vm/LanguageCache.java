@@ -59,6 +59,7 @@ final class LanguageCache implements Comparable<LanguageCache> {
     private final String version;
     private final boolean interactive;
     private final boolean internal;
+    private final boolean contextIndependentCode;
     private final ClassLoader loader;
     final TruffleLanguage<?> singletonLanguage;
     private volatile Class<? extends TruffleLanguage<?>> languageClass;
@@ -81,6 +82,7 @@ final class LanguageCache implements Comparable<LanguageCache> {
         this.id = resolvedId == null ? defaultId() : resolvedId;
         this.interactive = Boolean.valueOf(info.getProperty(prefix + "interactive"));
         this.internal = Boolean.valueOf(info.getProperty(prefix + "internal"));
+        this.contextIndependentCode = Boolean.valueOf(info.getProperty(prefix + "contextIndependentCode"));
 
         if (TruffleOptions.AOT) {
             this.languageClass = loadLanguageClass();
@@ -114,6 +116,7 @@ final class LanguageCache implements Comparable<LanguageCache> {
         this.version = version;
         this.interactive = interactive;
         this.internal = internal;
+        this.contextIndependentCode = false;
         this.dependentLanguages = Collections.emptySet();
         this.loader = instance.getClass().getClassLoader();
         this.singletonLanguage = instance;
@@ -245,6 +248,10 @@ final class LanguageCache implements Comparable<LanguageCache> {
         return interactive;
     }
 
+    boolean isContextIndependentCode() {
+        return contextIndependentCode;
+    }
+
     LoadedLanguage loadLanguage() {
         TruffleLanguage<?> instance;
         boolean singleton = true;
@@ -55,6 +55,7 @@ import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Instrument;
 import org.graalvm.polyglot.Language;
+import org.graalvm.polyglot.SourceCacheStatistics;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.InstrumentInfo;
@@ -125,6 +126,7 @@ class PolyglotEngineImpl extends org.graalvm.polyglot.impl.AbstractPolyglotImpl.
     // Data used by the runtime to enable "global" state per Engine
     volatile Object runtimeData;
     final Map<Object, Object> javaInteropCodeCache = new ConcurrentHashMap<>();
+    final SourceCache.Statistics sourceCacheStatistics = new SourceCache.Statistics();
 
     PolyglotEngineImpl(PolyglotImpl impl, DispatchOutputStream out, DispatchOutputStream err, InputStream in, Map<String, String> options, long timeout, TimeUnit timeoutUnit,
                     boolean sandbox, boolean useSystemProperties, ClassLoader contextClassLoader, boolean boundEngine) {
@@ -634,6 +636,7 @@ class PolyglotEngineImpl extends org.graalvm.polyglot.impl.AbstractPolyglotImpl.
                     language.requireProfile().notifyEngineDisposed();
                 }
             }
+            VMAccessor.SPI.onEngineClosed(runtimeData);
 
             ENGINES.remove(this);
             closed = true;
@@ -658,6 +661,12 @@ class PolyglotEngineImpl extends org.graalvm.polyglot.impl.AbstractPolyglotImpl.
         return allEngineOptions;
     }
 
+    @Override
+    public SourceCacheStatistics getSourceCacheStatistics() {
+        checkState();
+        return sourceCacheStatistics.snapshot(impl.getAPIAccess());
+    }
+
     @Override
     public String getVersion() {
         String version = System.getProperty("org.graalvm.version");
@@ -34,4 +34,16 @@ final class PolyglotEngineOptions {
     static final String PREINITIALIZE_CONTEXT_NAME = "PreinitializeContexts";
     @Option(name = PREINITIALIZE_CONTEXT_NAME, category = OptionCategory.EXPERT, help = "Preinitialize language contexts for given languages.") static final OptionKey<String> PreinitializeContexts = new OptionKey<>(
                     null, OptionType.defaultType(String.class));
+
+    @Option(category = OptionCategory.EXPERT, help = "Share code parsed for a source between all contexts of the engine. " +
+                    "Only applies to languages that declare context independent code.") static final OptionKey<Boolean> SharedCode = new OptionKey<>(false);
+
+    @Option(category = OptionCategory.EXPERT, help = "Maximum number of parsed sources cached per language context. " +
+                    "Least recently used sources are evicted first. 0 means unlimited.") static final OptionKey<Integer> SourceCacheSize = new OptionKey<>(0);
+
+    @Option(category = OptionCategory.EXPERT, help = "Maximum number of AST nodes retained by the parsed sources of a language context. " +
+                    "0 means unlimited.") static final OptionKey<Integer> SourceCacheNodeLimit = new OptionKey<>(0);
+
+    @Option(category = OptionCategory.EXPERT, help = "Hold cached parsed code softly, so it can be reclaimed under memory pressure. " +
+                    "A source is parsed again if it is evaluated after its code was reclaimed.") static final OptionKey<Boolean> SourceCacheSoftReferences = new OptionKey<>(false);
 }
@@ -52,6 +52,12 @@ final class PolyglotLanguage extends AbstractLanguageImpl implements VMObject {
     private final boolean host;
     final RuntimeException initError;
 
+    /*
+     * Call targets shared between all contexts of the engine. Only used if the language declares
+     * context independent code and sharing is enabled for the engine.
+     */
+    private volatile SourceCache sharedSourceCache;
+
     private OptionDescriptors options;
     private volatile OptionValuesImpl optionValues;
 
@@ -76,6 +82,23 @@ final class PolyglotLanguage extends AbstractLanguageImpl implements VMObject {
         this.initialized = initialized;
     }
 
+    boolean isCodeShared() {
+        return !host && cache.isContextIndependentCode() && engine.engineOptionValues.get(PolyglotEngineOptions.SharedCode);
+    }
+
+    SourceCache getSharedSourceCache() {
+        SourceCache sourceCache = sharedSourceCache;
+        if (sourceCache == null) {
+            synchronized (engine) {
+                sourceCache = sharedSourceCache;
+                if (sourceCache == null) {
+                    sharedSourceCache = sourceCache = new SourceCache(engine);
+                }
+            }
+        }
+        return sourceCache;
+    }
+
     boolean dependsOn(PolyglotLanguage otherLanguage) {
         Set<String> dependentLanguages = cache.getDependentLanguages();
         if (dependentLanguages.contains(otherLanguage.getId())) {
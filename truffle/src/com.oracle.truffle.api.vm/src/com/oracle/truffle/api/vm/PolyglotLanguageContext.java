@@ -62,7 +62,7 @@ final class PolyglotLanguageContext implements VMObject {
 
     final PolyglotContextImpl context;
     final PolyglotLanguage language;
-    final Map<Object, CallTarget> sourceCache = new ConcurrentHashMap<>();
+    final SourceCache sourceCache;
     final Map<String, Object> config;
     final boolean eventsEnabled;
     volatile Map<Class<?>, PolyglotValue> valueCache;
@@ -85,6 +85,7 @@ final class PolyglotLanguageContext implements VMObject {
         this.config = config;
         this.eventsEnabled = eventsEnabled;
         this.optionValues = optionValues;
+        this.sourceCache = new SourceCache(language.engine);
         setApplicationArguments(applicationArguments);
     }
 
@@ -104,14 +105,21 @@ final class PolyglotLanguageContext implements VMObject {
     }
 
     CallTarget parseCached(com.oracle.truffle.api.source.Source source) throws AssertionError {
-        CallTarget target = sourceCache.get(source);
+        // the context must be initialized even if another context already parsed the source
+        ensureInitialized(null);
+        SourceCache cache = language.isCodeShared() ? language.getSharedSourceCache() : sourceCache;
+        CallTarget target = cache.get(source);
         if (target == null) {
-            ensureInitialized(null);
-            target = LANGUAGE.parse(requireEnv(), source, null);
-            if (target == null) {
-                throw new AssertionError(String.format("Parsing resulted in a null CallTarget for %s.", source));
-            }
-            sourceCache.put(source, target);
+            // another context may have parsed the same source concurrently
+            target = cache.put(source, parseImpl(source));
+        }
+        return target;
+    }
+
+    private CallTarget parseImpl(com.oracle.truffle.api.source.Source source) {
+        CallTarget target = LANGUAGE.parse(requireEnv(), source, null);
+        if (target == null) {
+            throw new AssertionError(String.format("Parsing resulted in a null CallTarget for %s.", source));
         }
         return target;
     }
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.vm;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.polyglot.SourceCacheStatistics;
+import org.graalvm.polyglot.impl.AbstractPolyglotImpl.APIAccess;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.source.Source;
+
+/**
+ * Cache of call targets parsed for a source. Entries are evicted in least recently used order
+ * once the number of entries or the number of retained AST nodes exceeds the limits configured
+ * for the engine. If soft references are enabled for the engine, cached call targets are only held
+ * softly and entries are removed once their call target was reclaimed.
+ * <p>
+ * Without limits and soft references, which is the default, nothing is ever evicted, so the cache
+ * is a plain concurrent map and lookups take no lock.
+ */
+final class SourceCache {
+
+    private final Statistics statistics;
+    private final int maxEntries;
+    private final long maxNodes;
+    private final boolean soft;
+    /** The entries if the cache never evicts, otherwise {@code null}. */
+    private final ConcurrentHashMap<Source, CallTarget> unbounded;
+    /**
+     * Access ordered entries if the cache may evict. All accesses must synchronize on this cache.
+     */
+    private final Map<Source, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReferenceQueue<CallTarget> queue = new ReferenceQueue<>();
+    private long retainedNodes;
+
+    SourceCache(PolyglotEngineImpl engine) {
+        this.statistics = engine.sourceCacheStatistics;
+        this.maxEntries = engine.engineOptionValues.get(PolyglotEngineOptions.SourceCacheSize);
+        this.maxNodes = engine.engineOptionValues.get(PolyglotEngineOptions.SourceCacheNodeLimit);
+        this.soft = engine.engineOptionValues.get(PolyglotEngineOptions.SourceCacheSoftReferences);
+        this.unbounded = maxEntries <= 0 && maxNodes <= 0 && !soft ? new ConcurrentHashMap<>() : null;
+    }
+
+    CallTarget get(Source source) {
+        if (unbounded != null) {
+            CallTarget target = unbounded.get(source);
+            if (target != null) {
+                statistics.hits.incrementAndGet();
+            } else {
+                statistics.misses.incrementAndGet();
+            }
+            return target;
+        }
+        return getBounded(source);
+    }
+
+    private synchronized CallTarget getBounded(Source source) {
+        purgeCollected();
+        Entry entry = entries.get(source);
+        if (entry != null) {
+            CallTarget target = entry.get();
+            if (target != null) {
+                statistics.hits.incrementAndGet();
+                return target;
+            }
+            remove(entry);
+        }
+        statistics.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Adds a parsed call target to the cache. If another call target was added for the same
+     * source in the meantime then that call target is returned instead.
+     */
+    CallTarget put(Source source, CallTarget target) {
+        if (unbounded != null) {
+            CallTarget existing = unbounded.putIfAbsent(source, target);
+            return existing != null ? existing : target;
+        }
+        return putBounded(source, target);
+    }
+
+    private synchronized CallTarget putBounded(Source source, CallTarget target) {
+        purgeCollected();
+        Entry existing = entries.get(source);
+        if (existing != null) {
+            CallTarget existingTarget = existing.get();
+            if (existingTarget != null) {
+                return existingTarget;
+            }
+            remove(existing);
+        }
+        int nodeCount = maxNodes > 0 ? countNodes(target) : 0;
+        Entry entry = new Entry(source, target, nodeCount, soft ? queue : null);
+        entries.put(source, entry);
+        retainedNodes += nodeCount;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext() && entries.size() > 1 && ((maxEntries > 0 && entries.size() > maxEntries) || (maxNodes > 0 && retainedNodes > maxNodes))) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            retainedNodes -= evicted.nodeCount;
+            statistics.evictions.incrementAndGet();
+        }
+        return target;
+    }
+
+    private void purgeCollected() {
+        Entry collected;
+        while ((collected = (Entry) queue.poll()) != null) {
+            if (entries.get(collected.source) == collected) {
+                remove(collected);
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.source);
+        retainedNodes -= entry.nodeCount;
+        statistics.evictions.incrementAndGet();
+    }
+
+    private static int countNodes(CallTarget target) {
+        if (target instanceof RootCallTarget) {
+            return NodeUtil.countNodes(((RootCallTarget) target).getRootNode());
+        }
+        return 1;
+    }
+
+    private static final class Entry extends SoftReference<CallTarget> {
+
+        final Source source;
+        final int nodeCount;
+        /* Keeps the call target strongly reachable unless the entry is held softly. */
+        private final CallTarget strongTarget;
+
+        Entry(Source source, CallTarget target, int nodeCount, ReferenceQueue<CallTarget> queue) {
+            super(target, queue);
+            this.source = source;
+            this.nodeCount = nodeCount;
+            this.strongTarget = queue == null ? target : null;
+        }
+
+        @Override
+        public CallTarget get() {
+            CallTarget target = strongTarget;
+            return target != null ? target : super.get();
+        }
+    }
+
+    /**
+     * Source cache counters shared by all caches of an engine.
+     */
+    static final class Statistics {
+
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+
+        SourceCacheStatistics snapshot(APIAccess api) {
+            return api.newSourceCacheStatistics(hits.get(), misses.get(), evictions.get());
+        }
+    }
+}
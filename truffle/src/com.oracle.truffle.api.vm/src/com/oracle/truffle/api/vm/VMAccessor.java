@@ -86,6 +86,11 @@ class VMAccessor extends Accessor {
         return super.callProfiled(target, args);
     }
 
+    @Override
+    protected void onEngineClosed(Object runtimeData) {
+        super.onEngineClosed(runtimeData);
+    }
+
     @Override
     protected boolean isGuestCallStackElement(StackTraceElement element) {
         return super.isGuestCallStackElement(element);
@@ -274,6 +274,20 @@ public abstract class TruffleLanguage<C> {
          */
         boolean internal() default false;
 
+        /**
+         * Specifies whether the {@link CallTarget call targets} produced by
+         * {@link TruffleLanguage#parse(ParsingRequest) parsing} are independent of the language
+         * context they were parsed in. If <code>true</code> and the engine option
+         * <code>engine.SharedCode</code> is enabled, a call target parsed for a {@link Source} is
+         * reused by all contexts of the same engine instead of parsing the source again for each
+         * context. Languages that opt-in must not store context specific state in their ASTs and
+         * must look up the current context through a {@link TruffleLanguage#getContextReference()
+         * context reference} on each access. The default value is <code>false</code>.
+         *
+         * @since 0.32
+         */
+        boolean contextIndependentCode() default false;
+
         /**
          * Specifies a list of languages that this language depends on. Languages are referenced
          * using their {@link #id()}. This has the following effects:
@@ -641,6 +641,12 @@ public abstract class Accessor {
         return SUPPORT.callProfiled(target, args);
     }
 
+    protected void onEngineClosed(Object runtimeData) {
+        if (SUPPORT != null) {
+            SUPPORT.onEngineClosed(runtimeData);
+        }
+    }
+
     @SuppressWarnings("deprecation")
     protected void onLoopCount(Node source, int iterations) {
         if (SUPPORT != null) {
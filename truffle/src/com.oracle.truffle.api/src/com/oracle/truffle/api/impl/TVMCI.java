@@ -253,6 +253,17 @@ public abstract class TVMCI {
         }
     }
 
+    /**
+     * Reports that an engine was closed. The runtime data is the object previously created for
+     * the engine by {@link #getOrCreateRuntimeData(RootNode, Supplier)}, or <code>null</code> if
+     * the runtime never created any.
+     *
+     * @since 0.32
+     */
+    @SuppressWarnings("unused")
+    protected void onEngineClosed(Object runtimeData) {
+    }
+
     private static volatile Object fallbackEngineData;
 
     protected <T> T getOrCreateRuntimeData(RootNode rootNode, Supplier<T> constructor) {
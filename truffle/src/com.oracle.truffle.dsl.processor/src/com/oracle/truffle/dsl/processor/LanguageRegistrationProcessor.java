@@ -92,6 +92,7 @@ public final class LanguageRegistrationProcessor extends AbstractProcessor {
             }
             p.setProperty(prefix + "interactive", Boolean.toString(annotation.interactive()));
             p.setProperty(prefix + "internal", Boolean.toString(annotation.internal()));
+            p.setProperty(prefix + "contextIndependentCode", Boolean.toString(annotation.contextIndependentCode()));
         }
         if (cnt > 0) {
             try {